@@ -0,0 +1,167 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Compares the load throughput (MB/s) of the two .osm parsers of the OSM_Reader: the XMLStreamReader (cursor) parser and
+ * the XMLEventReader parser (see Frame.USE_STREAM_PARSER). Each round parses the whole file with a new OSM_Reader (see OSM_Reader.parse),
+ * which includes the collision of the map objects but not the pre-calculations that follow when a map is loaded (reachable targets, paths etc.).
+ * Both parsers must give the same map objects, targets and collision matrix. The bytes allocated by the parsing thread are counted
+ * if the JVM supports it (com.sun.management.ThreadMXBean), and the heap that is retained by the parsed reader (map objects, targets and
+ * the nodes by id, see NodeIndex) is measured after a garbage collection. The XMLStreamReader parser is also measured when it reads
+ * the file in two passes (see OSM_Reader.parseTwoPass), where only the nodes that are used are kept, which must give the same map.
+ * The file is then converted to an OSM PBF file (see PbfWriter) and the loading of that file (see PbfReader) must give the same map too,
+ * the PBF blocks are also decoded alone with one and with several threads (the decoding of the blocks is spread over the threads).
+ *
+ * A city sized file can be written with SyntheticMapWriter, e.g. java SyntheticMapWriter big.osm 430 0 1 1 (190 MB, with the metadata
+ * attributes of extracts from openstreetmap.org, add e.g. 8 to place 8 trees in each block as nodes that are not used), or a city extract
+ * can be downloaded (the bounds of the extract must be in the file).
+ *
+ * Usage: java -Djava.awt.headless=true ParserBenchmark [.osm file] [rounds]
+ *
+ * @version 18-10-2026
+ */
+public class ParserBenchmark {
+	private static final String DEFAULT_MAP = "bench/data/synthetic.osm";
+	private static final int WARMUP_ROUNDS = 1;
+	private static final int DEFAULT_ROUNDS = 3;
+
+	public static void main(String[] args) throws IOException, XMLStreamException {
+		String filename = args.length > 0 ? args[0] : DEFAULT_MAP;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+		double megabytes = new File(filename).length() / (1024.0*1024.0);
+		//Small files are parsed more times, so that the parsers are compiled and the time can be measured
+		int repeat = Math.max(1, (int)Math.ceil(16 / megabytes));
+
+		System.out.printf("Parser benchmark (%s, %.1f MB)%n", filename, megabytes);
+		boolean useStreamParser = Frame.USE_STREAM_PARSER;
+		Frame.USE_STREAM_PARSER = false;
+		String events = benchmark("XMLEventReader:           ", filename, megabytes, rounds, repeat, false);
+		Frame.USE_STREAM_PARSER = true;
+		String stream = benchmark("XMLStreamReader:          ", filename, megabytes, rounds, repeat, false);
+		String twoPass = benchmark("XMLStreamReader, 2 passes:", filename, megabytes, rounds, repeat, true);
+
+		//The same map as an OSM PBF file
+		File pbfFile = File.createTempFile("ParserBenchmark", ".osm.pbf");
+		pbfFile.deleteOnExit();
+		PbfWriter.convert(filename, pbfFile.getPath(), true);
+		double pbfMegabytes = pbfFile.length() / (1024.0*1024.0);
+		System.out.printf("  (OSM PBF file of %.1f MB, %d threads)%n", pbfMegabytes, PbfReader.DEFAULT_THREADS);
+		String pbf = benchmark("OSM PBF:                  ", pbfFile.getPath(), pbfMegabytes, rounds, repeat, false);
+		String pbfTwoPass = benchmark("OSM PBF, 2 passes:        ", pbfFile.getPath(), pbfMegabytes, rounds, repeat, true);
+		Frame.USE_STREAM_PARSER = useStreamParser;
+		for(int threads : new int[]{1, Math.max(2, PbfReader.DEFAULT_THREADS)}){
+			benchmarkDecode(pbfFile.getPath(), pbfMegabytes, rounds, repeat, threads);
+		}
+		pbfFile.delete();
+
+		System.out.println("  " + stream);
+		System.out.println("  Same map objects, targets and collision matrix: " +
+				(events.equals(stream) && stream.equals(twoPass) && stream.equals(pbf) && stream.equals(pbfTwoPass) ? "yes" : "NO"));
+	}
+
+	/**
+	 * Measures the time it takes to parse a file, the nr of bytes allocated per parse and the heap retained by the parsed reader,
+	 * with the parser chosen by Frame.USE_STREAM_PARSER.
+	 * @param label Name of the parser
+	 * @param filename Path to the .osm file
+	 * @param megabytes Size of the file (MB)
+	 * @param rounds Nr of measured rounds
+	 * @param repeat Nr of times the file is parsed per round
+	 * @param twoPass Read the file in two passes (see OSM_Reader.parseTwoPass)?
+	 * @return A summary of the parsed map (nr of map objects and targets and a hash of the collision matrix)
+	 */
+	private static String benchmark(String label, String filename, double megabytes, int rounds, int repeat, boolean twoPass) throws IOException, XMLStreamException {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		boolean countAllocations = threads instanceof com.sun.management.ThreadMXBean;
+		OSM_Reader reader = null;
+		long time = 0, allocated = 0, retained = 0;
+		for(int round = 0; round < WARMUP_ROUNDS + rounds; round++){
+			reader = null;
+			System.gc();
+			long heapBefore = getUsedHeap();
+			for(int i = 0; i < repeat; i++){
+				reader = new OSM_Reader();
+				long before = System.nanoTime();
+				long allocatedBefore = countAllocations ? ((com.sun.management.ThreadMXBean)threads).getCurrentThreadAllocatedBytes() : 0;
+				if(twoPass){
+					reader.parseTwoPass(filename);
+				}
+				else{
+					reader.parse(filename);
+				}
+				if(round >= WARMUP_ROUNDS){
+					time += System.nanoTime() - before;
+					if(countAllocations){
+						allocated += ((com.sun.management.ThreadMXBean)threads).getCurrentThreadAllocatedBytes() - allocatedBefore;
+					}
+				}
+			}
+			System.gc();
+			retained = getUsedHeap() - heapBefore;
+		}
+		double seconds = time / 1e9 / rounds / repeat;
+		System.out.printf("  %s %8.1f ms/parse, %6.1f MB/s, %8.1f MB allocated/parse, %6.1f MB retained%n", label, seconds*1000, megabytes / seconds,
+				countAllocations ? allocated / (1024.0*1024.0) / rounds / repeat : Double.NaN, retained / (1024.0*1024.0));
+		return String.format("%d ways, %d buildings, %d areas, %d non-targets, targets by type %s, collision matrix hash %08x", reader.getWays().size(),
+				reader.getBuildings().size(), reader.getAreas().size(), reader.getNonTargets().size(), Arrays.toString(countTargetsByType(reader)),
+				Arrays.deepHashCode(reader.getCollisionMatrix()));
+	}
+
+	/**
+	 * Measures the time it takes to decode the blocks of an OSM PBF file (without reading the map objects of the blocks).
+	 * @param filename Path to the .osm.pbf file
+	 * @param megabytes Size of the file (MB)
+	 * @param rounds Nr of measured rounds
+	 * @param repeat Nr of times the file is decoded per round
+	 * @param threads Nr of threads that decode the blocks
+	 */
+	private static void benchmarkDecode(String filename, double megabytes, int rounds, int repeat, int threads) throws IOException {
+		long time = 0, elements = 0;
+		for(int round = 0; round < WARMUP_ROUNDS + rounds; round++){
+			for(int i = 0; i < repeat; i++){
+				long before = System.nanoTime();
+				PbfReader pbf = new PbfReader(filename, true, true, threads);
+				long count = 0;
+				try{
+					PbfReader.Block block;
+					while((block = pbf.next()) != null){
+						count += block.nrOfNodes + block.nrOfWays;
+					}
+				}
+				finally{
+					pbf.close();
+				}
+				if(round >= WARMUP_ROUNDS){
+					time += System.nanoTime() - before;
+					elements = count;
+				}
+			}
+		}
+		double seconds = time / 1e9 / rounds / repeat;
+		System.out.printf("  PBF blocks, %2d threads:    %8.1f ms/decode, %6.1f MB/s, %d nodes and ways%n", threads, seconds*1000, megabytes / seconds, elements);
+	}
+
+	/**
+	 * Returns the nr of targets of each type that a reader has found.
+	 * @param reader The reader
+	 */
+	private static int[] countTargetsByType(OSM_Reader reader){
+		int[] counts = new int[reader.getTargets().size()];
+		for(int i = 0; i < counts.length; i++){
+			counts[i] = reader.getTargets().get(i).size();
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the nr of bytes of the heap that are in use.
+	 */
+	private static long getUsedHeap(){
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+}
@@ -0,0 +1,456 @@
+import java.util.Random;
+
+/**
+ * Compares the flat A* of the Pathfinder (with and without Jump Point Search, and with the landmark heuristic, see Landmarks)
+ * with the HierarchicalPathfinder (HPA*) on the same queries, including the nr of tiles that A* expands per query.
+ * The collision matrix of a loaded map is repeated to make larger matrices (e.g. scale 10 turns 200x200 into 2000x2000),
+ * and the same random queries between walkable tiles are given to both pathfinders. For HPA* the time until the first segment
+ * is refined (when a pedestrian can start walking) and the time to refine the whole path are measured. Finally each path is searched with
+ * the IncrementalPathfinder (D* Lite), 3x3 tiles in its middle are closed and the time to repair the path is compared with a new A* search,
+ * also when the IncrementalPathfinder is shared by SHARED_PEDESTRIANS pedestrians that start close to each other and walk to the same target
+ * and tiles on their paths are closed REPAIR_ROUNDS times.
+ * Bidirectional A* (with and without landmarks) is compared with A* separately on short routes and on long routes between opposite edges
+ * of the map, and the costs of its paths with the cheapest paths (found by A* with landmarks).
+ *
+ * Usage: java -Djava.awt.headless=true PathfinderBenchmark [.osm file] [scales, e.g. 1,10] [queries per scale]
+ * (must be run from a directory that contains data/icons/, see bench/run.sh, large scales need a larger heap, e.g. JAVA_OPTS=-Xmx3g)
+ *
+ * @version 18-10-2026
+ */
+public class PathfinderBenchmark {
+	private static final String DEFAULT_MAP = "bench/data/synthetic.osm";
+	private static final int[] DEFAULT_SCALES = {1, 5};
+	private static final int DEFAULT_QUERIES  = 200;
+	private static final int WARMUP_QUERIES   = 50;
+	private static final int SHARED_PEDESTRIANS = 16;	//Pedestrians that share an IncrementalPathfinder (see TileEdits)
+	private static final int REPAIR_ROUNDS = 3;			//Nr of times that tiles on the paths to the same target are closed
+
+	public static void main(String[] args){
+		String filename = args.length > 0 ? args[0] : DEFAULT_MAP;
+		int[] scales = args.length > 1 ? parseList(args[1]) : DEFAULT_SCALES;
+		int queries  = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_QUERIES;
+
+		System.out.println("Pathfinder benchmark (" + filename + ")");
+		OSM_Reader reader = new OSM_Reader();
+		reader.setFilename(filename);
+		reader.doInBackground();
+		for(int scale : scales){
+			benchmark(repeat(reader.getCollisionMatrix(), scale), queries);
+		}
+	}
+
+	/**
+	 * Parses a comma separated list of integers.
+	 * @param list List to parse (e.g. 1,10)
+	 * @return The integers
+	 */
+	private static int[] parseList(String list){
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for(int i = 0; i < parts.length; i++){
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+		return values;
+	}
+
+	/**
+	 * Repeats a collision matrix scale x scale times.
+	 * @param matrix Matrix to repeat
+	 * @param scale Nr of repetitions along each side
+	 * @return The larger matrix
+	 */
+	private static int[][] repeat(int[][] matrix, int scale){
+		int[][] result = new int[matrix.length*scale][matrix[0].length*scale];
+		for(int x = 0; x < result.length; x++){
+			for(int y = 0; y < result[0].length; y++){
+				result[x][y] = matrix[x % matrix.length][y % matrix[0].length];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cost of a path (same costs as the Pathfinder).
+	 */
+	private static long cost(int[][] matrix, CompactPath path){
+		int x = path.getStartX(), y = path.getStartY();
+		long cost = 0;
+		for(int i = 0; i < path.getLength(); i++){
+			x += path.getDeltaX(i);
+			y += path.getDeltaY(i);
+			cost += (path.getDeltaX(i) != 0 && path.getDeltaY(i) != 0 ? 7 : 5) + matrix[x][y];
+		}
+		return cost;
+	}
+
+	/**
+	 * Runs the same random queries with both pathfinders and prints the results.
+	 * @param matrix Collision matrix to search in
+	 * @param queries Nr of measured queries
+	 */
+	private static void benchmark(int[][] matrix, int queries){
+		long before = System.nanoTime();
+		HierarchicalPathfinder hierarchical = new HierarchicalPathfinder(matrix, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+		long buildTime = System.nanoTime() - before;
+		boolean useJumpPoints = Frame.USE_JUMP_POINT_SEARCH;
+		Frame.USE_JUMP_POINT_SEARCH = false;
+		Pathfinder pathfinder = new Pathfinder(matrix);
+		Frame.USE_JUMP_POINT_SEARCH = true;
+		Pathfinder jumpPathfinder = new Pathfinder(matrix);
+		before = System.nanoTime();
+		Landmarks landmarks = new Landmarks(matrix, Landmarks.DEFAULT_NR_OF_LANDMARKS);
+		long landmarkBuildTime = System.nanoTime() - before;
+		Pathfinder landmarkPathfinder = new Pathfinder(matrix, landmarks);
+		Frame.USE_JUMP_POINT_SEARCH = useJumpPoints;
+
+		//Random queries between walkable tiles
+		Random rand = new Random(1);
+		int total = WARMUP_QUERIES + queries;
+		int[][] query = new int[total][4];
+		for(int i = 0; i < total; i++){
+			for(int j = 0; j < 4; j += 2){
+				do{
+					query[i][j]   = rand.nextInt(matrix.length-1);
+					query[i][j+1] = rand.nextInt(matrix[0].length-1);
+				}while(matrix[query[i][j]][query[i][j+1]] == Integer.MAX_VALUE);
+			}
+		}
+
+		long flatTime = 0, jumpTime = 0, landmarkTime = 0, firstTime = 0, refineTime = 0, flatCost = 0, jumpCost = 0, landmarkCost = 0, hierarchicalCost = 0;
+		long flatExpansions = 0, jumpExpansions = 0, landmarkExpansions = 0;
+		int found = 0, mismatches = 0;
+		for(int i = 0; i < total; i++){
+			int[] q = query[i];
+			if(i == WARMUP_QUERIES){
+				flatExpansions     = pathfinder.getExpansions();
+				jumpExpansions     = jumpPathfinder.getExpansions();
+				landmarkExpansions = landmarkPathfinder.getExpansions();
+			}
+			before = System.nanoTime();
+			CompactPath flat = pathfinder.findPath(q[0], q[1], q[2], q[3]);
+			long flatQuery = System.nanoTime() - before;
+
+			before = System.nanoTime();
+			CompactPath jump = jumpPathfinder.findPath(q[0], q[1], q[2], q[3]);
+			long jumpQuery = System.nanoTime() - before;
+
+			before = System.nanoTime();
+			CompactPath landmark = landmarkPathfinder.findPath(q[0], q[1], q[2], q[3]);
+			long landmarkQuery = System.nanoTime() - before;
+
+			before = System.nanoTime();
+			HierarchicalPath path = hierarchical.findPath(q[0], q[1], q[2], q[3]);
+			if(path != null && path.getNrOfSegments() > 0){
+				path.getSegment(0);
+			}
+			long firstQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			CompactPath refined = path != null ? path.toCompactPath() : null;
+			long refineQuery = System.nanoTime() - before;
+
+			if(i < WARMUP_QUERIES){
+				continue;
+			}
+			flatTime     += flatQuery;
+			jumpTime     += jumpQuery;
+			landmarkTime += landmarkQuery;
+			firstTime    += firstQuery;
+			refineTime   += firstQuery + refineQuery;
+			if((flat == null) != (refined == null) || (flat == null) != (jump == null) || (flat == null) != (landmark == null)){
+				mismatches++;
+			}
+			else if(flat != null){
+				found++;
+				flatCost         += cost(matrix, flat);
+				jumpCost         += cost(matrix, jump);
+				landmarkCost     += cost(matrix, landmark);
+				hierarchicalCost += cost(matrix, refined);
+			}
+		}
+		flatExpansions     = pathfinder.getExpansions() - flatExpansions;
+		jumpExpansions     = jumpPathfinder.getExpansions() - jumpExpansions;
+		landmarkExpansions = landmarkPathfinder.getExpansions() - landmarkExpansions;
+
+		System.out.printf("%dx%d tiles: HPA* graph %d nodes, %d edges, built in %.0f ms%n",
+				matrix.length, matrix[0].length, hierarchical.getNrOfNodes(), hierarchical.getNrOfEdges(), buildTime / 1e6);
+		System.out.printf("  Landmarks: %d landmarks (%d bytes), calculated in %.0f ms%n", landmarks.getNrOfLandmarks(), landmarks.getMemorySize(), landmarkBuildTime / 1e6);
+		System.out.printf("  A*:                   %8.3f ms/query, %6d expanded tiles/query%n", flatTime / 1e6 / queries, flatExpansions / queries);
+		System.out.printf("  A* with JPS:          %8.3f ms/query, %6d expanded tiles/query%n", jumpTime / 1e6 / queries, jumpExpansions / queries);
+		System.out.printf("  A* with JPS and ALT:  %8.3f ms/query, %6d expanded tiles/query%n", landmarkTime / 1e6 / queries, landmarkExpansions / queries);
+		System.out.printf("  HPA* (first segment): %8.3f ms/query%n", firstTime / 1e6 / queries);
+		System.out.printf("  HPA* (whole path):    %8.3f ms/query%n", refineTime / 1e6 / queries);
+		System.out.printf("  %d/%d found by all (%d not found by all), JPS paths cost %.1f%% more, ALT paths cost %.1f%% more, HPA* paths cost %.1f%% more%n",
+				found, queries, mismatches, found > 0 ? 100.0*(jumpCost - flatCost) / flatCost : 0.0, found > 0 ? 100.0*(landmarkCost - flatCost) / flatCost : 0.0,
+				found > 0 ? 100.0*(hierarchicalCost - flatCost) / flatCost : 0.0);
+
+		//Repair of each path after 3x3 tiles in its middle have been closed (D* Lite) compared with a new A* search
+		IncrementalPathfinder incremental = new IncrementalPathfinder(matrix, landmarks);
+		long initialTime = 0, repairTime = 0, researchTime = 0;
+		int repaired = 0;
+		int[] oldCost = new int[9];
+		for(int i = 0; i < total; i++){
+			int[] q = query[i];
+			incremental.setGoal(q[2], q[3]);
+			before = System.nanoTime();
+			CompactPath path = incremental.findPath(q[0], q[1]);
+			long initialQuery = System.nanoTime() - before;
+			if(path == null){
+				continue;
+			}
+			int x = path.getStartX(), y = path.getStartY();
+			for(int step = 0; step < path.getLength()/2; step++){
+				x += path.getDeltaX(step);
+				y += path.getDeltaY(step);
+			}
+			//The closed tiles must not contain the start or goal, and must be inside of the matrix
+			if(Math.max(Math.abs(x - q[0]), Math.abs(y - q[1])) < 2 || Math.max(Math.abs(x - q[2]), Math.abs(y - q[3])) < 2
+					|| x < 1 || y < 1 || x >= matrix.length-1 || y >= matrix[0].length-1){
+				continue;
+			}
+			before = System.nanoTime();
+			for(int j = 0; j < 9; j++){
+				oldCost[j] = matrix[x-1 + j/3][y-1 + j%3];
+				matrix[x-1 + j/3][y-1 + j%3] = Integer.MAX_VALUE;
+				incremental.updateTile(x-1 + j/3, y-1 + j%3);
+			}
+			incremental.findPath(q[0], q[1]);
+			long repairQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			pathfinder.findPath(q[0], q[1], q[2], q[3]);
+			long researchQuery = System.nanoTime() - before;
+			for(int j = 0; j < 9; j++){
+				matrix[x-1 + j/3][y-1 + j%3] = oldCost[j];
+			}
+
+			if(i < WARMUP_QUERIES){
+				continue;
+			}
+			initialTime  += initialQuery;
+			repairTime   += repairQuery;
+			researchTime += researchQuery;
+			repaired++;
+		}
+		if(repaired > 0){
+			System.out.printf("  D* Lite:              %8.3f ms/query, %.3f ms/repair after closing 3x3 tiles on the path (A* again: %.3f ms, %d paths)%n",
+					initialTime / 1e6 / repaired, repairTime / 1e6 / repaired, researchTime / 1e6 / repaired, repaired);
+		}
+		benchmarkSharedRepair(matrix, pathfinder, incremental, queries);
+
+		//Bidirectional A* on short routes (inside of a square an eighth of the map wide) and long routes (between opposite edges of the map)
+		benchmarkBidirectional(matrix, pathfinder, jumpPathfinder, landmarkPathfinder, queries, false);
+		benchmarkBidirectional(matrix, pathfinder, jumpPathfinder, landmarkPathfinder, queries, true);
+	}
+
+	/**
+	 * Searches the paths of SHARED_PEDESTRIANS pedestrians around a random tile to a random target with one IncrementalPathfinder,
+	 * closes 3x3 tiles on the path of the first pedestrian REPAIR_ROUNDS times (after a quarter, half and three quarters of its length)
+	 * and repairs the paths that pass them each time, and compares both with A*. The first search of the IncrementalPathfinder
+	 * is slower than A* on large maps, which only pays off if the paths to a target are repaired again and again (see TileEdits.addPathfinder).
+	 * @param matrix Collision matrix to search in
+	 * @param pathfinder Pathfinder to compare with
+	 * @param incremental IncrementalPathfinder of the matrix
+	 * @param queries Nr of measured queries (a tenth of them are measured targets)
+	 */
+	private static void benchmarkSharedRepair(int[][] matrix, Pathfinder pathfinder, IncrementalPathfinder incremental, int queries){
+		Random rand = new Random(3);
+		int width  = matrix.length-1;
+		int height = matrix[0].length-1;
+		int warmup = WARMUP_QUERIES / 10, targets = Math.max(queries / 10, 1);
+		long searchTime = 0, flatTime = 0;
+		long[] repairTime   = new long[REPAIR_ROUNDS];
+		long[] researchTime = new long[REPAIR_ROUNDS];
+		int measured = 0, invalidated = 0;
+		int[][] start = new int[SHARED_PEDESTRIANS][2];
+		CompactPath[] paths = new CompactPath[SHARED_PEDESTRIANS];
+		for(int i = 0; i < warmup + targets; i++){
+			int targetX, targetY, centerX, centerY;
+			do{
+				targetX = rand.nextInt(width);
+				targetY = rand.nextInt(height);
+			}while(matrix[targetX][targetY] == Integer.MAX_VALUE);
+			do{
+				centerX = rand.nextInt(width);
+				centerY = rand.nextInt(height);
+			}while(matrix[centerX][centerY] == Integer.MAX_VALUE);
+			for(int j = 0; j < SHARED_PEDESTRIANS; j++){
+				do{
+					start[j][0] = Math.max(0, Math.min(width-1, centerX - 15 + rand.nextInt(31)));
+					start[j][1] = Math.max(0, Math.min(height-1, centerY - 15 + rand.nextInt(31)));
+				}while(matrix[start[j][0]][start[j][1]] == Integer.MAX_VALUE);
+			}
+
+			long before = System.nanoTime();
+			incremental.setGoal(targetX, targetY);
+			for(int j = 0; j < SHARED_PEDESTRIANS; j++){
+				paths[j] = incremental.findPath(start[j][0], start[j][1]);
+			}
+			long searchQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			for(int j = 0; j < SHARED_PEDESTRIANS; j++){
+				pathfinder.findPath(start[j][0], start[j][1], targetX, targetY);
+			}
+			long flatQuery = System.nanoTime() - before;
+			if(paths[0] == null){
+				continue;
+			}
+			//Close 3x3 tiles at REPAIR_ROUNDS places along the path of the first pedestrian, one after another
+			int length = paths[0].getLength();
+			long[] repairQuery   = new long[REPAIR_ROUNDS];
+			long[] researchQuery = new long[REPAIR_ROUNDS];
+			int nrOfPassing = 0, nrOfClosed = 0;
+			int[] closed = new int[REPAIR_ROUNDS*9*3];	//x, y and old cost of each closed tile
+			for(int round = 0; round < REPAIR_ROUNDS && paths[0] != null; round++){
+				int x = paths[0].getStartX(), y = paths[0].getStartY();
+				for(int step = 0; step < Math.min(length*(round+1)/(REPAIR_ROUNDS+1), paths[0].getLength()); step++){
+					x += paths[0].getDeltaX(step);
+					y += paths[0].getDeltaY(step);
+				}
+				//The closed tiles must not contain the target, and must be inside of the matrix
+				if(Math.max(Math.abs(x - targetX), Math.abs(y - targetY)) < 2 || x < 1 || y < 1 || x >= width || y >= height){
+					break;
+				}
+				boolean[] passes = new boolean[SHARED_PEDESTRIANS];
+				for(int j = 0; j < SHARED_PEDESTRIANS; j++){
+					passes[j] = paths[j] != null && passesSquare(paths[j], x, y) && Math.max(Math.abs(x - start[j][0]), Math.abs(y - start[j][1])) >= 2;
+					nrOfPassing += passes[j] ? 1 : 0;
+				}
+
+				before = System.nanoTime();
+				for(int j = 0; j < 9; j++){
+					closed[nrOfClosed++] = x-1 + j/3;
+					closed[nrOfClosed++] = y-1 + j%3;
+					closed[nrOfClosed++] = matrix[x-1 + j/3][y-1 + j%3];
+					matrix[x-1 + j/3][y-1 + j%3] = Integer.MAX_VALUE;
+					incremental.updateTile(x-1 + j/3, y-1 + j%3);
+				}
+				for(int j = 0; j < SHARED_PEDESTRIANS; j++){
+					if(passes[j]){
+						paths[j] = incremental.findPath(start[j][0], start[j][1]);
+					}
+				}
+				repairQuery[round] = System.nanoTime() - before;
+				before = System.nanoTime();
+				for(int j = 0; j < SHARED_PEDESTRIANS; j++){
+					if(passes[j]){
+						pathfinder.findPath(start[j][0], start[j][1], targetX, targetY);
+					}
+				}
+				researchQuery[round] = System.nanoTime() - before;
+			}
+			//Open the tiles again (in reverse order, a tile may have been closed twice)
+			for(int j = nrOfClosed-3; j >= 0; j -= 3){
+				matrix[closed[j]][closed[j+1]] = closed[j+2];
+				incremental.updateTile(closed[j], closed[j+1]);
+			}
+
+			if(i < warmup || nrOfClosed < REPAIR_ROUNDS*9*3){
+				continue;
+			}
+			searchTime   += searchQuery;
+			flatTime     += flatQuery;
+			for(int round = 0; round < REPAIR_ROUNDS; round++){
+				repairTime[round]   += repairQuery[round];
+				researchTime[round] += researchQuery[round];
+			}
+			invalidated  += nrOfPassing;
+			measured++;
+		}
+		if(measured > 0){
+			StringBuilder repairs = new StringBuilder();
+			for(int round = 0; round < REPAIR_ROUNDS; round++){
+				repairs.append(String.format("%s%.3f ms (A* again: %.3f ms)", round > 0 ? ", " : "", repairTime[round] / 1e6 / measured, researchTime[round] / 1e6 / measured));
+			}
+			System.out.printf("  D* Lite (%d pedestrians to the same target): %.3f ms to search all paths (A*: %.3f ms), %.1f paths repaired after each of %d closings of 3x3 tiles: %s%n",
+					SHARED_PEDESTRIANS, searchTime / 1e6 / measured, flatTime / 1e6 / measured,
+					invalidated / (double)measured / REPAIR_ROUNDS, REPAIR_ROUNDS, repairs);
+		}
+	}
+
+	/**
+	 * Checks if a path passes any of the 3x3 tiles around a tile.
+	 */
+	private static boolean passesSquare(CompactPath path, int centerX, int centerY){
+		int x = path.getStartX(), y = path.getStartY();
+		for(int i = 0; i < path.getLength(); i++){
+			x += path.getDeltaX(i);
+			y += path.getDeltaY(i);
+			if(Math.abs(x - centerX) <= 1 && Math.abs(y - centerY) <= 1){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs random queries with A* (with and without Jump Point Search) and bidirectional A* (with and without landmarks) and prints the results.
+	 * @param matrix Collision matrix to search in
+	 * @param pathfinder Pathfinder without Jump Point Search
+	 * @param jumpPathfinder Pathfinder with Jump Point Search
+	 * @param landmarkPathfinder Pathfinder with Jump Point Search and landmarks (finds the cheapest paths)
+	 * @param queries Nr of measured queries
+	 * @param longRoutes Between opposite edges of the map (left and right tenth) instead of short routes
+	 */
+	private static void benchmarkBidirectional(int[][] matrix, Pathfinder pathfinder, Pathfinder jumpPathfinder, Pathfinder landmarkPathfinder,
+			int queries, boolean longRoutes){
+		Random rand = new Random(2);
+		int width  = matrix.length-1;
+		int height = matrix[0].length-1;
+		int range  = Math.max(width / 8, 2);
+		long flatTime = 0, jumpTime = 0, bidirectionalTime = 0, landmarkTime = 0, landmarkBidirectionalTime = 0;
+		long cheapestCost = 0, bidirectionalCost = 0, landmarkBidirectionalCost = 0;
+		int found = 0, mismatches = 0;
+		//The bidirectional search is first run here, the short routes are too short to compile it with the usual warmup
+		int warmup = longRoutes ? WARMUP_QUERIES : 10*WARMUP_QUERIES;
+		for(int i = 0; i < warmup + queries; i++){
+			int startX, startY, targetX, targetY;
+			do{
+				startX = longRoutes ? rand.nextInt(Math.max(width / 10, 1)) : rand.nextInt(width);
+				startY = rand.nextInt(height);
+			}while(matrix[startX][startY] == Integer.MAX_VALUE);
+			do{
+				targetX = longRoutes ? width-1 - rand.nextInt(Math.max(width / 10, 1)) : Math.max(0, Math.min(width-1, startX - range/2 + rand.nextInt(range)));
+				targetY = longRoutes ? rand.nextInt(height) : Math.max(0, Math.min(height-1, startY - range/2 + rand.nextInt(range)));
+			}while(matrix[targetX][targetY] == Integer.MAX_VALUE);
+
+			long before = System.nanoTime();
+			CompactPath flat = pathfinder.findPath(startX, startY, targetX, targetY);
+			long flatQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			jumpPathfinder.findPath(startX, startY, targetX, targetY);
+			long jumpQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			CompactPath bidirectional = pathfinder.findPath(startX, startY, targetX, targetY, true);
+			long bidirectionalQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			CompactPath cheapest = landmarkPathfinder.findPath(startX, startY, targetX, targetY);
+			long landmarkQuery = System.nanoTime() - before;
+			before = System.nanoTime();
+			CompactPath landmarkBidirectional = landmarkPathfinder.findPath(startX, startY, targetX, targetY, true);
+			long landmarkBidirectionalQuery = System.nanoTime() - before;
+
+			if(i < warmup){
+				continue;
+			}
+			flatTime          += flatQuery;
+			jumpTime          += jumpQuery;
+			bidirectionalTime += bidirectionalQuery;
+			landmarkTime      += landmarkQuery;
+			landmarkBidirectionalTime += landmarkBidirectionalQuery;
+			if((flat == null) != (bidirectional == null) || (flat == null) != (cheapest == null) || (flat == null) != (landmarkBidirectional == null)){
+				mismatches++;
+			}
+			else if(flat != null){
+				found++;
+				cheapestCost      += cost(matrix, cheapest);
+				bidirectionalCost += cost(matrix, bidirectional);
+				landmarkBidirectionalCost += cost(matrix, landmarkBidirectional);
+			}
+		}
+		System.out.printf("  %s routes: A* %.3f ms/query, A* with JPS %.3f ms/query, bidirectional A* %.3f ms/query (paths cost %.1f%% more than the cheapest, %d not found by all)%n",
+				longRoutes ? "Long " : "Short", flatTime / 1e6 / queries, jumpTime / 1e6 / queries, bidirectionalTime / 1e6 / queries,
+				found > 0 ? 100.0*(bidirectionalCost - cheapestCost) / cheapestCost : 0.0, mismatches);
+		System.out.printf("               with landmarks: A* with JPS %.3f ms/query, bidirectional A* %.3f ms/query (paths cost %.1f%% more than the cheapest)%n",
+				landmarkTime / 1e6 / queries, landmarkBidirectionalTime / 1e6 / queries,
+				found > 0 ? 100.0*(landmarkBidirectionalCost - cheapestCost) / cheapestCost : 0.0);
+	}
+}
@@ -0,0 +1,342 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Converts an .osm file to an OSM PBF file (.osm.pbf) that can be loaded by the OSM_Reader (see PbfReader), so that the same map can be
+ * loaded from both formats (see ParserBenchmark). The bounds, the nodes (positions and tags) and the ways (node references and tags) are
+ * written, the metadata of the elements and the relations are not. Each block holds up to 8000 nodes or ways and is compressed with zlib,
+ * the nodes are written as dense nodes unless told otherwise.
+ *
+ * Usage: java PbfWriter <.osm file> <.osm.pbf file> [dense nodes, 0 or 1]
+ *
+ * @version 18-10-2026
+ */
+public class PbfWriter {
+	private static final int BLOCK_SIZE  = 8000;	//Max nr of elements per block
+	private static final int GRANULARITY = 100;		//Nanodegrees per unit of position (the default of the format)
+
+	private DataOutputStream out;
+	private boolean dense = true;
+
+	//Elements of the block that is written (either nodes or ways)
+	private HashMap<String,Integer> strings = new HashMap<String,Integer>();
+	private ArrayList<String> stringTable = new ArrayList<String>(Arrays.asList(""));	//Index 0 is the empty string, which ends the tags of a dense node
+	private ArrayList<long[]> elements = new ArrayList<long[]>();	//Id, lat and lon of a node or id and references of a way
+	private ArrayList<int[]> elementTags = new ArrayList<int[]>();	//Keys and values (string indices) of each element
+	private boolean blockHasWays = false;
+
+	public static void main(String[] args) throws IOException, XMLStreamException {
+		if(args.length < 2){
+			System.err.println("Usage: java PbfWriter <.osm file> <.osm.pbf file> [dense nodes, 0 or 1]");
+			System.exit(1);
+		}
+		boolean dense = args.length <= 2 || Integer.parseInt(args[2]) != 0;
+		convert(args[0], args[1], dense);
+	}
+
+	/**
+	 * Converts an .osm file to an .osm.pbf file.
+	 * @param osmFile The .osm file (must have bounds)
+	 * @param pbfFile The .osm.pbf file to write
+	 * @param dense Write the nodes as dense nodes?
+	 */
+	public static void convert(String osmFile, String pbfFile, boolean dense) throws IOException, XMLStreamException {
+		PbfWriter writer = new PbfWriter();
+		writer.dense = dense;
+		InputStream in = new FileInputStream(osmFile);
+		writer.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(pbfFile), 1 << 16));
+		try{
+			writer.convert(XMLInputFactory.newInstance().createXMLStreamReader(in));
+		}
+		finally{
+			in.close();
+			writer.out.close();
+		}
+	}
+
+	/**
+	 * Reads the elements of the .osm data and writes them in blocks.
+	 * @param reader Reader of the .osm data
+	 */
+	private void convert(XMLStreamReader reader) throws IOException, XMLStreamException {
+		long[] element = null;
+		ArrayList<String> tags = new ArrayList<String>();
+		int nrOfRefs = 0;
+		while(reader.hasNext()){
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT){
+				String name = reader.getLocalName();
+				if(name.equals("bounds")){
+					writeHeader(toNano(reader.getAttributeValue(null, "minlat")), toNano(reader.getAttributeValue(null, "minlon")),
+							toNano(reader.getAttributeValue(null, "maxlat")), toNano(reader.getAttributeValue(null, "maxlon")));
+				}
+				else if(name.equals("node") || name.equals("way")){
+					boolean way = name.equals("way");
+					if(elements.size() == BLOCK_SIZE || (!elements.isEmpty() && blockHasWays != way)){
+						writeBlock();
+					}
+					blockHasWays = way;
+					element = new long[way ? 16 : 3];
+					element[0] = Long.parseLong(reader.getAttributeValue(null, "id"));
+					if(!way){
+						element[1] = toNano(reader.getAttributeValue(null, "lat")) / GRANULARITY;
+						element[2] = toNano(reader.getAttributeValue(null, "lon")) / GRANULARITY;
+					}
+					nrOfRefs = 0;
+					tags.clear();
+				}
+				else if(name.equals("nd") && element != null){
+					if(1 + nrOfRefs == element.length){
+						element = Arrays.copyOf(element, 2*element.length);
+					}
+					element[1 + nrOfRefs++] = Long.parseLong(reader.getAttributeValue(null, "ref"));
+				}
+				else if(name.equals("tag") && element != null){
+					tags.add(reader.getAttributeValue(null, "k"));
+					tags.add(reader.getAttributeValue(null, "v"));
+				}
+			}
+			else if(event == XMLStreamConstants.END_ELEMENT && element != null){
+				String name = reader.getLocalName();
+				if(name.equals("node") || name.equals("way")){
+					elements.add(name.equals("way") ? Arrays.copyOf(element, 1 + nrOfRefs) : element);
+					int[] tagIndices = new int[tags.size()];
+					for(int i = 0; i < tagIndices.length; i++){
+						tagIndices[i] = getString(tags.get(i));
+					}
+					elementTags.add(tagIndices);
+					element = null;
+				}
+			}
+		}
+		if(!elements.isEmpty()){
+			writeBlock();
+		}
+		reader.close();
+	}
+
+	/**
+	 * Returns the index of a string in the string table of the block.
+	 * @param s The string
+	 */
+	private int getString(String s){
+		Integer index = strings.get(s);
+		if(index == null){
+			index = stringTable.size();
+			strings.put(s, index);
+			stringTable.add(s);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns a coordinate in nanodegrees.
+	 * @param degrees The coordinate in degrees (as written in the .osm file)
+	 */
+	private static long toNano(String degrees){
+		return Math.round(Double.parseDouble(degrees) * 1e7) * 100;
+	}
+
+	/**
+	 * Writes a blob (zlib compressed) with its header.
+	 * @param type Type of the blob ("OSMHeader" or "OSMData")
+	 * @param data The message of the blob
+	 */
+	private void writeBlob(String type, byte[] data) throws IOException {
+		Deflater deflater = new Deflater();
+		deflater.setInput(data);
+		deflater.finish();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 16];
+		while(!deflater.finished()){
+			compressed.write(buffer, 0, deflater.deflate(buffer));
+		}
+		deflater.end();
+
+		Message blob = new Message();
+		blob.writeVarint(2, data.length);
+		blob.writeBytes(3, compressed.toByteArray());
+		byte[] blobBytes = blob.toByteArray();
+
+		Message header = new Message();
+		header.writeBytes(1, type.getBytes(StandardCharsets.UTF_8));
+		header.writeVarint(3, blobBytes.length);
+		byte[] headerBytes = header.toByteArray();
+
+		out.writeInt(headerBytes.length);
+		out.write(headerBytes);
+		out.write(blobBytes);
+	}
+
+	/**
+	 * Writes the elements of the block (nodes or ways) and starts a new block.
+	 */
+	private void writeBlock() throws IOException {
+		Message group = new Message();
+		if(!blockHasWays && dense){
+			Message ids = new Message(), lats = new Message(), lons = new Message(), keysVals = new Message();
+			long lastId = 0, lastLat = 0, lastLon = 0;
+			for(int i = 0; i < elements.size(); i++){
+				long[] node = elements.get(i);
+				ids.writeSigned(node[0] - lastId);
+				lats.writeSigned(node[1] - lastLat);
+				lons.writeSigned(node[2] - lastLon);
+				lastId = node[0]; lastLat = node[1]; lastLon = node[2];
+				for(int tag : elementTags.get(i)){
+					keysVals.writeRawVarint(tag);
+				}
+				keysVals.writeRawVarint(0);
+			}
+			Message denseNodes = new Message();
+			denseNodes.writeBytes(1, ids.toByteArray());
+			denseNodes.writeBytes(8, lats.toByteArray());
+			denseNodes.writeBytes(9, lons.toByteArray());
+			denseNodes.writeBytes(10, keysVals.toByteArray());
+			group.writeBytes(2, denseNodes.toByteArray());
+		}
+		else{
+			for(int i = 0; i < elements.size(); i++){
+				long[] element = elements.get(i);
+				int[] tags = elementTags.get(i);
+				Message keys = new Message(), values = new Message();
+				for(int t = 0; t+1 < tags.length; t += 2){
+					keys.writeRawVarint(tags[t]);
+					values.writeRawVarint(tags[t+1]);
+				}
+				Message message = new Message();
+				if(blockHasWays){
+					message.writeVarint(1, element[0]);
+					message.writeBytes(2, keys.toByteArray());
+					message.writeBytes(3, values.toByteArray());
+					Message refs = new Message();
+					long lastRef = 0;
+					for(int r = 1; r < element.length; r++){
+						refs.writeSigned(element[r] - lastRef);
+						lastRef = element[r];
+					}
+					message.writeBytes(8, refs.toByteArray());
+					group.writeBytes(3, message.toByteArray());
+				}
+				else{
+					message.writeTag(1, 0);
+					message.writeSigned(element[0]);
+					message.writeBytes(2, keys.toByteArray());
+					message.writeBytes(3, values.toByteArray());
+					message.writeTag(8, 0);
+					message.writeSigned(element[1]);
+					message.writeTag(9, 0);
+					message.writeSigned(element[2]);
+					group.writeBytes(1, message.toByteArray());
+				}
+			}
+		}
+
+		Message table = new Message();
+		for(String s : stringTable){
+			table.writeBytes(1, s.getBytes(StandardCharsets.UTF_8));
+		}
+		Message block = new Message();
+		block.writeBytes(1, table.toByteArray());
+		block.writeBytes(2, group.toByteArray());
+		block.writeVarint(17, GRANULARITY);
+		writeBlob("OSMData", block.toByteArray());
+
+		strings.clear();
+		stringTable.subList(1, stringTable.size()).clear();
+		elements.clear();
+		elementTags.clear();
+	}
+
+	/**
+	 * Writes the header blob with the bounding box.
+	 * @param minlat Latitude of the southern edge (nanodegrees)
+	 * @param minlon Longitude of the western edge (nanodegrees)
+	 * @param maxlat Latitude of the northern edge (nanodegrees)
+	 * @param maxlon Longitude of the eastern edge (nanodegrees)
+	 */
+	private void writeHeader(long minlat, long minlon, long maxlat, long maxlon) throws IOException {
+		Message bbox = new Message();
+		bbox.writeTag(1, 0); bbox.writeSigned(minlon);
+		bbox.writeTag(2, 0); bbox.writeSigned(maxlon);
+		bbox.writeTag(3, 0); bbox.writeSigned(maxlat);
+		bbox.writeTag(4, 0); bbox.writeSigned(minlat);
+		Message header = new Message();
+		header.writeBytes(1, bbox.toByteArray());
+		header.writeBytes(4, "OsmSchema-V0.6".getBytes(StandardCharsets.UTF_8));
+		if(dense){
+			header.writeBytes(4, "DenseNodes".getBytes(StandardCharsets.UTF_8));
+		}
+		header.writeBytes(16, "PbfWriter".getBytes(StandardCharsets.UTF_8));
+		writeBlob("OSMHeader", header.toByteArray());
+	}
+
+	/**
+	 * A protocol buffer message (or packed array) that is written to memory.
+	 */
+	private static class Message extends ByteArrayOutputStream {
+		/**
+		 * Writes a length delimited field.
+		 * @param field Field nr
+		 * @param bytes Value
+		 */
+		void writeBytes(int field, byte[] bytes){
+			writeTag(field, 2);
+			writeRawVarint(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+
+		/**
+		 * Writes a varint without a field key (e.g. in a packed array).
+		 * @param value Value
+		 */
+		void writeRawVarint(long value){
+			while((value & ~0x7FL) != 0){
+				write((int)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int)value);
+		}
+
+		/**
+		 * Writes a zigzag encoded varint (sint64) without a field key.
+		 * @param value Value
+		 */
+		void writeSigned(long value){
+			writeRawVarint((value << 1) ^ (value >> 63));
+		}
+
+		/**
+		 * Writes the key of a field.
+		 * @param field Field nr
+		 * @param wireType Wire type
+		 */
+		void writeTag(int field, int wireType){
+			writeRawVarint(field << 3 | wireType);
+		}
+
+		/**
+		 * Writes a varint field.
+		 * @param field Field nr
+		 * @param value Value
+		 */
+		void writeVarint(int field, long value){
+			writeTag(field, 0);
+			writeRawVarint(value);
+		}
+	}
+}
@@ -0,0 +1,244 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Benchmark for the hot spots of the simulator, run headless on a bundled synthetic map (see SyntheticMapWriter).
+ * Measures:
+ * - Map loading (OSM_Reader.doInBackground, i.e. parsing, collision calculation and pre-calculation of target paths),
+ *   and loading of the compiled map that is written after the first load (see CompiledMap)
+ * - Collision matrix build time (calculateCollision of all ways, buildings and areas on an empty matrix)
+ * - A* queries per second (Pathfinder.findPath between random targets)
+ * - Simulation ticks per second for different population sizes (SimulationEngine.step), sequential and parallel,
+ *   with paths searched for during the ticks or by background threads (see PathPlanner)
+ *
+ * Usage: java -Djava.awt.headless=true SimulationBenchmark [.osm file] [population sizes, e.g. 100,1000,10000] [threads, e.g. 1,4] [path planner threads, e.g. 0,1]
+ * (must be run from a directory that contains data/icons/, see bench/run.sh)
+ *
+ * @version 18-10-2026
+ */
+public class SimulationBenchmark {
+	private static final String DEFAULT_MAP = "bench/data/synthetic.osm";
+	private static final int[] DEFAULT_POPULATIONS = {100, 1000, 10000};
+
+	private static final int LOAD_WARMUP_ROUNDS      = 1;
+	private static final int LOAD_MEASURE_ROUNDS     = 3;
+	private static final int COLLISION_WARMUP_ROUNDS  = 20;
+	private static final int COLLISION_MEASURE_ROUNDS = 50;
+	private static final int PATH_WARMUP_QUERIES     = 2000;
+	private static final int PATH_MEASURE_QUERIES    = 10000;
+	private static final int WARMUP_MINUTES  = 30;	//Simulated minutes before the ticks are measured (lets pedestrians wake up)
+	private static final int MEASURE_MINUTES = 15;	//Simulated minutes that are measured
+	private static final int START_HOUR = 8;
+
+	public static void main(String[] args){
+		String filename = args.length > 0 ? args[0] : DEFAULT_MAP;
+		int[] populations = args.length > 1 ? parseList(args[1]) : DEFAULT_POPULATIONS;
+		int nrOfProcessors = Runtime.getRuntime().availableProcessors();
+		int[] threads = args.length > 2 ? parseList(args[2]) : (nrOfProcessors > 1 ? new int[]{1, nrOfProcessors} : new int[]{1});
+		int[] plannerThreads = args.length > 3 ? parseList(args[3]) : new int[]{0};
+
+		System.out.println("Simulation benchmark (" + filename + ")");
+		OSM_Reader reader = benchmarkLoad(filename);
+		benchmarkCompiledLoad(filename);
+		benchmarkCollision(reader);
+		benchmarkPathfinding(reader);
+		for(int population : populations){
+			for(int nrOfThreads : threads){
+				for(int nrOfPlannerThreads : plannerThreads){
+					benchmarkTicks(reader, population, nrOfThreads, nrOfPlannerThreads);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses a comma separated list of integers.
+	 * @param list List to parse (e.g. 100,1000)
+	 * @return The integers
+	 */
+	private static int[] parseList(String list){
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for(int i = 0; i < parts.length; i++){
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+		return values;
+	}
+
+	/**
+	 * Measures the time it takes to load the map.
+	 * @param filename Path to the .osm file
+	 * @return The reader of the last load (used by the other benchmarks)
+	 */
+	private static OSM_Reader benchmarkLoad(String filename){
+		OSM_Reader reader = null;
+		long before, time = 0;
+		boolean useCompiledMaps = Frame.USE_COMPILED_MAPS;
+		Frame.USE_COMPILED_MAPS = false;
+		for(int i = 0; i < LOAD_WARMUP_ROUNDS + LOAD_MEASURE_ROUNDS; i++){
+			reader = new OSM_Reader();
+			reader.setFilename(filename);
+			before = System.nanoTime();
+			reader.doInBackground();
+			if(i >= LOAD_WARMUP_ROUNDS){
+				time += System.nanoTime() - before;
+			}
+		}
+		Frame.USE_COMPILED_MAPS = useCompiledMaps;
+
+		int nrOfTargets = 0;
+		for(LinkedList<Node> list : OSM_Reader.targets){
+			nrOfTargets += list.size();
+		}
+		System.out.printf("Map load:            %10.2f ms/load (%d ways, %d buildings, %d areas, %d reachable targets, %d pre-calculated paths)%n",
+				time / 1e6 / LOAD_MEASURE_ROUNDS, reader.getWays().size(), reader.getBuildings().size(), reader.getAreas().size(),
+				nrOfTargets, OSM_Reader.pathCache.size());
+		return reader;
+	}
+
+	/**
+	 * Measures the time it takes to load the map from its compiled map (see CompiledMap), which is written by the first load.
+	 * A compiled map that is written by the benchmark is deleted afterwards.
+	 * @param filename Path to the .osm file
+	 */
+	private static void benchmarkCompiledLoad(String filename){
+		File file = CompiledMap.getFile(filename);
+		boolean existed = file.exists();
+		boolean useCompiledMaps = Frame.USE_COMPILED_MAPS;
+		Frame.USE_COMPILED_MAPS = true;
+		OSM_Reader reader = null;
+		long before, time = 0;
+		for(int i = 0; i < 1 + LOAD_WARMUP_ROUNDS + LOAD_MEASURE_ROUNDS; i++){
+			reader = new OSM_Reader();
+			reader.setFilename(filename);
+			before = System.nanoTime();
+			reader.doInBackground();
+			if(i >= 1 + LOAD_WARMUP_ROUNDS){
+				time += System.nanoTime() - before;
+			}
+		}
+		Frame.USE_COMPILED_MAPS = useCompiledMaps;
+		double megabytes = file.length() / (1024.0*1024.0);
+		if(!existed){
+			file.delete();
+		}
+		System.out.printf("Compiled map load:   %10.2f ms/load (%d ways, %d buildings, %d areas, %d pre-calculated paths, %.1f MB file)%n",
+				time / 1e6 / LOAD_MEASURE_ROUNDS, reader.getWays().size(), reader.getBuildings().size(), reader.getAreas().size(),
+				OSM_Reader.pathCache.size(), megabytes);
+	}
+
+	/**
+	 * Measures the time it takes to build the collision matrix from the loaded map objects.
+	 * @param reader Reader with a loaded map
+	 */
+	private static void benchmarkCollision(OSM_Reader reader){
+		//Education buildings add STUDY targets while calculating their collision, these are removed after each round
+		LinkedList<Node> studyTargets = OSM_Reader.targets.get(OSM_Reader.TargetEnums.STUDY.ordinal());
+		int nrOfStudyTargets = studyTargets.size();
+		long before, time = 0;
+		int[][] collisionMatrix;
+
+		for(int i = 0; i < COLLISION_WARMUP_ROUNDS + COLLISION_MEASURE_ROUNDS; i++){
+			before = System.nanoTime();
+			collisionMatrix = new int[OSM_Reader.COLLISION_ROWS][OSM_Reader.COLLISION_COLUMNS];
+			for(Way way : reader.getWays()){
+				way.calculateCollision(collisionMatrix);
+			}
+			for(Building building : reader.getBuildings()){
+				building.calculateCollision(collisionMatrix);
+			}
+			for(Area area : reader.getAreas()){
+				area.calculateCollision(collisionMatrix);
+			}
+			if(i >= COLLISION_WARMUP_ROUNDS){
+				time += System.nanoTime() - before;
+			}
+			while(studyTargets.size() > nrOfStudyTargets){
+				studyTargets.removeLast();
+			}
+		}
+		System.out.printf("Collision build:     %10.2f ms/matrix%n", time / 1e6 / COLLISION_MEASURE_ROUNDS);
+	}
+
+	/**
+	 * Measures the nr of A* queries per second between random pairs of targets.
+	 * @param reader Reader with a loaded map
+	 */
+	private static void benchmarkPathfinding(OSM_Reader reader){
+		Pathfinder pathfinder = new Pathfinder(reader.getCollisionMatrix());
+		ArrayList<Node> nodes = new ArrayList<Node>();
+		for(LinkedList<Node> list : OSM_Reader.targets){
+			nodes.addAll(list);
+		}
+		if(nodes.size() < 2){
+			System.out.println("A* queries:          (map has too few targets)");
+			return;
+		}
+
+		Random rand = new Random(1);
+		LinkedList<Node> path = new LinkedList<Node>();
+		float scale = OSM_Reader.scaleCollision;
+		long before = 0;
+		int found = 0;
+		long pathLength = 0;
+		Node start, target;
+		for(int i = 0; i < PATH_WARMUP_QUERIES + PATH_MEASURE_QUERIES; i++){
+			if(i == PATH_WARMUP_QUERIES){
+				before = System.nanoTime();
+			}
+			start  = nodes.get(rand.nextInt(nodes.size()));
+			target = nodes.get(rand.nextInt(nodes.size()));
+			if(pathfinder.findPath(start.getCollisionXPos(scale), start.getCollisionYPos(scale), target.getCollisionXPos(scale), target.getCollisionYPos(scale), path)
+					&& i >= PATH_WARMUP_QUERIES){
+				found++;
+				pathLength += path.size();
+			}
+		}
+		long time = System.nanoTime() - before;
+		System.out.printf("A* queries:          %10.0f queries/s (%d/%d found, average length %d tiles)%n",
+				PATH_MEASURE_QUERIES / (time / 1e9), found, PATH_MEASURE_QUERIES, found > 0 ? pathLength / found : 0);
+	}
+
+	/**
+	 * Measures the nr of simulation ticks (SimulationEngine.step) per second for a population.
+	 * @param reader Reader with a loaded map
+	 * @param population Nr of pedestrians
+	 * @param threads Nr of threads that update the pedestrians (1 for sequential update)
+	 * @param plannerThreads Nr of threads that search for paths in the background (0 to search during the ticks)
+	 */
+	private static void benchmarkTicks(OSM_Reader reader, int population, int threads, int plannerThreads){
+		SimulationEngine engine = new SimulationEngine(reader.getCollisionMatrix(), START_HOUR, 0);
+		engine.setParallelism(threads);
+		engine.setPlannerThreads(plannerThreads);
+		int ticksPerMinute = engine.getMinuteLength() / SimulationEngine.UPDATE_INTERVAL;
+
+		engine.initiatePedestrians(population);
+
+		for(int tick = 0; tick < WARMUP_MINUTES*ticksPerMinute; tick++){
+			engine.step();
+		}
+		long before = System.nanoTime();
+		long maxTick = 0;
+		for(int tick = 0; tick < MEASURE_MINUTES*ticksPerMinute; tick++){
+			long tickStart = System.nanoTime();
+			engine.step();
+			maxTick = Math.max(maxTick, System.nanoTime() - tickStart);
+		}
+		long time = System.nanoTime() - before;
+
+		int ticks = MEASURE_MINUTES*ticksPerMinute;
+		System.out.printf("Ticks (%6d peds, %2d threads, %d planner threads): %10.1f ticks/s (%.3f ms/tick, max %.3f ms, init %d ms, ~%d bytes/ped)%n",
+				population, threads, plannerThreads, ticks / (time / 1e9), time / 1e6 / ticks, maxTick / 1e6, engine.getInitiationTime(), engine.getMemoryPerPedestrian());
+		System.out.println("  path cache: " + OSM_Reader.pathCache);
+		if(OSM_Reader.flowFields != null){
+			System.out.println("  flow fields: " + OSM_Reader.flowFields);
+		}
+		if(engine.getPathPlanner() != null){
+			System.out.println("  path planner: " + engine.getPathPlanner());
+		}
+		engine.setParallelism(1);
+		engine.setPlannerThreads(0);
+	}
+}
@@ -0,0 +1,238 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes synthetic .osm files that can be loaded by the OSM_Reader.
+ * The map is a grid of streets (alternating roads and footways) with a building in each block,
+ * some parks, some education buildings, crossings and a configurable amount of amenities (targets) placed next to the buildings.
+ * Optionally nodes and ways get the metadata attributes (version, timestamp, changeset, user, uid) of extracts from openstreetmap.org,
+ * which makes large maps look like city extracts to the parser (see ParserBenchmark). Optionally each block gets trees, nodes that no way
+ * uses and that are not targets, as most of the nodes of an extract (see OSM_Reader.parseTwoPass).
+ *
+ * Usage: java SyntheticMapWriter <file> [blocks per side] [nr of amenities] [seed] [metadata, 0 or 1] [trees per block]
+ *
+ * @version 18-10-2026
+ */
+public class SyntheticMapWriter {
+	private static final float MINLAT = 59.340f;
+	private static final float MAXLAT = 59.350f;
+	private static final float MINLON = 18.060f;
+	private static final float MAXLON = 18.080f;
+	private static final int MAP_LENGTH = 800;		//Map length in pixels (see Frame.SIM_WINDOW_LENGTH)
+	private static final int BUILDING_MARGIN = 16;	//Distance between street center and building (pixels)
+	private static final int AMENITY_OFFSET  = 5;	//Distance between building and amenity (pixels)
+	private static final int PARK_INTERVAL   = 7;	//Every n:th block is a park
+	private static final int EDUCATION_INTERVAL = 5;	//Every n:th block is an education building (gives STUDY targets)
+
+	//Amenity tags (key, value), public transport is listed twice so that there is plenty of starting positions
+	private static final String[][] AMENITIES = {
+		{"highway","bus_stop"}, {"amenity","restaurant"}, {"amenity","cafe"}, {"amenity","fast_food"},
+		{"amenity","toilets"}, {"amenity","waste_basket"}, {"highway","bus_stop"}, {"amenity","bank"},
+		{"shop","supermarket"}, {"amenity","doctors"}, {"amenity","pharmacy"}, {"amenity","library"}
+	};
+
+	private PrintWriter out;
+	private long nextId = 1;
+	private boolean metadata = false;	//Write metadata attributes on nodes and ways?
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1){
+			System.err.println("Usage: java SyntheticMapWriter <file> [blocks per side] [nr of amenities] [seed] [metadata, 0 or 1] [trees per block]");
+			System.exit(1);
+		}
+		int blocks    = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int amenities = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+		long seed     = args.length > 3 ? Long.parseLong(args[3]) : 1;
+		boolean metadata = args.length > 4 && Integer.parseInt(args[4]) != 0;
+		int trees     = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+		write(new File(args[0]), blocks, amenities, seed, metadata, trees);
+	}
+
+	/**
+	 * Returns the metadata attributes of a node or way (an empty string if no metadata is written).
+	 * @param id Id of the node or way
+	 */
+	private String getMetadata(long id){
+		if(!metadata){
+			return "";
+		}
+		return String.format(Locale.ROOT, " version=\"%d\" timestamp=\"2013-08-%02dT12:%02d:%02dZ\" changeset=\"%d\" user=\"mapper%d\" uid=\"%d\"",
+				1 + id % 7, 1 + id % 28, id % 60, (id*7) % 60, 17000000 + id / 100, id % 500, 100000 + id % 500);
+	}
+
+	/**
+	 * Writes a synthetic map to file.
+	 * @param file File to write to
+	 * @param blocks Nr of streets per side (there will be (blocks-1)^2 blocks)
+	 * @param nrOfAmenities Nr of amenity nodes to place
+	 * @param seed Random seed (same seed gives the same map)
+	 * @param metadata Write metadata attributes on nodes and ways (as in extracts from openstreetmap.org)?
+	 * @param treesPerBlock Nr of trees (nodes that are not used by the simulator) to place in each block
+	 */
+	public static void write(File file, int blocks, int nrOfAmenities, long seed, boolean metadata, int treesPerBlock) throws IOException {
+		SyntheticMapWriter writer = new SyntheticMapWriter();
+		writer.metadata = metadata;
+		writer.out = new PrintWriter(file, "UTF-8");
+		try{
+			writer.writeMap(blocks, nrOfAmenities, treesPerBlock, new Random(seed));
+		}
+		finally{
+			writer.out.close();
+		}
+	}
+
+	/**
+	 * Writes all nodes and ways of the map.
+	 */
+	private void writeMap(int blocks, int nrOfAmenities, int treesPerBlock, Random rand){
+		int spacing = MAP_LENGTH / blocks;
+		int margin  = Math.min(BUILDING_MARGIN, spacing / 4);	//Buildings of dense maps are not turned inside out
+		int[] streets = new int[blocks];
+		for(int i = 0; i < blocks; i++){
+			streets[i] = i*spacing + spacing/2;
+		}
+
+		out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		out.println("<osm version=\"0.6\" generator=\"SyntheticMapWriter\">");
+		out.printf(Locale.ROOT, " <bounds minlat=\"%.7f\" minlon=\"%.7f\" maxlat=\"%.7f\" maxlon=\"%.7f\"/>%n", MINLAT, MINLON, MAXLAT, MAXLON);
+
+		/**NODES**/
+		//Intersections (every other intersection is a crossing)
+		long[][] intersections = new long[blocks][blocks];
+		for(int i = 0; i < blocks; i++){
+			for(int j = 0; j < blocks; j++){
+				intersections[i][j] = writeNode(streets[i], streets[j], (i+j)%2 == 1 ? "highway" : null, "crossing");
+			}
+		}
+
+		//Street ends at the map borders
+		long[][] streetEnds = new long[blocks][4];
+		for(int i = 0; i < blocks; i++){
+			streetEnds[i][0] = writeNode(2, streets[i], null, null);
+			streetEnds[i][1] = writeNode(MAP_LENGTH-3, streets[i], null, null);
+			streetEnds[i][2] = writeNode(streets[i], 2, null, null);
+			streetEnds[i][3] = writeNode(streets[i], MAP_LENGTH-3, null, null);
+		}
+
+		//Building (or park) corners
+		int nrOfBlocks = (blocks-1)*(blocks-1);
+		long[][] corners = new long[nrOfBlocks][4];
+		for(int b = 0; b < nrOfBlocks; b++){
+			int minX = streets[b % (blocks-1)] + margin;
+			int minY = streets[b / (blocks-1)] + margin;
+			int maxX = streets[b % (blocks-1) + 1] - margin;
+			int maxY = streets[b / (blocks-1) + 1] - margin;
+			corners[b][0] = writeNode(minX, minY, null, null);
+			corners[b][1] = writeNode(maxX, minY, null, null);
+			corners[b][2] = writeNode(maxX, maxY, null, null);
+			corners[b][3] = writeNode(minX, maxY, null, null);
+		}
+
+		//Amenities, placed just outside of a random side of a random building
+		for(int a = 0; a < nrOfAmenities; a++){
+			int b;
+			do{
+				b = rand.nextInt(nrOfBlocks);
+			}while(b % PARK_INTERVAL == 0 && nrOfBlocks > 1);
+			int minX = streets[b % (blocks-1)] + margin;
+			int minY = streets[b / (blocks-1)] + margin;
+			int maxX = streets[b % (blocks-1) + 1] - margin;
+			int maxY = streets[b / (blocks-1) + 1] - margin;
+			int x, y;
+			switch(rand.nextInt(4)){
+				case 0:  x = minX + rand.nextInt(maxX-minX); y = minY - AMENITY_OFFSET; break;
+				case 1:  x = minX + rand.nextInt(maxX-minX); y = maxY + AMENITY_OFFSET; break;
+				case 2:  x = minX - AMENITY_OFFSET; y = minY + rand.nextInt(maxY-minY); break;
+				default: x = maxX + AMENITY_OFFSET; y = minY + rand.nextInt(maxY-minY); break;
+			}
+			String[] tag = AMENITIES[a % AMENITIES.length];
+			writeNode(x, y, tag[0], tag[1]);
+		}
+
+		//Trees, placed at random positions in the blocks (after the amenities, so that the amenities don't depend on the nr of trees)
+		for(int b = 0; b < nrOfBlocks && treesPerBlock > 0; b++){
+			int minX = streets[b % (blocks-1)] + margin;
+			int minY = streets[b / (blocks-1)] + margin;
+			int maxX = streets[b % (blocks-1) + 1] - margin;
+			int maxY = streets[b / (blocks-1) + 1] - margin;
+			for(int t = 0; t < treesPerBlock; t++){
+				writeNode(minX + rand.nextInt(Math.max(1, maxX-minX)), minY + rand.nextInt(Math.max(1, maxY-minY)), "natural", "tree");
+			}
+		}
+
+		/**WAYS**/
+		//Streets, every other street is a footway (the rest are roads)
+		for(int i = 0; i < blocks; i++){
+			String type = (i % 2 == 0) ? "residential" : "footway";
+			long[] vertical   = new long[blocks+2];
+			long[] horizontal = new long[blocks+2];
+			vertical[0]   = streetEnds[i][2];
+			horizontal[0] = streetEnds[i][0];
+			for(int j = 0; j < blocks; j++){
+				vertical[j+1]   = intersections[i][j];
+				horizontal[j+1] = intersections[j][i];
+			}
+			vertical[blocks+1]   = streetEnds[i][3];
+			horizontal[blocks+1] = streetEnds[i][1];
+			writeWay(vertical, "highway", type);
+			writeWay(horizontal, "highway", type);
+		}
+
+		//Buildings and parks
+		for(int b = 0; b < nrOfBlocks; b++){
+			long[] polygon = { corners[b][0], corners[b][1], corners[b][2], corners[b][3], corners[b][0] };
+			if(b % PARK_INTERVAL == 0){
+				writeWay(polygon, "leisure", "park");
+			}
+			else if(b % EDUCATION_INTERVAL == 1){
+				writeWay(polygon, "building", "yes", "building:use", "education");
+			}
+			else{
+				writeWay(polygon, "building", "yes");
+			}
+		}
+		out.println("</osm>");
+	}
+
+	/**
+	 * Writes a node and returns its id.
+	 * @param x X-pos in pixels
+	 * @param y Y-pos in pixels
+	 * @param key Tag key (null if node has no tag)
+	 * @param value Tag value
+	 */
+	private long writeNode(int x, int y, String key, String value){
+		long id = nextId++;
+		float lon = MINLON + (MAXLON-MINLON) * x / MAP_LENGTH;
+		float lat = MAXLAT - (MAXLAT-MINLAT) * y / MAP_LENGTH;
+		if(key == null){
+			out.printf(Locale.ROOT, " <node id=\"%d\"%s lat=\"%.7f\" lon=\"%.7f\"/>%n", id, getMetadata(id), lat, lon);
+		}
+		else{
+			out.printf(Locale.ROOT, " <node id=\"%d\"%s lat=\"%.7f\" lon=\"%.7f\">%n", id, getMetadata(id), lat, lon);
+			out.printf(Locale.ROOT, "  <tag k=\"%s\" v=\"%s\"/>%n", key, value);
+			out.println(" </node>");
+		}
+		return id;
+	}
+
+	/**
+	 * Writes a way.
+	 * @param refs Ids of the nodes that make up the way
+	 * @param tags Tags of the way as key, value pairs
+	 */
+	private void writeWay(long[] refs, String... tags){
+		long id = nextId++;
+		out.printf(Locale.ROOT, " <way id=\"%d\"%s>%n", id, getMetadata(id));
+		for(long ref : refs){
+			out.printf(Locale.ROOT, "  <nd ref=\"%d\"/>%n", ref);
+		}
+		for(int i = 0; i+1 < tags.length; i += 2){
+			out.printf(Locale.ROOT, "  <tag k=\"%s\" v=\"%s\"/>%n", tags[i], tags[i+1]);
+		}
+		out.println(" </way>");
+	}
+}
@@ -0,0 +1,113 @@
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Microbenchmark for the open list of the Pathfinder.
+ * Compares the indexed TileHeap (decrease-key) with the PriorityQueue<int[]> + ArrayComparator approach
+ * that Pathfinder used earlier (where a better path was handled by queue.remove(oldTile) + queue.add(newTile)).
+ *
+ * The workload mimics an A* search on a 200x200 collision matrix: every polled tile opens a few
+ * new tiles and updates the cost of a few tiles that already are on the open list.
+ *
+ * @version 18-10-2026
+ */
+public class TileHeapBenchmark {
+	private static final int NR_OF_TILES    = 200*200;
+	private static final int NEW_PER_POLL   = 3;	//New tiles opened for each polled tile
+	private static final int UPDATE_PER_POLL = 2;	//Tiles on the open list that get a better cost for each polled tile
+	private static final int WARMUP_ROUNDS  = 5;
+	private static final int MEASURE_ROUNDS = 10;
+
+	public static void main(String[] args){
+		System.out.println("Open list benchmark (" + NR_OF_TILES + " tiles per search)");
+		for(int i = 0; i < WARMUP_ROUNDS; i++){
+			runTileHeap(i);
+			runPriorityQueue(i);
+		}
+
+		long heapTime = 0, queueTime = 0, before;
+		for(int i = 0; i < MEASURE_ROUNDS; i++){
+			before = System.nanoTime();
+			runTileHeap(i);
+			heapTime += System.nanoTime() - before;
+
+			before = System.nanoTime();
+			runPriorityQueue(i);
+			queueTime += System.nanoTime() - before;
+		}
+		System.out.printf("TileHeap (decrease-key):          %8.2f ms/search%n", heapTime / 1e6 / MEASURE_ROUNDS);
+		System.out.printf("PriorityQueue (remove + add):     %8.2f ms/search%n", queueTime / 1e6 / MEASURE_ROUNDS);
+		System.out.printf("Speed-up:                         %8.2fx%n", (double)queueTime / heapTime);
+	}
+
+	/**
+	 * Runs the workload with a TileHeap.
+	 * @param seed Seed for the random workload (same seed gives same operations for both open lists)
+	 * @return Sum of polled tiles (so that the work can't be optimized away)
+	 */
+	private static long runTileHeap(long seed){
+		Random rand = new Random(seed);
+		TileHeap heap = new TileHeap(NR_OF_TILES);
+		int[] open = new int[NR_OF_TILES];
+		int nrOpen = 0, nextTile = 0, tile, key;
+		long sum = 0;
+
+		heap.add(nextTile++, 0);
+		open[nrOpen++] = 0;
+		while(!heap.isEmpty()){
+			tile = heap.poll();
+			sum += tile;
+			key = rand.nextInt(1000);
+			for(int i = 0; i < NEW_PER_POLL && nextTile < NR_OF_TILES; i++){
+				heap.add(nextTile, key + rand.nextInt(1000));
+				open[nrOpen++] = nextTile++;
+			}
+			for(int i = 0; i < UPDATE_PER_POLL && nrOpen > 0; i++){
+				tile = open[rand.nextInt(nrOpen)];
+				if(heap.contains(tile) && heap.getKey(tile) > key){
+					heap.decreaseKey(tile, key);
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Runs the workload with a PriorityQueue (same operations as runTileHeap).
+	 * @param seed Seed for the random workload
+	 * @return Sum of polled tiles
+	 */
+	private static long runPriorityQueue(long seed){
+		Random rand = new Random(seed);
+		PriorityQueue<int[]> queue = new PriorityQueue<int[]>(200, new ArrayComparator());
+		int[][] entries = new int[NR_OF_TILES][];	//Current queue entry of each tile (null if not on queue)
+		int[] open = new int[NR_OF_TILES];
+		int nrOpen = 0, nextTile = 0, tile, key;
+		int[] entry;
+		long sum = 0;
+
+		entries[0] = new int[]{ nextTile++, 0, 0, 0, 0, 0, 0 };
+		queue.add(entries[0]);
+		open[nrOpen++] = 0;
+		while(!queue.isEmpty()){
+			entry = queue.poll();
+			entries[entry[0]] = null;
+			sum += entry[0];
+			key = rand.nextInt(1000);
+			for(int i = 0; i < NEW_PER_POLL && nextTile < NR_OF_TILES; i++){
+				entries[nextTile] = new int[]{ nextTile, 0, 0, 0, key + rand.nextInt(1000), 0, 0 };
+				queue.add(entries[nextTile]);
+				open[nrOpen++] = nextTile++;
+			}
+			for(int i = 0; i < UPDATE_PER_POLL && nrOpen > 0; i++){
+				tile = open[rand.nextInt(nrOpen)];
+				if(entries[tile] != null && entries[tile][4] > key){
+					queue.remove(entries[tile]);
+					entries[tile] = new int[]{ tile, 0, 0, 0, key, 0, 0 };
+					queue.add(entries[tile]);
+				}
+			}
+		}
+		return sum;
+	}
+}
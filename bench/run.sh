@@ -0,0 +1,38 @@
+#!/bin/bash
+#Compiles the simulator and the benchmarks and runs a benchmark headless.
+#Usage: bench/run.sh [benchmark class] [arguments]
+#e.g.   bench/run.sh SimulationBenchmark bench/data/synthetic.osm 100,1000,10000
+#       bench/run.sh TileHeapBenchmark
+
+pushd . > /dev/null
+cd `dirname $BASH_SOURCE` > /dev/null
+BASEFOLDER=`pwd`;
+popd  > /dev/null
+BASEFOLDER=`dirname $BASEFOLDER`
+
+CLASSFOLDER=${BASEFOLDER}/bench/classes
+BENCHMARK=${1:-SimulationBenchmark}
+shift
+
+mkdir -p ${CLASSFOLDER}/data
+javac -nowarn -d ${CLASSFOLDER} ${BASEFOLDER}/src/*.java ${BASEFOLDER}/bench/*.java || exit 1
+
+#OSM_Reader loads the icons from data/icons/ (relative to the working directory)
+if [ ! -e "${CLASSFOLDER}/data/icons" ]; then
+  ln -s ${BASEFOLDER}/icons ${CLASSFOLDER}/data/icons
+fi
+
+#Relative file arguments are resolved against the repository root
+ARGS=()
+for ARG in "$@"; do
+  if [ -f "${BASEFOLDER}/${ARG}" ]; then
+    ARG=${BASEFOLDER}/${ARG}
+  fi
+  ARGS+=("${ARG}")
+done
+if [ "${BENCHMARK}" == "SimulationBenchmark" -o "${BENCHMARK}" == "ParserBenchmark" ] && [ ${#ARGS[@]} -eq 0 ]; then
+  ARGS=("${BASEFOLDER}/bench/data/synthetic.osm")
+fi
+
+cd ${CLASSFOLDER}
+java -Djava.awt.headless=true ${JAVA_OPTS} ${BENCHMARK} "${ARGS[@]}"
@@ -0,0 +1,222 @@
+import java.util.Arrays;
+
+/**
+ * AgentStore keeps the frequently updated state of all pedestrians (positions, interpolation, needs and status flags)
+ * in parallel primitive arrays indexed by agent index (the pedestrian with id i has index i-1).
+ * A Pedestrian reads and writes its state through the store, which makes it a thin view of the arrays,
+ * while the engine can update most agents directly on the arrays without touching the Pedestrian objects (see updateFast).
+ *
+ * Different agents may be updated by different threads at the same time, but each agent only by one thread.
+ *
+ * @version 18-10-2026
+ */
+public class AgentStore {
+	public static final int NR_OF_NEEDS = 6;	//Nr of basic needs of each agent (see Pedestrian.BasicNeeds)
+
+	private int size = 0;	//Nr of agents
+
+	//Position
+	double[] renderPosX;
+	double[] renderPosY;
+	int[] collisionPosX;		//Position inside of the collision matrix (i.e current "tile")
+	int[] collisionPosY;
+	int[] targetCollisionPosX;	//Target position inside of the collision matrix
+	int[] targetCollisionPosY;
+
+	//Interpolation
+	double[] updatePosX;	//Approximately how many pixels that the agent should be moved at each interpolation update
+	double[] updatePosY;
+	double[] interpolationProgress;
+	double[] interpolationLength;
+	double[] interpolationStep;
+	double[] degree;
+
+	//Needs (NR_OF_NEEDS values per agent, need n of agent i is at i*NR_OF_NEEDS + n)
+	float[] needs;
+
+	//Time
+	int[] wakeHour;
+	int[] wakeMinute;
+	long[] arriveTime;		//At what time did the agent arrive at target? In Simulator-Minutes
+	int[] waitTime;			//How long should the agent wait at target (to carry out need)
+
+	//Status flags
+	boolean[] walking;		//Agent is on his/her way somewhere
+	boolean[] sleeping;
+	boolean[] avoiding;
+	boolean[] scheduleEvent;
+	boolean[] pathPending;	//Target has changed but the path has not been calculated yet
+
+	/**
+	 * Creates an empty store.
+	 * @param capacity Expected nr of agents (the store grows if more are added)
+	 */
+	public AgentStore(int capacity){
+		allocate(Math.max(capacity, 16));
+	}
+
+	/**
+	 * Adds a new agent (sleeping, all other values are 0).
+	 * @return Index of the new agent
+	 */
+	public int add(){
+		if(size == walking.length){
+			allocate(2*size);
+		}
+		sleeping[size] = true;
+		return size++;
+	}
+
+	/**
+	 * Makes sure that the store can hold a nr of agents without growing.
+	 * @param capacity Nr of agents
+	 */
+	public void ensureCapacity(int capacity){
+		if(capacity > walking.length){
+			allocate(capacity);
+		}
+	}
+
+	/**
+	 * Allocates (or grows) all arrays, existing values are kept.
+	 * @param capacity New capacity
+	 */
+	private void allocate(int capacity){
+		renderPosX            = grow(renderPosX, capacity);
+		renderPosY            = grow(renderPosY, capacity);
+		collisionPosX         = grow(collisionPosX, capacity);
+		collisionPosY         = grow(collisionPosY, capacity);
+		targetCollisionPosX   = grow(targetCollisionPosX, capacity);
+		targetCollisionPosY   = grow(targetCollisionPosY, capacity);
+		updatePosX            = grow(updatePosX, capacity);
+		updatePosY            = grow(updatePosY, capacity);
+		interpolationProgress = grow(interpolationProgress, capacity);
+		interpolationLength   = grow(interpolationLength, capacity);
+		interpolationStep     = grow(interpolationStep, capacity);
+		degree                = grow(degree, capacity);
+		needs                 = needs == null ? new float[capacity*NR_OF_NEEDS] : Arrays.copyOf(needs, capacity*NR_OF_NEEDS);
+		wakeHour              = grow(wakeHour, capacity);
+		wakeMinute            = grow(wakeMinute, capacity);
+		arriveTime            = arriveTime == null ? new long[capacity] : Arrays.copyOf(arriveTime, capacity);
+		waitTime              = grow(waitTime, capacity);
+		walking               = grow(walking, capacity);
+		sleeping              = grow(sleeping, capacity);
+		avoiding              = grow(avoiding, capacity);
+		scheduleEvent         = grow(scheduleEvent, capacity);
+		pathPending           = grow(pathPending, capacity);
+	}
+
+	//Copies an array into a new array of the given capacity (or creates the array if null)
+	private static double[] grow(double[] array, int capacity){
+		return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	private static int[] grow(int[] array, int capacity){
+		return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	private static boolean[] grow(boolean[] array, int capacity){
+		return array == null ? new boolean[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	/**
+	 * Returns the nr of agents that currently are walking.
+	 */
+	public int countWalking(){
+		int count = 0;
+		for(int i = 0; i < size; i++){
+			if(walking[i]){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a need of an agent.
+	 * @param agent Agent index
+	 * @param need Need index (see Pedestrian.BasicNeeds)
+	 */
+	public float getNeed(int agent, int need){
+		return needs[agent*NR_OF_NEEDS + need];
+	}
+
+	/**
+	 * Returns the current render x-position of an agent (pixels).
+	 * @param agent Agent index
+	 */
+	public int getPosX(int agent){
+		return (int)Math.round(renderPosX[agent]);
+	}
+
+	/**
+	 * Returns the current render y-position of an agent (pixels).
+	 * @param agent Agent index
+	 */
+	public int getPosY(int agent){
+		return (int)Math.round(renderPosY[agent]);
+	}
+
+	/**
+	 * Returns the nr of agents.
+	 */
+	public int getSize(){
+		return size;
+	}
+
+	/**
+	 * Is the agent on her/his way somewhere?
+	 * @param agent Agent index
+	 */
+	public boolean isWalking(int agent){
+		return walking[agent];
+	}
+
+	/**
+	 * Sets a need of an agent.
+	 * @param agent Agent index
+	 * @param need Need index (see Pedestrian.BasicNeeds)
+	 * @param value New value
+	 */
+	public void setNeed(int agent, int need, float value){
+		needs[agent*NR_OF_NEEDS + need] = value;
+	}
+
+	/**
+	 * Updates an agent directly on the arrays if it is in one of the common states that don't require any decisions:
+	 * sleeping, walking inside of a collision tile or waiting at a target (with an up to date path). Same result as Pedestrian.updatePosition.
+	 * @param agent Agent index
+	 * @param clock Clock of the simulation
+	 * @param scaleCollision Scale between render and collision positions
+	 * @return True if the agent was updated, false if Pedestrian.updatePosition has to be called
+	 */
+	public boolean updateFast(int agent, SimulationClock clock, float scaleCollision){
+		//Sleeping (see Pedestrian.checkTime)
+		if(sleeping[agent]){
+			sleeping[agent] = !(wakeHour[agent] <= clock.getHour() && wakeMinute[agent] <= clock.getMinute());
+			walking[agent]  = !sleeping[agent];
+			return true;
+		}
+		//Path is outdated or searched for in the background (see Pedestrian.resolvePath)
+		if(pathPending[agent]){
+			return false;
+		}
+		//At target
+		if(collisionPosX[agent] == targetCollisionPosX[agent] && collisionPosY[agent] == targetCollisionPosY[agent]){
+			//Still carrying out the need (see Pedestrian.doneAtTarget)
+			return !walking[agent] && clock.getNrMinutes() - arriveTime[agent] < waitTime[agent];
+		}
+		//Walking inside of the current collision tile (see Pedestrian.updateRenderPos)
+		if(interpolationProgress[agent] + interpolationStep[agent] < interpolationLength[agent]){
+			double newPosX = renderPosX[agent] + updatePosX[agent];
+			double newPosY = renderPosY[agent] + updatePosY[agent];
+			if((int)Math.round(newPosX * scaleCollision) == collisionPosX[agent] && (int)Math.round(newPosY * scaleCollision) == collisionPosY[agent]){
+				renderPosX[agent] = newPosX;
+				renderPosY[agent] = newPosY;
+				interpolationProgress[agent] += interpolationStep[agent];
+				return true;
+			}
+		}
+		return false;
+	}
+}
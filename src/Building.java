@@ -294,6 +294,13 @@ public class Building implements MapObject{
 		return tag;
 	}
 	
+	/**
+	 * Returns the targets that are inside of the building.
+	 */
+	public LinkedList<Node> getTargetsInside(){
+		return targetsInside;
+	}
+	
 	/**
 	 * Sets the color of the building to input.
 	 * @param newColor New color to use
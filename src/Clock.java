@@ -1,25 +1,18 @@
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
 import javax.swing.JLabel;
-import javax.swing.Timer;
 
 /**
  * This class handles the clock element in the simulation.
+ * It displays the time of the SimulationClock and keeps track of the speed that the user has selected.
  * 
  * @author Robert Wideberg & Christoffer Wiss
- * @version 12-07-2013
+ * @version 18-10-2026
  */
 @SuppressWarnings("serial")
-public class Clock extends JLabel implements ActionListener{
+public class Clock extends JLabel implements SimulationListener{
 	private final int speedLimit = 64; //How many times faster can the clock speed become? (should be a factor of two e.g 2x, 4x...)
-	private long nrOfMinutes = 0;      //Nr of simulator minutes since the start of the program
-	private int currentMinute;
-	private int currentHour;
 	public static final int originalMinuteLength = 3200;
 	public static int minuteLength = originalMinuteLength; //The length of a minute in the simulation (ms)
 	public static int speed = 1;                           //Current speed factor of simulation (e.g. 1x, 2x, 4x...)
-	private Timer minuteTimer;
 	
 	/**
 	 * Initializes the Clock to a start time.
@@ -27,43 +20,22 @@ public class Clock extends JLabel implements ActionListener{
 	 * @param startMinute Minute to which the Clock starts at
 	 */
 	public Clock(int startHour, int startMinute){
-		minuteTimer = new Timer(minuteLength, this);
-		minuteTimer.start();
 		setHorizontalAlignment(JLabel.CENTER);
 		setVerticalAlignment(JLabel.TOP);
 		setIconTextGap(0);
-		currentHour   = startHour;
-		currentMinute = startMinute;
+		setText(new SimulationClock(startHour, startMinute).toString());
 	}
 	
     /**
-     * Used as update method (will run each time timer has passed its interval).
+     * Updates the displayed time (will run each time a simulated minute has passed).
      */
 	@Override
-	public void actionPerformed(ActionEvent event) {	
-		nrOfMinutes++;
-		currentMinute++;
-		
-		if(currentMinute >= 60){
-			currentMinute = 0;
-			currentHour++;
-		}
-		if(currentHour >= 24){
-			currentHour = 0;
-		}
-		
-    	String minuteString = ""  + currentMinute;
-    	String hourString   = "" + currentHour;
-    	
-    	//Pad minutes & hours with a leading 0 if single digit
-    	if(currentMinute < 10){
-    		minuteString = "0" + minuteString;
-    	}
-    	if(currentHour < 10){
-    		hourString = "0" + hourString;
-    	}    	
-    	
-    	setText(hourString + ":" + minuteString);
+	public void minutePassed(SimulationClock clock) {
+		setText(clock.toString());
+	}
+	
+	@Override
+	public void stepDone(SimulationEngine engine) {
 	}
 	
 	/**
@@ -76,30 +48,6 @@ public class Clock extends JLabel implements ActionListener{
 		}
 	}
 	
-	/**
-	 * Returns the current hour.
-	 * @return int representing the current hour
-	 */
-	public int getHour(){
-		return currentHour;
-	}
-	
-	/**
-	 * Returns the current minute.
-	 * @return int representing the current minute
-	 */
-	public int getMinute(){
-		return currentMinute;
-	}
-	
-	/**
-	 * Returns the number of minutes since the start of the simulator.
-	 * @return long representing the nr of minutes that have passed since the start
-	 */
-	public long getNrMinutes(){
-		return nrOfMinutes;
-	}
-	
 	/**
 	 * Increments the speed twofold.
 	 */
@@ -123,9 +71,6 @@ public class Clock extends JLabel implements ActionListener{
 	 */
 	private void setMinuteLength(int newMinuteLength){
 		minuteLength = newMinuteLength;
-		minuteTimer.setDelay(minuteLength);
-		minuteTimer.setInitialDelay(0);
-		minuteTimer.restart();
 		Frame.clockSpeedDisplay.setText(speed+"x");
 	}
 	
@@ -150,7 +95,6 @@ public class Clock extends JLabel implements ActionListener{
 	 * Starts the clock.
 	 */
 	public void startTime(){
-		minuteTimer.start();
 		Frame.runStatusDisplay.setText("running");
 	}
 	
@@ -158,7 +102,6 @@ public class Clock extends JLabel implements ActionListener{
 	 * Stops the clock.
 	 */
 	public void stopTime(){
-		minuteTimer.stop();
 		Frame.runStatusDisplay.setText("paused");
 	}
 }
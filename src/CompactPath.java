@@ -0,0 +1,221 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * CompactPath is a path between two collision tiles stored as the start tile and one direction (4 bits) per step,
+ * i.e. two steps per byte, instead of one Node per step. Paths are immutable and can therefore be shared
+ * (e.g. by the PathCache and by all pedestrians that walk the path). The reverse of a path is a view that
+ * shares the steps of the original path (see reverse).
+ *
+ * Like the paths of the Pathfinder the tiles of a path do not include the start tile but do include the goal tile.
+ * Use a PathCursor to walk a path.
+ *
+ * @version 18-10-2026
+ */
+public class CompactPath {
+	//Directions to the 8 neighbouring tiles, direction d and 7-d are opposite of each other
+	private static final int[] DIRECTION_X = {-1, -1, -1,  0, 0,  1, 1, 1};
+	private static final int[] DIRECTION_Y = {-1,  0,  1, -1, 1, -1, 0, 1};
+
+	private final int startX;
+	private final int startY;
+	private final int goalX;
+	private final int goalY;
+	private final int length;		//Nr of steps
+	private final byte[] steps;		//Two directions per byte (step i is in the low nibble if i is even)
+	private final boolean reversed;	//True if this is a view of steps in reverse order
+
+	/**
+	 * Creates a path from its tiles.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param tilesX X-pos of each tile of the path (not including the start tile)
+	 * @param tilesY Y-pos of each tile of the path
+	 * @param length Nr of tiles in tilesX and tilesY
+	 * @throws IllegalArgumentException If two tiles after each other are not neighbours
+	 */
+	public CompactPath(int startX, int startY, int[] tilesX, int[] tilesY, int length){
+		this.startX = startX;
+		this.startY = startY;
+		this.length = length;
+		steps = new byte[(length+1)/2];
+		reversed = false;
+
+		int x = startX, y = startY;
+		for(int i = 0; i < length; i++){
+			int direction = direction(tilesX[i]-x, tilesY[i]-y);
+			steps[i >> 1] |= direction << ((i & 1) << 2);
+			x = tilesX[i];
+			y = tilesY[i];
+		}
+		goalX = x;
+		goalY = y;
+	}
+
+	/**
+	 * Creates a path from its steps.
+	 */
+	private CompactPath(int startX, int startY, byte[] steps, int length){
+		this.startX = startX;
+		this.startY = startY;
+		this.length = length;
+		this.steps  = steps;
+		reversed = false;
+
+		int x = startX, y = startY;
+		for(int i = 0; i < length; i++){
+			x += getDeltaX(i);
+			y += getDeltaY(i);
+		}
+		goalX = x;
+		goalY = y;
+	}
+
+	/**
+	 * Creates a view of the steps of another path.
+	 */
+	private CompactPath(CompactPath path, boolean reversed){
+		startX = path.goalX;
+		startY = path.goalY;
+		goalX  = path.startX;
+		goalY  = path.startY;
+		length = path.length;
+		steps  = path.steps;
+		this.reversed = reversed;
+	}
+
+	/**
+	 * Returns the direction to a neighbouring tile.
+	 * @param deltaX Difference in x-pos (-1, 0 or 1)
+	 * @param deltaY Difference in y-pos (-1, 0 or 1)
+	 */
+	private static int direction(int deltaX, int deltaY){
+		for(int direction = 0; direction < DIRECTION_X.length; direction++){
+			if(DIRECTION_X[direction] == deltaX && DIRECTION_Y[direction] == deltaY){
+				return direction;
+			}
+		}
+		throw new IllegalArgumentException("Tiles of a path must be neighbours (delta " + deltaX + "," + deltaY + ")");
+	}
+
+	/**
+	 * Returns the direction of a step.
+	 * @param step Index of the step
+	 */
+	private int getDirection(int step){
+		if(reversed){
+			step = length-1-step;
+		}
+		int direction = (steps[step >> 1] >> ((step & 1) << 2)) & 0xF;
+		return reversed ? 7-direction : direction;
+	}
+
+	/**
+	 * Returns the change in x-pos of a step.
+	 * @param step Index of the step
+	 */
+	public int getDeltaX(int step){
+		return DIRECTION_X[getDirection(step)];
+	}
+
+	/**
+	 * Returns the change in y-pos of a step.
+	 * @param step Index of the step
+	 */
+	public int getDeltaY(int step){
+		return DIRECTION_Y[getDirection(step)];
+	}
+
+	/**
+	 * Returns the x-pos of the goal tile.
+	 */
+	public int getGoalX(){
+		return goalX;
+	}
+
+	/**
+	 * Returns the y-pos of the goal tile.
+	 */
+	public int getGoalY(){
+		return goalY;
+	}
+
+	/**
+	 * Returns the nr of steps (tiles) of the path.
+	 */
+	public int getLength(){
+		return length;
+	}
+
+	/**
+	 * Returns the nr of bytes used by the steps (shared with the reverse of the path).
+	 */
+	public int getMemorySize(){
+		return steps.length;
+	}
+
+	/**
+	 * Returns the x-pos of the start tile.
+	 */
+	public int getStartX(){
+		return startX;
+	}
+
+	/**
+	 * Returns the y-pos of the start tile.
+	 */
+	public int getStartY(){
+		return startY;
+	}
+
+	/**
+	 * Reads a path that has been written with write.
+	 * @param buffer Buffer at the start of the path
+	 * @return The path
+	 * @throws IllegalArgumentException If the length of the path is negative or its steps do not fit the rest of the buffer
+	 */
+	public static CompactPath read(ByteBuffer buffer){
+		int startX = buffer.getInt();
+		int startY = buffer.getInt();
+		int length = buffer.getInt();
+		if(length < 0){
+			throw new IllegalArgumentException("Negative path length " + length);
+		}
+		if(length/2 + length%2 > buffer.remaining()){
+			throw new IllegalArgumentException("Path length " + length + " does not fit the " + buffer.remaining() + " bytes that are left");
+		}
+		byte[] steps = new byte[(length+1)/2];
+		buffer.get(steps);
+		return new CompactPath(startX, startY, steps, length);
+	}
+
+	/**
+	 * Returns true if this is a view of the steps of another path in reverse order (see reverse).
+	 */
+	public boolean isReversed(){
+		return reversed;
+	}
+
+	/**
+	 * Returns the path from the goal back to the start (a view that shares the steps of this path).
+	 */
+	public CompactPath reverse(){
+		return new CompactPath(this, !reversed);
+	}
+
+	/**
+	 * Writes the start tile, the length and the steps of the path (see read).
+	 * @param out Stream to write to
+	 * @throws IllegalStateException If the path is a reversed view (write the reverse of it instead)
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		if(reversed){
+			throw new IllegalStateException("A reversed path can't be written");
+		}
+		out.writeInt(startX);
+		out.writeInt(startY);
+		out.writeInt(length);
+		out.write(steps);
+	}
+}
@@ -0,0 +1,473 @@
+import java.awt.Color;
+import java.awt.Polygon;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.zip.CRC32C;
+
+/**
+ * CompiledMap is a loaded map (see OSM_Reader.parseMapData) stored in a binary file next to its .osm or .osm.pbf file, so that the map
+ * does not have to be parsed and its targets and paths do not have to be pre-calculated again the next time it is loaded.
+ * The file holds the collision matrix (with the target costs), the ways, buildings and areas, the reachable targets and non-targets and
+ * the pre-calculated paths (see PathCache) and the costs of the landmarks (see Landmarks). The flow fields and the hierarchical pathfinder
+ * are calculated from the collision matrix when the map is loaded, which is fast compared to the parsing, the paths and the landmarks.
+ *
+ * The file is only used if it was written for the same source file (same size and CRC-32C of its content) and the same settings (costs,
+ * widths, colors, resolution and move costs, see OSM_Reader.getSettingsHash), otherwise the map is parsed and the file is written again.
+ * VERSION must be increased when the format or the way the map objects are turned into the collision matrix changes.
+ * The header is read without mapping the file, and only the rest of a file that is up to date is read through a memory-mapped buffer
+ * (everything is copied out of it). A mapped file stays mapped until the buffer is garbage collected, and on some platforms (Windows)
+ * a mapped file can't be replaced: a stale file is therefore never mapped, but a damaged file may not be replaced by the write
+ * that follows (write then fails and the map is parsed again the next time). A count that does not fit the rest of the file
+ * is found before anything is allocated for it, so a damaged file can't use up the memory.
+ *
+ * Format (big-endian): header (MAGIC, VERSION, size and CRC-32C of the source file, settings hash), collision matrix (columns, rows, costs by
+ * column), strings (tags), nodes (x, y, tag), ways (color, cost, width, tag, nodes), buildings (color, cost, tag, points, targets inside),
+ * areas (color, cost, tag, points), targets by type and non-targets (nodes), paths (see CompactPath.write) and landmarks (a flag and
+ * Landmarks.write). Nodes are written once and
+ * referred to by index, so that ways, targets and buildings share the same Node objects after loading like they do after parsing.
+ *
+ * @version 18-10-2026
+ */
+public class CompiledMap {
+	public static final String EXTENSION = ".compiled";	//Added to the name of the source file
+	private static final int MAGIC   = 0x4F534D43;	//"OSMC"
+	private static final int VERSION = 1;
+	private static final int HASH_CHUNK_SIZE = 1 << 28;	//Bytes of the source file that are mapped at a time when it is hashed
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8;	//MAGIC, VERSION, source size, source hash and settings hash
+
+	int[][] collisionMatrix;
+	LinkedList<Way> ways;
+	LinkedList<Building> buildings;
+	LinkedList<Area> areas;
+	ArrayList<LinkedList<Node>> targets;
+	LinkedList<Node> nonTargets;
+	ArrayList<CompactPath> paths;	//Paths that are stored with their reverse (see PathCache.putWithReverse)
+	Landmarks landmarks;			//Null if no landmarks were calculated
+
+	/**
+	 * Creates a compiled map of a loaded map.
+	 * @param collisionMatrix The collision matrix (with the target costs)
+	 * @param ways The ways
+	 * @param buildings The buildings
+	 * @param areas The areas
+	 * @param targets The reachable targets by type
+	 * @param nonTargets The non-targets
+	 * @param pathCache The pre-calculated paths
+	 * @param landmarks The landmarks (null if not calculated)
+	 */
+	public CompiledMap(int[][] collisionMatrix, LinkedList<Way> ways, LinkedList<Building> buildings, LinkedList<Area> areas,
+			ArrayList<LinkedList<Node>> targets, LinkedList<Node> nonTargets, PathCache pathCache, Landmarks landmarks){
+		this.collisionMatrix = collisionMatrix;
+		this.ways = ways;
+		this.buildings = buildings;
+		this.areas = areas;
+		this.targets = targets;
+		this.nonTargets = nonTargets;
+		this.landmarks = landmarks;
+		paths = new ArrayList<CompactPath>();
+		for(CompactPath path : pathCache.getPaths()){
+			if(!path.isReversed()){
+				paths.add(path);
+			}
+			//A reversed view is only written if its path is not stored (e.g. the empty path from a tile to itself, or if the path was evicted)
+			else if(!pathCache.contains(PathCache.key(path.getGoalX(), path.getGoalY(), path.getStartX(), path.getStartY()))
+					|| (path.getStartX() == path.getGoalX() && path.getStartY() == path.getGoalY())){
+				paths.add(path.reverse());
+			}
+		}
+	}
+
+	/**
+	 * Creates an empty compiled map (see read).
+	 */
+	private CompiledMap(){
+	}
+
+	/**
+	 * Returns the compiled map file of a source file.
+	 * @param sourceFilename The .osm or .osm.pbf file
+	 */
+	public static File getFile(String sourceFilename){
+		return new File(sourceFilename + EXTENSION);
+	}
+
+	/**
+	 * Returns the CRC-32C of the content of a file, the file is memory-mapped a chunk at a time.
+	 * @param channel The file
+	 */
+	private static int hash(FileChannel channel) throws IOException {
+		CRC32C crc = new CRC32C();
+		long size = channel.size();
+		for(long position = 0; position < size; position += HASH_CHUNK_SIZE){
+			crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_CHUNK_SIZE, size - position)));
+		}
+		return (int)crc.getValue();
+	}
+
+	/**
+	 * Reads the compiled map of a source file, if it has been written for the current content of the file and the same settings.
+	 * @param sourceFilename The .osm or .osm.pbf file
+	 * @param settingsHash Hash of the settings that the map depends on (see OSM_Reader.getSettingsHash)
+	 * @return The map, null if there is no compiled map or if it is out of date
+	 * @throws IOException If a file can't be read or the compiled map is damaged
+	 */
+	public static CompiledMap read(String sourceFilename, long settingsHash) throws IOException {
+		File file = getFile(sourceFilename);
+		if(!file.isFile()){
+			return null;
+		}
+		ByteBuffer buffer;
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try{
+			FileChannel channel = in.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while(header.hasRemaining() && channel.read(header) >= 0){
+			}
+			header.flip();
+			if(header.remaining() < HEADER_SIZE || in.length() > Integer.MAX_VALUE || header.getInt() != MAGIC || header.getInt() != VERSION){
+				return null;
+			}
+			long sourceSize = header.getLong();
+			int sourceHash  = header.getInt();
+			if(header.getLong() != settingsHash || sourceSize != new File(sourceFilename).length()){
+				return null;
+			}
+			RandomAccessFile source = new RandomAccessFile(sourceFilename, "r");
+			try{
+				if(hash(source.getChannel()) != sourceHash){
+					return null;
+				}
+			}
+			finally{
+				source.close();
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, in.length() - HEADER_SIZE);
+		}
+		finally{
+			in.close();
+		}
+
+		try{
+			return read(buffer);
+		}
+		catch(BufferUnderflowException e){
+			throw new IOException("Compiled map " + file + " is truncated", e);
+		}
+		catch(RuntimeException e){
+			throw new IOException("Compiled map " + file + " is damaged", e);
+		}
+	}
+
+	/**
+	 * Reads the map from a buffer that is positioned after the header.
+	 * @param buffer The compiled map
+	 * @return The map
+	 * @throws IllegalArgumentException If a count does not fit the rest of the buffer (see readCount)
+	 */
+	private static CompiledMap read(ByteBuffer buffer){
+		CompiledMap map = new CompiledMap();
+		int columns = readCount(buffer, 4);
+		map.collisionMatrix = new int[columns][columns == 0 ? 0 : readCount(buffer, 4*columns)];
+		for(int[] column : map.collisionMatrix){
+			buffer.asIntBuffer().get(column);
+			buffer.position(buffer.position() + 4*column.length);
+		}
+
+		String[] strings = new String[readCount(buffer, 4)];
+		for(int i = 0; i < strings.length; i++){
+			byte[] bytes = new byte[readCount(buffer, 1)];
+			buffer.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		Node[] nodes = new Node[readCount(buffer, 12)];
+		for(int i = 0; i < nodes.length; i++){
+			nodes[i] = new Node(buffer.getInt(), buffer.getInt());
+			nodes[i].setTag(strings[buffer.getInt()]);
+		}
+
+		map.ways = new LinkedList<Way>();
+		for(int i = readCount(buffer, 20); i > 0; i--){
+			Way way = new Way();
+			way.setColor(new Color(buffer.getInt(), true));
+			way.setCost(buffer.getInt());
+			way.setWidth(buffer.getInt());
+			way.setTag(strings[buffer.getInt()]);
+			way.addNodes(readNodes(buffer, nodes));
+			map.ways.add(way);
+		}
+
+		map.buildings = new LinkedList<Building>();
+		for(int i = readCount(buffer, 20); i > 0; i--){
+			Building building = new Building();
+			building.setColor(new Color(buffer.getInt(), true));
+			building.setCost(buffer.getInt());
+			building.setTag(strings[buffer.getInt()]);
+			readPoints(buffer, building.getPolygon());
+			for(Node target : readNodes(buffer, nodes)){
+				building.addInsideTarget(target);
+			}
+			map.buildings.add(building);
+		}
+
+		map.areas = new LinkedList<Area>();
+		for(int i = readCount(buffer, 16); i > 0; i--){
+			Area area = new Area();
+			area.setColor(new Color(buffer.getInt(), true));
+			area.setCost(buffer.getInt());
+			area.setTag(strings[buffer.getInt()]);
+			readPoints(buffer, area.getArea());
+			map.areas.add(area);
+		}
+
+		map.targets = new ArrayList<LinkedList<Node>>();
+		for(int i = readCount(buffer, 4); i > 0; i--){
+			map.targets.add(readNodes(buffer, nodes));
+		}
+		map.nonTargets = readNodes(buffer, nodes);
+
+		map.paths = new ArrayList<CompactPath>();
+		for(int i = readCount(buffer, 12); i > 0; i--){
+			map.paths.add(CompactPath.read(buffer));
+		}
+		if(buffer.get() != 0){
+			map.landmarks = Landmarks.read(buffer, map.collisionMatrix);
+		}
+		return map;
+	}
+
+	/**
+	 * Reads the nr of items that follow, and checks that they fit the rest of the buffer before anything is allocated for them.
+	 * @param buffer Buffer at the count
+	 * @param minItemSize Least nr of bytes that an item takes
+	 * @return The count
+	 * @throws IllegalArgumentException If the count is negative or the items can't fit the rest of the buffer
+	 */
+	static int readCount(ByteBuffer buffer, int minItemSize){
+		int count = buffer.getInt();
+		if(count < 0 || (long)count*minItemSize > buffer.remaining()){
+			throw new IllegalArgumentException("Count " + count + " does not fit the " + buffer.remaining() + " bytes that are left");
+		}
+		return count;
+	}
+
+	/**
+	 * Reads a list of nodes (count and indices).
+	 * @param buffer Buffer at the start of the list
+	 * @param nodes The nodes by index
+	 */
+	private static LinkedList<Node> readNodes(ByteBuffer buffer, Node[] nodes){
+		LinkedList<Node> list = new LinkedList<Node>();
+		for(int i = readCount(buffer, 4); i > 0; i--){
+			list.add(nodes[buffer.getInt()]);
+		}
+		return list;
+	}
+
+	/**
+	 * Reads the points of a polygon (count and x, y of each point).
+	 * @param buffer Buffer at the start of the points
+	 * @param polygon Polygon that the points are added to
+	 */
+	private static void readPoints(ByteBuffer buffer, Polygon polygon){
+		for(int i = readCount(buffer, 8); i > 0; i--){
+			polygon.addPoint(buffer.getInt(), buffer.getInt());
+		}
+	}
+
+	/**
+	 * Writes the map next to its source file (see getFile). The map is first written to a temporary file that then replaces the old file,
+	 * so that a map that is being read or a write that fails never leaves a damaged file.
+	 * @param sourceFilename The .osm or .osm.pbf file that the map was loaded from
+	 * @param settingsHash Hash of the settings that the map depends on (see OSM_Reader.getSettingsHash)
+	 * @throws IOException If a file can't be read or written
+	 */
+	public void write(String sourceFilename, long settingsHash) throws IOException {
+		File file = getFile(sourceFilename);
+		File tempFile = new File(file.getPath() + ".tmp");
+
+		//Strings and nodes by index
+		HashMap<String,Integer> stringIndex = new HashMap<String,Integer>();
+		ArrayList<String> strings = new ArrayList<String>();
+		IdentityHashMap<Node,Integer> nodeIndex = new IdentityHashMap<Node,Integer>();
+		ArrayList<Node> nodes = new ArrayList<Node>();
+		for(Way way : ways){
+			addString(way.getTag(), stringIndex, strings);
+			addNodes(way.getWayNodes(), nodeIndex, nodes);
+		}
+		for(Building building : buildings){
+			addString(building.getTag(), stringIndex, strings);
+			addNodes(building.getTargetsInside(), nodeIndex, nodes);
+		}
+		for(Area area : areas){
+			addString(area.getTag(), stringIndex, strings);
+		}
+		for(LinkedList<Node> list : targets){
+			addNodes(list, nodeIndex, nodes);
+		}
+		addNodes(nonTargets, nodeIndex, nodes);
+		for(Node node : nodes){
+			addString(node.getTag(), stringIndex, strings);
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			RandomAccessFile source = new RandomAccessFile(sourceFilename, "r");
+			try{
+				out.writeLong(source.length());
+				out.writeInt(hash(source.getChannel()));
+			}
+			finally{
+				source.close();
+			}
+			out.writeLong(settingsHash);
+
+			out.writeInt(collisionMatrix.length);
+			out.writeInt(collisionMatrix[0].length);
+			for(int[] column : collisionMatrix){
+				for(int cost : column){
+					out.writeInt(cost);
+				}
+			}
+
+			out.writeInt(strings.size());
+			for(String string : strings){
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			out.writeInt(nodes.size());
+			for(Node node : nodes){
+				out.writeInt(node.getXPos());
+				out.writeInt(node.getYPos());
+				out.writeInt(stringIndex.get(node.getTag()));
+			}
+
+			out.writeInt(ways.size());
+			for(Way way : ways){
+				out.writeInt(way.getColor().getRGB());
+				out.writeInt(way.getCost());
+				out.writeInt(way.getWidth());
+				out.writeInt(stringIndex.get(way.getTag()));
+				writeNodes(out, way.getWayNodes(), nodeIndex);
+			}
+
+			out.writeInt(buildings.size());
+			for(Building building : buildings){
+				out.writeInt(building.getColor().getRGB());
+				out.writeInt(building.getCost());
+				out.writeInt(stringIndex.get(building.getTag()));
+				writePoints(out, building.getPolygon());
+				writeNodes(out, building.getTargetsInside(), nodeIndex);
+			}
+
+			out.writeInt(areas.size());
+			for(Area area : areas){
+				out.writeInt(area.getColor().getRGB());
+				out.writeInt(area.getCost());
+				out.writeInt(stringIndex.get(area.getTag()));
+				writePoints(out, area.getArea());
+			}
+
+			out.writeInt(targets.size());
+			for(LinkedList<Node> list : targets){
+				writeNodes(out, list, nodeIndex);
+			}
+			writeNodes(out, nonTargets, nodeIndex);
+
+			out.writeInt(paths.size());
+			for(CompactPath path : paths){
+				path.write(out);
+			}
+			out.writeBoolean(landmarks != null);
+			if(landmarks != null){
+				landmarks.write(out);
+			}
+		}
+		catch(IOException e){
+			out.close();
+			tempFile.delete();
+			throw e;
+		}
+		out.close();
+
+		try{
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e){
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Gives nodes an index, unless they already have one.
+	 * @param list The nodes
+	 * @param nodeIndex Index of each node
+	 * @param nodes The nodes by index
+	 */
+	private static void addNodes(LinkedList<Node> list, IdentityHashMap<Node,Integer> nodeIndex, ArrayList<Node> nodes){
+		for(Node node : list){
+			if(!nodeIndex.containsKey(node)){
+				nodeIndex.put(node, nodes.size());
+				nodes.add(node);
+			}
+		}
+	}
+
+	/**
+	 * Gives a string an index, unless it already has one.
+	 * @param string The string
+	 * @param stringIndex Index of each string
+	 * @param strings The strings by index
+	 */
+	private static void addString(String string, HashMap<String,Integer> stringIndex, ArrayList<String> strings){
+		if(!stringIndex.containsKey(string)){
+			stringIndex.put(string, strings.size());
+			strings.add(string);
+		}
+	}
+
+	/**
+	 * Writes a list of nodes (count and indices).
+	 * @param out Stream to write to
+	 * @param list The nodes
+	 * @param nodeIndex Index of each node
+	 */
+	private static void writeNodes(DataOutputStream out, LinkedList<Node> list, IdentityHashMap<Node,Integer> nodeIndex) throws IOException {
+		out.writeInt(list.size());
+		for(Node node : list){
+			out.writeInt(nodeIndex.get(node));
+		}
+	}
+
+	/**
+	 * Writes the points of a polygon (count and x, y of each point).
+	 * @param out Stream to write to
+	 * @param polygon The polygon
+	 */
+	private static void writePoints(DataOutputStream out, Polygon polygon) throws IOException {
+		out.writeInt(polygon.npoints);
+		for(int i = 0; i < polygon.npoints; i++){
+			out.writeInt(polygon.xpoints[i]);
+			out.writeInt(polygon.ypoints[i]);
+		}
+	}
+}
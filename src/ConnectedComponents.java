@@ -0,0 +1,144 @@
+/**
+ * ConnectedComponents labels the walkable tiles of a collisionMatrix so that two tiles have the same label
+ * if (and only if) the Pathfinder can find a path between them. This makes it possible to check if a target
+ * is reachable without searching for a path.
+ *
+ * The Pathfinder moves to walkable tiles (cost != Integer.MAX_VALUE) inside of the matrix except the last row and column,
+ * and only moves diagonally if both adjacent tiles are walkable. A diagonal move can therefore always be replaced by two
+ * straight moves, so the labels are the 4-connected components of the walkable tiles. (A path that starts in the last row or
+ * column may also walk along it, such start tiles are not handled.)
+ *
+ * @version 18-10-2026
+ */
+public class ConnectedComponents {
+	private final int columns;		//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final int maxTileX;		//Tiles with x >= maxTileX or y >= maxTileY can't be reached by the Pathfinder
+	private final int maxTileY;
+	private final int[] labels;		//Component of each tile (-1 if not walkable)
+	private int nrOfComponents = 0;
+
+	/**
+	 * Labels all walkable tiles of a collisionMatrix.
+	 * @param collisionMatrix CollisionMatrix to label
+	 */
+	public ConnectedComponents(int[][] collisionMatrix){
+		columns  = collisionMatrix[0].length;
+		maxTileX = collisionMatrix.length-1;
+		maxTileY = columns-1;
+		labels   = new int[collisionMatrix.length*columns];
+		for(int i = 0; i < labels.length; i++){
+			labels[i] = -1;
+		}
+
+		int[] queue = new int[labels.length];
+		for(int x = 0; x < maxTileX; x++){
+			for(int y = 0; y < maxTileY; y++){
+				if(labels[x*columns + y] == -1 && collisionMatrix[x][y] != Integer.MAX_VALUE){
+					fill(collisionMatrix, x*columns + y, nrOfComponents++, queue);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Labels all tiles that are connected to a tile (breadth first).
+	 * @param collisionMatrix CollisionMatrix to label
+	 * @param startTile Tile index of the first tile
+	 * @param label Label of the component
+	 * @param queue Array used as queue (of at least the nr of tiles)
+	 */
+	private void fill(int[][] collisionMatrix, int startTile, int label, int[] queue){
+		int head = 0, tail = 0;
+		int tile, x, y;
+		labels[startTile] = label;
+		queue[tail++] = startTile;
+		while(head < tail){
+			tile = queue[head++];
+			x = tile / columns;
+			y = tile % columns;
+			if(x-1 >= 0 && labels[tile-columns] == -1 && collisionMatrix[x-1][y] != Integer.MAX_VALUE){
+				labels[tile-columns] = label;
+				queue[tail++] = tile-columns;
+			}
+			if(x+1 < maxTileX && labels[tile+columns] == -1 && collisionMatrix[x+1][y] != Integer.MAX_VALUE){
+				labels[tile+columns] = label;
+				queue[tail++] = tile+columns;
+			}
+			if(y-1 >= 0 && labels[tile-1] == -1 && collisionMatrix[x][y-1] != Integer.MAX_VALUE){
+				labels[tile-1] = label;
+				queue[tail++] = tile-1;
+			}
+			if(y+1 < maxTileY && labels[tile+1] == -1 && collisionMatrix[x][y+1] != Integer.MAX_VALUE){
+				labels[tile+1] = label;
+				queue[tail++] = tile+1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the component of a tile, i.e. the component that a path to this tile must start in.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 * @return The component, -1 if the tile can't be walked to
+	 */
+	public int getComponent(int x, int y){
+		if(x < 0 || y < 0 || x >= maxTileX || y >= maxTileY){
+			return -1;
+		}
+		return labels[x*columns + y];
+	}
+
+	/**
+	 * Returns the nr of components.
+	 */
+	public int getNrOfComponents(){
+		return nrOfComponents;
+	}
+
+	/**
+	 * Finds the components that a path from a tile can go into (the start tile itself does not have to be walkable).
+	 * @param x X-pos of start tile
+	 * @param y Y-pos of start tile
+	 * @param components Array (of at least length 4) where the components are stored
+	 * @return Nr of components that were stored (a component might be stored more than once)
+	 */
+	public int getStartComponents(int x, int y, int[] components){
+		int count = 0;
+		int component;
+		//The diagonal neighbours are only reachable through a straight neighbour of the same component
+		int[][] neighbours = {{x-1, y}, {x+1, y}, {x, y-1}, {x, y+1}};
+		for(int[] neighbour : neighbours){
+			component = getComponent(neighbour[0], neighbour[1]);
+			if(component >= 0){
+				components[count++] = component;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if the Pathfinder can find a path between two tiles.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @return True if a path exists (or if the tiles are the same)
+	 */
+	public boolean isReachable(int startX, int startY, int targetX, int targetY){
+		if(startX == targetX && startY == targetY){
+			return true;
+		}
+		int targetComponent = getComponent(targetX, targetY);
+		if(targetComponent < 0){
+			return false;
+		}
+		int[] components = new int[4];
+		int count = getStartComponents(startX, startY, components);
+		for(int i = 0; i < count; i++){
+			if(components[i] == targetComponent){
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,253 @@
+import java.util.Arrays;
+
+/**
+ * FlowField stores for every tile of a collisionMatrix the direction of the next step of the cheapest path to one goal tile,
+ * so that any number of pedestrians can walk to the goal by following the directions (one lookup per step) instead of
+ * searching for their own paths. It is calculated with one Dijkstra search from the goal (backwards along the moves),
+ * with the same moves and costs as the Pathfinder: moves to walkable tiles that don't cross into the last row or column of the matrix,
+ * diagonal moves only if both adjacent tiles are walkable, and every entered tile (including the goal) adds its cost.
+ *
+ * When the costs of tiles are changed the field can be repaired (see updateTiles), only the tiles whose paths are affected are searched again.
+ * A field must not be read while it is calculated or repaired.
+ *
+ * @version 18-10-2026
+ */
+public class FlowField {
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final int[][] collisionMatrix;
+	private final int columns;	//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final int maxTileX;	//Moves can't cross into x >= maxTileX or y >= maxTileY
+	private final int maxTileY;
+	private final int goalX;
+	private final int goalY;
+
+	private final int[] distance;	//Cost of the cheapest path from each tile to the goal (UNREACHABLE if there is no path)
+	private final int[] flow;		//Nr of steps of the path from each tile << 3 | direction of the first step (-1 if there is no path),
+									//kept in one array so that following the field only reads one value per step
+	private final TileHeap openList;
+
+	/**
+	 * Calculates the field for a goal tile.
+	 * @param collisionMatrix CollisionMatrix to calculate the field over
+	 * @param goalX X-pos of goal tile
+	 * @param goalY Y-pos of goal tile
+	 */
+	public FlowField(int[][] collisionMatrix, int goalX, int goalY){
+		this.collisionMatrix = collisionMatrix;
+		this.goalX = goalX;
+		this.goalY = goalY;
+		columns  = collisionMatrix[0].length;
+		maxTileX = collisionMatrix.length-1;
+		maxTileY = columns-1;
+
+		int nrOfTiles = collisionMatrix.length*columns;
+		distance = new int[nrOfTiles];
+		flow     = new int[nrOfTiles];
+		openList = new TileHeap(nrOfTiles);
+		calculate();
+	}
+
+	/**
+	 * Calculates the whole field from the goal.
+	 */
+	private void calculate(){
+		Arrays.fill(distance, UNREACHABLE);
+		Arrays.fill(flow, -1);
+
+		int goal = goalX*columns + goalY;
+		distance[goal] = 0;
+		flow[goal]     = 0;
+		openList.clear();
+		openList.add(goal, 0);
+		search();
+	}
+
+	/**
+	 * Dijkstra search backwards from the tiles on the open list: for every tile that is taken from the list
+	 * all tiles that can move to it are checked. Only tiles that can be walked to are expanded (the start tile
+	 * of a path may be unwalkable but is never walked through).
+	 */
+	private void search(){
+		int tile, x, y, fromX, fromY, fromTile, cost;
+		while(!openList.isEmpty()){
+			tile = openList.poll();
+			x = tile / columns;
+			y = tile % columns;
+			if(collisionMatrix[x][y] == Integer.MAX_VALUE){
+				continue;
+			}
+			for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+				fromX = x - Pathfinder.DIRECTION_X[dir];
+				fromY = y - Pathfinder.DIRECTION_Y[dir];
+				if(fromX < 0 || fromY < 0 || fromX > maxTileX || fromY > maxTileY || !Pathfinder.canMove(collisionMatrix, fromX, fromY, dir)){
+					continue;
+				}
+				fromTile = fromX*columns + fromY;
+				cost = distance[tile] + Pathfinder.moveCost(dir) + collisionMatrix[x][y];
+				if(cost < distance[fromTile]){
+					if(openList.contains(fromTile)){
+						openList.decreaseKey(fromTile, cost);
+					}
+					else{
+						openList.add(fromTile, cost);
+					}
+					distance[fromTile] = cost;
+					flow[fromTile]     = (((flow[tile] >> 3) + 1) << 3) | dir;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Repairs the field after the cost of a tile has been changed (in the collisionMatrix), see updateTiles.
+	 * @param x X-pos of the changed tile
+	 * @param y Y-pos of the changed tile
+	 * @return Nr of tiles that were reset
+	 */
+	public int updateTile(int x, int y){
+		return updateTiles(new int[]{x*columns + y}, 1);
+	}
+
+	/**
+	 * Repairs the field after the costs of tiles have been changed (in the collisionMatrix).
+	 * The tiles whose paths pass a changed tile (or one of its neighbours, since the tile might allow or block diagonal moves)
+	 * are reset and searched again from their unaffected neighbours, tiles that get cheaper paths through a changed tile are updated by the same search.
+	 * All changed tiles are repaired by one search, so that a tile whose path passes many of them (e.g. a closed street) is only searched again once.
+	 * @param tiles Tile index of each changed tile (x*columns + y)
+	 * @param nrOfTiles Nr of changed tiles
+	 * @return Nr of tiles that were reset
+	 */
+	public int updateTiles(int[] tiles, int nrOfTiles){
+		int goal = goalX*columns + goalY;
+		for(int i = 0; i < nrOfTiles; i++){
+			//All paths enter the goal, so the whole field is calculated again
+			if(tiles[i] == goal){
+				calculate();
+				return distance.length;
+			}
+		}
+
+		//Mark the tiles around the changed tiles and all tiles whose paths lead through them
+		int[] affected = new int[distance.length];
+		boolean[] isAffected = new boolean[distance.length];
+		int nrAffected = 0;
+		for(int i = 0; i < nrOfTiles; i++){
+			int x = tiles[i] / columns;
+			int y = tiles[i] % columns;
+			for(int dx = -1; dx <= 1; dx++){
+				for(int dy = -1; dy <= 1; dy++){
+					int nx = x+dx, ny = y+dy;
+					if(nx >= 0 && ny >= 0 && nx <= maxTileX && ny <= maxTileY && !(nx == goalX && ny == goalY) && !isAffected[nx*columns + ny]){
+						isAffected[nx*columns + ny] = true;
+						affected[nrAffected++] = nx*columns + ny;
+					}
+				}
+			}
+		}
+		for(int i = 0; i < nrAffected; i++){
+			int tile = affected[i];
+			int tx = tile / columns;
+			int ty = tile % columns;
+			for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+				int fromX = tx - Pathfinder.DIRECTION_X[dir];
+				int fromY = ty - Pathfinder.DIRECTION_Y[dir];
+				if(fromX >= 0 && fromY >= 0 && fromX <= maxTileX && fromY <= maxTileY){
+					int fromTile = fromX*columns + fromY;
+					if(!isAffected[fromTile] && flow[fromTile] > 0 && (flow[fromTile] & 7) == dir){
+						isAffected[fromTile] = true;
+						affected[nrAffected++] = fromTile;
+					}
+				}
+			}
+		}
+		for(int i = 0; i < nrAffected; i++){
+			distance[affected[i]] = UNREACHABLE;
+			flow[affected[i]]     = -1;
+		}
+
+		//Start the search again from all unaffected tiles next to the affected ones
+		openList.clear();
+		for(int i = 0; i < nrAffected; i++){
+			int tile = affected[i];
+			int tx = tile / columns;
+			int ty = tile % columns;
+			for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+				int toX = tx + Pathfinder.DIRECTION_X[dir];
+				int toY = ty + Pathfinder.DIRECTION_Y[dir];
+				if(toX >= 0 && toY >= 0 && toX <= maxTileX && toY <= maxTileY){
+					int toTile = toX*columns + toY;
+					if(!isAffected[toTile] && distance[toTile] != UNREACHABLE && !openList.contains(toTile)){
+						openList.add(toTile, distance[toTile]);
+					}
+				}
+			}
+		}
+		search();
+		return nrAffected;
+	}
+
+	/**
+	 * Returns the change in x-pos of the next step from a tile (0 at the goal and if there is no path).
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	public int getDeltaX(int x, int y){
+		int value = flow[x*columns + y];
+		return value > 0 ? Pathfinder.DIRECTION_X[value & 7] : 0;
+	}
+
+	/**
+	 * Returns the change in y-pos of the next step from a tile (0 at the goal and if there is no path).
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	public int getDeltaY(int x, int y){
+		int value = flow[x*columns + y];
+		return value > 0 ? Pathfinder.DIRECTION_Y[value & 7] : 0;
+	}
+
+	/**
+	 * Returns the cost of the cheapest path from a tile to the goal.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 * @return The cost, Integer.MAX_VALUE if there is no path
+	 */
+	public int getDistance(int x, int y){
+		return distance[x*columns + y];
+	}
+
+	/**
+	 * Returns the x-pos of the goal tile.
+	 */
+	public int getGoalX(){
+		return goalX;
+	}
+
+	/**
+	 * Returns the y-pos of the goal tile.
+	 */
+	public int getGoalY(){
+		return goalY;
+	}
+
+	/**
+	 * Returns the nr of bytes used by the field.
+	 */
+	public int getMemorySize(){
+		return 8*distance.length;
+	}
+
+	/**
+	 * Returns the nr of steps of the path from a tile to the goal.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 * @return Nr of steps (0 at the goal), -1 if there is no path or if the tile is outside of the matrix
+	 */
+	public int getSteps(int x, int y){
+		if(x < 0 || y < 0 || x > maxTileX || y > maxTileY){
+			return -1;
+		}
+		return flow[x*columns + y] >> 3;
+	}
+}
@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * FlowFieldCache keeps the flow fields (see FlowField) of the hot targets, i.e. the targets that many pedestrians walk to
+ * (by default public transport, education and restaurants). A field is calculated the first time a pedestrian walks to a hot target
+ * and is then shared by all pedestrians that walk to the same target. At most maxFields fields are kept resident,
+ * the least recently used field is dropped when another one is needed (and calculated again if it is needed later).
+ *
+ * Paths to other targets are still searched for by the Pathfinder (and stored in the PathCache).
+ *
+ * @version 18-10-2026
+ */
+public class FlowFieldCache {
+	public static final int DEFAULT_MAX_FIELDS = 16;	//A field of a 200x200 collisionMatrix uses about 320 kB
+	public static final OSM_Reader.TargetEnums[] DEFAULT_HOT_TYPES = {OSM_Reader.TargetEnums.PUBLIC_TRANSPORT, OSM_Reader.TargetEnums.STUDY, OSM_Reader.TargetEnums.RESTAURANT_I};
+
+	private final int[][] collisionMatrix;
+	private final int columns;			//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final int maxFields;		//Max nr of resident fields
+	private final boolean[] hot;		//Is the tile a hot target?
+	private final LinkedHashMap<Integer,FlowField> fields;	//Resident fields by goal tile index, in access order (least recently used first)
+	private final ConcurrentHashMap<Integer,FutureTask<FlowField>> building = new ConcurrentHashMap<Integer,FutureTask<FlowField>>();	//Fields that are being calculated
+
+	//Statistics
+	private long hits      = 0;
+	private long builds    = 0;
+	private long evictions = 0;
+
+	/**
+	 * Creates an empty cache.
+	 * @param collisionMatrix CollisionMatrix that the fields are calculated over
+	 * @param maxFields Max nr of resident fields
+	 */
+	public FlowFieldCache(int[][] collisionMatrix, int maxFields){
+		this.collisionMatrix = collisionMatrix;
+		this.maxFields = Math.max(maxFields, 1);
+		columns = collisionMatrix[0].length;
+		hot     = new boolean[collisionMatrix.length*columns];
+		fields  = new LinkedHashMap<Integer,FlowField>(16, 0.75f, true);
+	}
+
+	/**
+	 * Marks a tile as a hot target.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	public synchronized void addHotTarget(int x, int y){
+		if(x >= 0 && y >= 0 && x < collisionMatrix.length && y < columns){
+			hot[x*columns + y] = true;
+		}
+	}
+
+	/**
+	 * Marks all targets of some types as hot targets.
+	 * @param targets Targets (one list per type, see OSM_Reader.TargetEnums)
+	 * @param types Types of hot targets
+	 * @param scaleCollision Scale between render and collision positions
+	 */
+	public void addHotTargets(ArrayList<LinkedList<Node>> targets, OSM_Reader.TargetEnums[] types, float scaleCollision){
+		for(OSM_Reader.TargetEnums type : types){
+			for(Node node : targets.get(type.ordinal())){
+				addHotTarget(node.getCollisionXPos(scaleCollision), node.getCollisionYPos(scaleCollision));
+			}
+		}
+	}
+
+	/**
+	 * Returns the field of a hot target, the field is calculated if it is not resident. The field is calculated outside of the lock of
+	 * the cache, so that pedestrians that are updated in parallel can get other fields meanwhile, and pedestrians that need the same field
+	 * wait for the thread that calculates it instead of calculating it again.
+	 * @param x X-pos of target tile
+	 * @param y Y-pos of target tile
+	 * @return The field, null if the tile is not a hot target
+	 */
+	public FlowField get(final int x, final int y){
+		if(!isHot(x, y)){
+			return null;
+		}
+		Integer tile = x*columns + y;
+		synchronized(this){
+			FlowField field = fields.get(tile);
+			if(field != null){
+				hits++;
+				return field;
+			}
+		}
+
+		FutureTask<FlowField> build = new FutureTask<FlowField>(new Callable<FlowField>(){
+			@Override
+			public FlowField call(){
+				return new FlowField(collisionMatrix, x, y);
+			}
+		});
+		FutureTask<FlowField> running = building.putIfAbsent(tile, build);
+		if(running == null){
+			build.run();
+			running = build;
+		}
+		FlowField field;
+		try{
+			field = running.get();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch(ExecutionException e){
+			building.remove(tile, running);
+			throw new IllegalStateException("Flow field could not be calculated", e.getCause());
+		}
+		if(running == build){
+			synchronized(this){
+				builds++;
+				fields.put(tile, field);
+				Iterator<FlowField> eldest = fields.values().iterator();
+				while(fields.size() > maxFields){
+					eldest.next();
+					eldest.remove();
+					evictions++;
+				}
+			}
+			//Removed after the field is resident, so that a thread that comes later finds it in either place
+			building.remove(tile, build);
+		}
+		return field;
+	}
+
+	/**
+	 * Returns the nr of fields that have been calculated.
+	 */
+	public synchronized long getBuilds(){
+		return builds;
+	}
+
+	/**
+	 * Returns the nr of fields that have been dropped to stay within the max nr of fields.
+	 */
+	public synchronized long getEvictions(){
+		return evictions;
+	}
+
+	/**
+	 * Returns the nr of lookups that found a resident field.
+	 */
+	public synchronized long getHits(){
+		return hits;
+	}
+
+	/**
+	 * Returns the max nr of resident fields.
+	 */
+	public int getMaxFields(){
+		return maxFields;
+	}
+
+	/**
+	 * Returns the nr of bytes used by the resident fields.
+	 */
+	public synchronized long getMemorySize(){
+		long size = 0;
+		for(FlowField field : fields.values()){
+			size += field.getMemorySize();
+		}
+		return size;
+	}
+
+	/**
+	 * Checks if a tile is a hot target.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	public synchronized boolean isHot(int x, int y){
+		return x >= 0 && y >= 0 && x < collisionMatrix.length && y < columns && hot[x*columns + y];
+	}
+
+	/**
+	 * Returns the nr of resident fields.
+	 */
+	public synchronized int size(){
+		return fields.size();
+	}
+
+	/**
+	 * Repairs all resident fields after the costs of tiles have been changed in the collisionMatrix (see FlowField.updateTiles).
+	 * Dropped fields are not repaired, pedestrians that still walk them keep their old paths.
+	 * Must not be called while pedestrians are updated.
+	 * @param tiles Tile index of each changed tile (x*columns + y)
+	 * @param nrOfTiles Nr of changed tiles
+	 */
+	public synchronized void updateTiles(int[] tiles, int nrOfTiles){
+		for(FlowField field : fields.values()){
+			field.updateTiles(tiles, nrOfTiles);
+		}
+	}
+
+	/**
+	 * Returns the statistics of the cache.
+	 */
+	@Override
+	public synchronized String toString(){
+		return fields.size() + "/" + maxFields + " fields (" + getMemorySize() + " bytes), " + hits + " hits, " + builds + " builds, " + evictions + " evictions";
+	}
+}
@@ -38,6 +38,14 @@ public class Frame extends JFrame implements ActionListener {
 	public static int SIM_WINDOW_LENGTH = 800;	//Resolution of the simulation (cubic e.g. 800 -> 800x800)
 	public static boolean DEBUG = false;
 	public static boolean USE_PRECALCULATED_PATHS = true; //Paths can be pre-calculated for optimization purposes
+	public static boolean USE_FLOW_FIELDS = true; //Pedestrians walking to hot targets follow shared flow fields instead of searching paths
+	public static boolean USE_HIERARCHICAL_PATHFINDING = false; //Search paths hierarchically (always done on large collision matrices)
+	public static boolean USE_JUMP_POINT_SEARCH = true; //The Pathfinder jumps over tiles where the cost is uniform (Jump Point Search)
+	public static boolean USE_LANDMARKS = true; //The heuristic of the Pathfinder uses the costs to landmark tiles (ALT), calculated when the map is loaded (only on small maps, see Landmarks.MAX_TILES)
+	public static boolean USE_STREAM_PARSER = true; //Read .osm files with the XMLStreamReader (a cursor) instead of the XMLEventReader
+	public static boolean USE_TWO_PASS_LOADING = false; //Read .osm files twice so that only the used nodes are kept (always done on large files)
+	public static boolean USE_COMPILED_MAPS = true; //Write loaded maps next to their .osm files and read them from there the next time (see CompiledMap)
+	public static boolean USE_PATH_PLANNER = true; //Search paths on background threads so that long searches don't stall the updates and repaints
 	public static final String VERSION= "1.00";
 	private PedestriansSimulator simulator;
 	private JDialog simulatorInfo; //Dialog for showing information about simulator
@@ -51,8 +59,8 @@ public class Frame extends JFrame implements ActionListener {
 	public static Clock clock;	
 	private final String CLOCK_FONT_DIRECTORY = "data/digital-7-mono.ttf";
 	private final int CLOCK_FONT_SIZE = 40;
-	private final int START_HOUR = 5;
-	private final int START_MINUTE = 45;
+	public static final int START_HOUR = 5;
+	public static final int START_MINUTE = 45;
 	
 	//East panel
 	public static final int EAST_PANEL_WIDTH = 150;
@@ -872,6 +880,5 @@ public class Frame extends JFrame implements ActionListener {
    		renderTargetNoBtn.setSelected(true);
    		renderAntialiasingYesBtn.setSelected(true);
    		simulator.deselectPedestrian();
-   		PedestriansSimulator.PEDESTRIAN_SPEED = Math.round(10000f/Clock.minuteLength);
      }
 }
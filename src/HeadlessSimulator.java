@@ -0,0 +1,111 @@
+import java.util.LinkedList;
+
+/**
+ * Runs the simulation without any display, as fast as possible (fast-forward), during a given time of day.
+ * Progress is written to standard output once every simulated hour.
+ *
+ * Usage: java -Djava.awt.headless=true HeadlessSimulator <.osm file> [HH:MM-HH:MM] [nr of pedestrians] [steps per minute] [threads] [type mix]
+ * e.g.   java -Djava.awt.headless=true HeadlessSimulator data/map.osm 08:00-18:00 1000
+ *        java -Djava.awt.headless=true HeadlessSimulator data/map.osm 08:00-18:00 50000 16 4 0.1,0.05,0.85
+ *
+ * @version 18-10-2026
+ */
+public class HeadlessSimulator implements SimulationListener {
+	private static final String DEFAULT_TIME_RANGE = "08:00-18:00";
+
+	private SimulationEngine engine;
+	private long startTime;		//Wall-clock time when the simulation started (ms)
+	private long lastStepTime;	//Wall-clock time when the last hour was reported (ms)
+	private int stepsThisHour = 0;
+
+	public static void main(String[] args){
+		if(args.length < 1){
+			System.err.println("Usage: java -Djava.awt.headless=true HeadlessSimulator <.osm file> [HH:MM-HH:MM] [nr of pedestrians] [steps per minute] [threads] [type mix]");
+			System.exit(1);
+		}
+		String[] timeRange = (args.length > 1 ? args[1] : DEFAULT_TIME_RANGE).split("-");
+		int[] start = parseTime(timeRange[0]);
+		int[] end   = parseTime(timeRange[1]);
+		int nrOfPedestrians = args.length > 2 ? Integer.parseInt(args[2]) : PedestriansSimulator.DEFAULT_NR_OF_PEDESTRIANS;
+		int stepsPerMinute  = args.length > 3 ? Integer.parseInt(args[3]) : SimulationEngine.FAST_FORWARD_STEPS_PER_MINUTE;
+		int threads         = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		float[] typeMix     = args.length > 5 ? SimulationEngine.parseTypeMix(args[5]) : SimulationEngine.DEFAULT_TYPE_MIX;
+
+		//Load map
+		long before = System.currentTimeMillis();
+		OSM_Reader reader = new OSM_Reader();
+		reader.setFilename(args[0]);
+		reader.doInBackground();
+		int nrOfTargets = 0;
+		for(LinkedList<Node> list : OSM_Reader.targets){
+			nrOfTargets += list.size();
+		}
+		if(nrOfTargets < 2){
+			System.err.println("The .osm file does not contain enough targets (restaurants, shops, cafes etc.)");
+			System.exit(1);
+		}
+		System.out.println("Map loaded in " + (System.currentTimeMillis() - before) + " ms (" + nrOfTargets + " targets)");
+
+		//Setup and run simulation
+		SimulationEngine engine = new SimulationEngine(reader.getCollisionMatrix(), start[0], start[1]);
+		engine.setStepsPerMinute(stepsPerMinute);
+		engine.setParallelism(threads);
+		engine.setTypeMix(typeMix);
+		engine.initiatePedestrians(nrOfPedestrians);
+		System.out.println(nrOfPedestrians + " pedestrians created in " + engine.getInitiationTime() + " ms (~"
+				+ engine.getMemoryPerPedestrian() + " bytes/pedestrian)");
+
+		HeadlessSimulator simulator = new HeadlessSimulator();
+		simulator.engine = engine;
+		engine.addListener(simulator);
+		simulator.startTime = simulator.lastStepTime = System.currentTimeMillis();
+		long steps = engine.runUntil(end[0], end[1]);
+		long time = System.currentTimeMillis() - simulator.startTime;
+
+		long minutes = engine.getClock().getNrMinutes();
+		System.out.println("Simulated " + minutes + " minutes (" + steps + " steps) in " + time + " ms, "
+				+ Math.round(minutes*60000.0 / Math.max(time, 1)) + "x faster than real time");
+		System.out.println("Path cache: " + OSM_Reader.pathCache);
+		if(OSM_Reader.flowFields != null){
+			System.out.println("Flow fields: " + OSM_Reader.flowFields);
+		}
+		engine.setParallelism(1);
+	}
+
+	/**
+	 * Parses a time of day.
+	 * @param time Time on the form HH:MM
+	 * @return Array with hour and minute
+	 */
+	private static int[] parseTime(String time){
+		String[] parts = time.trim().split(":");
+		int hour   = Integer.parseInt(parts[0]);
+		int minute = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+		if(hour < 0 || hour > 23 || minute < 0 || minute > 59){
+			throw new IllegalArgumentException("Invalid time: " + time);
+		}
+		return new int[]{hour, minute};
+	}
+
+	/**
+	 * Reports the progress of the simulation (nr of walking pedestrians, steps and wall-clock time) at each full hour.
+	 */
+	@Override
+	public void minutePassed(SimulationClock clock){
+		if(clock.getMinute() == 0){
+			int walking = engine.getAgentStore().countWalking();
+			long now = System.currentTimeMillis();
+			System.out.println(clock + "  walking: " + walking + "  steps: " + stepsThisHour + "  wall time: " + (now - lastStepTime) + " ms");
+			lastStepTime = now;
+			stepsThisHour = 0;
+		}
+	}
+
+	/**
+	 * Counts the steps taken during the current hour.
+	 */
+	@Override
+	public void stepDone(SimulationEngine engine){
+		stepsThisHour++;
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * HierarchicalPath is a path found by the HierarchicalPathfinder. It consists of waypoints (the start tile, the transitions between
+ * clusters that the path passes and the goal tile) and each segment between two waypoints is refined into tiles first when it is needed,
+ * so a pedestrian that changes target halfway never pays for the rest of the path. Refined segments are kept.
+ *
+ * A path is walked by one pedestrian (see PathCursor) and is not thread safe.
+ *
+ * @version 18-10-2026
+ */
+public class HierarchicalPath {
+	private final HierarchicalPathfinder pathfinder;
+	private final int[] waypointX;
+	private final int[] waypointY;
+	private final CompactPath[] segments;	//Refined segments (null if not refined yet), segment i leads from waypoint i to i+1
+
+	/**
+	 * Creates a path from its waypoints.
+	 * @param pathfinder Pathfinder that found the path (used to refine the segments)
+	 * @param waypointX X-pos of each waypoint (including start and goal)
+	 * @param waypointY Y-pos of each waypoint
+	 */
+	public HierarchicalPath(HierarchicalPathfinder pathfinder, int[] waypointX, int[] waypointY){
+		this.pathfinder = pathfinder;
+		this.waypointX  = waypointX;
+		this.waypointY  = waypointY;
+		segments = new CompactPath[waypointX.length-1];
+	}
+
+	/**
+	 * Returns a copy of the path that shares the waypoints and the segments that have been refined so far,
+	 * so that more than one pedestrian can walk the same path (the remaining segments are refined separately for each copy).
+	 */
+	public HierarchicalPath copy(){
+		HierarchicalPath copy = new HierarchicalPath(pathfinder, waypointX, waypointY);
+		System.arraycopy(segments, 0, copy.segments, 0, segments.length);
+		return copy;
+	}
+
+	/**
+	 * Returns the x-pos of the goal tile.
+	 */
+	public int getGoalX(){
+		return waypointX[waypointX.length-1];
+	}
+
+	/**
+	 * Returns the y-pos of the goal tile.
+	 */
+	public int getGoalY(){
+		return waypointY[waypointY.length-1];
+	}
+
+	/**
+	 * Returns the nr of steps of a segment if it is refined, else the least possible nr of steps between its waypoints.
+	 * @param segment Index of the segment
+	 */
+	public int getMinLength(int segment){
+		if(segments[segment] != null){
+			return segments[segment].getLength();
+		}
+		return Math.max(Math.abs(waypointX[segment+1] - waypointX[segment]), Math.abs(waypointY[segment+1] - waypointY[segment]));
+	}
+
+	/**
+	 * Returns the nr of segments.
+	 */
+	public int getNrOfSegments(){
+		return segments.length;
+	}
+
+	/**
+	 * Returns a segment, it is refined if that has not been done already.
+	 * @param segment Index of the segment
+	 * @return The tiles between the waypoints of the segment
+	 */
+	public CompactPath getSegment(int segment){
+		if(segments[segment] == null){
+			segments[segment] = pathfinder.refine(waypointX[segment], waypointY[segment], waypointX[segment+1], waypointY[segment+1]);
+		}
+		return segments[segment];
+	}
+
+	/**
+	 * Returns the x-pos of the start tile.
+	 */
+	public int getStartX(){
+		return waypointX[0];
+	}
+
+	/**
+	 * Returns the y-pos of the start tile.
+	 */
+	public int getStartY(){
+		return waypointY[0];
+	}
+
+	/**
+	 * Checks if a segment passes a tile whose cost was raised by the latest tile edits (see TileEdits).
+	 * A segment inside of a cluster that is not refined yet is searched first when it is reached, so it counts as passing if a raised tile is in the cluster.
+	 * @param segment Index of the segment
+	 * @param edits The edits
+	 */
+	public boolean passesRaisedTile(int segment, TileEdits edits){
+		if(segments[segment] != null){
+			CompactPath path = segments[segment];
+			int x = path.getStartX(), y = path.getStartY();
+			for(int step = 0; step < path.getLength(); step++){
+				x += path.getDeltaX(step);
+				y += path.getDeltaY(step);
+				if(edits.isRaised(x, y)){
+					return true;
+				}
+			}
+			return false;
+		}
+		int columns = edits.getCollisionMatrix()[0].length;
+		int from = waypointX[segment]*columns + waypointY[segment];
+		int to   = waypointX[segment+1]*columns + waypointY[segment+1];
+		//A segment between two clusters is the step across the border
+		if(!pathfinder.isSameCluster(from, to)){
+			return edits.isRaised(waypointX[segment+1], waypointY[segment+1]);
+		}
+		for(int i = 0; i < edits.getNrOfRaised(); i++){
+			if(pathfinder.isSameCluster(from, edits.getRaisedTile(i))){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Refines all segments and joins them into one path.
+	 * @return The whole path
+	 */
+	public CompactPath toCompactPath(){
+		int length = 0;
+		for(int i = 0; i < segments.length; i++){
+			length += getSegment(i).getLength();
+		}
+		int[] tilesX = new int[length];
+		int[] tilesY = new int[length];
+		int pos = 0;
+		for(int i = 0; i < segments.length; i++){
+			CompactPath segment = segments[i];
+			int x = segment.getStartX(), y = segment.getStartY();
+			for(int step = 0; step < segment.getLength(); step++){
+				x += segment.getDeltaX(step);
+				y += segment.getDeltaY(step);
+				tilesX[pos] = x;
+				tilesY[pos] = y;
+				pos++;
+			}
+		}
+		return new CompactPath(getStartX(), getStartY(), tilesX, tilesY, length);
+	}
+}
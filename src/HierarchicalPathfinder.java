@@ -0,0 +1,812 @@
+import java.util.Arrays;
+
+/**
+ * HierarchicalPathfinder finds paths with HPA* (hierarchical path-finding A*), which scales to much larger collision matrices than
+ * the flat A* of the Pathfinder. The collisionMatrix is split into square clusters. Where two clusters share a walkable border
+ * of the same cost (an entrance) one or two transitions, i.e. pairs of neighbouring tiles on each side of the border, are chosen. The tiles of the
+ * transitions are the nodes of an abstract graph whose edges are the moves across the borders and the cheapest paths between the
+ * nodes of each cluster (calculated once, when the graph is built).
+ *
+ * A query connects the start and goal tiles to the nodes of their clusters and searches the abstract graph with A*. The result is a
+ * HierarchicalPath of waypoints, whose segments are refined to tiles first when they are needed (see HierarchicalPath.getSegment),
+ * i.e. as the pedestrian walks. Moves and costs are the same as for the Pathfinder (including the rule that diagonal moves must not
+ * cut wall corners), but paths are only searched inside of clusters and cross borders at the transitions, so they can be a bit more expensive.
+ *
+ * The abstract graph is built once and only read afterwards, queries can be done by several threads at the same time.
+ * When the costs of tiles are edited while the simulation runs a new HierarchicalPathfinder is built, which only searches the
+ * clusters around the edited tiles again and shares the other clusters with the previous graph (see TileEdits).
+ *
+ * @version 18-10-2026
+ */
+public class HierarchicalPathfinder {
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+	public static final int AUTO_MIN_TILES = 512*512;	//Collision matrices with at least this many tiles are searched hierarchically (see OSM_Reader)
+
+	private static final int H_WEIGHT  = Math.round(0.4f*Pathfinder.MOVE_COST);
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final int WIDE_ENTRANCE = 6;	//Entrances at least this wide get a transition at each end, narrower ones one in the middle
+
+	private final int[][] collisionMatrix;
+	private final int columns;		//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final int maxTileX;		//Moves can't cross into x >= maxTileX or y >= maxTileY (same as the Pathfinder)
+	private final int maxTileY;
+	private final int clusterSize;
+	private final int clustersY;	//Nr of clusters along y (cluster index is (x/clusterSize)*clustersY + y/clusterSize)
+	private final int slotsPerCluster;	//Node id of a tile is cluster*slotsPerCluster + its slot on the border of the cluster (see slotOf)
+	private final int nodeIds;		//Nr of node ids (a search gives its start and goal tiles the ids nodeIds and nodeIds+1)
+
+	//Abstract graph
+	private final Cluster[] clusters;
+	private final int nrOfNodes;
+	private final int nrOfEdges;
+
+	//Search state of each thread (shared with the graphs that are built again after edits)
+	private final ThreadLocal<Search> searches;
+
+	/**
+	 * Builds the abstract graph of a collisionMatrix.
+	 * @param collisionMatrix CollisionMatrix to search in
+	 * @param clusterSize Width (and height) of the clusters in tiles
+	 */
+	public HierarchicalPathfinder(int[][] collisionMatrix, int clusterSize){
+		this(collisionMatrix, clusterSize, null, null);
+	}
+
+	/**
+	 * Builds the abstract graph again after the costs of tiles have been edited (see TileEdits). Only the transitions of the clusters
+	 * with edited tiles and the paths inside of these clusters and their neighbours are searched again, the other clusters are shared
+	 * with the previous graph (which is not changed, threads that search it meanwhile are not disturbed).
+	 * @param previous Graph of the collisionMatrix before the edits
+	 * @param changedTiles Tile index (x*columns + y) of each edited tile
+	 * @param nrOfChanged Nr of edited tiles
+	 */
+	public HierarchicalPathfinder(HierarchicalPathfinder previous, int[] changedTiles, int nrOfChanged){
+		this(previous.collisionMatrix, previous.clusterSize, previous, previous.getClusters(changedTiles, nrOfChanged));
+	}
+
+	/**
+	 * Builds the abstract graph of a collisionMatrix.
+	 * @param previous Graph to share the clusters with that are not next to an edited cluster, null if all clusters are built
+	 * @param edited The clusters that have edited tiles (null if previous is null)
+	 */
+	private HierarchicalPathfinder(int[][] collisionMatrix, int clusterSize, HierarchicalPathfinder previous, boolean[] edited){
+		this.collisionMatrix = collisionMatrix;
+		this.clusterSize = clusterSize;
+		columns  = collisionMatrix[0].length;
+		maxTileX = collisionMatrix.length-1;
+		maxTileY = columns-1;
+		clustersY = (columns + clusterSize-1) / clusterSize;
+		int nrOfClusters = ((collisionMatrix.length + clusterSize-1) / clusterSize) * clustersY;
+		slotsPerCluster = 4*clusterSize;
+		nodeIds  = nrOfClusters*slotsPerCluster;
+		searches = previous == null ? new ThreadLocal<Search>() : previous.searches;
+
+		//The transitions of an edited cluster change, which changes the nodes and paths of its neighbours
+		boolean[] built = previous == null ? null : getNeighbours(edited);
+		IntList[] crossEdges = new IntList[nrOfClusters];	//Edges across the borders of each cluster that is built (triples of from node, to node and cost)
+		for(int cluster = 0; cluster < nrOfClusters; cluster++){
+			if(built == null || built[cluster]){
+				crossEdges[cluster] = new IntList();
+			}
+		}
+
+		//Find the transitions between the clusters, they give the nodes and the edges across the borders
+		for(int border = clusterSize; border < collisionMatrix.length; border += clusterSize){
+			findTransitions(border-1, 0, 1, 0, 0, 1, columns, edited, crossEdges);
+		}
+		for(int border = clusterSize; border < columns; border += clusterSize){
+			findTransitions(0, border-1, 0, 1, 1, 0, collisionMatrix.length, edited, crossEdges);
+		}
+		//The transitions between two clusters without edited tiles are the same as before
+		if(previous != null){
+			for(int cluster = 0; cluster < nrOfClusters; cluster++){
+				if(!built[cluster] || edited[cluster]){
+					continue;
+				}
+				Cluster old = previous.clusters[cluster];
+				for(int i = 0; i < old.nodes.length; i++){
+					int node = old.nodes[i];
+					int slot = node % slotsPerCluster;
+					for(int j = old.edgeStart[slot]; j < old.edgeStart[slot+1]; j++){
+						int to = old.edgeTarget[j];
+						if(to / slotsPerCluster != cluster && !edited[to / slotsPerCluster]){
+							crossEdges[cluster].add(node);
+							crossEdges[cluster].add(to);
+							crossEdges[cluster].add(old.edgeCost[j]);
+						}
+					}
+				}
+			}
+		}
+
+		//Cheapest paths between the nodes of each cluster
+		clusters = new Cluster[nrOfClusters];
+		Search search = getSearch();
+		int nodes = 0, edges = 0;
+		for(int cluster = 0; cluster < nrOfClusters; cluster++){
+			clusters[cluster] = crossEdges[cluster] != null ? buildCluster(cluster, crossEdges[cluster], search) : previous.clusters[cluster];
+			nodes += clusters[cluster].nodes.length;
+			edges += clusters[cluster].edgeTarget.length;
+		}
+		nrOfNodes = nodes;
+		nrOfEdges = edges;
+	}
+
+	/**
+	 * Builds the nodes and edges of a cluster.
+	 * @param cluster Cluster to build
+	 * @param edges Edges across the borders of the cluster (triples of from node, to node and cost), the paths between the nodes are added
+	 * @param search Search state of the current thread
+	 */
+	private Cluster buildCluster(int cluster, IntList edges, Search search){
+		//The nodes are the tiles of the transitions
+		boolean[] isNode = new boolean[slotsPerCluster];
+		int nrOfClusterNodes = 0;
+		for(int i = 0; i < edges.size; i += 3){
+			int slot = edges.data[i] % slotsPerCluster;
+			if(!isNode[slot]){
+				isNode[slot] = true;
+				nrOfClusterNodes++;
+			}
+		}
+		int[] nodes = new int[nrOfClusterNodes];
+		int[] tiles = new int[nrOfClusterNodes];
+		nrOfClusterNodes = 0;
+		for(int slot = 0; slot < slotsPerCluster; slot++){
+			if(isNode[slot]){
+				nodes[nrOfClusterNodes] = cluster*slotsPerCluster + slot;
+				tiles[nrOfClusterNodes] = tileOf(nodes[nrOfClusterNodes]);
+				nrOfClusterNodes++;
+			}
+		}
+
+		int nrOfCrossEdges = edges.size / 3;
+		int distance;
+		for(int i = 0; i < nodes.length; i++){
+			search.searchCluster(cluster, tiles[i], -1, false);
+			for(int j = 0; j < nodes.length; j++){
+				distance = search.getClusterDistance(tiles[j]);
+				if(j != i && distance != UNREACHABLE){
+					edges.add(nodes[i]);
+					edges.add(nodes[j]);
+					edges.add(distance);
+				}
+			}
+		}
+
+		//Store the edges by node
+		int nrOfClusterEdges = edges.size / 3;
+		int[] edgeStart  = new int[slotsPerCluster+1];
+		int[] edgeTarget = new int[nrOfClusterEdges];
+		int[] edgeCost   = new int[nrOfClusterEdges];
+		for(int i = 0; i < nrOfClusterEdges; i++){
+			edgeStart[edges.data[3*i] % slotsPerCluster + 1]++;
+		}
+		for(int slot = 0; slot < slotsPerCluster; slot++){
+			edgeStart[slot+1] += edgeStart[slot];
+		}
+		int[] fill = Arrays.copyOf(edgeStart, slotsPerCluster);
+		for(int i = 0; i < nrOfClusterEdges; i++){
+			int pos = fill[edges.data[3*i] % slotsPerCluster]++;
+			edgeTarget[pos] = edges.data[3*i+1];
+			edgeCost[pos]   = edges.data[3*i+2];
+		}
+		return new Cluster(nodes, edgeStart, edgeTarget, edgeCost);
+	}
+
+	/**
+	 * Finds the entrances along one border line and adds their transitions.
+	 * The border is walked from (x, y) in steps of (stepX, stepY), the tile on the other side of the border is at (+crossX, +crossY).
+	 * @param x X-pos of the first tile on the near side of the border
+	 * @param y Y-pos of the first tile on the near side of the border
+	 * @param crossX Direction across the border (x)
+	 * @param crossY Direction across the border (y)
+	 * @param stepX Direction along the border (x)
+	 * @param stepY Direction along the border (y)
+	 * @param length Length of the border in tiles
+	 * @param edited Only the pieces of the border next to these clusters are walked (null if all pieces are walked)
+	 * @param crossEdges Edges across the borders of each cluster
+	 */
+	private void findTransitions(int x, int y, int crossX, int crossY, int stepX, int stepY, int length, boolean[] edited, IntList[] crossEdges){
+		int dirAcross = direction(crossX, crossY);
+		int dirBack   = direction(-crossX, -crossY);
+		//Each piece of the border between two clusters is handled separately
+		for(int pieceStart = 0; pieceStart < length; pieceStart += clusterSize){
+			int near = (x + pieceStart*stepX)*columns + (y + pieceStart*stepY);
+			if(edited != null && !edited[clusterOf(near)] && !edited[clusterOf(near + crossX*columns + crossY)]){
+				continue;
+			}
+			int pieceEnd = Math.min(pieceStart + clusterSize, length);
+			int runStart = -1, runCost = 0;
+			for(int i = pieceStart; i <= pieceEnd; i++){
+				int nearX = x + i*stepX, nearY = y + i*stepY;
+				boolean open = i < pieceEnd && Pathfinder.canMove(collisionMatrix, nearX, nearY, dirAcross) && Pathfinder.canMove(collisionMatrix, nearX+crossX, nearY+crossY, dirBack);
+				//An entrance also ends where the cost changes (e.g. between a road and a footway), so that cheap crossings get their own transitions
+				int cost = open ? collisionMatrix[nearX][nearY] + collisionMatrix[nearX+crossX][nearY+crossY] : 0;
+				if(runStart >= 0 && (!open || cost != runCost)){
+					int runEnd = i-1;
+					if(runEnd - runStart + 1 >= WIDE_ENTRANCE){
+						addTransition(x + runStart*stepX, y + runStart*stepY, crossX, crossY, crossEdges);
+						addTransition(x + runEnd*stepX, y + runEnd*stepY, crossX, crossY, crossEdges);
+					}
+					else{
+						int middle = (runStart + runEnd) / 2;
+						addTransition(x + middle*stepX, y + middle*stepY, crossX, crossY, crossEdges);
+					}
+					runStart = -1;
+				}
+				if(open && runStart < 0){
+					runStart = i;
+					runCost  = cost;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the edges across the border of a transition.
+	 * @param x X-pos of the tile on the near side of the border
+	 * @param y Y-pos of the tile on the near side of the border
+	 * @param crossX Direction across the border (x)
+	 * @param crossY Direction across the border (y)
+	 * @param crossEdges Edges across the borders of each cluster
+	 */
+	private void addTransition(int x, int y, int crossX, int crossY, IntList[] crossEdges){
+		int near = nodeOf(x*columns + y);
+		int far  = nodeOf((x+crossX)*columns + (y+crossY));
+		IntList edges = crossEdges[near / slotsPerCluster];
+		edges.add(near);
+		edges.add(far);
+		edges.add(Pathfinder.MOVE_COST + collisionMatrix[x+crossX][y+crossY]);
+		edges = crossEdges[far / slotsPerCluster];
+		edges.add(far);
+		edges.add(near);
+		edges.add(Pathfinder.MOVE_COST + collisionMatrix[x][y]);
+	}
+
+	/**
+	 * Returns the node id of a tile on the border of its cluster.
+	 * @param tile Tile index
+	 */
+	private int nodeOf(int tile){
+		return clusterOf(tile)*slotsPerCluster + slotOf(tile);
+	}
+
+	/**
+	 * Returns the slot of a tile on the border of its cluster. The slots of the first clusterSize tiles are along the first row (x),
+	 * the next along the last row, then the first column (y) and the last column (a corner tile gets the slot of its row).
+	 * The slots only depend on the position of the tile, so the nodes keep their ids when their cluster is built again.
+	 * @param tile Tile index
+	 */
+	private int slotOf(int tile){
+		int x = tile / columns, y = tile % columns;
+		int originX = (x / clusterSize)*clusterSize;
+		int originY = (y / clusterSize)*clusterSize;
+		if(x == originX){
+			return y - originY;
+		}
+		if(x == Math.min(originX + clusterSize, collisionMatrix.length) - 1){
+			return clusterSize + y - originY;
+		}
+		if(y == originY){
+			return 2*clusterSize + x - originX;
+		}
+		return 3*clusterSize + x - originX;
+	}
+
+	/**
+	 * Returns the tile of a node (see slotOf).
+	 * @param node Node id
+	 * @return Tile index
+	 */
+	private int tileOf(int node){
+		int cluster = node / slotsPerCluster;
+		int slot    = node % slotsPerCluster;
+		int originX = (cluster / clustersY)*clusterSize;
+		int originY = (cluster % clustersY)*clusterSize;
+		int offset  = slot % clusterSize;
+		if(slot < clusterSize){
+			return originX*columns + originY + offset;
+		}
+		if(slot < 2*clusterSize){
+			return (Math.min(originX + clusterSize, collisionMatrix.length) - 1)*columns + originY + offset;
+		}
+		if(slot < 3*clusterSize){
+			return (originX + offset)*columns + originY;
+		}
+		return (originX + offset)*columns + Math.min(originY + clusterSize, columns) - 1;
+	}
+
+	/**
+	 * Returns the direction to a neighbouring tile.
+	 */
+	private static int direction(int deltaX, int deltaY){
+		for(int direction = 0; direction < Pathfinder.DIRECTION_X.length; direction++){
+			if(Pathfinder.DIRECTION_X[direction] == deltaX && Pathfinder.DIRECTION_Y[direction] == deltaY){
+				return direction;
+			}
+		}
+		throw new IllegalArgumentException("Not a direction (" + deltaX + "," + deltaY + ")");
+	}
+
+	/**
+	 * Returns the clusters of tiles.
+	 * @param tiles Tile index of each tile
+	 * @param nrOfTiles Nr of tiles
+	 * @return If each cluster has any of the tiles
+	 */
+	private boolean[] getClusters(int[] tiles, int nrOfTiles){
+		boolean[] result = new boolean[clusters.length];
+		for(int i = 0; i < nrOfTiles; i++){
+			result[clusterOf(tiles[i])] = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the clusters and their neighbours (the clusters that share a border with them).
+	 * @param included If each cluster is included
+	 */
+	private boolean[] getNeighbours(boolean[] included){
+		boolean[] result = Arrays.copyOf(included, included.length);
+		for(int cluster = 0; cluster < included.length; cluster++){
+			if(!included[cluster]){
+				continue;
+			}
+			int clusterY = cluster % clustersY;
+			if(cluster >= clustersY){
+				result[cluster-clustersY] = true;
+			}
+			if(cluster+clustersY < included.length){
+				result[cluster+clustersY] = true;
+			}
+			if(clusterY > 0){
+				result[cluster-1] = true;
+			}
+			if(clusterY < clustersY-1){
+				result[cluster+1] = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cluster of a tile.
+	 * @param tile Tile index
+	 */
+	private int clusterOf(int tile){
+		return ((tile / columns) / clusterSize)*clustersY + (tile % columns) / clusterSize;
+	}
+
+	/**
+	 * Finds a path between two tiles. Only the waypoints of the path are found, the tiles between them are found first when they are needed.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @return The path (without segments if we already are at the target), null if no path could be found
+	 */
+	public HierarchicalPath findPath(int startX, int startY, int targetX, int targetY){
+		int start = startX*columns + startY;
+		int goal  = targetX*columns + targetY;
+		if(start == goal){
+			return new HierarchicalPath(this, new int[]{startX}, new int[]{startY});
+		}
+		int[] waypoints = getSearch().searchAbstract(start, goal);
+		if(waypoints == null){
+			return null;
+		}
+		int[] waypointX = new int[waypoints.length];
+		int[] waypointY = new int[waypoints.length];
+		for(int i = 0; i < waypoints.length; i++){
+			waypointX[i] = waypoints[i] / columns;
+			waypointY[i] = waypoints[i] % columns;
+		}
+		return new HierarchicalPath(this, waypointX, waypointY);
+	}
+
+	/**
+	 * Returns the width (and height) of the clusters in tiles.
+	 */
+	public int getClusterSize(){
+		return clusterSize;
+	}
+
+	/**
+	 * Returns the nr of clusters.
+	 */
+	public int getNrOfClusters(){
+		return clusters.length;
+	}
+
+	/**
+	 * Returns the nr of edges of the abstract graph.
+	 */
+	public int getNrOfEdges(){
+		return nrOfEdges;
+	}
+
+	/**
+	 * Returns the nr of nodes of the abstract graph.
+	 */
+	public int getNrOfNodes(){
+		return nrOfNodes;
+	}
+
+	/**
+	 * Returns the search state of the current thread.
+	 */
+	private Search getSearch(){
+		Search search = searches.get();
+		if(search == null || search.getPathfinder() != this){
+			search = new Search(search);
+			searches.set(search);
+		}
+		return search;
+	}
+
+	/**
+	 * Checks if two tiles are in the same cluster.
+	 * @param tile1 Tile index of first tile
+	 * @param tile2 Tile index of second tile
+	 */
+	boolean isSameCluster(int tile1, int tile2){
+		return clusterOf(tile1) == clusterOf(tile2);
+	}
+
+	/**
+	 * Finds the tiles between two waypoints of a path (see HierarchicalPath).
+	 * @param startX X-pos of the first waypoint
+	 * @param startY Y-pos of the first waypoint
+	 * @param targetX X-pos of the second waypoint
+	 * @param targetY Y-pos of the second waypoint
+	 * @return The tiles (not including the first waypoint)
+	 */
+	CompactPath refine(int startX, int startY, int targetX, int targetY){
+		int start = startX*columns + startY;
+		int goal  = targetX*columns + targetY;
+		//Waypoints in different clusters are the two tiles of a transition
+		if(clusterOf(start) != clusterOf(goal)){
+			return new CompactPath(startX, startY, new int[]{targetX}, new int[]{targetY}, 1);
+		}
+		return getSearch().findClusterPath(start, goal);
+	}
+
+	/**
+	 * Search state (of one thread) for searches inside of a cluster and in the abstract graph.
+	 */
+	private class Search {
+		//Search inside of a cluster, tiles are indexed locally ((x-originX)*clusterSize + (y-originY))
+		private final int[] distance;
+		private final int[] parent;
+		private final int[] stamp;	//Equals generation if tile is on the open list and generation+1 if it has been visited
+		private final TileHeap openList;
+		private int generation = 0;
+		private int originX, originY, width, height;	//Rectangle of the cluster
+
+		//Search in the abstract graph, the start and goal tiles are the nodes nodeIds and nodeIds+1
+		private int[] gCost;
+		private int[] parentNode;
+		private int[] nodeStamp;
+		private int[] goalCost;		//Cost from the nodes of the goal cluster to the goal (valid if goalStamp equals nodeGeneration)
+		private int[] goalStamp;
+		private TileHeap nodeList;
+		private int nodeGeneration = 0;
+
+		/**
+		 * Creates the search state of a thread.
+		 * @param previous Search state of the thread for an earlier graph of the collisionMatrix, its arrays are reused (null if there is none)
+		 */
+		public Search(Search previous){
+			if(previous == null){
+				distance = new int[clusterSize*clusterSize];
+				parent   = new int[clusterSize*clusterSize];
+				stamp    = new int[clusterSize*clusterSize];
+				openList = new TileHeap(clusterSize*clusterSize);
+				return;
+			}
+			distance   = previous.distance;
+			parent     = previous.parent;
+			stamp      = previous.stamp;
+			openList   = previous.openList;
+			generation = previous.generation;
+			gCost      = previous.gCost;
+			parentNode = previous.parentNode;
+			nodeStamp  = previous.nodeStamp;
+			goalCost   = previous.goalCost;
+			goalStamp  = previous.goalStamp;
+			nodeList   = previous.nodeList;
+			nodeGeneration = previous.nodeGeneration;
+		}
+
+		/**
+		 * Returns the HierarchicalPathfinder whose graph is searched.
+		 */
+		public HierarchicalPathfinder getPathfinder(){
+			return HierarchicalPathfinder.this;
+		}
+
+		/**
+		 * Searches (Dijkstra) inside of a cluster from a source tile to all tiles of the cluster (or until a target is reached).
+		 * @param cluster Cluster to search in
+		 * @param source Tile index of the source tile
+		 * @param target Tile index of the target tile (-1 to search the whole cluster)
+		 * @param backward True if the costs are from the tiles to the source (the source is the goal), false if from the source to the tiles
+		 */
+		public void searchCluster(int cluster, int source, int target, boolean backward){
+			originX = (cluster / clustersY)*clusterSize;
+			originY = (cluster % clustersY)*clusterSize;
+			width   = Math.min(clusterSize, collisionMatrix.length - originX);
+			height  = Math.min(clusterSize, columns - originY);
+			openList.clear();
+			generation += 2;
+			//Stamps are about to overflow, reset them
+			if(generation >= Integer.MAX_VALUE - 2){
+				Arrays.fill(stamp, 0);
+				generation = 2;
+			}
+
+			int localSource = toLocal(source);
+			int localTarget = target >= 0 ? toLocal(target) : -1;
+			stamp[localSource]    = generation;
+			distance[localSource] = 0;
+			parent[localSource]   = localSource;
+			openList.add(localSource, 0);
+
+			int tile, x, y, nextX, nextY, next, cost;
+			while(!openList.isEmpty()){
+				tile = openList.poll();
+				stamp[tile] = generation+1;
+				if(tile == localTarget){
+					break;
+				}
+				x = originX + tile / clusterSize;
+				y = originY + tile % clusterSize;
+				//Only the start tile of a path may be unwalkable
+				if(backward && collisionMatrix[x][y] == Integer.MAX_VALUE){
+					continue;
+				}
+				for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+					if(backward){
+						nextX = x - Pathfinder.DIRECTION_X[dir];
+						nextY = y - Pathfinder.DIRECTION_Y[dir];
+						if(!inside(nextX, nextY) || !Pathfinder.canMove(collisionMatrix, nextX, nextY, dir)){
+							continue;
+						}
+						cost = collisionMatrix[x][y];
+					}
+					else{
+						nextX = x + Pathfinder.DIRECTION_X[dir];
+						nextY = y + Pathfinder.DIRECTION_Y[dir];
+						if(!inside(nextX, nextY) || !Pathfinder.canMove(collisionMatrix, x, y, dir)){
+							continue;
+						}
+						cost = collisionMatrix[nextX][nextY];
+					}
+					next = (nextX-originX)*clusterSize + (nextY-originY);
+					if(stamp[next] == generation+1){
+						continue;
+					}
+					cost += distance[tile] + Pathfinder.moveCost(dir);
+					if(stamp[next] != generation){
+						stamp[next]    = generation;
+						distance[next] = cost;
+						parent[next]   = tile;
+						openList.add(next, cost);
+					}
+					else if(cost < distance[next]){
+						distance[next] = cost;
+						parent[next]   = tile;
+						openList.decreaseKey(next, cost);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Checks if a tile is inside of the cluster of the last search.
+		 */
+		private boolean inside(int x, int y){
+			return x >= originX && y >= originY && x < originX+width && y < originY+height;
+		}
+
+		/**
+		 * Converts a tile index into a local index of the cluster of the last search.
+		 */
+		private int toLocal(int tile){
+			return (tile / columns - originX)*clusterSize + (tile % columns - originY);
+		}
+
+		/**
+		 * Returns the cost between the source of the last cluster search and a tile.
+		 * @param tile Tile index (inside of the cluster)
+		 * @return The cost, UNREACHABLE if the tile was not reached
+		 */
+		public int getClusterDistance(int tile){
+			int local = toLocal(tile);
+			return stamp[local] == generation+1 ? distance[local] : UNREACHABLE;
+		}
+
+		/**
+		 * Finds the cheapest path between two tiles of the same cluster (inside of the cluster).
+		 * @param start Tile index of start tile
+		 * @param goal Tile index of goal tile
+		 * @return The path, null if the goal can't be reached inside of the cluster
+		 */
+		public CompactPath findClusterPath(int start, int goal){
+			searchCluster(clusterOf(start), start, goal, false);
+			int localStart = toLocal(start);
+			int localGoal  = toLocal(goal);
+			if(stamp[localGoal] != generation+1){
+				return null;
+			}
+			int length = 0;
+			for(int tile = localGoal; tile != localStart; tile = parent[tile]){
+				length++;
+			}
+			int[] tilesX = new int[length];
+			int[] tilesY = new int[length];
+			int i = length;
+			for(int tile = localGoal; tile != localStart; tile = parent[tile]){
+				i--;
+				tilesX[i] = originX + tile / clusterSize;
+				tilesY[i] = originY + tile % clusterSize;
+			}
+			return new CompactPath(start / columns, start % columns, tilesX, tilesY, length);
+		}
+
+		/**
+		 * Searches for a path in the abstract graph (A*) after connecting the start and goal tiles to the nodes of their clusters.
+		 * @param start Tile index of start tile
+		 * @param goal Tile index of goal tile
+		 * @return Tile indices of the waypoints of the path (including start and goal), null if no path could be found
+		 */
+		public int[] searchAbstract(int start, int goal){
+			if(gCost == null){
+				gCost      = new int[nodeIds+2];
+				parentNode = new int[nodeIds+2];
+				nodeStamp  = new int[nodeIds+2];
+				goalCost   = new int[nodeIds];
+				goalStamp  = new int[nodeIds];
+				nodeList   = new TileHeap(nodeIds+2);
+			}
+			int startNode = nodeIds;
+			int goalNode  = nodeIds+1;
+			int startCluster = clusterOf(start);
+			int goalCluster  = clusterOf(goal);
+			int goalX = goal / columns;
+			int goalY = goal % columns;
+			nodeList.clear();
+			nodeGeneration += 2;
+			if(nodeGeneration >= Integer.MAX_VALUE - 2){
+				Arrays.fill(nodeStamp, 0);
+				Arrays.fill(goalStamp, 0);
+				nodeGeneration = 2;
+			}
+
+			//Costs from the nodes of the goal cluster to the goal
+			searchCluster(goalCluster, goal, -1, true);
+			int[] nodes = clusters[goalCluster].nodes;
+			for(int i = 0; i < nodes.length; i++){
+				goalCost[nodes[i]]  = getClusterDistance(tileOf(nodes[i]));
+				goalStamp[nodes[i]] = nodeGeneration;
+			}
+
+			//Costs from the start to the nodes of the start cluster (and to the goal if it is in the same cluster)
+			searchCluster(startCluster, start, -1, false);
+			nodeStamp[startNode]  = nodeGeneration+1;
+			gCost[startNode]      = 0;
+			parentNode[startNode] = startNode;
+			nodes = clusters[startCluster].nodes;
+			for(int i = 0; i < nodes.length; i++){
+				int cost = getClusterDistance(tileOf(nodes[i]));
+				if(cost != UNREACHABLE){
+					checkNode(nodes[i], startNode, cost, goalX, goalY);
+				}
+			}
+			if(startCluster == goalCluster && getClusterDistance(goal) != UNREACHABLE){
+				checkNode(goalNode, startNode, getClusterDistance(goal), goalX, goalY);
+			}
+
+			int node, slot;
+			Cluster cluster;
+			while(!nodeList.isEmpty() && nodeStamp[goalNode] != nodeGeneration+1){
+				node = nodeList.poll();
+				nodeStamp[node] = nodeGeneration+1;
+				if(node == goalNode){
+					break;
+				}
+				cluster = clusters[node / slotsPerCluster];
+				slot = node % slotsPerCluster;
+				for(int i = cluster.edgeStart[slot]; i < cluster.edgeStart[slot+1]; i++){
+					checkNode(cluster.edgeTarget[i], node, gCost[node] + cluster.edgeCost[i], goalX, goalY);
+				}
+				if(goalStamp[node] == nodeGeneration && goalCost[node] != UNREACHABLE){
+					checkNode(goalNode, node, gCost[node] + goalCost[node], goalX, goalY);
+				}
+			}
+			if(nodeStamp[goalNode] != nodeGeneration+1){
+				return null;
+			}
+
+			//Follow the parents back to the start (a node on the start or goal tile does not give a waypoint of its own)
+			IntList waypoints = new IntList();
+			int tile, lastTile = -1;
+			for(node = goalNode; ; node = parentNode[node]){
+				tile = node == goalNode ? goal : (node == startNode ? start : tileOf(node));
+				if(tile != lastTile){
+					waypoints.add(tile);
+					lastTile = tile;
+				}
+				if(node == startNode){
+					break;
+				}
+			}
+			int[] result = new int[waypoints.size];
+			for(int i = 0; i < waypoints.size; i++){
+				result[i] = waypoints.data[waypoints.size-1-i];
+			}
+			return result;
+		}
+
+		/**
+		 * Opens a node of the abstract search or updates it if a cheaper path to it has been found.
+		 * @param node Node to check
+		 * @param parent Node that we arrived from
+		 * @param cost Cost from the start to the node
+		 * @param goalX X-pos of goal tile
+		 * @param goalY Y-pos of goal tile
+		 */
+		private void checkNode(int node, int parent, int cost, int goalX, int goalY){
+			if(nodeStamp[node] == nodeGeneration+1){
+				return;
+			}
+			if(nodeStamp[node] != nodeGeneration){
+				int tile = node < nodeIds ? tileOf(node) : goalX*columns + goalY;
+				nodeStamp[node]  = nodeGeneration;
+				gCost[node]      = cost;
+				parentNode[node] = parent;
+				nodeList.add(node, cost + H_WEIGHT*(Math.abs(tile / columns - goalX) + Math.abs(tile % columns - goalY)));
+			}
+			else if(cost < gCost[node]){
+				int key = nodeList.getKey(node) - gCost[node] + cost;
+				gCost[node]      = cost;
+				parentNode[node] = parent;
+				nodeList.decreaseKey(node, key);
+			}
+		}
+	}
+
+	/**
+	 * Nodes and edges of a cluster (see buildCluster). A cluster is not changed after it has been built, the graphs that are built
+	 * again after edits share the clusters that have not been edited.
+	 */
+	private static class Cluster {
+		private final int[] nodes;		//Node id of each node of the cluster
+		private final int[] edgeStart;	//Edges of the node in slot s are edgeTarget/edgeCost[edgeStart[s]] to [edgeStart[s+1]-1]
+		private final int[] edgeTarget;	//Node id of the target of each edge
+		private final int[] edgeCost;
+
+		public Cluster(int[] nodes, int[] edgeStart, int[] edgeTarget, int[] edgeCost){
+			this.nodes = nodes;
+			this.edgeStart  = edgeStart;
+			this.edgeTarget = edgeTarget;
+			this.edgeCost   = edgeCost;
+		}
+	}
+
+	/**
+	 * Growable list of ints.
+	 */
+	private static class IntList {
+		private int[] data = new int[64];
+		private int size = 0;
+
+		public void add(int value){
+			if(size == data.length){
+				data = Arrays.copyOf(data, 2*size);
+			}
+			data[size++] = value;
+		}
+	}
+}
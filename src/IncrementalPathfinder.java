@@ -0,0 +1,292 @@
+import java.util.Arrays;
+
+/**
+ * IncrementalPathfinder finds paths to one goal tile with D* Lite, which repairs a path when the costs of tiles change while it is walked
+ * (see TileEdits) instead of searching again from scratch. The search goes backwards from the goal, so the cost to the goal that has been
+ * found for each tile (g) stays valid while the pedestrian walks and the start of the path moves. When the cost of a tile changes only the tiles
+ * around it are updated (see updateTile), and the next findPath only searches again where the change affects the path from the start.
+ *
+ * Moves and costs are the same as for the Pathfinder: moves to walkable tiles that don't cross into the last row or column of the matrix,
+ * diagonal moves only if both adjacent tiles are walkable, and every entered tile adds its cost. D* Lite needs a heuristic that never overestimates,
+ * so the heuristic assumes the lowest tile cost (see OSM_Reader.COLLISION_COST_MIN), or uses the bounds of the landmarks when the map has them
+ * (see Landmarks), and the found paths are the cheapest possible.
+ *
+ * A search from scratch expands many more tiles than the weighted A* of the Pathfinder, so a pathfinder only pays off when it is shared by
+ * several pedestrians that walk to the same goal and is repaired for all of them at once (see TileEdits.getPathfinder).
+ *
+ * The search state uses about 20 bytes per tile, so a pathfinder should be reused for new goals (see setGoal).
+ *
+ * @version 18-10-2026
+ */
+public class IncrementalPathfinder {
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final int MAX_KEY_MODIFIER = Integer.MAX_VALUE / 4;	//The search starts over before the keys can overflow
+
+	private final int[][] collisionMatrix;
+	private final int columns;	//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final int maxTileX;	//Moves can't cross into x >= maxTileX or y >= maxTileY
+	private final int maxTileY;
+	private final Landmarks landmarks;	//Lower bounds of the costs between tiles (null if not used, see calculateH)
+	private int landmarkVersion;	//Version of the bounds of the landmarks that the search uses (see Landmarks.getVersion)
+
+	private final int[] g;		//Cost from each tile to the goal, as found when the tile was last expanded
+	private final int[] rhs;	//Cost from each tile to the goal through its best neighbour (one step look-ahead of g)
+	private final TileHeap openList;	//Tiles where g and rhs differ, ordered by key (see calculateKey)
+	private int goal = -1;
+	private boolean searched;	//Has a search been made since the goal was set?
+	private int startX;			//Start of the last search (the heuristic of the keys is calculated from it)
+	private int startY;
+	private int keyModifier;	//Sum of the heuristic between all starts, keeps the old keys of the open list valid when the start moves
+	private long expansions = 0;
+
+	/**
+	 * Creates a pathfinder without a goal (see setGoal), which uses the landmarks of the map if they are calculated over the collisionMatrix.
+	 * @param collisionMatrix CollisionMatrix to search in
+	 */
+	public IncrementalPathfinder(int[][] collisionMatrix){
+		this(collisionMatrix, OSM_Reader.landmarks != null && OSM_Reader.landmarks.getCollisionMatrix() == collisionMatrix ? OSM_Reader.landmarks : null);
+	}
+
+	/**
+	 * Creates a pathfinder without a goal (see setGoal).
+	 * @param collisionMatrix CollisionMatrix to search in
+	 * @param landmarks Landmarks of the collisionMatrix (null to only use the lowest tile cost for the heuristic)
+	 */
+	public IncrementalPathfinder(int[][] collisionMatrix, Landmarks landmarks){
+		this.collisionMatrix = collisionMatrix;
+		this.landmarks = landmarks;
+		columns  = collisionMatrix[0].length;
+		maxTileX = collisionMatrix.length-1;
+		maxTileY = columns-1;
+
+		int nrOfTiles = collisionMatrix.length*columns;
+		g   = new int[nrOfTiles];
+		rhs = new int[nrOfTiles];
+		openList = new TileHeap(nrOfTiles);
+	}
+
+	/**
+	 * Returns a lower bound of the cost between two tiles.
+	 * @param x1 X-pos of first tile
+	 * @param y1 Y-pos of first tile
+	 * @param x2 X-pos of second tile
+	 * @param y2 Y-pos of second tile
+	 */
+	private int calculateH(int x1, int y1, int x2, int y2){
+		int h = Pathfinder.calculateMinCost(x1, y1, x2, y2);
+		return landmarks == null ? h : Math.max(h, landmarks.calculateH(x1*columns + y1, x2*columns + y2));
+	}
+
+	/**
+	 * Returns the key of a tile on the open list: the lowest known cost of a path from the start to the goal through the tile.
+	 * @param tile Tile index
+	 * @return The key, Integer.MAX_VALUE if the tile can't reach the goal
+	 */
+	private int calculateKey(int tile){
+		int cost = Math.min(g[tile], rhs[tile]);
+		if(cost == UNREACHABLE){
+			return UNREACHABLE;
+		}
+		return cost + calculateH(startX, startY, tile / columns, tile % columns) + keyModifier;
+	}
+
+	/**
+	 * Expands the tiles of the open list until the cost from the start to the goal is known (or the goal can't be reached).
+	 * A tile whose cost got lower gets its rhs as g, a tile whose cost got higher gets an unknown g, and in both cases the tiles that can move to it are updated.
+	 */
+	private void computeShortestPath(){
+		int start = startX*columns + startY;
+		while(!openList.isEmpty() && (openList.peekKey() <= calculateKey(start) || rhs[start] != g[start])){
+			int oldKey = openList.peekKey();
+			int tile = openList.poll();
+			int newKey = calculateKey(tile);
+			//The key was calculated from an earlier start
+			if(oldKey < newKey){
+				openList.add(tile, newKey);
+				continue;
+			}
+			expansions++;
+			if(g[tile] > rhs[tile]){
+				g[tile] = rhs[tile];
+			}
+			else{
+				g[tile] = UNREACHABLE;
+				updateRhs(tile);
+			}
+			int x = tile / columns;
+			int y = tile % columns;
+			for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+				int fromX = x - Pathfinder.DIRECTION_X[dir];
+				int fromY = y - Pathfinder.DIRECTION_Y[dir];
+				if(fromX >= 0 && fromY >= 0 && fromX <= maxTileX && fromY <= maxTileY && Pathfinder.canMove(collisionMatrix, fromX, fromY, dir)){
+					updateRhs(fromX*columns + fromY);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the cheapest path from a tile to the goal. Only the part of the search that is affected by
+	 * the tiles that have changed since the last search (see updateTile) is done again.
+	 * @param newStartX X-pos of start tile
+	 * @param newStartY Y-pos of start tile
+	 * @return The path (empty if we already are at the goal), null if no path could be found
+	 * @throws IllegalStateException If no goal has been set
+	 */
+	public CompactPath findPath(int newStartX, int newStartY){
+		if(goal < 0){
+			throw new IllegalStateException("No goal has been set");
+		}
+		//Start over before the keys can overflow, or if the keys on the open list were calculated with other bounds of the landmarks
+		if(keyModifier > MAX_KEY_MODIFIER || (landmarks != null && landmarks.getVersion() != landmarkVersion)){
+			setGoal(goal / columns, goal % columns);
+		}
+		if(!searched){
+			searched = true;
+			startX = newStartX;
+			startY = newStartY;
+			openList.add(goal, calculateKey(goal));
+		}
+		else{
+			keyModifier += calculateH(startX, startY, newStartX, newStartY);
+			startX = newStartX;
+			startY = newStartY;
+		}
+		computeShortestPath();
+
+		int start = startX*columns + startY;
+		if(rhs[start] == UNREACHABLE){
+			return null;
+		}
+		//Follow the cheapest neighbours to the goal
+		int[] tilesX = new int[16];
+		int[] tilesY = new int[16];
+		int length = 0;
+		int x = startX, y = startY;
+		while(x*columns + y != goal){
+			int bestDir = -1;
+			long bestCost = UNREACHABLE;
+			for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+				if(Pathfinder.canMove(collisionMatrix, x, y, dir)){
+					int next = (x + Pathfinder.DIRECTION_X[dir])*columns + y + Pathfinder.DIRECTION_Y[dir];
+					long cost = (long)g[next] + getMoveCost(x, y, dir);
+					if(g[next] != UNREACHABLE && cost < bestCost){
+						bestCost = cost;
+						bestDir  = dir;
+					}
+				}
+			}
+			//No way forward (or a loop, which the search never gives)
+			if(bestDir < 0 || length == g.length){
+				return null;
+			}
+			x += Pathfinder.DIRECTION_X[bestDir];
+			y += Pathfinder.DIRECTION_Y[bestDir];
+			if(length == tilesX.length){
+				tilesX = Arrays.copyOf(tilesX, 2*length);
+				tilesY = Arrays.copyOf(tilesY, 2*length);
+			}
+			tilesX[length] = x;
+			tilesY[length] = y;
+			length++;
+		}
+		return new CompactPath(startX, startY, tilesX, tilesY, length);
+	}
+
+	/**
+	 * Returns the nr of tiles that have been expanded (since the pathfinder was created).
+	 */
+	public long getExpansions(){
+		return expansions;
+	}
+
+	/**
+	 * Returns the x-pos of the goal tile (-1 if no goal has been set).
+	 */
+	public int getGoalX(){
+		return goal < 0 ? -1 : goal / columns;
+	}
+
+	/**
+	 * Returns the y-pos of the goal tile (-1 if no goal has been set).
+	 */
+	public int getGoalY(){
+		return goal < 0 ? -1 : goal % columns;
+	}
+
+	/**
+	 * Returns the cost of moving from a tile in a direction (the move must be allowed, see canMove).
+	 */
+	private int getMoveCost(int x, int y, int dir){
+		return Pathfinder.moveCost(dir) + collisionMatrix[x + Pathfinder.DIRECTION_X[dir]][y + Pathfinder.DIRECTION_Y[dir]];
+	}
+
+	/**
+	 * Sets a new goal, the search state of the old goal is thrown away.
+	 * @param goalX X-pos of goal tile
+	 * @param goalY Y-pos of goal tile
+	 */
+	public void setGoal(int goalX, int goalY){
+		goal = goalX*columns + goalY;
+		Arrays.fill(g, UNREACHABLE);
+		Arrays.fill(rhs, UNREACHABLE);
+		rhs[goal] = 0;
+		openList.clear();
+		searched = false;
+		keyModifier = 0;
+		landmarkVersion = landmarks != null ? landmarks.getVersion() : 0;
+	}
+
+	/**
+	 * Updates the search after the cost of a tile has been changed (in the collisionMatrix). The tile and its neighbours
+	 * (whose moves through the tile changed, including diagonal moves that the tile allows or blocks) are put on the open list,
+	 * they are searched again by the next findPath if they affect the path.
+	 * @param x X-pos of the changed tile
+	 * @param y Y-pos of the changed tile
+	 */
+	public void updateTile(int x, int y){
+		if(!searched){
+			return;
+		}
+		for(int dx = -1; dx <= 1; dx++){
+			for(int dy = -1; dy <= 1; dy++){
+				int nx = x+dx, ny = y+dy;
+				if(nx >= 0 && ny >= 0 && nx <= maxTileX && ny <= maxTileY){
+					updateRhs(nx*columns + ny);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the rhs of a tile from its neighbours and puts the tile on the open list if g and rhs differ (else removes it from the list).
+	 * @param tile Tile index
+	 */
+	private void updateRhs(int tile){
+		int x = tile / columns;
+		int y = tile % columns;
+		if(tile != goal){
+			int cost = UNREACHABLE;
+			for(int dir = 0; dir < Pathfinder.DIRECTION_X.length; dir++){
+				if(Pathfinder.canMove(collisionMatrix, x, y, dir)){
+					int next = (x + Pathfinder.DIRECTION_X[dir])*columns + y + Pathfinder.DIRECTION_Y[dir];
+					if(g[next] != UNREACHABLE){
+						cost = Math.min(cost, g[next] + getMoveCost(x, y, dir));
+					}
+				}
+			}
+			rhs[tile] = cost;
+		}
+		if(g[tile] != rhs[tile]){
+			if(openList.contains(tile)){
+				openList.changeKey(tile, calculateKey(tile));
+			}
+			else{
+				openList.add(tile, calculateKey(tile));
+			}
+		}
+		else if(openList.contains(tile)){
+			openList.remove(tile);
+		}
+	}
+}
@@ -0,0 +1,379 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * Landmarks gives lower bounds of the costs between tiles for the heuristic of the Pathfinder (ALT: A*, landmarks and the triangle inequality).
+ * A few landmark tiles are chosen on the edges of the walkable area and the costs from every tile to every landmark and from every landmark
+ * to every tile are calculated once when the map is loaded. Since no path can be cheaper than a detour over a landmark allows, the cost from
+ * tile u to tile w is at least cost(L, w) - cost(L, u) and cost(u, L) - cost(w, L) for every landmark L (the costs are not symmetric, since
+ * every entered tile adds its cost). The bound never overestimates, so the Pathfinder still finds the cheapest paths, and it follows the
+ * streets and walls of the map instead of the straight line, so fewer tiles are expanded on small maps (half as many at 200x200).
+ * On larger maps the few landmarks are far from most routes and the bounds are weaker than the weighted Manhattan distance that is used
+ * without landmarks (more tiles are expanded at 400x400 and above, also with 16 or 32 landmarks), so they are only used up to MAX_TILES.
+ *
+ * Landmarks are chosen far from each other (each new landmark is the tile farthest from the landmarks chosen so far), which gives the tightest
+ * bounds for routes across the map. The costs are stored per tile (all landmarks of a tile next to each other) so that a bound only reads two
+ * short runs of the table, about 2*4 bytes per tile and landmark.
+ *
+ * A raised tile cost only makes the bounds less tight. A tile that gets cheaper than when the costs were calculated could make them overestimate,
+ * so calculateH gives no bounds until the costs have been calculated again by a background thread (see updateTile). A tile that is only lowered
+ * back to its earlier cost (e.g. a street that is opened again after it was closed) keeps the bounds valid and nothing is calculated.
+ *
+ * @version 18-10-2026
+ */
+public class Landmarks {
+	public static final int DEFAULT_NR_OF_LANDMARKS = 8;	//Uses 64 bytes per tile (2.5 MB for a 200x200 collisionMatrix)
+	public static final int MAX_TILES = 320*320;	//Collision matrices with more tiles than this have no landmarks (see OSM_Reader and the class comment)
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final int[][] collisionMatrix;
+	private final int columns;	//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final int[] landmarkX;
+	private final int[] landmarkY;
+	private int nrOfLandmarks = 0;	//Nr of landmarks that could be placed (fewer than asked for if there are few walkable tiles)
+	private volatile int[] costs;	//Per tile and landmark: cost from the landmark to the tile, then cost from the tile to the landmark (UNREACHABLE if there is no path)
+
+	//Tile edits since the costs were calculated (see updateTile)
+	private int[][] calculatedCosts;	//Cost of each tile when the costs were calculated
+	private final HashMap<Integer,Long> loweredTiles = new HashMap<Integer,Long>();	//Tiles that are cheaper than when the costs were calculated, by how much
+	private long lowered = 0;			//Sum of how much cheaper the tiles are (a path is at most this much cheaper than when the costs were calculated)
+	private volatile boolean valid = true;	//False while there are lowered tiles, calculateH gives no bounds then
+	private volatile int version = 0;	//Changed each time the bounds of calculateH change (see getVersion)
+	private boolean calculating = false;	//Is a background thread calculating the costs again?
+
+	/**
+	 * Chooses the landmarks of a collisionMatrix and calculates their costs.
+	 * @param collisionMatrix CollisionMatrix to calculate the costs over
+	 * @param maxLandmarks Nr of landmarks to choose (more give tighter bounds but use more memory and time)
+	 */
+	public Landmarks(int[][] collisionMatrix, int maxLandmarks){
+		this.collisionMatrix = collisionMatrix;
+		columns   = collisionMatrix[0].length;
+		landmarkX = new int[Math.max(maxLandmarks, 1)];
+		landmarkY = new int[landmarkX.length];
+		costs     = new int[collisionMatrix.length*columns*2*landmarkX.length];
+		calculatedCosts = copyCosts(collisionMatrix);
+		chooseLandmarks();
+	}
+
+	/**
+	 * Creates landmarks whose costs have been calculated before (see read).
+	 */
+	private Landmarks(int[][] collisionMatrix, int[] landmarkX, int[] landmarkY, int nrOfLandmarks, int[] costs){
+		this.collisionMatrix = collisionMatrix;
+		columns   = collisionMatrix[0].length;
+		this.landmarkX = landmarkX;
+		this.landmarkY = landmarkY;
+		this.nrOfLandmarks = nrOfLandmarks;
+		this.costs = costs;
+		calculatedCosts = copyCosts(collisionMatrix);
+	}
+
+	/**
+	 * Returns a lower bound of the cost of the cheapest path between two tiles.
+	 * @param fromTile Tile index of the start tile (x*columns + y)
+	 * @param toTile Tile index of the goal tile
+	 * @return The bound (0 if no landmark gives a bound, e.g. if the tiles are not connected to the landmarks)
+	 */
+	public int calculateH(int fromTile, int toTile){
+		if(!valid){
+			return 0;
+		}
+		return calculateH(costs, fromTile, toTile);
+	}
+
+	/**
+	 * Returns a lower bound of the cost of the cheapest path between two tiles, with the tile costs that the landmark costs were calculated with.
+	 * @param costs Costs of the landmarks
+	 * @param fromTile Tile index of the start tile (x*columns + y)
+	 * @param toTile Tile index of the goal tile
+	 * @return The bound (0 if no landmark gives a bound)
+	 */
+	private int calculateH(int[] costs, int fromTile, int toTile){
+		int bound = 0;
+		int from = fromTile*2*landmarkX.length;
+		int to   = toTile*2*landmarkX.length;
+		for(int i = 0; i < 2*nrOfLandmarks; i += 2){
+			//Cost(L, to) <= cost(L, from) + cost(from, to)
+			if(costs[to+i] != UNREACHABLE && costs[from+i] != UNREACHABLE){
+				bound = Math.max(bound, costs[to+i] - costs[from+i]);
+			}
+			//Cost(from, L) <= cost(from, to) + cost(to, L)
+			if(costs[from+i+1] != UNREACHABLE && costs[to+i+1] != UNREACHABLE){
+				bound = Math.max(bound, costs[from+i+1] - costs[to+i+1]);
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Returns a lower bound of the cost of the cheapest path between two tiles that passes a third tile, with the current costs of the tiles.
+	 * The bound is valid while tiles are lowered (see updateTile), since such a path is at most as much cheaper as the tiles have been lowered,
+	 * but it can be negative then.
+	 * @param fromTile Tile index of the start tile (x*columns + y)
+	 * @param viaTile Tile index of the tile that the path passes
+	 * @param toTile Tile index of the goal tile
+	 * @return The bound
+	 */
+	public synchronized long calculateBound(int fromTile, int viaTile, int toTile){
+		return (long)calculateH(costs, fromTile, viaTile) + calculateH(costs, viaTile, toTile) - lowered;
+	}
+
+	/**
+	 * Calculates the costs of the landmarks again with the current costs of the tiles (on the background thread, see updateTile).
+	 * The tiles are copied first, so tiles that are edited meanwhile do not disturb the calculation.
+	 * @return True if tiles are cheaper than the copied costs, so the costs must be calculated again
+	 */
+	private boolean calculateAgain(){
+		int[][] tileCosts = copyCosts(collisionMatrix);
+		int[] newCosts = new int[costs.length];
+		Pathfinder pathfinder = new Pathfinder(tileCosts, null);
+		for(int landmark = 0; landmark < nrOfLandmarks; landmark++){
+			calculateCosts(landmark, pathfinder, tileCosts, newCosts);
+		}
+		synchronized(this){
+			costs = newCosts;
+			calculatedCosts = tileCosts;
+			loweredTiles.clear();
+			lowered = 0;
+			for(int x = 0; x < collisionMatrix.length; x++){
+				for(int y = 0; y < columns; y++){
+					updateLowered(x, y);
+				}
+			}
+			if(lowered > 0){
+				return true;
+			}
+			calculating = false;
+			valid = true;
+			version++;
+			return false;
+		}
+	}
+
+	/**
+	 * Chooses each landmark as the walkable tile that is farthest from the landmarks chosen so far, starting with
+	 * the tile farthest from the walkable tile closest to the middle of the map, and calculates the costs of each landmark.
+	 */
+	private void chooseLandmarks(){
+		//Walkable tile closest to the middle of the map
+		int middleX = collisionMatrix.length / 2, middleY = columns / 2;
+		int seed = -1, seedDistance = Integer.MAX_VALUE;
+		for(int x = 0; x < collisionMatrix.length-1; x++){
+			for(int y = 0; y < columns-1; y++){
+				int distance = Math.max(Math.abs(x - middleX), Math.abs(y - middleY));
+				if(collisionMatrix[x][y] != Integer.MAX_VALUE && distance < seedDistance){
+					seed = x*columns + y;
+					seedDistance = distance;
+				}
+			}
+		}
+		if(seed < 0){
+			return;
+		}
+
+		Pathfinder pathfinder = new Pathfinder(collisionMatrix, null);
+		int[] nearest = new int[collisionMatrix.length*columns];	//Cost from the nearest landmark to each tile
+		pathfinder.flood(seed / columns, seed % columns);
+		for(int tile = 0; tile < nearest.length; tile++){
+			nearest[tile] = pathfinder.getFloodCost(tile / columns, tile % columns);
+		}
+		while(nrOfLandmarks < landmarkX.length){
+			int farthest = -1;
+			for(int tile = 0; tile < nearest.length; tile++){
+				if(nearest[tile] != UNREACHABLE && nearest[tile] > 0 && (farthest < 0 || nearest[tile] > nearest[farthest])){
+					farthest = tile;
+				}
+			}
+			//All reachable tiles are landmarks
+			if(farthest < 0){
+				break;
+			}
+			landmarkX[nrOfLandmarks] = farthest / columns;
+			landmarkY[nrOfLandmarks] = farthest % columns;
+			calculateCosts(nrOfLandmarks, pathfinder, collisionMatrix, costs);
+			for(int tile = 0; tile < nearest.length; tile++){
+				nearest[tile] = Math.min(nearest[tile], costs[tile*2*landmarkX.length + 2*nrOfLandmarks]);
+			}
+			nrOfLandmarks++;
+		}
+	}
+
+	/**
+	 * Calculates the costs from a landmark to all tiles (a flood from the landmark) and from all tiles to the landmark (a flow field to the landmark).
+	 * @param landmark Index of the landmark
+	 * @param pathfinder Pathfinder to flood with (over tileCosts)
+	 * @param tileCosts Costs of the tiles
+	 * @param costs Costs of the landmarks to fill in
+	 */
+	private void calculateCosts(int landmark, Pathfinder pathfinder, int[][] tileCosts, int[] costs){
+		int x = landmarkX[landmark], y = landmarkY[landmark];
+		pathfinder.flood(x, y);
+		FlowField field = new FlowField(tileCosts, x, y);
+		//A landmark that has become a wall (see updateTile) gives no bounds
+		boolean isWall = tileCosts[x][y] == Integer.MAX_VALUE;
+		for(int tile = 0; tile < collisionMatrix.length*columns; tile++){
+			int index = tile*2*landmarkX.length + 2*landmark;
+			costs[index]   = isWall ? UNREACHABLE : pathfinder.getFloodCost(tile / columns, tile % columns);
+			costs[index+1] = isWall ? UNREACHABLE : field.getDistance(tile / columns, tile % columns);
+		}
+	}
+
+	/**
+	 * Copies the costs of the tiles of a collisionMatrix.
+	 */
+	private static int[][] copyCosts(int[][] collisionMatrix){
+		int[][] copy = new int[collisionMatrix.length][];
+		for(int x = 0; x < collisionMatrix.length; x++){
+			copy[x] = collisionMatrix[x].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the collisionMatrix that the costs are calculated over.
+	 */
+	public int[][] getCollisionMatrix(){
+		return collisionMatrix;
+	}
+
+	/**
+	 * Returns the x-pos of a landmark.
+	 * @param landmark Index of the landmark (0 to getNrOfLandmarks()-1)
+	 */
+	public int getLandmarkX(int landmark){
+		return landmarkX[landmark];
+	}
+
+	/**
+	 * Returns the y-pos of a landmark.
+	 * @param landmark Index of the landmark (0 to getNrOfLandmarks()-1)
+	 */
+	public int getLandmarkY(int landmark){
+		return landmarkY[landmark];
+	}
+
+	/**
+	 * Returns the nr of bytes used by the costs.
+	 */
+	public int getMemorySize(){
+		return 4*costs.length;
+	}
+
+	/**
+	 * Returns the version of the bounds, which changes each time calculateH starts or stops giving bounds (see updateTile).
+	 */
+	public int getVersion(){
+		return version;
+	}
+
+	/**
+	 * Returns the nr of landmarks.
+	 */
+	public int getNrOfLandmarks(){
+		return nrOfLandmarks;
+	}
+
+	/**
+	 * Reads landmarks that have been written with write.
+	 * @param buffer Buffer at the start of the landmarks
+	 * @param collisionMatrix CollisionMatrix that the costs were calculated over
+	 * @return The landmarks
+	 * @throws IllegalArgumentException If the costs do not fit the collisionMatrix
+	 */
+	public static Landmarks read(ByteBuffer buffer, int[][] collisionMatrix){
+		int[] landmarkX = new int[CompiledMap.readCount(buffer, 8)];
+		int[] landmarkY = new int[landmarkX.length];
+		int nrOfLandmarks = buffer.getInt();
+		buffer.asIntBuffer().get(landmarkX).get(landmarkY);
+		buffer.position(buffer.position() + 8*landmarkX.length);
+		int nrOfCosts = buffer.getInt();
+		if(nrOfCosts != (long)collisionMatrix.length*collisionMatrix[0].length*2*landmarkX.length || nrOfLandmarks > landmarkX.length
+				|| 4L*nrOfCosts > buffer.remaining()){
+			throw new IllegalArgumentException("Landmark costs do not fit a " + collisionMatrix.length + "x" + collisionMatrix[0].length + " collisionMatrix");
+		}
+		int[] costs = new int[nrOfCosts];
+		buffer.asIntBuffer().get(costs);
+		buffer.position(buffer.position() + 4*costs.length);
+		return new Landmarks(collisionMatrix, landmarkX, landmarkY, nrOfLandmarks, costs);
+	}
+
+	/**
+	 * Updates the landmarks after the cost of a tile has been changed (in the collisionMatrix, see TileEdits). If the tile is cheaper than when
+	 * the costs were calculated calculateH gives no bounds, since they could overestimate, until a background thread has calculated the costs
+	 * again (the landmarks are kept). Paths are still found meanwhile, but with a weaker heuristic.
+	 * @param x X-pos of the changed tile
+	 * @param y Y-pos of the changed tile
+	 */
+	public synchronized void updateTile(int x, int y){
+		updateLowered(x, y);
+		if(lowered > 0 && valid){
+			valid = false;
+			version++;
+			if(!calculating){
+				calculating = true;
+				Thread thread = new Thread(new Runnable(){
+					@Override
+					public void run(){
+						while(calculateAgain()){
+						}
+					}
+				}, "Landmarks");
+				thread.setDaemon(true);	//Never keeps the program running
+				thread.start();
+			}
+		}
+		//The tiles have got their old costs back before the costs were calculated again
+		else if(lowered == 0 && !valid){
+			valid = true;
+			version++;
+		}
+	}
+
+	/**
+	 * Updates how much cheaper a tile is than when the costs were calculated.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	private void updateLowered(int x, int y){
+		int tile = x*columns + y;
+		Long old = loweredTiles.remove(tile);
+		if(old != null){
+			lowered -= old;
+		}
+		long difference = (long)calculatedCosts[x][y] - collisionMatrix[x][y];
+		if(difference > 0){
+			loweredTiles.put(tile, difference);
+			lowered += difference;
+		}
+	}
+
+	/**
+	 * Returns a description of the landmarks.
+	 */
+	@Override
+	public String toString(){
+		return nrOfLandmarks + " landmarks (" + getMemorySize() + " bytes)";
+	}
+
+	/**
+	 * Writes the landmarks and their costs (see read).
+	 * @param out Stream to write to
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(landmarkX.length);
+		out.writeInt(nrOfLandmarks);
+		for(int x : landmarkX){
+			out.writeInt(x);
+		}
+		for(int y : landmarkY){
+			out.writeInt(y);
+		}
+		out.writeInt(costs.length);
+		for(int cost : costs){
+			out.writeInt(cost);
+		}
+	}
+}
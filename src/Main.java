@@ -137,7 +137,21 @@ public class Main extends JPanel implements ActionListener, PropertyChangeListen
         frame.setVisible(true);
     }
  
+    /**
+     * Starts the simulator.
+     * @param args Optional launch configuration: [nr of pedestrians] [type mix, e.g. 0.65,0.20,0.15 (students,professors,civilians)],
+     * or null (when a new map is loaded from the Frame) to keep the current configuration
+     */
     public static void main(String[] args) {
+        if(args == null){
+        	args = new String[0];
+        }
+        if(args.length > 0){
+        	PedestriansSimulator.nrOfPedestrians = Integer.parseInt(args[0]);
+        }
+        if(args.length > 1){
+        	PedestriansSimulator.typeMix = SimulationEngine.parseTypeMix(args[1]);
+        }
         //Schedule a job for the event-dispatching thread:
         //creating and showing this application's GUI.
         javax.swing.SwingUtilities.invokeLater(new Runnable() {
@@ -0,0 +1,186 @@
+import java.util.Arrays;
+
+/**
+ * NodeIndex keeps the positions of the nodes of an .osm file by their OSM id while the file is read (see OSM_Reader).
+ * The ids are kept in an open-addressing hash table (linear probing) that maps each id to the index of the node, and the positions
+ * are kept in parallel int arrays by index, so a node costs 30-45 bytes instead of a String, a Node and a map entry. A Node object is
+ * created first when the node is referenced by a way (see get) or tagged, since most nodes of an extract are never used.
+ * An id can be reserved before its node has been read (see reserve), e.g. when the ways are read before the nodes (see OSM_Reader.parseTwoPass).
+ *
+ * OSM ids are larger than an int, so the ids are kept as longs. The table holds up to about 800 million ids (3/4 of 2^30 slots).
+ *
+ * @version 18-10-2026
+ */
+public class NodeIndex {
+	private static final int MIN_CAPACITY = 16;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;	//Spreads ids that follow each other over the table (Fibonacci hashing)
+	private static final int EMPTY = -1;
+	private static final Node UNKNOWN = new Node(0, 0);	//Marks a reserved node whose position is not known yet
+
+	//Hash table, a slot holds an id and the index of its node (EMPTY if the slot is free)
+	private long[] ids;
+	private int[] indices;
+	private int shift;		//64 - log2(capacity of the table)
+	private int maxSize;	//Nr of nodes when the table is grown (load factor 0.75)
+
+	//Nodes by index
+	private int[] x;
+	private int[] y;
+	private Node[] nodes;	//Created Nodes (null if not created yet, UNKNOWN if reserved)
+	private int size = 0;
+
+	/**
+	 * Creates an empty index.
+	 * @param expectedNodes Nr of nodes that the index is sized for (it grows if more are added)
+	 */
+	public NodeIndex(int expectedNodes){
+		int capacity = MIN_CAPACITY;
+		while(capacity - capacity/4 < expectedNodes){
+			capacity <<= 1;
+		}
+		createTable(capacity);
+		x = new int[Math.max(expectedNodes, MIN_CAPACITY)];
+		y = new int[x.length];
+		nodes = new Node[x.length];
+	}
+
+	/**
+	 * Adds a node (a node with the same id is replaced).
+	 * @param id OSM id
+	 * @param xPos X-pos of the node (on the screen)
+	 * @param yPos Y-pos of the node (on the screen)
+	 * @return Index of the node
+	 */
+	public int add(long id, int xPos, int yPos){
+		int slot = findSlot(id);
+		int index = indices[slot];
+		if(index == EMPTY){
+			if(size == x.length){
+				int length = (int)Math.min(size + (size >> 1), Integer.MAX_VALUE - 8L);
+				x = Arrays.copyOf(x, length);
+				y = Arrays.copyOf(y, length);
+				nodes = Arrays.copyOf(nodes, length);
+			}
+			index = size++;
+			ids[slot] = id;
+			indices[slot] = index;
+			if(size > maxSize){
+				createTable(2*indices.length);
+			}
+		}
+		x[index] = xPos;
+		y[index] = yPos;
+		nodes[index] = null;
+		return index;
+	}
+
+	/**
+	 * Creates a new (empty or larger) table and puts the ids of the nodes into it.
+	 * @param capacity Nr of slots (a power of two)
+	 */
+	private void createTable(int capacity){
+		long[] oldIds = ids;
+		int[] oldIndices = indices;
+		ids     = new long[capacity];
+		indices = new int[capacity];
+		Arrays.fill(indices, EMPTY);
+		shift   = 64 - Integer.numberOfTrailingZeros(capacity);
+		maxSize = capacity - capacity/4;
+		if(oldIds != null){
+			for(int slot = 0; slot < oldIds.length; slot++){
+				if(oldIndices[slot] != EMPTY){
+					int newSlot = findSlot(oldIds[slot]);
+					ids[newSlot]     = oldIds[slot];
+					indices[newSlot] = oldIndices[slot];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the slot of an id, or the free slot where it would be put if it is not in the table.
+	 * @param id OSM id
+	 */
+	private int findSlot(long id){
+		int mask = indices.length - 1;
+		int slot = (int)((id * HASH_MULTIPLIER) >>> shift);
+		while(indices[slot] != EMPTY && ids[slot] != id){
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the node of an id, the Node is created the first time.
+	 * @param id OSM id
+	 * @return The node, null if no node has the id (or if it is reserved but has not been added)
+	 */
+	public Node get(long id){
+		int index = indexOf(id);
+		return index != EMPTY ? getNode(index) : null;
+	}
+
+	/**
+	 * Returns the nr of bytes used by the index (table and nodes, not counting the created Nodes).
+	 */
+	public long getMemorySize(){
+		return 12L*ids.length + 12L*x.length;
+	}
+
+	/**
+	 * Returns the node at an index, the Node is created the first time.
+	 * @param index Index of the node (see add)
+	 * @return The node, null if it is reserved but has not been added
+	 */
+	public Node getNode(int index){
+		if(nodes[index] == UNKNOWN){
+			return null;
+		}
+		if(nodes[index] == null){
+			nodes[index] = new Node(x[index], y[index]);
+		}
+		return nodes[index];
+	}
+
+	/**
+	 * Returns the index of the node of an id.
+	 * @param id OSM id
+	 * @return The index, -1 if no node has the id
+	 */
+	public int indexOf(long id){
+		return indices[findSlot(id)];
+	}
+
+	/**
+	 * Adds a node whose Node has already been created (a node with the same id is replaced).
+	 * @param id OSM id
+	 * @param node The node
+	 * @return Index of the node
+	 */
+	public int put(long id, Node node){
+		int index = add(id, node.getXPos(), node.getYPos());
+		nodes[index] = node;
+		return index;
+	}
+
+	/**
+	 * Reserves an id for a node that has not been read yet, the node must be added later (see add).
+	 * @param id OSM id
+	 * @return Index of the node
+	 */
+	public int reserve(long id){
+		int index = indexOf(id);
+		if(index == EMPTY){
+			index = add(id, 0, 0);
+			nodes[index] = UNKNOWN;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the nr of nodes (including reserved nodes).
+	 */
+	public int size(){
+		return size;
+	}
+}
@@ -3,7 +3,7 @@ import java.io.File;
 import javax.swing.filechooser.FileFilter;
  
 /**
- * This class provides a filter for the file chooser so that only .osm files are visible.
+ * This class provides a filter for the file chooser so that only .osm files (and .osm.pbf files, see PbfReader) are visible.
  * 
  * @author Robert Wideberg
  * @version 17-07-2013
@@ -11,9 +11,10 @@ import javax.swing.filechooser.FileFilter;
 public class OSMFileFilter extends FileFilter {
 	
 	 public final static String osm = "osm";
+	 public final static String pbf = "pbf";
  
     /**
-     * Accept all directories and all osm files.
+     * Accept all directories and all osm and pbf files.
      */
     public boolean accept(File f) {
         if (f.isDirectory()) {
@@ -22,7 +23,7 @@ public class OSMFileFilter extends FileFilter {
  
         String extension = getExtension(f);
         if (extension != null) {
-            if (extension.equals(osm)){
+            if (extension.equals(osm) || extension.equals(pbf)){
                     return true;
             } else {
                 return false;
@@ -50,6 +51,6 @@ public class OSMFileFilter extends FileFilter {
      * Returns the description of this filter
      */
     public String getDescription() {
-        return ".OSM";
+        return ".OSM, .OSM.PBF";
     }
 }
\ No newline at end of file
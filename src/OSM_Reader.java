@@ -2,20 +2,22 @@ import java.awt.Color;
 import java.awt.Image;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Locale;
 
 import javax.imageio.ImageIO;
 import javax.swing.SwingWorker;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.EndElement;
 import javax.xml.stream.events.StartElement;
@@ -24,12 +26,20 @@ import javax.xml.stream.events.XMLEvent;
 /**
  * The OSM_Reader reads an input .osm file (XML format) and creates appropriate 
  * data structures and objects for the different items described in the file.
+ * The file is read with an XMLStreamReader (see readStream), which reads attributes by index and dispatches names and values with a switch.
+ * Large files are read in two passes (see parseTwoPass), so that only the nodes that are used are kept in memory.
  * 
  * @author Christoffer Wiss & Robert Wideberg
  * @version 09-08-2013
  */
 public class OSM_Reader extends SwingWorker<Void, Void> {
-	private HashMap<String,Node> nodeMap;
+	private NodeIndex nodeIndex;	//Nodes by OSM id while the file is parsed
+	private long[] wayRefs = new long[16];	//Ids of the nodes of the way that is read
+	private MapObject wayObject;	//Way, building or area that the way that is read describes (see tagWay)
+	private boolean ignoreWay;		//Is the way that is read not used?
+	private boolean twoPass = false;	//Are the ways read before the nodes (see parseTwoPass)?
+	private ArrayList<MapObject> pendingMapObjects;	//Ways, buildings and areas of the first pass in file order (see parseTwoPass)
+	private ArrayList<int[]> pendingNodes;	//Indices of their nodes (see NodeIndex)
 	private HashMap<String,Image> iconMap;
 	private LinkedList<Way> ways;
 	private LinkedList<Building> buildings;
@@ -99,6 +109,29 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 	private final String PLATFORM = "platform";
 	private final String NARROW_GAUGE = "narrow_gauge";
 	
+	private static final int EXPECTED_NODES = 1 << 16;	//Initial size of the node index (it grows for larger files)
+	public static final long TWO_PASS_MIN_BYTES = 128L << 20;	//Files of this size or larger are read in two passes (see parseTwoPass)
+	public static final long TWO_PASS_MIN_PBF_BYTES = 8L << 20;	//The same for .osm.pbf files, which are about 15 times smaller
+	
+	//Element names, attribute names and tag values that are read by readStream, each symbol is the lower case name of its constant (e.g. "bus_stop")
+	private enum Symbol {
+		BOUNDS, NODE, WAY, ND, TAG,
+		MINLAT, MINLON, MAXLAT, MAXLON, ID, LON, LAT, REF, K, V,
+		SHOP, CROSSING, SUBWAY_ENTRANCE, BUS_STATION, BUS_STOP, RESTAURANT, CAFE, TOILETS, WASTE_BASKET, FAST_FOOD,
+		DOCTORS, HOSPITAL, PHARMACY, LIBRARY, BANK, ATM, STATION,
+		FOOTWAY, PEDESTRIAN, PARK, WOOD, WATER, STEPS, SERVICE, CYCLEWAY, PLATFORM, NARROW_GAUGE, SUBWAY, EDUCATION,
+		BUILDING, WATERWAY, AREA, BARRIER, AMENITY, LANDUSE, MAN_MADE,
+		OTHER	//Not used by the reader
+	}
+	private static final HashMap<String,Symbol> SYMBOLS = new HashMap<String,Symbol>();
+	static{
+		for(Symbol symbol : Symbol.values()){
+			if(symbol != Symbol.OTHER){
+				SYMBOLS.put(symbol.name().toLowerCase(Locale.ROOT), symbol);
+			}
+		}
+	}
+	
 	private float maxlat;
 	private float minlon;
 	private float scaleLatY;
@@ -158,7 +191,11 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 	private final int RAILWAY_PLATFORM_WIDTH   = 15;
 	
 	public int[][] collisionMatrix;
-	public static HashMap<String,LinkedList<Node>> preCalculatedPaths;
+	public static PathCache pathCache;	//Pre-calculated paths and paths found while simulating
+	public static FlowFieldCache flowFields;	//Flow fields of the hot targets (null if not used)
+	public static HierarchicalPathfinder hierarchicalPathfinder;	//Used instead of the Pathfinder on large maps (null if not used)
+	public static TileEdits tileEdits;	//Changes of tile costs while simulating (null until a map has been loaded)
+	public static Landmarks landmarks;	//Lower bounds of the costs between tiles for the Pathfinder (null if not used)
 	
 	private String filename;
 	
@@ -170,12 +207,16 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 	 */
 
 	public OSM_Reader(){
-		nodeMap = new HashMap<String,Node>();
+		nodeIndex = new NodeIndex(EXPECTED_NODES);
 		ways = new LinkedList<Way>();
 		buildings = new LinkedList<Building>();
 		areas = new LinkedList<Area>();
 		targets = new ArrayList<LinkedList<Node>>();
-		preCalculatedPaths = new HashMap<String,LinkedList<Node>>(); 
+		pathCache = new PathCache(PathCache.DEFAULT_CAPACITY);
+		flowFields = null;
+		hierarchicalPathfinder = null;
+		tileEdits = null;
+		landmarks = null;
 		//Initiate all enums
 		for(@SuppressWarnings("unused") TargetEnums e : TargetEnums.values()){
 			targets.add(new LinkedList<Node>());
@@ -186,77 +227,185 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 		scaleCollision = (float)collisionMatrix.length / Frame.SIM_WINDOW_LENGTH;	//Scale factor between resolution and collision matrix size
 	}
 	
+	/**
+	 * Adds the nodes of a way, building or area, adds it to its collection and calculates its collision.
+	 * @param mapObject The way, building or area
+	 * @param nodes The nodes that it consists of
+	 */
+	private void addMapObject(MapObject mapObject, LinkedList<Node> nodes){
+		mapObject.addNodes(nodes);
+		
+		//Calculate collision and add to collection
+		if(mapObject instanceof Building){
+			((Building)mapObject).checkTargetsInside(targets);
+			buildings.add((Building)mapObject);
+		}
+		else if(mapObject instanceof Area){
+			areas.add((Area)mapObject);
+		}
+		else if(mapObject instanceof Way){
+			ways.add((Way)mapObject);
+		}
+		mapObject.calculateCollision(collisionMatrix);
+	}
+	
+	/**
+	 * Adds a node to the node index, unless the ways have been read first (see parseTwoPass) and no way uses the node.
+	 * @param id OSM id
+	 * @param x X-pos of the node (on the screen)
+	 * @param y Y-pos of the node (on the screen)
+	 * @return Index of the node (see NodeIndex), -1 if it is not added
+	 */
+	private int addNode(long id, int x, int y){
+		if(!twoPass || nodeIndex.indexOf(id) >= 0){
+			return nodeIndex.add(id, x, y);
+		}
+		return -1;
+	}
+	
+	/**
+	 * Tags a node and adds it to the targets of a type.
+	 * @param index Index of the node (see NodeIndex)
+	 * @param tag Tag of the node
+	 * @param type Type of target
+	 */
+	private void addTarget(int index, String tag, TargetEnums type){
+		if(Frame.DEBUG)System.out.println("Added " + tag);
+		Node node = nodeIndex.getNode(index);
+		node.setTag(tag);
+		targets.get(type.ordinal()).add(node);
+	}
+	
+	/**
+	 * Adds the way, building or area that the tags of the way that is read describe (see tagWay) and calculates its collision.
+	 * When the ways are read before the nodes (see parseTwoPass), its nodes are reserved and it is added when the nodes have been read.
+	 * @param refs Ids of the nodes of the way
+	 * @param start Index of the id of the first node
+	 * @param end Index after the id of the last node
+	 */
+	private void addWay(long[] refs, int start, int end){
+		if(wayObject == null && !ignoreWay){
+			wayObject = new Way();
+		}
+		if(wayObject != null && !ignoreWay) {
+			//The nodes have not been read yet, they are reserved so that they are kept when they are read
+			if(twoPass){
+				int[] indices = new int[end - start];
+				for(int i = start; i < end; i++){
+					indices[i - start] = nodeIndex.reserve(refs[i]);
+				}
+				pendingMapObjects.add(wayObject);
+				pendingNodes.add(indices);
+			}
+			else{
+				LinkedList<Node> nodes = new LinkedList<Node>();
+				for(int i = start; i < end; i++){
+					nodes.add(nodeIndex.get(refs[i]));
+				}
+				addMapObject(wayObject, nodes);
+			}
+		}
+	}
+	
 	/**
 	 * Check that all targets are reachable, also while we're at it - pre-calculate paths (super fast lookup).
 	 */
 	private void checkTargetsReachable(){
-		Pathfinder pathfinder  = new Pathfinder(collisionMatrix);
-		LinkedList<Node> removeList = new LinkedList<Node>();
-		boolean pathWasFound = false;
-		LinkedList<Node> currentPath;
-		LinkedList<Node> reversePath;
+		ConnectedComponents components = new ConnectedComponents(collisionMatrix);
+		ArrayList<Node> nodes = new ArrayList<Node>();
+		for(LinkedList<Node> list : targets){
+			nodes.addAll(list);
+		}
+		int nrOfNodes = nodes.size();
+		int[] tileX       = new int[nrOfNodes];
+		int[] tileY       = new int[nrOfNodes];
+		int[] goalComp    = new int[nrOfNodes];	//Component that a path to the target ends in
+		int[][] startComp = new int[nrOfNodes][4];	//Components that a path from the target can go into
+		int[] nrStartComp = new int[nrOfNodes];
+		boolean[] removed = new boolean[nrOfNodes];
+		for(int n = 0; n < nrOfNodes; n++){
+			tileX[n]       = nodes.get(n).getCollisionXPos(scaleCollision);
+			tileY[n]       = nodes.get(n).getCollisionYPos(scaleCollision);
+			goalComp[n]    = components.getComponent(tileX[n], tileY[n]);
+			nrStartComp[n] = components.getStartComponents(tileX[n], tileY[n], startComp[n]);
+		}
 		
-		//Go through all starting positions
+		//Go through all starting positions (in the same order as the paths were searched for before)
+		int i = 0;
 		for(LinkedList<Node> startList : targets){
 			progress += 8;
 			setProgress(progress);
 			for(Node startNode : startList){
+				boolean outsideMap = (tileX[i] < 0 || tileX[i] >= (collisionMatrix.length-1) || tileY[i] < 0 || tileY[i] >= (collisionMatrix.length-1));
 				
-				boolean outsideMap = (startNode.getCollisionXPos(scaleCollision) < 0 || startNode.getCollisionXPos(scaleCollision) >= (collisionMatrix.length-1) || startNode.getCollisionYPos(scaleCollision) < 0 || startNode.getCollisionYPos(scaleCollision) >= (collisionMatrix.length-1));
-				
-				pathWasFound = false;
+				boolean pathWasFound = false;
 				//Make sure that target is inside of map
 				if(!outsideMap){
-					//Check against all target positions
-					for(LinkedList<Node> targetList : targets){
-						for(Node targetNode : targetList){
-							//Only check against targets that have not already been marked as unreachable
-							boolean selfCheck = (targetNode.getXPos() != startNode.getXPos() || targetNode.getYPos() != startNode.getYPos());
-							if(!removeList.contains(targetNode) && selfCheck){
-								//Check if this path has already been checked
-								if(!preCalculatedPaths.containsKey(startNode.toStringCollision(scaleCollision) + "-" + targetNode.toStringCollision(scaleCollision))){
-									
-									currentPath = new LinkedList<Node>();
-									//Check if a path can be found for this start and target node
-									if(pathfinder.findPath(startNode.getCollisionXPos(scaleCollision), startNode.getCollisionYPos(scaleCollision), targetNode.getCollisionXPos(scaleCollision), targetNode.getCollisionYPos(scaleCollision), currentPath)){
-										
-										if(Frame.USE_PRECALCULATED_PATHS)
-										{
-											preCalculatedPaths.put(startNode.toStringCollision(scaleCollision) + "-" + targetNode.toStringCollision(scaleCollision), currentPath);
-											reversePath = new LinkedList<Node>();
-											reversePath.addAll(currentPath);
-											Collections.reverse(reversePath);
-											reversePath.removeFirst();
-											reversePath.add(startNode);
-											preCalculatedPaths.put(targetNode.toStringCollision(scaleCollision) + "-" + startNode.toStringCollision(scaleCollision) ,reversePath);
-										}
-										
-										pathWasFound = true;
-										
-									}
-								}
-								else{
-									pathWasFound = true;
-								}
-							}
+					//Check against all target positions that have not already been marked as unreachable
+					for(int j = 0; j < nrOfNodes && !pathWasFound; j++){
+						Node targetNode = nodes.get(j);
+						boolean selfCheck = (targetNode.getXPos() != startNode.getXPos() || targetNode.getYPos() != startNode.getYPos());
+						if(!removed[j] && selfCheck){
+							pathWasFound = (tileX[i] == tileX[j] && tileY[i] == tileY[j]) || contains(startComp[i], nrStartComp[i], goalComp[j])
+									//The reverse of a path found from an earlier target is also used as a path from this target
+									|| (Frame.USE_PRECALCULATED_PATHS && j < i && contains(startComp[j], nrStartComp[j], goalComp[i]));
 						}
 					}
 				}
 				//Remove nodes which we cannot find a path from
-				if(!pathWasFound){
-					removeList.add(startNode);
+				removed[i] = !pathWasFound;
+				i++;
+			}
+		}
+		
+		//Pre-calculate the paths between all reachable targets, one flood from each target finds the paths to all others
+		if(Frame.USE_PRECALCULATED_PATHS){
+			Pathfinder pathfinder = new Pathfinder(collisionMatrix);
+			CompactPath path;
+			for(i = 0; i < nrOfNodes; i++){
+				//The (empty) path from a tile to itself is stored by its first flood, so that each tile is only flooded once
+				if(removed[i] || pathCache.contains(PathCache.key(tileX[i], tileY[i], tileX[i], tileY[i]))){
+					continue;
+				}
+				pathfinder.flood(tileX[i], tileY[i]);
+				for(int j = i; j < nrOfNodes; j++){
+					if(!removed[j] && !pathCache.contains(PathCache.key(tileX[i], tileY[i], tileX[j], tileY[j]))){
+						path = pathfinder.getFloodPath(tileX[j], tileY[j]);
+						if(path != null){
+							//The reverse path is stored as a view of the same steps
+							pathCache.putWithReverse(path);
+						}
+					}
 				}
 			}
 		}
 		
-		//Go through the remove list and remove unreachable nodes
-		for(Node node : removeList){
-			for(LinkedList<Node> startList : targets){
-				startList.remove(node);
+		//Remove unreachable nodes
+		for(i = 0; i < nrOfNodes; i++){
+			if(removed[i]){
+				for(LinkedList<Node> startList : targets){
+					startList.remove(nodes.get(i));
+				}
 			}
 		}
 	}
 	
+	/**
+	 * Checks if a component is among the first components of an array.
+	 * @param components Array of components
+	 * @param count Nr of components in the array
+	 * @param component Component to look for
+	 * @return True if the component was found (false if component is -1, i.e. not walkable)
+	 */
+	private static boolean contains(int[] components, int count, int component){
+		for(int i = 0; i < count; i++){
+			if(components[i] == component){
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * This is done on a separate thread so that we can draw a progress bar.
 	 */
@@ -307,10 +456,30 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 	}
 	
 	/**
-	 * Returns the HashMap containing precalculated paths.
+	 * Returns the cache containing precalculated paths (and paths found while simulating).
+	 */
+	public PathCache getPathCache(){
+		return pathCache;
+	}
+	
+	/**
+	 * Returns a hash of the settings that a loaded map depends on (costs, widths, colors, the sizes of the collision matrix and the
+	 * simulation, and the move costs of the pre-calculated paths), so that a compiled map that was written with other settings is not used (see CompiledMap).
 	 */
-	public HashMap<String,LinkedList<Node>> getPreCalculatedPaths(){
-		return preCalculatedPaths;
+	private long getSettingsHash(){
+		int[] settings = {COLLISION_COLUMNS, COLLISION_ROWS, COLLISION_COST_MIN, COLLISION_COST_MAX, ROAD_DEFAULT_COST, ROAD_DEFAULT_WIDTH,
+				FOOTWAY_COST, FOOTWAY_WIDTH, PEDESTRIAN_COST, PEDESTRIAN_WIDTH, PARK_COST, WOOD_COST, WATER_COST, WATERWAY_WIDTH,
+				CYCLEWAY_COST, CYCLEWAY_WIDTH, SERVICE_COST, SERVICE_WIDTH, BUILDING_COST, RAILWAY_COST, RAILWAY_WIDTH, BARRIER_COST,
+				BARRIER_WIDTH, RAILWAY_PLATFORM_COST, RAILWAY_PLATFORM_WIDTH, STEPS_COLOR.getRGB(), FOOTWAY_COLOR.getRGB(),
+				PEDESTRIAN_COLOR.getRGB(), PARK_COLOR.getRGB(), WOOD_COLOR.getRGB(), WATER_COLOR.getRGB(), CYCLEWAY_COLOR.getRGB(),
+				SERVICE_COLOR.getRGB(), BUILDING_COLOR.getRGB(), RAILWAY_COLOR.getRGB(), RAILWAY_PLATFORM_COLOR.getRGB(),
+				Frame.SIM_WINDOW_LENGTH, PedestriansSimulator.PEDESTRIAN_RADIUS, Frame.USE_PRECALCULATED_PATHS ? 1 : 0, targets.size(), Landmarks.DEFAULT_NR_OF_LANDMARKS,
+				Pathfinder.MOVE_COST, Pathfinder.MOVE_DIAG};
+		long hash = 0;
+		for(int setting : settings){
+			hash = (hash + setting) * 0x9E3779B97F4A7C15L;
+		}
+		return hash;
 	}
 	
 	/**
@@ -329,411 +498,547 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 		return ways;
 	}
 	
+	/**
+	 * Reads the map objects (ways, buildings, areas and targets) of .osm data and calculates their collision, but does not do
+	 * the pre-calculations that follow when a map is loaded (see parseMapData). The data is read with the XMLStreamReader (see readStream),
+	 * or with the XMLEventReader (see readEvents) if Frame.USE_STREAM_PARSER is off.
+	 * @param in The .osm data (XML format)
+	 * @throws XMLStreamException If the data is not well-formed
+	 */
+	public void parse(InputStream in) throws XMLStreamException {
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		if(Frame.USE_STREAM_PARSER){
+			readStream(inputFactory.createXMLStreamReader(in), true, true);
+		}
+		else{
+			readEvents(inputFactory.createXMLEventReader(in));
+		}
+	}
+	
+	/**
+	 * Reads the map objects of an .osm file (see parse(InputStream)) or an .osm.pbf file (see readPbf) in one pass.
+	 * @param filename The .osm or .osm.pbf file
+	 * @throws IOException If the file can't be read
+	 * @throws XMLStreamException If the data is not well-formed
+	 */
+	public void parse(String filename) throws IOException, XMLStreamException {
+		if(PbfReader.isPbfFile(filename)){
+			readPbf(filename, true, true);
+		}
+		else{
+			InputStream in = new FileInputStream(filename);
+			try{
+				parse(in);
+			}
+			finally{
+				in.close();
+			}
+		}
+	}
+	
 	/**
 	 * Parses an .osm file and creates simulation map objects
 	 * @param filename The file to be parsed
 	 */
-	@SuppressWarnings("unchecked")
 	private void parseMapData(String filename){
 		try{
-			XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-			InputStream in = new FileInputStream(filename);
-			XMLEventReader eventReader = inputFactory.createXMLEventReader(in);
-			
-			//Read through the .osm file
-			while(eventReader.hasNext()){
+			//A map that has been loaded before is read from its compiled map (see CompiledMap) instead of being parsed
+			CompiledMap compiledMap = null;
+			if(Frame.USE_COMPILED_MAPS){
+				try{
+					compiledMap = CompiledMap.read(filename, getSettingsHash());
+				}
+				catch(IOException e){
+					e.printStackTrace();	//The map is parsed and compiled again
+				}
+			}
+			if(compiledMap != null){
+				nodeIndex = null;
+				collisionMatrix = compiledMap.collisionMatrix;
+				ways = compiledMap.ways;
+				buildings = compiledMap.buildings;
+				areas = compiledMap.areas;
+				targets = compiledMap.targets;
+				nonTargetNodes = compiledMap.nonTargets;
+				for(CompactPath path : compiledMap.paths){
+					pathCache.putWithReverse(path);
+				}
+			}
+			else{
+				//Large files are read in two passes, so that the nodes that are not used are not kept in memory
+				boolean pbf = PbfReader.isPbfFile(filename);
+				long twoPassMinBytes = pbf ? TWO_PASS_MIN_PBF_BYTES : TWO_PASS_MIN_BYTES;
+				if((pbf || Frame.USE_STREAM_PARSER) && (Frame.USE_TWO_PASS_LOADING || new File(filename).length() >= twoPassMinBytes)){
+					parseTwoPass(filename);
+				}
+				else{
+					parse(filename);
+				}
+				nodeIndex = null;	//The positions of the nodes are only needed while parsing
+				progress += 5;
+				setProgress(progress);
+				checkTargetsReachable();
+				setTargetCosts();
+			}
+			setProgress(97);
+			readIcons();
+			setProgress(98);
+			if(Frame.USE_FLOW_FIELDS){
+				flowFields = new FlowFieldCache(collisionMatrix, FlowFieldCache.DEFAULT_MAX_FIELDS);
+				flowFields.addHotTargets(targets, FlowFieldCache.DEFAULT_HOT_TYPES, scaleCollision);
+			}
+			if(Frame.USE_HIERARCHICAL_PATHFINDING || collisionMatrix.length*collisionMatrix[0].length >= HierarchicalPathfinder.AUTO_MIN_TILES){
+				hierarchicalPathfinder = new HierarchicalPathfinder(collisionMatrix, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+			}
+			//Landmarks only give better bounds than the weighted Manhattan distance on small maps (see Landmarks)
+			else if(Frame.USE_LANDMARKS && collisionMatrix.length*collisionMatrix[0].length <= Landmarks.MAX_TILES){
+				landmarks = compiledMap != null ? compiledMap.landmarks : null;
+				if(landmarks == null){
+					landmarks = new Landmarks(collisionMatrix, Landmarks.DEFAULT_NR_OF_LANDMARKS);
+				}
+			}
+			//IncrementalPathfinders only search faster than A* with the landmark heuristic (see TileEdits), and would use too much memory on large maps
+			tileEdits = new TileEdits(collisionMatrix, landmarks != null ? TileEdits.DEFAULT_MAX_PATHFINDERS : 0);
+			if(Frame.USE_COMPILED_MAPS && compiledMap == null){
+				try{
+					new CompiledMap(collisionMatrix, ways, buildings, areas, targets, nonTargetNodes, pathCache, landmarks).write(filename, getSettingsHash());
+				}
+				catch(IOException e){
+					e.printStackTrace();	//The map is parsed again the next time
+				}
+			}
+			setProgress(99);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		} 
+		catch (XMLStreamException e) {
+    	  	e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Reads the map objects of an .osm file like parse, but in two passes so that only the nodes that are used are kept in memory.
+	 * The first pass reads the ways and reserves the nodes of the kept ways, buildings and areas (see NodeIndex.reserve), the second pass reads
+	 * the bounds and the nodes and keeps only the reserved nodes and the nodes that are targets or crossings. The map objects are then added
+	 * in the order of the file, so the result is the same as that of parse. The nodes that no kept way uses (e.g. the nodes of land use areas,
+	 * addresses and trees, which are most of the nodes of an extract) are skipped, but the file is read twice. An .osm file is always read with
+	 * the XMLStreamReader.
+	 * @param filename The .osm or .osm.pbf file
+	 * @throws IOException If the file can't be read
+	 * @throws XMLStreamException If the data is not well-formed
+	 */
+	public void parseTwoPass(String filename) throws IOException, XMLStreamException {
+		twoPass = true;
+		pendingMapObjects = new ArrayList<MapObject>();
+		pendingNodes = new ArrayList<int[]>();
+		readFile(filename, false, true);
+		readFile(filename, true, false);
+		for(int i = 0; i < pendingMapObjects.size(); i++){
+			LinkedList<Node> nodes = new LinkedList<Node>();
+			for(int index : pendingNodes.get(i)){
+				nodes.add(nodeIndex.getNode(index));
+			}
+			pendingNodes.set(i, null);
+			addMapObject(pendingMapObjects.get(i), nodes);
+		}
+		pendingMapObjects = null;
+		pendingNodes = null;
+		twoPass = false;
+	}
+	
+	/**
+	 * Reads the bounds of the map (with the XMLStreamReader, see readStream) and calculates the scaling values from lon and lat to screen coordinates.
+	 * @param reader Reader at the start of the bounds element
+	 */
+	private void readBounds(XMLStreamReader reader){
+		if(Frame.DEBUG)System.out.println("Found bounds tag");
+		float maxlon = 0,minlat = 0;
+		for(int i = 0; i < reader.getAttributeCount(); i++){
+			switch(symbolOf(reader.getAttributeLocalName(i))){
+				case MINLAT: minlat = Float.parseFloat(reader.getAttributeValue(i)); break;
+				case MINLON: minlon = Float.parseFloat(reader.getAttributeValue(i)); break;
+				case MAXLAT: maxlat = Float.parseFloat(reader.getAttributeValue(i)); break;
+				case MAXLON: maxlon = Float.parseFloat(reader.getAttributeValue(i)); break;
+				default: break;
+			}
+		}
+		setBounds(minlat, minlon, maxlat, maxlon);
+	}
+	
+	/**
+	 * Reads .osm data with the XMLEventReader, which creates an event for every element and an attribute object for every attribute
+	 * (kept to compare with readStream, see ParserBenchmark).
+	 * @param eventReader Reader of the data
+	 */
+	@SuppressWarnings("unchecked")
+	private void readEvents(XMLEventReader eventReader) throws XMLStreamException {
+		//Read through the .osm file
+		while(eventReader.hasNext()){
 
-				XMLEvent event = eventReader.nextEvent();
+			XMLEvent event = eventReader.nextEvent();
+			
+			//At start of a new tag
+			if(event.isStartElement()){
+				StartElement startElement = event.asStartElement();
 				
-				//At start of a new tag
-				if(event.isStartElement()){
-					StartElement startElement = event.asStartElement();
+				//If we have bounds tag
+				if(startElement.getName().getLocalPart() == (BOUNDS)){
+					if(Frame.DEBUG)System.out.println("Found bounds tag");
+					float maxlon = 0,minlat = 0;
+					Iterator<Attribute> attributes = startElement.getAttributes();
 					
-					//If we have bounds tag
-					if(startElement.getName().getLocalPart() == (BOUNDS)){
-						if(Frame.DEBUG)System.out.println("Found bounds tag");
-						float maxlon = 0,minlat = 0;
-						Iterator<Attribute> attributes = startElement.getAttributes();
-						
-						//Go through all bounds attributes
-						while(attributes.hasNext()){
-							Attribute attribute = attributes.next();
-							if(attribute.getName().toString().equals(MINLAT)) minlat = Float.parseFloat(attribute.getValue());
-							else if(attribute.getName().toString().equals(MINLON)) minlon = Float.parseFloat(attribute.getValue());
-							else if(attribute.getName().toString().equals(MAXLAT)) maxlat = Float.parseFloat(attribute.getValue());
-							else if(attribute.getName().toString().equals(MAXLON)) maxlon = Float.parseFloat(attribute.getValue());
-						}
-						
-						//Calculate scaling values for lon and lat to screen coordinates
-						float latDiff = maxlat-minlat;
-						float lonDiff = maxlon-minlon;
-						scaleLonX =  Frame.SIM_WINDOW_LENGTH / lonDiff;
-						scaleLatY = -Frame.SIM_WINDOW_LENGTH / latDiff;
+					//Go through all bounds attributes
+					while(attributes.hasNext()){
+						Attribute attribute = attributes.next();
+						if(attribute.getName().toString().equals(MINLAT)) minlat = Float.parseFloat(attribute.getValue());
+						else if(attribute.getName().toString().equals(MINLON)) minlon = Float.parseFloat(attribute.getValue());
+						else if(attribute.getName().toString().equals(MAXLAT)) maxlat = Float.parseFloat(attribute.getValue());
+						else if(attribute.getName().toString().equals(MAXLON)) maxlon = Float.parseFloat(attribute.getValue());
 					}
 					
-					//If we have a node tag
-					else if(startElement.getName().getLocalPart() == (NODE)){
-						String id = "";
-						float lon = 0, lat = 0;
-						
-						Iterator<Attribute> attributes = startElement.getAttributes();
-						
-						//Go through all node attributes
-						while(attributes.hasNext()){
-							Attribute attribute = attributes.next();
-							if(attribute.getName().toString().equals(ID)) id = attribute.getValue();
-							else if(attribute.getName().toString().equals(LON)) lon = Float.parseFloat(attribute.getValue());
-							else if(attribute.getName().toString().equals(LAT)) lat = Float.parseFloat(attribute.getValue());
-						}
-						
-						Node node = new Node(Math.round(scaleLonX*(lon-minlon)),Math.round(scaleLatY*(lat-maxlat)));
-						
-						event = eventReader.nextEvent();
-						
-						//Check if node has any tags
-						while(true){
+					//Calculate scaling values for lon and lat to screen coordinates
+					float latDiff = maxlat-minlat;
+					float lonDiff = maxlon-minlon;
+					scaleLonX =  Frame.SIM_WINDOW_LENGTH / lonDiff;
+					scaleLatY = -Frame.SIM_WINDOW_LENGTH / latDiff;
+				}
+				
+				//If we have a node tag
+				else if(startElement.getName().getLocalPart() == (NODE)){
+					long id = 0;
+					float lon = 0, lat = 0;
+					
+					Iterator<Attribute> attributes = startElement.getAttributes();
+					
+					//Go through all node attributes
+					while(attributes.hasNext()){
+						Attribute attribute = attributes.next();
+						if(attribute.getName().toString().equals(ID)) id = Long.parseLong(attribute.getValue());
+						else if(attribute.getName().toString().equals(LON)) lon = Float.parseFloat(attribute.getValue());
+						else if(attribute.getName().toString().equals(LAT)) lat = Float.parseFloat(attribute.getValue());
+					}
+					
+					Node node = new Node(Math.round(scaleLonX*(lon-minlon)),Math.round(scaleLatY*(lat-maxlat)));
+					
+					event = eventReader.nextEvent();
+					
+					//Check if node has any tags
+					while(true){
 
-							if(event.isStartElement()){
-								startElement = event.asStartElement();
-								//Does this node have any tags?
-								if(startElement.getName().getLocalPart() == (TAG)){
-									attributes = startElement.getAttributes();
-									//Go through all tag attributes
-									while(attributes.hasNext()){
-										Attribute attribute = attributes.next();
-										
-										//K
-										if(attribute.getName().toString().equals(K)){
-											//SHOP
-											if(attribute.getValue().toString().equals(SHOP)){
-												if(Frame.DEBUG)System.out.println("Added shop");
-												node.setTag(SHOP);
-												targets.get(TargetEnums.SHOP_I.ordinal()).add(node);
-											}
+						if(event.isStartElement()){
+							startElement = event.asStartElement();
+							//Does this node have any tags?
+							if(startElement.getName().getLocalPart() == (TAG)){
+								attributes = startElement.getAttributes();
+								//Go through all tag attributes
+								while(attributes.hasNext()){
+									Attribute attribute = attributes.next();
+									
+									//K
+									if(attribute.getName().toString().equals(K)){
+										//SHOP
+										if(attribute.getValue().toString().equals(SHOP)){
+											if(Frame.DEBUG)System.out.println("Added shop");
+											node.setTag(SHOP);
+											targets.get(TargetEnums.SHOP_I.ordinal()).add(node);
 										}
+									}
 
-										//V
-										else if(attribute.getName().toString().equals(V)){
-											//CROSSING
-											if(attribute.getValue().toString().equals(CROSSING)){
-												if(Frame.DEBUG)System.out.println("Added CROSSING");
-												node.setTag(CROSSING);
-												nonTargetNodes.add(node);
-											}
-											//SUBWAY ENTRANCE
-											else if(attribute.getValue().toString().equals(SUBWAY_ENTRANCE)){
-												if(Frame.DEBUG)System.out.println("Added SUBWAY_ENTRANCE");
-												node.setTag(SUBWAY_ENTRANCE);
-												targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
-											}
-											//BUS STATION
-											else if(attribute.getValue().toString().equals(BUS_STATION)){
-												if(Frame.DEBUG)System.out.println("Added BUS_STATION");
-												node.setTag(BUS_STATION);
-												targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
-											}
-											//BUS STOP
-											else if(attribute.getValue().equals(BUS_STOP)){
-												if(Frame.DEBUG)System.out.println("Added BUS_STOP");
-												node.setTag(BUS_STOP);
+									//V
+									else if(attribute.getName().toString().equals(V)){
+										//CROSSING
+										if(attribute.getValue().toString().equals(CROSSING)){
+											if(Frame.DEBUG)System.out.println("Added CROSSING");
+											node.setTag(CROSSING);
+											nonTargetNodes.add(node);
+										}
+										//SUBWAY ENTRANCE
+										else if(attribute.getValue().toString().equals(SUBWAY_ENTRANCE)){
+											if(Frame.DEBUG)System.out.println("Added SUBWAY_ENTRANCE");
+											node.setTag(SUBWAY_ENTRANCE);
+											targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
+										}
+										//BUS STATION
+										else if(attribute.getValue().toString().equals(BUS_STATION)){
+											if(Frame.DEBUG)System.out.println("Added BUS_STATION");
+											node.setTag(BUS_STATION);
+											targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
+										}
+										//BUS STOP
+										else if(attribute.getValue().equals(BUS_STOP)){
+											if(Frame.DEBUG)System.out.println("Added BUS_STOP");
+											node.setTag(BUS_STOP);
+											targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
+										}
+										//RESTAURANT
+										else if(attribute.getValue().toString().equals(RESTAURANT)){
+											if(Frame.DEBUG)System.out.println("Added RESTAURANT");
+											node.setTag(RESTAURANT);
+											targets.get(TargetEnums.RESTAURANT_I.ordinal()).add(node);
+										}
+										//CAFE
+										else if(attribute.getValue().toString().equals(CAFE)){
+											if(Frame.DEBUG)System.out.println("Added CAFE");
+											node.setTag(CAFE);
+											targets.get(TargetEnums.CAFE_I.ordinal()).add(node);
+										}
+										//TOILETS
+										else if(attribute.getValue().toString().equals(TOILETS)){
+											if(Frame.DEBUG)System.out.println("Added Toilet");
+											node.setTag(TOILETS);
+											targets.get(TargetEnums.TOILET_I.ordinal()).add(node);
+										}
+										//WASTE BIN
+										else if(attribute.getValue().toString().equals(WASTEBIN)){
+											if(Frame.DEBUG)System.out.println("Added WASTE BIN");
+											node.setTag(WASTEBIN);
+											targets.get(TargetEnums.WASTE_I.ordinal()).add(node);
+										}
+										//FAST FOOD
+										else if(attribute.getValue().toString().equals(FAST_FOOD)){
+											if(Frame.DEBUG)System.out.println("Added FAST_FOOD");
+											node.setTag(FAST_FOOD);
+											targets.get(TargetEnums.FASTFOOD_I.ordinal()).add(node);
+										}
+										//DOCTORS
+										else if(attribute.getValue().toString().equals(DOCTORS)){
+											if(Frame.DEBUG)System.out.println("Added DOCTORS");
+											node.setTag(DOCTORS);
+											targets.get(TargetEnums.HEALTH.ordinal()).add(node);
+										}
+										//HOSPITAL
+										else if(attribute.getValue().toString().equals(HOSPITAL)){
+											if(Frame.DEBUG)System.out.println("Added HOSPITAL");
+											node.setTag(HOSPITAL);
+											targets.get(TargetEnums.HEALTH.ordinal()).add(node);
+										}
+										//PHARMACY
+										else if(attribute.getValue().toString().equals(PHARMACY)){
+											if(Frame.DEBUG)System.out.println("Added PHARMACY");
+											node.setTag(PHARMACY);
+											targets.get(TargetEnums.HEALTH.ordinal()).add(node);
+										}
+										//LIBRARY
+										else if(attribute.getValue().toString().equals(LIBRARY)){
+											if(Frame.DEBUG)System.out.println("Added LIBRARY");
+											node.setTag(LIBRARY);
+											targets.get(TargetEnums.STUDY.ordinal()).add(node);
+										}
+										//BANK
+										else if(attribute.getValue().toString().equals(BANK)){
+											if(Frame.DEBUG)System.out.println("Added BANK");
+											node.setTag(BANK);
+											targets.get(TargetEnums.BANK_I.ordinal()).add(node);
+										}
+										//ATM
+										else if(attribute.getValue().toString().equals(ATM)){
+											if(Frame.DEBUG)System.out.println("Added BANK");
+											node.setTag(BANK);
+											targets.get(TargetEnums.BANK_I.ordinal()).add(node);
+										}
+										//STATION
+										else if(attribute.getValue().toString().equals(STATION)){
+											if(node.getXPos() >= 0 && node.getXPos() < Frame.SIM_WINDOW_LENGTH && 
+											   node.getYPos() >= 0 && node.getYPos() < Frame.SIM_WINDOW_LENGTH)
+											{
+												if(Frame.DEBUG)System.out.println("Added STATION");
+												node.setTag(STATION);
 												targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
 											}
-											//RESTAURANT
-											else if(attribute.getValue().toString().equals(RESTAURANT)){
-												if(Frame.DEBUG)System.out.println("Added RESTAURANT");
-												node.setTag(RESTAURANT);
-												targets.get(TargetEnums.RESTAURANT_I.ordinal()).add(node);
-											}
-											//CAFE
-											else if(attribute.getValue().toString().equals(CAFE)){
-												if(Frame.DEBUG)System.out.println("Added CAFE");
-												node.setTag(CAFE);
-												targets.get(TargetEnums.CAFE_I.ordinal()).add(node);
-											}
-											//TOILETS
-											else if(attribute.getValue().toString().equals(TOILETS)){
-												if(Frame.DEBUG)System.out.println("Added Toilet");
-												node.setTag(TOILETS);
-												targets.get(TargetEnums.TOILET_I.ordinal()).add(node);
-											}
-											//WASTE BIN
-											else if(attribute.getValue().toString().equals(WASTEBIN)){
-												if(Frame.DEBUG)System.out.println("Added WASTE BIN");
-												node.setTag(WASTEBIN);
-												targets.get(TargetEnums.WASTE_I.ordinal()).add(node);
-											}
-											//FAST FOOD
-											else if(attribute.getValue().toString().equals(FAST_FOOD)){
-												if(Frame.DEBUG)System.out.println("Added FAST_FOOD");
-												node.setTag(FAST_FOOD);
-												targets.get(TargetEnums.FASTFOOD_I.ordinal()).add(node);
-											}
-											//DOCTORS
-											else if(attribute.getValue().toString().equals(DOCTORS)){
-												if(Frame.DEBUG)System.out.println("Added DOCTORS");
-												node.setTag(DOCTORS);
-												targets.get(TargetEnums.HEALTH.ordinal()).add(node);
-											}
-											//HOSPITAL
-											else if(attribute.getValue().toString().equals(HOSPITAL)){
-												if(Frame.DEBUG)System.out.println("Added HOSPITAL");
-												node.setTag(HOSPITAL);
-												targets.get(TargetEnums.HEALTH.ordinal()).add(node);
-											}
-											//PHARMACY
-											else if(attribute.getValue().toString().equals(PHARMACY)){
-												if(Frame.DEBUG)System.out.println("Added PHARMACY");
-												node.setTag(PHARMACY);
-												targets.get(TargetEnums.HEALTH.ordinal()).add(node);
-											}
-											//LIBRARY
-											else if(attribute.getValue().toString().equals(LIBRARY)){
-												if(Frame.DEBUG)System.out.println("Added LIBRARY");
-												node.setTag(LIBRARY);
-												targets.get(TargetEnums.STUDY.ordinal()).add(node);
-											}
-											//BANK
-											else if(attribute.getValue().toString().equals(BANK)){
-												if(Frame.DEBUG)System.out.println("Added BANK");
-												node.setTag(BANK);
-												targets.get(TargetEnums.BANK_I.ordinal()).add(node);
-											}
-											//ATM
-											else if(attribute.getValue().toString().equals(ATM)){
-												if(Frame.DEBUG)System.out.println("Added BANK");
-												node.setTag(BANK);
-												targets.get(TargetEnums.BANK_I.ordinal()).add(node);
-											}
-											//STATION
-											else if(attribute.getValue().toString().equals(STATION)){
-												if(node.getXPos() >= 0 && node.getXPos() < Frame.SIM_WINDOW_LENGTH && 
-												   node.getYPos() >= 0 && node.getYPos() < Frame.SIM_WINDOW_LENGTH)
-												{
-													if(Frame.DEBUG)System.out.println("Added STATION");
-													node.setTag(STATION);
-													targets.get(TargetEnums.PUBLIC_TRANSPORT.ordinal()).add(node);
-												}
-											}
 										}
 									}
 								}
 							}
-							else if(event.isEndElement()){
-								EndElement endElement = event.asEndElement();
-								//END NODE
-								if(endElement.getName().getLocalPart() == (NODE)){
-									break;
-								}
+						}
+						else if(event.isEndElement()){
+							EndElement endElement = event.asEndElement();
+							//END NODE
+							if(endElement.getName().getLocalPart() == (NODE)){
+								break;
 							}
-							event = eventReader.nextEvent();
 						}
-						
-						nodeMap.put(id, node); //Put our node into the node map
+						event = eventReader.nextEvent();
 					}
 					
-					//If we have a way tag
-					else if(startElement.getName().getLocalPart() == (WAY)){
-						LinkedList<Node> nodes = new LinkedList<Node>();
-						MapObject mapObject = null;
-						boolean ignore = false;
-						
-						//Go through all node references for way
-						while(true){
-							//Is event a start element?
-							if(event.isStartElement()){
-								startElement = event.asStartElement();
-	
-								//A new node has been detected for the way
-								if(startElement.getName().getLocalPart() == (ND)){
-									Iterator<Attribute> attributes = startElement.getAttributes();
-									//Take the single attribute the node reference
-									while(attributes.hasNext()){
-										Attribute attribute = attributes.next();
-										if(attribute.getName().toString().equals(REF)) nodes.add(nodeMap.get(attribute.getValue()));
-									}
+					nodeIndex.put(id, node); //Put our node into the node index
+				}
+				
+				//If we have a way tag
+				else if(startElement.getName().getLocalPart() == (WAY)){
+					LinkedList<Node> nodes = new LinkedList<Node>();
+					MapObject mapObject = null;
+					boolean ignore = false;
+					
+					//Go through all node references for way
+					while(true){
+						//Is event a start element?
+						if(event.isStartElement()){
+							startElement = event.asStartElement();
+
+							//A new node has been detected for the way
+							if(startElement.getName().getLocalPart() == (ND)){
+								Iterator<Attribute> attributes = startElement.getAttributes();
+								//Take the single attribute the node reference
+								while(attributes.hasNext()){
+									Attribute attribute = attributes.next();
+									if(attribute.getName().toString().equals(REF)) nodes.add(nodeIndex.get(Long.parseLong(attribute.getValue())));
 								}
-								//A tag has been detected for the way
-								if(startElement.getName().getLocalPart() == (TAG)){
-									Iterator<Attribute> attributes = startElement.getAttributes();
-									//Take the attribute the tag references
-									while(attributes.hasNext()){
-										Attribute attribute = attributes.next();
-										//Value
-										if(attribute.getName().toString().equals(V)) {
-											//FOOTWAY
-											if(attribute.getValue().toString().equals(FOOTWAY)){
-												mapObject = new Way();
-												mapObject.setCost(FOOTWAY_COST);
-												((Way)mapObject).setWidth(FOOTWAY_WIDTH);
-												mapObject.setColor(FOOTWAY_COLOR);
-											}
-											//PEDESTRIAN
-											else if(attribute.getValue().toString().equals(PEDESTRIAN)){
-												//AREA
-												if(mapObject instanceof Area){
-													mapObject.setCost(PEDESTRIAN_COST);
-													mapObject.setColor(PEDESTRIAN_COLOR);
-												}
-												//WAY
-												else{
-													mapObject = new Way();
-													mapObject.setCost(PEDESTRIAN_COST);
-													((Way)mapObject).setWidth(PEDESTRIAN_WIDTH);
-													mapObject.setColor(PEDESTRIAN_COLOR);
-												}
-											}
-											//PARK
-											else if(attribute.getValue().toString().equals(PARK)){
-												mapObject = new Area();
-												mapObject.setCost(PARK_COST);
-												mapObject.setColor(PARK_COLOR);
-											}
-											//WOOD
-											else if(attribute.getValue().toString().equals(WOOD)){
-												mapObject = new Area();
-												mapObject.setCost(WOOD_COST);
-												mapObject.setColor(WOOD_COLOR);
-											}
-											//WATER
-											else if(attribute.getValue().toString().equals(WATER)){
-												mapObject = new Area();
-												mapObject.setCost(WATER_COST);
-												mapObject.setColor(WATER_COLOR);
-											}
-											//STEPS
-											else if(attribute.getValue().toString().equals(STEPS)){
-												mapObject = new Way();
-												mapObject.setCost(FOOTWAY_COST);
-												((Way)mapObject).setWidth(FOOTWAY_WIDTH);
-												mapObject.setColor(STEPS_COLOR);
-											}
-											//SERVICE
-											else if(attribute.getValue().toString().equals(SERVICE)){
-												mapObject = new Way();
-												mapObject.setCost(SERVICE_COST);
-												((Way)mapObject).setWidth(SERVICE_WIDTH);
-												mapObject.setColor(SERVICE_COLOR);
-											}
-											//CYCLE WAY
-											else if(attribute.getValue().toString().equals(CYCLEWAY)){
-												mapObject = new Way();
-												mapObject.setCost(CYCLEWAY_COST);
-												((Way)mapObject).setWidth(CYCLEWAY_WIDTH);
-												mapObject.setColor(CYCLEWAY_COLOR);
-											}
-											//PLATFORM
-											else if(attribute.getValue().toString().equals(PLATFORM)){
-												mapObject = new Way();
-												mapObject.setCost(RAILWAY_PLATFORM_COST);
-												((Way)mapObject).setWidth(RAILWAY_PLATFORM_WIDTH);
-												mapObject.setColor(RAILWAY_PLATFORM_COLOR);
-											}
-											//NARROW GAUGE (RAILWAY)
-											else if(attribute.getValue().toString().equals(NARROW_GAUGE)){
-												mapObject = new Way();
-												mapObject.setCost(RAILWAY_COST);
-												((Way)mapObject).setWidth(RAILWAY_WIDTH);
-												mapObject.setColor(RAILWAY_COLOR);
-											}
-											//SUBWAY
-											else if(attribute.getValue().toString().equals(SUBWAY)){
-												ignore = true;
-												break;
-											}
-											//EDUCATION
-											else if(attribute.getValue().toString().equals(EDUCATION)){
-												mapObject.setTag(EDUCATION);
-											}
+							}
+							//A tag has been detected for the way
+							if(startElement.getName().getLocalPart() == (TAG)){
+								Iterator<Attribute> attributes = startElement.getAttributes();
+								//Take the attribute the tag references
+								while(attributes.hasNext()){
+									Attribute attribute = attributes.next();
+									//Value
+									if(attribute.getName().toString().equals(V)) {
+										//FOOTWAY
+										if(attribute.getValue().toString().equals(FOOTWAY)){
+											mapObject = new Way();
+											mapObject.setCost(FOOTWAY_COST);
+											((Way)mapObject).setWidth(FOOTWAY_WIDTH);
+											mapObject.setColor(FOOTWAY_COLOR);
 										}
-										//Key
-										else if(attribute.getName().getLocalPart() == (K)){
-											//BUILDING
-											if(attribute.getValue().toString().equals(BUILDING)){
-												mapObject = new Building();
-												mapObject.setColor(BUILDING_COLOR);
-												mapObject.setCost(BUILDING_COST);
-												ignore = false;
-											}
-											//WATERWAY
-											else if(attribute.getValue().toString().equals(WATERWAY)){
-												mapObject = new Way();
-												mapObject.setColor(WATER_COLOR);
-												mapObject.setCost(WATER_COST);
-												((Way)mapObject).setWidth(WATERWAY_WIDTH);
-											}
+										//PEDESTRIAN
+										else if(attribute.getValue().toString().equals(PEDESTRIAN)){
 											//AREA
-											else if(attribute.getValue().toString().equals(AREA)){
-												mapObject = new Area();
+											if(mapObject instanceof Area){
+												mapObject.setCost(PEDESTRIAN_COST);
+												mapObject.setColor(PEDESTRIAN_COLOR);
 											}
-											//BARRIER
-											else if(attribute.getValue().toString().equals(BARRIER)){
+											//WAY
+											else{
 												mapObject = new Way();
-												mapObject.setCost(BARRIER_COST);
-												((Way)mapObject).setWidth(BARRIER_WIDTH);
-											}
-											//AMENITY
-											else if(attribute.getValue().toString().equals(AMENITY)){
-												ignore = true;
-											}
-											//LANDUSE
-											else if(attribute.getValue().toString().equals(LANDUSE)){
-												ignore = true;
-											}
-											//MAN MADE
-											else if(attribute.getValue().toString().equals(MAN_MADE)){
-												ignore = true;
+												mapObject.setCost(PEDESTRIAN_COST);
+												((Way)mapObject).setWidth(PEDESTRIAN_WIDTH);
+												mapObject.setColor(PEDESTRIAN_COLOR);
 											}
 										}
+										//PARK
+										else if(attribute.getValue().toString().equals(PARK)){
+											mapObject = new Area();
+											mapObject.setCost(PARK_COST);
+											mapObject.setColor(PARK_COLOR);
+										}
+										//WOOD
+										else if(attribute.getValue().toString().equals(WOOD)){
+											mapObject = new Area();
+											mapObject.setCost(WOOD_COST);
+											mapObject.setColor(WOOD_COLOR);
+										}
+										//WATER
+										else if(attribute.getValue().toString().equals(WATER)){
+											mapObject = new Area();
+											mapObject.setCost(WATER_COST);
+											mapObject.setColor(WATER_COLOR);
+										}
+										//STEPS
+										else if(attribute.getValue().toString().equals(STEPS)){
+											mapObject = new Way();
+											mapObject.setCost(FOOTWAY_COST);
+											((Way)mapObject).setWidth(FOOTWAY_WIDTH);
+											mapObject.setColor(STEPS_COLOR);
+										}
+										//SERVICE
+										else if(attribute.getValue().toString().equals(SERVICE)){
+											mapObject = new Way();
+											mapObject.setCost(SERVICE_COST);
+											((Way)mapObject).setWidth(SERVICE_WIDTH);
+											mapObject.setColor(SERVICE_COLOR);
+										}
+										//CYCLE WAY
+										else if(attribute.getValue().toString().equals(CYCLEWAY)){
+											mapObject = new Way();
+											mapObject.setCost(CYCLEWAY_COST);
+											((Way)mapObject).setWidth(CYCLEWAY_WIDTH);
+											mapObject.setColor(CYCLEWAY_COLOR);
+										}
+										//PLATFORM
+										else if(attribute.getValue().toString().equals(PLATFORM)){
+											mapObject = new Way();
+											mapObject.setCost(RAILWAY_PLATFORM_COST);
+											((Way)mapObject).setWidth(RAILWAY_PLATFORM_WIDTH);
+											mapObject.setColor(RAILWAY_PLATFORM_COLOR);
+										}
+										//NARROW GAUGE (RAILWAY)
+										else if(attribute.getValue().toString().equals(NARROW_GAUGE)){
+											mapObject = new Way();
+											mapObject.setCost(RAILWAY_COST);
+											((Way)mapObject).setWidth(RAILWAY_WIDTH);
+											mapObject.setColor(RAILWAY_COLOR);
+										}
+										//SUBWAY
+										else if(attribute.getValue().toString().equals(SUBWAY)){
+											ignore = true;
+											break;
+										}
+										//EDUCATION
+										else if(attribute.getValue().toString().equals(EDUCATION)){
+											mapObject.setTag(EDUCATION);
+										}
+									}
+									//Key
+									else if(attribute.getName().getLocalPart() == (K)){
+										//BUILDING
+										if(attribute.getValue().toString().equals(BUILDING)){
+											mapObject = new Building();
+											mapObject.setColor(BUILDING_COLOR);
+											mapObject.setCost(BUILDING_COST);
+											ignore = false;
+										}
+										//WATERWAY
+										else if(attribute.getValue().toString().equals(WATERWAY)){
+											mapObject = new Way();
+											mapObject.setColor(WATER_COLOR);
+											mapObject.setCost(WATER_COST);
+											((Way)mapObject).setWidth(WATERWAY_WIDTH);
+										}
+										//AREA
+										else if(attribute.getValue().toString().equals(AREA)){
+											mapObject = new Area();
+										}
+										//BARRIER
+										else if(attribute.getValue().toString().equals(BARRIER)){
+											mapObject = new Way();
+											mapObject.setCost(BARRIER_COST);
+											((Way)mapObject).setWidth(BARRIER_WIDTH);
+										}
+										//AMENITY
+										else if(attribute.getValue().toString().equals(AMENITY)){
+											ignore = true;
+										}
+										//LANDUSE
+										else if(attribute.getValue().toString().equals(LANDUSE)){
+											ignore = true;
+										}
+										//MAN MADE
+										else if(attribute.getValue().toString().equals(MAN_MADE)){
+											ignore = true;
+										}
 									}
 								}
 							}
-							//Is event an end element?
-							else if(event.isEndElement()){
-								EndElement endElement = event.asEndElement();
-								
-								//At the end of a Way element? (add way and onwards to next tag)
-								if(endElement.getName().getLocalPart() == (WAY)){
-									break;
-								}
-							}
-							event = eventReader.nextEvent();
-						}
-						if(mapObject == null && !ignore){
-							mapObject = new Way();
 						}
-						if(mapObject != null && !ignore) {
-							mapObject.addNodes(nodes);
-						
-							//Calculate collision and add to collection
-							if(mapObject instanceof Building){
-								((Building)mapObject).checkTargetsInside(targets);
-								buildings.add((Building)mapObject);
-							}
-							else if(mapObject instanceof Area){
-								areas.add((Area)mapObject);
+						//Is event an end element?
+						else if(event.isEndElement()){
+							EndElement endElement = event.asEndElement();
+							
+							//At the end of a Way element? (add way and onwards to next tag)
+							if(endElement.getName().getLocalPart() == (WAY)){
+								break;
 							}
-							else if(mapObject instanceof Way){
-								ways.add((Way)mapObject);
-							}
-							mapObject.calculateCollision(collisionMatrix);
 						}
+						event = eventReader.nextEvent();
+					}
+					if(mapObject == null && !ignore){
+						mapObject = new Way();
+					}
+					if(mapObject != null && !ignore) {
+							addMapObject(mapObject, nodes);
 					}
 				}
 			}
-			progress += 5;
-			setProgress(progress);
-			checkTargetsReachable();
-			setProgress(97);
-			readIcons();
-			setProgress(98);
-			setTargetCosts();
-			setProgress(99);
-		}
-		catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} 
-		catch (XMLStreamException e) {
-    	  	e.printStackTrace();
 		}
 	}
 	
@@ -781,6 +1086,229 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 		}
 	}
 	
+	/**
+	 * Reads an .osm file with the XMLStreamReader (see readStream) or an .osm.pbf file (see readPbf).
+	 * @param filename The .osm or .osm.pbf file
+	 * @param readNodes Read the bounds and the nodes?
+	 * @param readWays Read the ways?
+	 */
+	private void readFile(String filename, boolean readNodes, boolean readWays) throws IOException, XMLStreamException {
+		if(PbfReader.isPbfFile(filename)){
+			readPbf(filename, readNodes, readWays);
+			return;
+		}
+		InputStream in = new FileInputStream(filename);
+		try{
+			readStream(XMLInputFactory.newInstance().createXMLStreamReader(in), readNodes, readWays);
+		}
+		finally{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Reads a node and its tags (with the XMLStreamReader, see readStream), targets are added to their collections.
+	 * Only the position of the node is kept (see NodeIndex), unless it is a target or a crossing. When the ways have been read first
+	 * (see parseTwoPass), a node is only kept if it has been reserved by a way or if it is a target or a crossing.
+	 * @param reader Reader at the start of the node element, it is left at the end of the element
+	 */
+	private void readNode(XMLStreamReader reader) throws XMLStreamException {
+		long id = 0;
+		float lon = 0, lat = 0;
+		
+		//Only the values of the used attributes are read
+		for(int i = 0; i < reader.getAttributeCount(); i++){
+			switch(symbolOf(reader.getAttributeLocalName(i))){
+				case ID:  id  = Long.parseLong(reader.getAttributeValue(i)); break;
+				case LON: lon = Float.parseFloat(reader.getAttributeValue(i)); break;
+				case LAT: lat = Float.parseFloat(reader.getAttributeValue(i)); break;
+				default: break;
+			}
+		}
+		
+		//Put our node into the node index
+		int x = Math.round(scaleLonX*(lon-minlon));
+		int y = Math.round(scaleLatY*(lat-maxlat));
+		int index = addNode(id, x, y);
+		
+		//Check if node has any tags
+		while(true){
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT){
+				if(symbolOf(reader.getLocalName()) == Symbol.TAG){
+					for(int i = 0; i < reader.getAttributeCount(); i++){
+						Symbol name = symbolOf(reader.getAttributeLocalName(i));
+						if(name == Symbol.K || name == Symbol.V){
+							Symbol value = symbolOf(reader.getAttributeValue(i));
+							//Nodes with a used tag are kept even if no way uses them
+							if(value != Symbol.OTHER){
+								if(index < 0){
+									index = nodeIndex.add(id, x, y);
+								}
+								tagNode(index, name, value);
+							}
+						}
+					}
+				}
+			}
+			//END NODE
+			else if(event == XMLStreamConstants.END_ELEMENT && symbolOf(reader.getLocalName()) == Symbol.NODE){
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Reads an .osm.pbf file (see PbfReader). The blocks of the file are decoded by several threads, and their nodes and ways are read here in
+	 * the order of the file with the same tags as by readStream, so the map objects, targets and collision are the same as for the .osm file.
+	 * @param filename The .osm.pbf file
+	 * @param readNodes Read the bounds and the nodes?
+	 * @param readWays Read the ways?
+	 * @throws IOException If the file can't be read, is corrupt or has no bounding box
+	 */
+	private void readPbf(String filename, boolean readNodes, boolean readWays) throws IOException {
+		PbfReader pbf = new PbfReader(filename, readNodes, readWays, PbfReader.DEFAULT_THREADS);
+		try{
+			if(readNodes){
+				if(!pbf.hasBounds()){
+					throw new IOException("The .osm.pbf file has no bounding box: " + filename);
+				}
+				if(Frame.DEBUG)System.out.println("Found bounds tag");
+				setBounds((float)pbf.getMinLat(), (float)pbf.getMinLon(), (float)pbf.getMaxLat(), (float)pbf.getMaxLon());
+			}
+			PbfReader.Block block;
+			while((block = pbf.next()) != null){
+				//The strings of the block are looked up once
+				Symbol[] symbols = new Symbol[block.strings.length];
+				for(int i = 0; i < symbols.length; i++){
+					symbols[i] = symbolOf(block.strings[i]);
+				}
+				
+				for(int n = 0; n < block.nrOfNodes; n++){
+					int x = Math.round(scaleLonX*((float)block.nodeLon[n]-minlon));
+					int y = Math.round(scaleLatY*((float)block.nodeLat[n]-maxlat));
+					int index = addNode(block.nodeIds[n], x, y);
+					for(int t = block.nodeTagStart[n]; t < block.nodeTagStart[n+1]; t++){
+						//The key (K) and the value (V) of the tag, nodes with a used tag are kept even if no way uses them
+						for(int v = 0; v < 2; v++){
+							Symbol value = symbols[block.nodeTags[2*t+v]];
+							if(value != Symbol.OTHER){
+								if(index < 0){
+									index = nodeIndex.add(block.nodeIds[n], x, y);
+								}
+								tagNode(index, v == 0 ? Symbol.K : Symbol.V, value);
+							}
+						}
+					}
+				}
+				
+				for(int w = 0; w < block.nrOfWays; w++){
+					wayObject = null;
+					ignoreWay = false;
+					for(int t = block.wayTagStart[w]; t < block.wayTagStart[w+1]; t++){
+						if(tagWay(Symbol.K, symbols[block.wayTags[2*t]])){
+							tagWay(Symbol.V, symbols[block.wayTags[2*t+1]]);
+						}
+					}
+					addWay(block.wayRefs, block.wayRefStart[w], block.wayRefStart[w+1]);
+				}
+			}
+		}
+		finally{
+			pbf.close();
+		}
+	}
+	
+	/**
+	 * Reads .osm data with the XMLStreamReader. The reader is a cursor over the data, so no objects are created for the elements and
+	 * the attributes: attributes are read by index and only the values of the used attributes are read as strings. Element names,
+	 * attribute names and tag values are looked up once in SYMBOLS and dispatched with a switch, instead of being compared with every
+	 * name in turn. The same elements, attributes and tags are read as by readEvents.
+	 * @param reader Reader of the data
+	 * @param readNodes Read the bounds and the nodes?
+	 * @param readWays Read the ways?
+	 */
+	private void readStream(XMLStreamReader reader, boolean readNodes, boolean readWays) throws XMLStreamException {
+		//Read through the .osm file
+		while(reader.hasNext()){
+			if(reader.next() == XMLStreamConstants.START_ELEMENT){
+				switch(symbolOf(reader.getLocalName())){
+					case BOUNDS: if(readNodes)readBounds(reader); break;
+					case NODE:   if(readNodes)readNode(reader); break;
+					case WAY:    if(readWays)readWay(reader); break;
+					default: break;
+				}
+			}
+		}
+		reader.close();
+	}
+	
+	/**
+	 * Reads a way and its tags (with the XMLStreamReader, see readStream), the way, building or area that it describes is added to its collection.
+	 * When the ways are read before the nodes (see parseTwoPass), its nodes are reserved and it is added when the nodes have been read.
+	 * @param reader Reader at the start of the way element, it is left at the end of the element
+	 */
+	private void readWay(XMLStreamReader reader) throws XMLStreamException {
+		int nrOfRefs = 0;
+		wayObject = null;
+		ignoreWay = false;
+		
+		//Go through all node references and tags of the way
+		while(true){
+			int event = reader.next();
+			if(event == XMLStreamConstants.END_ELEMENT){
+				//At the end of a Way element? (add way and onwards to next tag)
+				if(symbolOf(reader.getLocalName()) == Symbol.WAY){
+					break;
+				}
+				continue;
+			}
+			if(event != XMLStreamConstants.START_ELEMENT){
+				continue;
+			}
+			Symbol element = symbolOf(reader.getLocalName());
+			//A new node has been detected for the way
+			if(element == Symbol.ND){
+				for(int i = 0; i < reader.getAttributeCount(); i++){
+					if(symbolOf(reader.getAttributeLocalName(i)) == Symbol.REF){
+						if(nrOfRefs == wayRefs.length){
+							wayRefs = Arrays.copyOf(wayRefs, 2*nrOfRefs);
+						}
+						wayRefs[nrOfRefs++] = Long.parseLong(reader.getAttributeValue(i));
+					}
+				}
+			}
+			//A tag has been detected for the way
+			else if(element == Symbol.TAG){
+				for(int i = 0; i < reader.getAttributeCount(); i++){
+					Symbol name = symbolOf(reader.getAttributeLocalName(i));
+					if((name == Symbol.K || name == Symbol.V) && !tagWay(name, symbolOf(reader.getAttributeValue(i)))){
+						break;
+					}
+				}
+			}
+		}
+		addWay(wayRefs, 0, nrOfRefs);
+	}
+	
+	/**
+	 * Sets the bounds of the map and calculates the scaling values from lon and lat to screen coordinates.
+	 * @param minlat Latitude of the southern edge
+	 * @param minlon Longitude of the western edge
+	 * @param maxlat Latitude of the northern edge
+	 * @param maxlon Longitude of the eastern edge
+	 */
+	private void setBounds(float minlat, float minlon, float maxlat, float maxlon){
+		this.minlon = minlon;
+		this.maxlat = maxlat;
+		
+		//Calculate scaling values for lon and lat to screen coordinates
+		float latDiff = maxlat-minlat;
+		float lonDiff = maxlon-minlon;
+		scaleLonX =  Frame.SIM_WINDOW_LENGTH / lonDiff;
+		scaleLatY = -Frame.SIM_WINDOW_LENGTH / latDiff;
+	}
+	
 	/**
 	 * Set the name of the file to read.
 	 * @param name
@@ -809,4 +1337,184 @@ public class OSM_Reader extends SwingWorker<Void, Void> {
 			}
 		}
 	}
+	
+	/**
+	 * Returns the symbol of an element name, attribute name or tag value.
+	 * @param name The name or value
+	 * @return The symbol, Symbol.OTHER if the name is not used by the reader
+	 */
+	private static Symbol symbolOf(String name){
+		Symbol symbol = SYMBOLS.get(name);
+		return symbol != null ? symbol : Symbol.OTHER;
+	}
+	
+	/**
+	 * Adds a node to the targets or non-targets if a tag of it says so (see readNode).
+	 * @param index Index of the node (see NodeIndex)
+	 * @param name Symbol of the attribute name of the tag (K or V)
+	 * @param value Symbol of the attribute value
+	 */
+	private void tagNode(int index, Symbol name, Symbol value){
+		switch(name){
+			case K:
+				if(value == Symbol.SHOP){
+					addTarget(index, SHOP, TargetEnums.SHOP_I);
+				}
+				break;
+			case V:
+				switch(value){
+					case CROSSING:
+						if(Frame.DEBUG)System.out.println("Added CROSSING");
+						nodeIndex.getNode(index).setTag(CROSSING);
+						nonTargetNodes.add(nodeIndex.getNode(index));
+						break;
+					case SUBWAY_ENTRANCE: addTarget(index, SUBWAY_ENTRANCE, TargetEnums.PUBLIC_TRANSPORT); break;
+					case BUS_STATION:     addTarget(index, BUS_STATION, TargetEnums.PUBLIC_TRANSPORT); break;
+					case BUS_STOP:        addTarget(index, BUS_STOP, TargetEnums.PUBLIC_TRANSPORT); break;
+					case RESTAURANT:      addTarget(index, RESTAURANT, TargetEnums.RESTAURANT_I); break;
+					case CAFE:            addTarget(index, CAFE, TargetEnums.CAFE_I); break;
+					case TOILETS:         addTarget(index, TOILETS, TargetEnums.TOILET_I); break;
+					case WASTE_BASKET:    addTarget(index, WASTEBIN, TargetEnums.WASTE_I); break;
+					case FAST_FOOD:       addTarget(index, FAST_FOOD, TargetEnums.FASTFOOD_I); break;
+					case DOCTORS:         addTarget(index, DOCTORS, TargetEnums.HEALTH); break;
+					case HOSPITAL:        addTarget(index, HOSPITAL, TargetEnums.HEALTH); break;
+					case PHARMACY:        addTarget(index, PHARMACY, TargetEnums.HEALTH); break;
+					case LIBRARY:         addTarget(index, LIBRARY, TargetEnums.STUDY); break;
+					case BANK:
+					case ATM:             addTarget(index, BANK, TargetEnums.BANK_I); break;
+					case STATION:
+						//Only stations inside of the map
+						Node node = nodeIndex.getNode(index);
+						if(node.getXPos() >= 0 && node.getXPos() < Frame.SIM_WINDOW_LENGTH && 
+						   node.getYPos() >= 0 && node.getYPos() < Frame.SIM_WINDOW_LENGTH)
+						{
+							addTarget(index, STATION, TargetEnums.PUBLIC_TRANSPORT);
+						}
+						break;
+					default: break;
+				}
+				break;
+			default: break;
+		}
+	}
+	
+	/**
+	 * Changes the way, building or area that the way that is read describes (wayObject) after a tag of the way.
+	 * A tag is read as its key (K) and then its value (V).
+	 * @param name Symbol of the attribute name of the tag (K or V)
+	 * @param value Symbol of the attribute value
+	 * @return False if the rest of the tag is skipped
+	 */
+	private boolean tagWay(Symbol name, Symbol value){
+		//Value
+		if(name == Symbol.V){
+			switch(value){
+				case FOOTWAY:
+					wayObject = new Way();
+					wayObject.setCost(FOOTWAY_COST);
+					((Way)wayObject).setWidth(FOOTWAY_WIDTH);
+					wayObject.setColor(FOOTWAY_COLOR);
+					break;
+				case PEDESTRIAN:
+					//AREA
+					if(wayObject instanceof Area){
+						wayObject.setCost(PEDESTRIAN_COST);
+						wayObject.setColor(PEDESTRIAN_COLOR);
+					}
+					//WAY
+					else{
+						wayObject = new Way();
+						wayObject.setCost(PEDESTRIAN_COST);
+						((Way)wayObject).setWidth(PEDESTRIAN_WIDTH);
+						wayObject.setColor(PEDESTRIAN_COLOR);
+					}
+					break;
+				case PARK:
+					wayObject = new Area();
+					wayObject.setCost(PARK_COST);
+					wayObject.setColor(PARK_COLOR);
+					break;
+				case WOOD:
+					wayObject = new Area();
+					wayObject.setCost(WOOD_COST);
+					wayObject.setColor(WOOD_COLOR);
+					break;
+				case WATER:
+					wayObject = new Area();
+					wayObject.setCost(WATER_COST);
+					wayObject.setColor(WATER_COLOR);
+					break;
+				case STEPS:
+					wayObject = new Way();
+					wayObject.setCost(FOOTWAY_COST);
+					((Way)wayObject).setWidth(FOOTWAY_WIDTH);
+					wayObject.setColor(STEPS_COLOR);
+					break;
+				case SERVICE:
+					wayObject = new Way();
+					wayObject.setCost(SERVICE_COST);
+					((Way)wayObject).setWidth(SERVICE_WIDTH);
+					wayObject.setColor(SERVICE_COLOR);
+					break;
+				case CYCLEWAY:
+					wayObject = new Way();
+					wayObject.setCost(CYCLEWAY_COST);
+					((Way)wayObject).setWidth(CYCLEWAY_WIDTH);
+					wayObject.setColor(CYCLEWAY_COLOR);
+					break;
+				case PLATFORM:
+					wayObject = new Way();
+					wayObject.setCost(RAILWAY_PLATFORM_COST);
+					((Way)wayObject).setWidth(RAILWAY_PLATFORM_WIDTH);
+					wayObject.setColor(RAILWAY_PLATFORM_COLOR);
+					break;
+				//RAILWAY
+				case NARROW_GAUGE:
+					wayObject = new Way();
+					wayObject.setCost(RAILWAY_COST);
+					((Way)wayObject).setWidth(RAILWAY_WIDTH);
+					wayObject.setColor(RAILWAY_COLOR);
+					break;
+				case SUBWAY:
+					ignoreWay = true;
+					return false;
+				case EDUCATION:
+					wayObject.setTag(EDUCATION);
+					break;
+				default: break;
+			}
+		}
+		//Key
+		else if(name == Symbol.K){
+			switch(value){
+				case BUILDING:
+					wayObject = new Building();
+					wayObject.setColor(BUILDING_COLOR);
+					wayObject.setCost(BUILDING_COST);
+					ignoreWay = false;
+					break;
+				case WATERWAY:
+					wayObject = new Way();
+					wayObject.setColor(WATER_COLOR);
+					wayObject.setCost(WATER_COST);
+					((Way)wayObject).setWidth(WATERWAY_WIDTH);
+					break;
+				case AREA:
+					wayObject = new Area();
+					break;
+				case BARRIER:
+					wayObject = new Way();
+					wayObject.setCost(BARRIER_COST);
+					((Way)wayObject).setWidth(BARRIER_WIDTH);
+					break;
+				case AMENITY:
+				case LANDUSE:
+				case MAN_MADE:
+					ignoreWay = true;
+					break;
+				default: break;
+			}
+		}
+		return true;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,324 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PathCache stores paths between collision tiles so that a path only has to be searched for once.
+ * It is filled with the pre-calculated paths when a map is loaded (see OSM_Reader) and with the paths that the
+ * pedestrians search for while the simulation runs.
+ *
+ * A path is stored as a CompactPath under a key that packs start and goal tile into a long, the reverse of a path is
+ * stored as a view that shares the steps of the path. The cache is split into segments (chosen by key) that are locked
+ * separately, so that pedestrians that are updated in parallel seldom wait for each other. Each segment evicts its
+ * least recently used paths when the size of its stored paths exceeds its share of the capacity.
+ *
+ * @version 18-10-2026
+ */
+public class PathCache {
+	public static final int DEFAULT_CAPACITY = 1 << 24;	//Max size of the stored paths (bytes)
+	private static final int NR_OF_SEGMENTS = 16;		//Must be a power of two
+
+	private final Segment[] segments;
+	private volatile int editVersion = 0;	//Version of the tile costs that the stored paths are valid for (see TileEdits)
+
+	//Statistics
+	private final AtomicLong hits      = new AtomicLong();
+	private final AtomicLong misses    = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates an empty cache.
+	 * @param capacity Max size of the stored paths (bytes, a path and its reverse are both counted although they share the steps)
+	 */
+	public PathCache(int capacity){
+		segments = new Segment[NR_OF_SEGMENTS];
+		for(int i = 0; i < NR_OF_SEGMENTS; i++){
+			segments[i] = new Segment(Math.max(capacity / NR_OF_SEGMENTS, 1));
+		}
+	}
+
+	/**
+	 * Packs a start and a goal tile into a key.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param goalX X-pos of goal tile
+	 * @param goalY Y-pos of goal tile
+	 * @return The key
+	 */
+	public static long key(int startX, int startY, int goalX, int goalY){
+		return ((long)(startX & 0xFFFF) << 48) | ((long)(startY & 0xFFFF) << 32) | ((long)(goalX & 0xFFFF) << 16) | (goalY & 0xFFFF);
+	}
+
+	/**
+	 * Removes all paths (the statistics are kept).
+	 */
+	public void clear(){
+		for(Segment segment : segments){
+			synchronized(segment){
+				segment.clear();
+				segment.size = 0;
+			}
+		}
+	}
+
+	/**
+	 * Checks if a path is stored (does not count as a hit or miss and does not affect the eviction order).
+	 * @param key Key of the path (see key)
+	 * @return True if the path is stored
+	 */
+	public boolean contains(long key){
+		Segment segment = segmentFor(key);
+		synchronized(segment){
+			return segment.containsKey(key);
+		}
+	}
+
+	/**
+	 * Looks up a path.
+	 * @param key Key of the path (see key)
+	 * @return The path, null if it is not stored
+	 */
+	public CompactPath get(long key){
+		CompactPath path;
+		Segment segment = segmentFor(key);
+		synchronized(segment){
+			path = segment.get(key);
+		}
+		if(path == null){
+			misses.incrementAndGet();
+		}
+		else{
+			hits.incrementAndGet();
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the nr of paths that have been evicted to stay within the capacity.
+	 */
+	public long getEvictions(){
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the nr of lookups that found a path.
+	 */
+	public long getHits(){
+		return hits.get();
+	}
+
+	/**
+	 * Returns the nr of lookups that did not find a path.
+	 */
+	public long getMisses(){
+		return misses.get();
+	}
+
+	/**
+	 * Returns the stored paths (including the reverse views, in no particular order).
+	 */
+	public ArrayList<CompactPath> getPaths(){
+		ArrayList<CompactPath> paths = new ArrayList<CompactPath>();
+		for(Segment segment : segments){
+			synchronized(segment){
+				paths.addAll(segment.values());
+			}
+		}
+		return paths;
+	}
+
+	/**
+	 * Returns the size of the stored paths (bytes, see CompactPath.getMemorySize).
+	 */
+	public long getMemorySize(){
+		long size = 0;
+		for(Segment segment : segments){
+			synchronized(segment){
+				size += segment.size;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Stores a path (replaces an earlier path with the same key) and evicts the least recently used paths of the segment if it is full.
+	 * @param key Key of the path (see key)
+	 * @param path The path
+	 */
+	public void put(long key, CompactPath path){
+		Segment segment = segmentFor(key);
+		synchronized(segment){
+			CompactPath old = segment.put(key, path);
+			if(old != null){
+				segment.size -= old.getMemorySize();
+			}
+			segment.size += path.getMemorySize();
+			Iterator<CompactPath> eldest = segment.values().iterator();
+			while(segment.size > segment.capacity && eldest.hasNext()){
+				segment.size -= eldest.next().getMemorySize();
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Stores a path that was searched for with the tile costs of an edit version, unless the costs have been edited since (see setEditVersion).
+	 * The version is checked under the lock of the segment, which the removal of paths after an edit also takes, so a path that was searched
+	 * with the old costs is either removed by the edit (see removeRaised and removeLowered) or not stored.
+	 * @param key Key of the path (see key)
+	 * @param path The path
+	 * @param editVersion Version of the tile costs when the search was started (see TileEdits.getVersion)
+	 * @return True if the path was stored
+	 */
+	public boolean put(long key, CompactPath path, int editVersion){
+		Segment segment = segmentFor(key);
+		synchronized(segment){
+			if(editVersion != this.editVersion){
+				return false;
+			}
+			put(key, path);
+			return true;
+		}
+	}
+
+	/**
+	 * Stores a path and its reverse (a view that shares the steps of the path).
+	 * @param path The path
+	 */
+	public void putWithReverse(CompactPath path){
+		put(key(path.getStartX(), path.getStartY(), path.getGoalX(), path.getGoalY()), path);
+		put(key(path.getGoalX(), path.getGoalY(), path.getStartX(), path.getStartY()), path.reverse());
+	}
+
+	/**
+	 * Removes the paths that pass a tile whose cost was raised by the latest tile edits (see TileEdits).
+	 * @param edits The edits
+	 * @return Nr of removed paths
+	 */
+	public int removeRaised(TileEdits edits){
+		int removed = 0;
+		for(Segment segment : segments){
+			synchronized(segment){
+				Iterator<CompactPath> paths = segment.values().iterator();
+				while(paths.hasNext()){
+					CompactPath path = paths.next();
+					int x = path.getStartX(), y = path.getStartY();
+					for(int i = 0; i < path.getLength(); i++){
+						x += path.getDeltaX(i);
+						y += path.getDeltaY(i);
+						if(edits.isRaised(x, y)){
+							segment.size -= path.getMemorySize();
+							paths.remove();
+							removed++;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes the paths that could get more expensive than another path after the costs of tiles were lowered by the latest tile edits
+	 * (see TileEdits). A cheaper path must pass a lowered tile, so a path is kept if the lower bound of the cost of every path from
+	 * its start through a lowered tile to its goal is at least its own cost.
+	 * @param edits The edits
+	 * @param landmarks Landmarks of the edited collisionMatrix, whose bounds are much tighter than the cheapest possible moves (null if there are none)
+	 * @return Nr of removed paths
+	 */
+	public int removeLowered(TileEdits edits, Landmarks landmarks){
+		int[][] collisionMatrix = edits.getCollisionMatrix();
+		int columns = collisionMatrix[0].length;
+		int removed = 0;
+		for(Segment segment : segments){
+			synchronized(segment){
+				Iterator<CompactPath> paths = segment.values().iterator();
+				while(paths.hasNext()){
+					CompactPath path = paths.next();
+					int x = path.getStartX(), y = path.getStartY();
+					long cost = 0;
+					for(int i = 0; i < path.getLength(); i++){
+						x += path.getDeltaX(i);
+						y += path.getDeltaY(i);
+						cost += (path.getDeltaX(i) != 0 && path.getDeltaY(i) != 0 ? Pathfinder.MOVE_DIAG : Pathfinder.MOVE_COST) + collisionMatrix[x][y];
+					}
+					int start = path.getStartX()*columns + path.getStartY();
+					int goal  = path.getGoalX()*columns + path.getGoalY();
+					for(int i = 0; i < edits.getNrOfLowered(); i++){
+						int tile = edits.getLoweredTile(i);
+						int tileX = tile / columns, tileY = tile % columns;
+						long bound = Pathfinder.calculateMinCost(path.getStartX(), path.getStartY(), tileX, tileY)
+								+ Pathfinder.calculateMinCost(tileX, tileY, path.getGoalX(), path.getGoalY());
+						if(landmarks != null){
+							bound = Math.max(bound, landmarks.calculateBound(start, tile, goal));
+						}
+						if(bound < cost){
+							segment.size -= path.getMemorySize();
+							paths.remove();
+							removed++;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Sets the version of the tile costs, paths that were searched for with an older version are no longer stored (see put).
+	 * Must be set before the paths that the edits invalidate are removed.
+	 * @param editVersion Version of the tile costs (see TileEdits.getVersion)
+	 */
+	public void setEditVersion(int editVersion){
+		this.editVersion = editVersion;
+	}
+
+	/**
+	 * Returns the segment that a key belongs to.
+	 */
+	private Segment segmentFor(long key){
+		long hash = key * 0x9E3779B97F4A7C15L;	//Spread the bits so that neighbouring tiles end up in different segments
+		return segments[(int)(hash >>> 60) & (NR_OF_SEGMENTS-1)];
+	}
+
+	/**
+	 * Returns the nr of stored paths.
+	 */
+	public int size(){
+		int size = 0;
+		for(Segment segment : segments){
+			synchronized(segment){
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * One part of the cache, a map in access order (least recently used first).
+	 */
+	@SuppressWarnings("serial")
+	private static class Segment extends LinkedHashMap<Long,CompactPath> {
+		private final long capacity;	//Max size of the paths in this segment (bytes)
+		private long size = 0;			//Size of the paths in this segment (bytes)
+
+		public Segment(long capacity){
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+	}
+
+	/**
+	 * Returns the statistics of the cache.
+	 */
+	@Override
+	public String toString(){
+		long lookups = getHits() + getMisses();
+		return size() + " paths (" + getMemorySize() + " bytes), " + getHits() + " hits, " + getMisses() + " misses ("
+				+ (lookups > 0 ? Math.round(100.0*getHits()/lookups) : 0) + "% hit rate), " + getEvictions() + " evictions";
+	}
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+
+/**
+ * PathCursor is used by a Pedestrian to walk a CompactPath, a FlowField or a HierarchicalPath (whose segments are refined as they are reached).
+ * It keeps track of the next node (tile) of the path
+ * and also allows detour nodes (render positions, e.g. from an avoiding action) to be put before the remaining path.
+ * The nodes of the path are never created as objects, positions are calculated from the steps (or the directions of the field) when needed.
+ *
+ * @version 18-10-2026
+ */
+public class PathCursor {
+	private static final int INITIAL_DETOURS = 2;
+
+	private final float scaleCollision;	//Scale between render and collision positions
+	private CompactPath path;
+	private FlowField field;	//Field that is followed instead of a path (null if a path is walked)
+	private HierarchicalPath route;	//Path whose segments are walked one at a time (path is the current segment), null if not used
+	private int segment;	//Index of the current segment of the route
+	private int step;		//Index of the next step of the path
+	private int nextX;		//Tile that the next step leads to
+	private int nextY;
+
+	//Detour nodes (render positions) in front of the path, the first node is the last in the arrays
+	private int[] detourX = new int[INITIAL_DETOURS];
+	private int[] detourY = new int[INITIAL_DETOURS];
+	private int nrOfDetours = 0;
+
+	/**
+	 * Creates an empty cursor.
+	 * @param scaleCollision Scale between render and collision positions
+	 */
+	public PathCursor(float scaleCollision){
+		this.scaleCollision = scaleCollision;
+	}
+
+	/**
+	 * Puts a detour node in front of the remaining path.
+	 * @param posX X-pos (render position)
+	 * @param posY Y-pos (render position)
+	 */
+	public void addFirst(int posX, int posY){
+		if(nrOfDetours == detourX.length){
+			detourX = Arrays.copyOf(detourX, 2*nrOfDetours);
+			detourY = Arrays.copyOf(detourY, 2*nrOfDetours);
+		}
+		detourX[nrOfDetours] = posX;
+		detourY[nrOfDetours] = posY;
+		nrOfDetours++;
+	}
+
+	/**
+	 * Removes the path and all detours.
+	 */
+	public void clear(){
+		path  = null;
+		field = null;
+		route = null;
+		step  = 0;
+		nrOfDetours = 0;
+	}
+
+	/**
+	 * Returns the collision x-position of the first remaining node.
+	 */
+	public int getFirstCollisionX(){
+		return nrOfDetours > 0 ? Math.round(scaleCollision*detourX[nrOfDetours-1]) : nextX;
+	}
+
+	/**
+	 * Returns the collision y-position of the first remaining node.
+	 */
+	public int getFirstCollisionY(){
+		return nrOfDetours > 0 ? Math.round(scaleCollision*detourY[nrOfDetours-1]) : nextY;
+	}
+
+	/**
+	 * Returns the render x-position of the first remaining node.
+	 */
+	public int getFirstPosX(){
+		return nrOfDetours > 0 ? detourX[nrOfDetours-1] : Math.round(nextX/scaleCollision);
+	}
+
+	/**
+	 * Returns the render y-position of the first remaining node.
+	 */
+	public int getFirstPosY(){
+		return nrOfDetours > 0 ? detourY[nrOfDetours-1] : Math.round(nextY/scaleCollision);
+	}
+
+	/**
+	 * Checks if there are no nodes left.
+	 */
+	public boolean isEmpty(){
+		return size() == 0;
+	}
+
+	/**
+	 * Writes the collision positions of the first remaining nodes to arrays.
+	 * @param max Max nr of nodes to write
+	 * @param collisionX Array for the collision x-positions (of at least length max)
+	 * @param collisionY Array for the collision y-positions (of at least length max)
+	 * @return Nr of nodes that were written
+	 */
+	public int lookAhead(int max, int[] collisionX, int[] collisionY){
+		int count = 0;
+		for(int i = nrOfDetours-1; i >= 0 && count < max; i--){
+			collisionX[count] = Math.round(scaleCollision*detourX[i]);
+			collisionY[count] = Math.round(scaleCollision*detourY[i]);
+			count++;
+		}
+		if(path != null && step < path.getLength() && count < max){
+			int x = nextX, y = nextY;
+			for(int i = step; i < path.getLength() && count < max; i++){
+				if(i > step){
+					x += path.getDeltaX(i);
+					y += path.getDeltaY(i);
+				}
+				collisionX[count] = x;
+				collisionY[count] = y;
+				count++;
+			}
+			//Continue into the next segments of the route (they are refined if needed)
+			for(int s = segment+1; route != null && s < route.getNrOfSegments() && count < max; s++){
+				CompactPath next = route.getSegment(s);
+				for(int i = 0; i < next.getLength() && count < max; i++){
+					x += next.getDeltaX(i);
+					y += next.getDeltaY(i);
+					collisionX[count] = x;
+					collisionY[count] = y;
+					count++;
+				}
+			}
+		}
+		else if(field != null && count < max){
+			int x = nextX, y = nextY, deltaX;
+			for(int i = field.getSteps(x, y); i >= 0 && count < max; i--){
+				collisionX[count] = x;
+				collisionY[count] = y;
+				count++;
+				deltaX = field.getDeltaX(x, y);
+				y += field.getDeltaY(x, y);
+				x += deltaX;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if the remaining path passes a tile whose cost was raised by the latest tile edits (see TileEdits), i.e. if the path may be blocked or more expensive.
+	 * A flow field is repaired when tiles are edited (see FlowField.updateTiles), so following it never counts as passing.
+	 * @param edits The edits
+	 */
+	public boolean passesRaisedTile(TileEdits edits){
+		if(path == null || step >= path.getLength()){
+			return false;
+		}
+		int x = nextX, y = nextY;
+		for(int i = step; i < path.getLength(); i++){
+			if(i > step){
+				x += path.getDeltaX(i);
+				y += path.getDeltaY(i);
+			}
+			if(edits.isRaised(x, y)){
+				return true;
+			}
+		}
+		for(int s = segment+1; route != null && s < route.getNrOfSegments(); s++){
+			if(route.passesRaisedTile(s, edits)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the first remaining node.
+	 */
+	public void removeFirst(){
+		if(nrOfDetours > 0){
+			nrOfDetours--;
+		}
+		else if(path != null && step < path.getLength()){
+			step++;
+			if(step < path.getLength()){
+				nextX += path.getDeltaX(step);
+				nextY += path.getDeltaY(step);
+			}
+			else if(route != null && segment+1 < route.getNrOfSegments()){
+				setSegment(segment+1);
+			}
+		}
+		else if(field != null){
+			//The goal has been reached
+			if(field.getSteps(nextX, nextY) <= 0){
+				field = null;
+			}
+			else{
+				int x = nextX;
+				nextX += field.getDeltaX(x, nextY);
+				nextY += field.getDeltaY(x, nextY);
+			}
+		}
+	}
+
+	/**
+	 * Starts walking a new path (removes the old path and all detours).
+	 * @param newPath The path to walk
+	 */
+	public void set(CompactPath newPath){
+		path  = newPath;
+		field = null;
+		route = null;
+		step  = 0;
+		nrOfDetours = 0;
+		if(path.getLength() > 0){
+			nextX = path.getStartX() + path.getDeltaX(0);
+			nextY = path.getStartY() + path.getDeltaY(0);
+		}
+	}
+
+	/**
+	 * Starts walking a hierarchical path (removes the old path and all detours), only the first segment is refined.
+	 * @param newRoute The path to walk
+	 */
+	public void set(HierarchicalPath newRoute){
+		path  = null;
+		field = null;
+		route = newRoute;
+		nrOfDetours = 0;
+		if(route.getNrOfSegments() > 0){
+			setSegment(0);
+		}
+	}
+
+	/**
+	 * Starts walking a segment of the route.
+	 * @param index Index of the segment
+	 */
+	private void setSegment(int index){
+		segment = index;
+		path  = route.getSegment(index);
+		step  = 0;
+		nextX = path.getStartX() + path.getDeltaX(0);
+		nextY = path.getStartY() + path.getDeltaY(0);
+	}
+
+	/**
+	 * Starts following a flow field from a tile (removes the old path and all detours).
+	 * @param newField The field to follow
+	 * @param startX X-pos of the start tile (not included in the path)
+	 * @param startY Y-pos of the start tile
+	 */
+	public void set(FlowField newField, int startX, int startY){
+		path  = null;
+		route = null;
+		step  = 0;
+		nrOfDetours = 0;
+		field = newField.getSteps(startX, startY) > 0 ? newField : null;
+		if(field != null){
+			nextX = startX + field.getDeltaX(startX, startY);
+			nextY = startY + field.getDeltaY(startX, startY);
+		}
+	}
+
+	/**
+	 * Returns the nr of remaining nodes (for a hierarchical path the segments that are not refined yet are counted with their least possible length).
+	 */
+	public int size(){
+		if(field != null){
+			return nrOfDetours + field.getSteps(nextX, nextY) + 1;
+		}
+		int size = nrOfDetours + (path != null ? path.getLength() - step : 0);
+		for(int s = segment+1; route != null && s < route.getNrOfSegments(); s++){
+			size += route.getMinLength(s);
+		}
+		return size;
+	}
+}
@@ -0,0 +1,339 @@
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PathPlanner searches for paths on a pool of background threads, so that a long search does not stall the update of the simulation
+ * (and the repaint of the window). A pedestrian submits a request and keeps waiting until the result has been published (see Request.isDone),
+ * the requests wait in a bounded queue and a request that does not fit is dropped (the pedestrian requests again at its next update).
+ *
+ * Requests for the same start and goal tile are coalesced: while a request is queued or being planned, every new request for the same tiles
+ * is given the same request (e.g. when a lecture ends and many students in the same building ask for the same path), so only one search is made
+ * and the result is published to all pedestrians that wait for it.
+ *
+ * Found paths are put in the PathCache (paths on large maps are searched hierarchically and are not cached, see HierarchicalPathfinder).
+ * A request that was submitted before the costs of tiles were edited is outdated (see TileEdits), its path is neither cached nor walked.
+ * The threads keep searching while the edits are applied, so a search may read a collisionMatrix that changes under it (without any
+ * synchronization): each cost is read as a whole int and the search stays inside of the matrix, but the path may pass an edited tile.
+ * Such a path always belongs to an outdated request, so it is thrown away.
+ * The planner keeps statistics of the queue depth, the time from request to published result (latency) and the nr of dropped requests.
+ *
+ * @version 18-10-2026
+ */
+public class PathPlanner {
+	public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors()-1);	//Leave one processor for the simulation
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;	//Max nr of requests waiting for a thread
+	private static final int LATENCY_SAMPLES = 4096;		//Nr of latest latencies that the percentiles are calculated from
+
+	private final int[][] collisionMatrix;
+	private final ThreadPoolExecutor executor;
+	private final ThreadLocal<Pathfinder> pathfinders = new ThreadLocal<Pathfinder>();	//One Pathfinder (search buffers) per thread
+	private final ConcurrentHashMap<Long,Request> inFlight = new ConcurrentHashMap<Long,Request>();	//Queued or planned requests by key (see PathCache.key)
+
+	//Statistics
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong planned   = new AtomicLong();
+	private final AtomicLong notFound  = new AtomicLong();
+	private final AtomicLong dropped   = new AtomicLong();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private final long[] latencies = new long[LATENCY_SAMPLES];	//Latest latencies (ns), used as a ring buffer
+	private long nrOfLatencies = 0;
+
+	/**
+	 * Creates a planner and starts its threads.
+	 * @param collisionMatrix CollisionMatrix to search in
+	 * @param threads Nr of threads that search for paths
+	 * @param queueCapacity Max nr of requests waiting for a thread (more are dropped)
+	 */
+	public PathPlanner(int[][] collisionMatrix, int threads, int queueCapacity){
+		this.collisionMatrix = collisionMatrix;
+		final AtomicInteger threadNr = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(Math.max(queueCapacity, 1)),
+				new ThreadFactory(){
+					@Override
+					public Thread newThread(Runnable runnable){
+						Thread thread = new Thread(runnable, "PathPlanner-" + threadNr.incrementAndGet());
+						thread.setDaemon(true);	//Never keeps the program running
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * Returns the nr of requests that were given a request that already was queued or planned (i.e. the nr of searches that were avoided).
+	 */
+	public long getCoalesced(){
+		return coalesced.get();
+	}
+
+	/**
+	 * Returns the nr of requests that were dropped since the queue was full.
+	 */
+	public long getDropped(){
+		return dropped.get();
+	}
+
+	/**
+	 * Returns a percentile of the latest latencies (time from request to published result).
+	 * @param percentile Percentile (0-100)
+	 * @return The latency (ms), 0 if no request has been planned
+	 */
+	public double getLatency(double percentile){
+		long[] sorted;
+		synchronized(latencies){
+			sorted = Arrays.copyOf(latencies, (int)Math.min(nrOfLatencies, LATENCY_SAMPLES));
+		}
+		if(sorted.length == 0){
+			return 0;
+		}
+		Arrays.sort(sorted);
+		int index = (int)Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length-1))] / 1e6;
+	}
+
+	/**
+	 * Returns the largest nr of requests that have been waiting in the queue at the same time.
+	 */
+	public int getMaxQueueDepth(){
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * Returns the nr of requests that have been planned (including those where no path could be found).
+	 */
+	public long getPlanned(){
+		return planned.get();
+	}
+
+	/**
+	 * Returns the nr of requests currently waiting in the queue.
+	 */
+	public int getQueueDepth(){
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Returns the nr of submitted requests (including dropped requests, but not coalesced requests).
+	 */
+	public long getSubmitted(){
+		return submitted.get();
+	}
+
+	/**
+	 * Returns the nr of threads that search for paths.
+	 */
+	public int getThreads(){
+		return executor.getCorePoolSize();
+	}
+
+	/**
+	 * Returns the Pathfinder of the calling thread.
+	 */
+	private Pathfinder getPathfinder(){
+		Pathfinder pathfinder = pathfinders.get();
+		if(pathfinder == null){
+			pathfinder = new Pathfinder(collisionMatrix);
+			pathfinders.set(pathfinder);
+		}
+		return pathfinder;
+	}
+
+	/**
+	 * Makes new requests search again instead of sharing the requests that are queued or planned (called when the costs of tiles have been edited).
+	 */
+	public void invalidate(){
+		inFlight.clear();
+	}
+
+	/**
+	 * Stops the threads, requests that are waiting in the queue are dropped.
+	 */
+	public void shutdown(){
+		for(Runnable waiting : executor.shutdownNow()){
+			((Request)waiting).drop();
+		}
+	}
+
+	/**
+	 * Requests a path between two tiles.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param goalX X-pos of goal tile
+	 * @param goalY Y-pos of goal tile
+	 * @return The request (shared with others that wait for the same path), it is done at once (without a path) if it was dropped
+	 */
+	public Request submit(int startX, int startY, int goalX, int goalY){
+		long key = PathCache.key(startX, startY, goalX, goalY);
+		Request request = inFlight.get(key);
+		if(request == null){
+			Request newRequest = new Request(startX, startY, goalX, goalY);
+			request = inFlight.putIfAbsent(key, newRequest);
+			if(request == null){
+				execute(newRequest);
+				return newRequest;
+			}
+		}
+		//Wait for the same path as an earlier request
+		coalesced.incrementAndGet();
+		return request;
+	}
+
+	/**
+	 * Puts a new request in the queue (or drops it if the queue is full).
+	 * @param request Request to plan
+	 */
+	private void execute(Request request){
+		submitted.incrementAndGet();
+		try{
+			executor.execute(request);
+		}
+		catch(RejectedExecutionException e){
+			request.drop();
+			return;
+		}
+		int depth = executor.getQueue().size();
+		int max = maxQueueDepth.get();
+		while(depth > max && !maxQueueDepth.compareAndSet(max, depth)){
+			max = maxQueueDepth.get();
+		}
+	}
+
+	/**
+	 * Returns the statistics of the planner.
+	 */
+	@Override
+	public String toString(){
+		return getThreads() + " threads, " + submitted.get() + " requests, " + coalesced.get() + " coalesced, " + planned.get() + " planned ("
+				+ notFound.get() + " without path), " + dropped.get() + " dropped, queue " + getQueueDepth() + " (max " + maxQueueDepth.get() + "), latency "
+				+ String.format("p50 %.2f ms, p90 %.2f ms, p99 %.2f ms", getLatency(50), getLatency(90), getLatency(99));
+	}
+
+	/**
+	 * A request for a path, the result is published by the thread that plans it (see isDone).
+	 */
+	public class Request implements Runnable {
+		private final int startX;
+		private final int startY;
+		private final int goalX;
+		private final int goalY;
+		private final long submitTime;	//System.nanoTime when the request was submitted
+		private final int editVersion;	//Version of the tile costs when the request was submitted (see TileEdits)
+		private CompactPath path;		//Found path (null if not found or if the path was searched hierarchically)
+		private HierarchicalPath route;	//Path found on large maps (see HierarchicalPathfinder)
+		private boolean isDropped = false;
+		private volatile boolean done = false;	//Written last by the planning thread, so that the path is visible when done is
+
+		/**
+		 * @param startX X-pos of start tile
+		 * @param startY Y-pos of start tile
+		 * @param goalX X-pos of goal tile
+		 * @param goalY Y-pos of goal tile
+		 */
+		private Request(int startX, int startY, int goalX, int goalY){
+			this.startX = startX;
+			this.startY = startY;
+			this.goalX  = goalX;
+			this.goalY  = goalY;
+			submitTime  = System.nanoTime();
+			editVersion = OSM_Reader.tileEdits != null ? OSM_Reader.tileEdits.getVersion() : 0;
+		}
+
+		/**
+		 * Drops the request without planning it.
+		 */
+		private void drop(){
+			dropped.incrementAndGet();
+			isDropped = true;
+			done = true;
+			inFlight.remove(PathCache.key(startX, startY, goalX, goalY), this);
+		}
+
+		/**
+		 * Returns the found path, null if no path could be found, if not done or if the path was searched hierarchically (see getRoute).
+		 */
+		public CompactPath getPath(){
+			return path;
+		}
+
+		/**
+		 * Returns the path found on a large map, null if no path could be found, if not done or if the path was not searched hierarchically.
+		 * Each call gives a new copy, since the request may be shared and a hierarchical path is refined by the pedestrian that walks it.
+		 */
+		public HierarchicalPath getRoute(){
+			return route != null ? route.copy() : null;
+		}
+
+		/**
+		 * Is the request dropped (since the queue was full)?
+		 */
+		public boolean isDropped(){
+			return isDropped;
+		}
+
+		/**
+		 * Has the result been published (or the request dropped)?
+		 */
+		public boolean isDone(){
+			return done;
+		}
+
+		/**
+		 * Have the costs of tiles been edited since the request was submitted (the search may have used the old costs)?
+		 */
+		public boolean isOutdated(){
+			return OSM_Reader.tileEdits != null && OSM_Reader.tileEdits.getVersion() != editVersion;
+		}
+
+		/**
+		 * Checks if the request is for a path between two tiles.
+		 * @param x X-pos of start tile
+		 * @param y Y-pos of start tile
+		 * @param targetX X-pos of goal tile
+		 * @param targetY Y-pos of goal tile
+		 */
+		public boolean matches(int x, int y, int targetX, int targetY){
+			return startX == x && startY == y && goalX == targetX && goalY == targetY;
+		}
+
+		/**
+		 * Plans the path and publishes the result (run by a thread of the planner).
+		 */
+		@Override
+		public void run(){
+			try{
+				//The collisionMatrix may be edited during the search, the result is then outdated and thrown away (see class comment)
+				HierarchicalPathfinder hierarchicalPathfinder = OSM_Reader.hierarchicalPathfinder;
+				if(hierarchicalPathfinder != null){
+					route = hierarchicalPathfinder.findPath(startX, startY, goalX, goalY);
+				}
+				else{
+					path = getPathfinder().findPath(startX, startY, goalX, goalY);
+					if(path != null){
+						//Not stored if the costs were edited while searching (checked under the lock that the edits take)
+						OSM_Reader.pathCache.put(PathCache.key(startX, startY, goalX, goalY), path, editVersion);
+					}
+				}
+			}
+			finally{
+				planned.incrementAndGet();
+				if(path == null && route == null){
+					notFound.incrementAndGet();
+				}
+				long latency = System.nanoTime() - submitTime;
+				synchronized(latencies){
+					latencies[(int)(nrOfLatencies++ % LATENCY_SAMPLES)] = latency;
+				}
+				done = true;
+				//Later requests for the same path search again (or find it in the PathCache)
+				inFlight.remove(PathCache.key(startX, startY, goalX, goalY), this);
+			}
+		}
+	}
+}
@@ -1,309 +1,980 @@
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.PriorityQueue;
 
 /**
  * Pathfinder is used to find a path between two tiles: a start and target tile.
- * It uses an implementation of A* to achieve this.
- * 
+ * It uses an implementation of A* to achieve this. It can also flood the whole map from a start tile (Dijkstra),
+ * after which the paths to all reachable tiles can be read (see flood and getFloodPath).
+ *
+ * Large parts of the collisionMatrix have one cost (e.g. open ground or plazas), where A* wastes most of its work on paths
+ * that are equally good. A tile whose neighbours all have its cost (or are walls) is therefore searched differently:
+ * - If a diagonal move costs at most two straight moves, Jump Point Search is used from the tile: the search jumps in straight lines
+ *   and diagonals over tiles with nothing interesting around them and only adds the tiles where the path may have to turn (jump points).
+ *   Diagonal moves next to walls are not allowed, like in A*, so walls only force jump points next to straight moves.
+ * - Else (e.g. FOOTWAY_COST, where a diagonal move costs more than two straight moves) diagonal moves are never part of the cheapest path, so only straight moves are checked.
+ * All other tiles (where the cost changes) are searched with plain A*, and a jump always stops at such a tile.
+ *
+ * The heuristic uses landmarks (see Landmarks) when the map has them (only small maps, see Landmarks.MAX_TILES), so that the found paths
+ * are the cheapest and fewer tiles are expanded.
+ *
+ * Long routes (e.g. across the whole map) can instead be searched bidirectionally (see findPath): one search goes forwards from the start
+ * and one backwards from the target, and they stop when no path through the tiles left on either open list can be cheaper than the cheapest
+ * path found where they have met. This only holds for a heuristic that never overestimates, so the bidirectional search uses the octile
+ * distance with the cheapest possible moves instead of the weighted Manhattan distance when there are no landmarks (see calculateBound),
+ * and its paths are then the cheapest. That bound is weak (the cheapest move costs much less than most tiles), so without landmarks
+ * the bidirectional search is much slower than the weighted A* on long routes; with landmarks it is about as fast as A* with them
+ * (PathfinderBenchmark compares both on short and long routes). The bidirectional search checks all neighbours of every tile (no Jump Point Search).
+ *
+ * Tiles are encoded as a single index (x*columns + y) into the collisionMatrix and all search state
+ * is kept in primitive arrays that are reused between queries. Instead of clearing these arrays before
+ * each search a generation stamp is used to tell if a tile belongs to the current search or not.
+ *
  * @author Robert Wideberg & Christoffer Wiss
- * @version 12-07-2013
+ * @version 18-10-2026
  */
 public class Pathfinder {
-	int[][] collisionMatrix;
-	private int moveCost = 5; 	   			//How much should it cost to move one tile (Horizontally/Vertically)
+	//Moves between tiles, shared by all searches over the collisionMatrix (FlowField, HierarchicalPathfinder, IncrementalPathfinder)
+	static final int MOVE_COST = 5; 	   			//How much should it cost to move one tile (Horizontally/Vertically)
     										//WARNING: Do not set this to a cost that when summed with the smallest tile cost (see OSM_Reader) is negative.
-	private final int MOVE_DIAG = Math.round(moveCost*1.4f);	//How much should it cost to move one tile (diagonally)
-	private final int hWeight   = Math.round(0.4f*moveCost);	//How much influence the heuristic should have on the pathfinding (for really crappy results set to a high value).
-	
+	static final int MOVE_DIAG = Math.round(MOVE_COST*1.4f);	//How much should it cost to move one tile (diagonally)
+	static final int MIN_STRAIGHT = MOVE_COST + OSM_Reader.COLLISION_COST_MIN;	//Cheapest possible straight move (used by the heuristics)
+	static final int MIN_DIAG     = Math.min(MOVE_DIAG + OSM_Reader.COLLISION_COST_MIN, 2*MIN_STRAIGHT);	//Cheapest possible diagonal move
+	//Moves to the 8 neighbouring tiles (same as CompactPath)
+	static final int[] DIRECTION_X = {-1, -1, -1,  0, 0,  1, 1, 1};
+	static final int[] DIRECTION_Y = {-1,  0,  1, -1, 1, -1, 0, 1};
+
+	int[][] collisionMatrix;
+	private final int hWeight   = Math.round(0.4f*MOVE_COST);	//How much influence the heuristic should have on the pathfinding (for really crappy results set to a high value).
+	private final Landmarks landmarks;	//Lower bounds of the costs between tiles (null if not used, see calculateH)
+	private long expansions = 0;
+
+	//Search state (indexed by tile index)
+	private final int columns;	//Nr of columns in the collisionMatrix (used to pack x, y into a tile index)
+	private final int maxTileX;	//Boundaries
+	private final int maxTileY;
+	private int[] gCost;		//(G) Movement cost from start to tile
+	private int[] fCost;		//(F) G-Cost + estimated cost from tile to goal (H)
+	private int[] parent;		//Tile index of the tile that we arrived from
+	private int[] stamp;		//Equals generation if tile is on the open list and generation+1 if it has been visited
+	private int generation = 0;
+	private int floodStart = -1;	//Start tile of the last flood (-1 if the search state is from an A* search)
+
+	//How each tile is searched (see class comment), found when the Pathfinder is created
+	private static final byte TILE_NORMAL   = 0;	//Cost changes around the tile, check all neighbours
+	private static final byte TILE_JUMP     = 1;	//Uniform cost, use Jump Point Search
+	private static final byte TILE_STRAIGHT = 2;	//Uniform cost where diagonal moves cost more than two straight moves, check straight neighbours
+	private final byte[] tileType;
+	private final short[][] jumpDistance;	//Pre-calculated straight jumps from tiles with uniform cost, per direction (see findJumpDistances)
+	private int editVersion;	//Version of the tile edits that the tables are up to date with (see TileEdits)
+
+	//Straight moves (used for tiles where diagonal moves are never the cheapest)
+	private static final int[] STRAIGHT_X = {-1, 0, 1,  0};
+	private static final int[] STRAIGHT_Y = { 0, 1, 0, -1};
+
+	//Search state of the backward search of a bidirectional search and the moves it checks, created when first needed (see searchBidirectional)
+	private int[] gCostBack;	//Movement cost from tile to target (not including the cost of the tile itself)
+	private int[] parentBack;	//Tile index of the next tile towards the target
+	private int[] stampBack;	//Same as stamp
+	private TileHeap openListBack;
+	private byte[] moves;		//Allowed moves from each tile, bit dir is set if the move in direction dir is allowed (see findMoves)
+	private int[] directionOffset;	//Change in tile index of a move in each direction
+	private int meetingTile;	//Tile where the cheapest path of the last bidirectional search passes from the forward to the backward search
+	private int meetingCost;	//Cost of the cheapest path found through meetingTile
+
+	private TileHeap openList;	//Tiles to check, ordered by F-Cost (lowest cost is at start)
+
 	/**
 	 * Initializes the Pathfinder with a collisionMatrix to use.
 	 * @param collMatrix CollisionMatrix to use for the pathfinding
 	 */
 	public Pathfinder(int[][] collMatrix){
+		this(collMatrix, OSM_Reader.landmarks != null && OSM_Reader.landmarks.getCollisionMatrix() == collMatrix ? OSM_Reader.landmarks : null);
+	}
+
+	/**
+	 * Initializes the Pathfinder with a collisionMatrix and the landmarks to use for its heuristic.
+	 * @param collMatrix CollisionMatrix to use for the pathfinding
+	 * @param landmarks Landmarks of the collisionMatrix (null to use the weighted Manhattan distance, see calculateH)
+	 */
+	public Pathfinder(int[][] collMatrix, Landmarks landmarks){
 		collisionMatrix = collMatrix;
+		this.landmarks  = landmarks;
+		TileEdits edits = OSM_Reader.tileEdits;
+		editVersion = edits != null ? edits.getVersion() : 0;
+		columns  = collisionMatrix[0].length;
+		maxTileX = collisionMatrix.length-1;
+		maxTileY = collisionMatrix[1].length-1;
+
+		int nrOfTiles = collisionMatrix.length*columns;
+		gCost  = new int[nrOfTiles];
+		fCost  = new int[nrOfTiles];
+		parent = new int[nrOfTiles];
+		stamp  = new int[nrOfTiles];
+		openList = new TileHeap(nrOfTiles);
+		tileType = new byte[nrOfTiles];
+		jumpDistance = new short[STRAIGHT_X.length][];
+		if(Frame.USE_JUMP_POINT_SEARCH){
+			findUniformTiles();
+			for(int dir = 0; dir < STRAIGHT_X.length; dir++){
+				jumpDistance[dir] = new short[nrOfTiles];
+			}
+			findJumpDistances();
+		}
+	}
+
+	/**
+	 * Finds the tiles whose neighbours all have the same cost as the tile (or are walls) and marks how they are searched.
+	 * Tiles next to the boundaries are never marked, so the neighbours of a marked tile can always be moved to (if they are not walls).
+	 */
+	private void findUniformTiles(){
+		for(int x = 1; x < maxTileX-1; x++){
+			for(int y = 1; y < maxTileY-1; y++){
+				findTileType(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Marks how a tile is searched (see findUniformTiles).
+	 * @param x X-pos of tile (not next to the boundaries)
+	 * @param y Y-pos of tile
+	 */
+	private void findTileType(int x, int y){
+		int cost = collisionMatrix[x][y];
+		tileType[x*columns + y] = TILE_NORMAL;
+		if(cost == Integer.MAX_VALUE){
+			return;
+		}
+		for(int dx = -1; dx <= 1; dx++){
+			for(int dy = -1; dy <= 1; dy++){
+				int neighbourCost = collisionMatrix[x+dx][y+dy];
+				if(neighbourCost != cost && neighbourCost != Integer.MAX_VALUE){
+					return;
+				}
+			}
+		}
+		tileType[x*columns + y] = MOVE_DIAG + cost <= 2*(MOVE_COST + cost) ? TILE_JUMP : TILE_STRAIGHT;
 	}
 
     /**
-     * Calculates the Heuristic (i.e unknown) movement cost 
-     * from start to goal.
-     * @param start Start tile
-     * @param goal Goal tile
+     * Calculates the Heuristic (i.e unknown) movement cost
+     * from start to goal. With landmarks it is a lower bound of the cost (so the found paths are the cheapest): the larger of the
+     * octile distance with the cheapest possible moves and the bound given by the landmarks, which follows the streets and walls of the map.
+     * Without landmarks (e.g. on maps larger than Landmarks.MAX_TILES) the weighted Manhattan distance is used, which is faster than the octile distance alone
+     * since it is closer to the costs of most tiles, but may overestimate on cheap tiles.
+     * @param startX X-pos of start tile
+     * @param startY Y-pos of start tile
+     * @param goalX X-pos of goal tile
+     * @param goalY Y-pos of goal tile (a negative goal means that there is no goal, see flood)
      * @return Estimated movement cost from start to goal
      */
-    private int calculateH(int[] start, int[] goal){
-        /*MANHATTAN METHOD:
-         Sum of vertical and horizontal tiles to goal from current position*/
-        return hWeight*(Math.abs(start[0] - goal[0]) + Math.abs(start[1] - goal[1]));
+    private int calculateH(int startX, int startY, int goalX, int goalY){
+    	if(goalX < 0){
+    		return 0;
+    	}
+    	if(landmarks == null){
+            /*MANHATTAN METHOD:
+             Sum of vertical and horizontal tiles to goal from current position*/
+            return hWeight*(Math.abs(startX - goalX) + Math.abs(startY - goalY));
+    	}
+    	return Math.max(calculateMinCost(startX, startY, goalX, goalY), landmarks.calculateH(startX*columns + startY, goalX*columns + goalY));
     }
-	
+
     /**
-	 * Checks if current path to tile is already on list, 
+     * Calculates a lower bound of the movement cost from start to goal, used by the bidirectional search (see searchBidirectional):
+     * the heuristic with landmarks, else the octile distance with the cheapest possible moves.
+     * @param startX X-pos of start tile
+     * @param startY Y-pos of start tile
+     * @param goalX X-pos of goal tile
+     * @param goalY Y-pos of goal tile
+     * @return Movement cost from start to goal that is never more than the cost of the cheapest path
+     */
+    private int calculateBound(int startX, int startY, int goalX, int goalY){
+    	if(landmarks == null){
+    		return calculateMinCost(startX, startY, goalX, goalY);
+    	}
+    	return calculateH(startX, startY, goalX, goalY);
+    }
+
+    /**
+	 * Checks if current path to tile is already on list,
      * if so we check if the current path is better than the one stored on the list (check gCost value, i.e movementcost from start).
      * If the tile isn't on the list then it is added.
-     * @param tile Tile to check     (indices)
-     * @param parentTile Parent tile (indices)
-     * @param fCost F-Cost (G+H) for current tile
-     * @param gCost G-Cost (from start) for current tile
-     * @param hCost H-Cost (to goal) for current tile
-     * @param tiles Map of tiles to check against   (fast lookup)
-     * @param queue Queue of tiles to check against (priority queue, lowest cost is at start)
+     * @param x X-pos of tile to check
+     * @param y Y-pos of tile to check
+     * @param parentTile Tile index of the parent tile
+     * @param stepCost Cost of moving from parent tile to this tile (not including the tile cost)
+     * @param goalX X-pos of goal tile
+     * @param goalY Y-pos of goal tile
 	 */
-    private void checkPathTile(int[] tile, int[] parentTile, int fCost, int gCost, int hCost, HashMap<String,int[]> tiles, PriorityQueue<int[]> queue){
-        int[] currentTile = new int[] { tile[0], tile[1], parentTile[0], parentTile[1], fCost, gCost, hCost };
-        String position = tile[0] + " " + tile[1];
-        
-        //Check if this tile already has been added to list
-        if(tiles.containsKey(position))
-        {
-        	int[] oldTile = tiles.get(position);
-            //Check if current path has a better gCost; if so update tile
-            if (oldTile[5] > gCost)
-            {
-            	queue.remove(oldTile);
-                tiles.put(position, currentTile);
-                queue.add(currentTile);
-            }
-        }
-        //Tile was not on list, lets add it!
-        else
-        {
-            tiles.put(position,currentTile);
-            queue.add(currentTile);
-        }
+    private void checkPathTile(int x, int y, int parentTile, int stepCost, int goalX, int goalY){
+    	int tile = x*columns + y;
+
+    	//Tile has already been visited
+    	if(stamp[tile] == generation+1){
+    		return;
+    	}
+
+    	int currentG = gCost[parentTile] + stepCost + collisionMatrix[x][y];
+
+    	//Tile was not on list, lets add it!
+    	if(stamp[tile] != generation){
+    		stamp[tile]  = generation;
+    		gCost[tile]  = currentG;
+    		fCost[tile]  = currentG + calculateH(x, y, goalX, goalY);
+    		parent[tile] = parentTile;
+    		openList.add(tile, fCost[tile]);
+    	}
+    	//Check if current path has a better gCost; if so update tile
+    	else if(gCost[tile] > currentG){
+    		fCost[tile]  = fCost[tile] - gCost[tile] + currentG;
+    		gCost[tile]  = currentG;
+    		parent[tile] = parentTile;
+    		openList.decreaseKey(tile, fCost[tile]);
+    	}
     }
-    
+
 	/**
 	 * Pathfinding algorithm for finding the path to the target position.
 	 * @param startX X-pos of start tile
 	 * @param startY Y-pos of start tile
 	 * @param targetX X-pos of target tile
 	 * @param targetY Y-pos of target tile
-	 * @param shortPathUpdate Is this a short path update or a normal? (short is used while traversing an already found path and checking for better subpaths)
 	 * @param currentPath Reference to the list where the path (if found) will appear
+	 * @return True if a path could be found (or if we already are at the target), else false.
 	 */
 	public boolean findPath(int startX, int startY, int targetX, int targetY, LinkedList<Node> currentPath){
 		//Check that we aren't already there (at target)
-		if(!(startX == targetX && startY == targetY)){
-			//Set boundaries
-	        int maxTileX = collisionMatrix.length-1;
-	        int maxTileY = collisionMatrix[1].length-1;
-	        
-	        //Local variables
-	        int[] goal = new int[]{targetX, targetY};
-	        int[] currentTile;  //Stores x, y, parent tile x, parent tile y, F, G and H cost 
-	             				//(F) Movment cost from parent to current tile + Movement cost to goal from current tile
-	        int parentCost = 0; //(G) Movment cost from parent to current tile
-	              				//(H) Estimated cost from current tile to goal
-	        int tileCost = 0;   //    Movement cost for current tile
-	        int currentH = 0;   // Calculated H-Value for current tile  
-	        int currentG = 0;   // Calculated G-Value for current tile
-	        int[] nextTile = new int[2];
-	        
-	        Comparator<int[]> comparator = new ArrayComparator();										//Java uses this to sort the Priority queue
-	        PriorityQueue<int[]> checkTilesQ   = new PriorityQueue<int[]>(maxTileX,comparator); 		//Available tiles to check (used for tiles to check)
-	        HashMap<String,int[]> checkTiles   = new HashMap<String,int[]>();                   		//Available tiles to check (used for tiles to re-check)
-	        boolean[][] visited = new boolean[collisionMatrix.length][collisionMatrix[0].length];		//Mark where we have been
-	        String position = collisionMatrix + " " + startY;
-	        
-	        //Start at PlayerCharacter tile
-	        checkTiles.put(position,new int[]{ startX, startY, startX, startY, calculateH(new int[]{startX, startY}, new int[]{targetX, targetY}), 0, calculateH(new int[]{startX, startY}, new int[]{targetX, targetY})});  
-	        checkTilesQ.add(checkTiles.get(position));
-	        
-	        /*************/
-	        /**FIND PATH**/
-	        /*************/
-	        //Stop when list is empty or goal is reached
-	        while (checkTilesQ.size() != 0 && !(visited(visited,goal)))
-	        {
-	            currentTile = checkTilesQ.poll();  //Get next tile (with lowest totalcost)
-	            visited[currentTile[0]][currentTile[1]] = true;
-	            parentCost  = currentTile[5];      //Get G cost for current tile (Cost to parent)
-			
-	            //Check WEST
-	            nextTile[0] = (currentTile[0] - 1);
-	            nextTile[1] = (currentTile[1]);
-	            if(nextTile[0] >= 0){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map and has not been visited yet. Decide next tile
-		            if (tileCost != Integer.MAX_VALUE && !(visited(visited,nextTile)))
-		            {
-		                currentG = (parentCost + moveCost + tileCost);
-
-		                currentH = calculateH(nextTile,goal);
-		                checkPathTile(nextTile, new int[] {currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	            
-	            //Check SOUTH-WEST
-	            nextTile[0] = (currentTile[0] - 1);
-	            nextTile[1] = (currentTile[1] + 1);
-	            if(nextTile[0] >= 0 && nextTile[1] < maxTileY){
-	            	tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map, and has not been visited yet and that it is not 
-		            //adjacent to walls (so that Pedestrian does not cut through walls). 
-		            //Decide next tile
-		            if (tileCost != Integer.MAX_VALUE  && !(visited(visited,nextTile)) && 
-		            		collisionMatrix[nextTile[0]][nextTile[1] - 1] != Integer.MAX_VALUE &&
-		            		collisionMatrix[nextTile[0]+1][nextTile[1]]   != Integer.MAX_VALUE )
-		            {
-		                currentG = (int)(parentCost + MOVE_DIAG + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] {currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	        	}
-	            
-	            //Check SOUTH
-	            nextTile[0] = currentTile[0];
-	            nextTile[1] = (currentTile[1] + 1);
-	            if(nextTile[1] < maxTileY){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map and has not been visited yet. Decide next tile
-		            if (tileCost != Integer.MAX_VALUE  && !(visited(visited,nextTile)))
-		            {
-		                currentG = (parentCost + moveCost + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] { currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	            
-	            //Check SOUTH-EAST
-	            nextTile[0] = (currentTile[0] + 1);
-	            nextTile[1] = (currentTile[1] + 1);
-	            if(nextTile[0] < maxTileX && nextTile[1] < maxTileY){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map, and has not been visited yet and that it is not 
-		            //adjacent to walls (so that Pedestrian does not cut through walls). 
-		            //Decide next tile
-		            if (tileCost != Integer.MAX_VALUE && !(visited(visited,nextTile)) && 
-		            		collisionMatrix[nextTile[0]][nextTile[1] - 1] != Integer.MAX_VALUE  &&
-		            		collisionMatrix[nextTile[0]-1][nextTile[1]]   != Integer.MAX_VALUE )
-		            {
-		                currentG = (int)(parentCost + MOVE_DIAG + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] { currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	            
-	            //Check EAST
-	            nextTile[0] = (currentTile[0] + 1);
-	            nextTile[1] = (currentTile[1]);
-	            if(nextTile[0] < maxTileX){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map and has not been visited yet. Decide next tile
-		            if (tileCost != Integer.MAX_VALUE && !(visited(visited,nextTile)))
-		            {
-		                currentG = (parentCost + moveCost + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] { currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	            
-	            //Check NORTH-EAST
-	            nextTile[0] = (currentTile[0] + 1);
-	            nextTile[1] = (currentTile[1] - 1);
-	            if(nextTile[0] < maxTileX && nextTile[1] >= 0){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map, and has not been visited yet and that it is not 
-		            //adjacent to walls (so that PlayerCharacter does not cut through walls). 
-		            //Decide next tile
-		            if (tileCost != Integer.MAX_VALUE  && !(visited(visited,nextTile)) && 
-		            	collisionMatrix[nextTile[0]][ nextTile[1] + 1] != Integer.MAX_VALUE  &&
-		                collisionMatrix[nextTile[0] - 1][nextTile[1]] != Integer.MAX_VALUE )
-		            {
-		                currentG = (int)(parentCost + MOVE_DIAG + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] { currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	            
-	            //Check NORTH
-	            nextTile[0] = (currentTile[0]);
-	            nextTile[1] = (currentTile[1] - 1);
-	            if(nextTile[1] >= 0){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map and has not been visited yet. Decide next tile
-		            if (tileCost != Integer.MAX_VALUE && !(visited(visited,nextTile)))
-		            {
-		                currentG = (parentCost + moveCost + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] {currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	            
-	            //Check NORTH-WEST
-	            nextTile[0] = (currentTile[0] - 1);
-	            nextTile[1] = (currentTile[1] - 1);
-	            if(nextTile[0] >= 0 && nextTile[1] >= 0){
-		            tileCost = collisionMatrix[nextTile[0]][nextTile[1]];
-		            //Check that tile is walkable, inside map, and has not been visited yet and that it is not 
-		            //adjacent to walls (so that PlayerCharacter does not cut through walls). 
-		            //Decide next tile
-		            if (tileCost != Integer.MAX_VALUE && !(visited(visited,nextTile)) &&
-		            		collisionMatrix[nextTile[0]][nextTile[1] + 1] != Integer.MAX_VALUE &&
-		            		collisionMatrix[nextTile[0]+1][nextTile[1]]   != Integer.MAX_VALUE)
-		            {
-		                currentG = (int)(parentCost + MOVE_DIAG + tileCost);
-
-		                currentH = calculateH(nextTile, goal);
-		                checkPathTile(nextTile, new int[] { currentTile[0], currentTile[1] },
-		                    (currentG + currentH), currentG, currentH, checkTiles, checkTilesQ);
-		            }
-	            }
-	        }
-
-	        /**********************/
-	        /**    STORE PATH    **/
-	        /**********************/
-	        //ONLY STORE PATH IF ONE COULD BE FOUND
-	        if (visited(visited, goal))
-	        {
-	            nextTile[0] = goal[0];
-	            nextTile[1] = goal[1];
-	            
-	            currentPath.clear();  //Clear queue from previous (might be) unused tiles
-	           
-	            //Adds path to a queue 
-	            while (!(nextTile[0] == startX && nextTile[1] == startY))
-	            {
-	                currentTile = checkTiles.get(nextTile[0] + " " + nextTile[1]);  //Get next tile
-	                currentPath.addFirst(new Node(Math.round(currentTile[0]/OSM_Reader.scaleCollision), Math.round(currentTile[1]/OSM_Reader.scaleCollision))); //Add tile to currentPath
-	                
-	                //Parent to current tile is the next tile
-	                nextTile[0] = currentTile[2];
-	                nextTile[1] = currentTile[3];
-	            }
-	        }
-	        else{
-	        	return false;
-	        }
+		if(startX == targetX && startY == targetY){
+			return true;
+		}
+		if(!search(startX, startY, targetX, targetY)){
+			return false;
 		}
+
+        CompactPath path = buildPath(startX, startY, targetX, targetY);
+        currentPath.clear();  //Clear queue from previous (might be) unused tiles
+
+        //Adds path to a queue
+        int x = startX, y = startY;
+        for(int i = 0; i < path.getLength(); i++){
+        	x += path.getDeltaX(i);
+        	y += path.getDeltaY(i);
+        	currentPath.add(new Node(Math.round(x/OSM_Reader.scaleCollision), Math.round(y/OSM_Reader.scaleCollision)));
+        }
 		return true;
 	}
 
-    /**
-     * Check if this tile has been visited
-     * 
-     */
-    private boolean visited(boolean[][] visited, int[] searched){
-    	boolean found = false;
-    	if(visited[searched[0]][searched[1]]){
-    		found = true;
-    	}
-    	return found;
-    }
-}
\ No newline at end of file
+	/**
+	 * Pathfinding algorithm for finding the path to the target position, gives the path in compact form.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @return The path (empty if we already are at the target), null if no path could be found
+	 */
+	public CompactPath findPath(int startX, int startY, int targetX, int targetY){
+		return findPath(startX, startY, targetX, targetY, false);
+	}
+
+	/**
+	 * Pathfinding algorithm for finding the path to the target position, gives the path in compact form.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @param bidirectional Search from both the start and the target (see class comment)
+	 * @return The path (empty if we already are at the target), null if no path could be found
+	 */
+	public CompactPath findPath(int startX, int startY, int targetX, int targetY, boolean bidirectional){
+		//Check that we aren't already there (at target)
+		if(startX == targetX && startY == targetY){
+			return new CompactPath(startX, startY, new int[0], new int[0], 0);
+		}
+		if(bidirectional){
+			if(!searchBidirectional(startX, startY, targetX, targetY)){
+				return null;
+			}
+			return buildBidirectionalPath(startX, startY);
+		}
+		if(!search(startX, startY, targetX, targetY)){
+			return null;
+		}
+
+		return buildPath(startX, startY, targetX, targetY);
+	}
+
+	/**
+	 * Floods the map from a start tile (Dijkstra), i.e. finds the cheapest path to every tile that can be reached.
+	 * The paths can afterwards be read with getFloodPath until the next search.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 */
+	public void flood(int startX, int startY){
+		search(startX, startY, -1, -1);
+		floodStart = startX*columns + startY;
+	}
+
+	/**
+	 * Returns the path to a tile from the start tile of the last flood.
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @return The path (empty if the target is the start tile), null if the target could not be reached
+	 * @throws IllegalStateException If the last search was not a flood
+	 */
+	public CompactPath getFloodPath(int targetX, int targetY){
+		if(floodStart < 0){
+			throw new IllegalStateException("No flood has been done since the last search");
+		}
+		if(targetX < 0 || targetY < 0 || targetX > maxTileX || targetY > maxTileY || stamp[targetX*columns + targetY] != generation+1){
+			return null;
+		}
+		return buildPath(floodStart / columns, floodStart % columns, targetX, targetY);
+	}
+
+	/**
+	 * Returns the cost of the cheapest path to a tile from the start tile of the last flood.
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @return The cost (0 if the target is the start tile), Integer.MAX_VALUE if the target could not be reached
+	 * @throws IllegalStateException If the last search was not a flood
+	 */
+	public int getFloodCost(int targetX, int targetY){
+		if(floodStart < 0){
+			throw new IllegalStateException("No flood has been done since the last search");
+		}
+		if(targetX < 0 || targetY < 0 || targetX > maxTileX || targetY > maxTileY || stamp[targetX*columns + targetY] != generation+1){
+			return Integer.MAX_VALUE;
+		}
+		return gCost[targetX*columns + targetY];
+	}
+
+	/**
+	 * Returns the nr of tiles that have been expanded (taken from an open list) since the Pathfinder was created.
+	 */
+	public long getExpansions(){
+		return expansions;
+	}
+
+	/**
+	 * Follows the parent array of the last search from a target back to the start and stores the path in compact form.
+	 * A parent may be a jump point further away, the tiles in between are filled in (they are on a straight line or a diagonal).
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile (must have been visited by the last search)
+	 * @param targetY Y-pos of target tile
+	 * @return The path
+	 */
+	private CompactPath buildPath(int startX, int startY, int targetX, int targetY){
+        int start = startX*columns + startY;
+        int goal  = targetX*columns + targetY;
+        int length = 0;
+        for(int currentTile = goal; currentTile != start; currentTile = parent[currentTile]){
+        	length += Math.max(Math.abs(currentTile / columns - parent[currentTile] / columns), Math.abs(currentTile % columns - parent[currentTile] % columns));
+        }
+        //Parent to current tile is the next tile, so fill the tiles from the goal and back
+        int[] tilesX = new int[length];
+        int[] tilesY = new int[length];
+        int i = length;
+        for(int currentTile = goal; currentTile != start; currentTile = parent[currentTile]){
+        	int x = currentTile / columns, y = currentTile % columns;
+        	int parentX = parent[currentTile] / columns, parentY = parent[currentTile] % columns;
+        	int deltaX = Integer.signum(parentX - x), deltaY = Integer.signum(parentY - y);
+        	while(x != parentX || y != parentY){
+        		i--;
+        		tilesX[i] = x;
+        		tilesY[i] = y;
+        		x += deltaX;
+        		y += deltaY;
+        	}
+        }
+		return new CompactPath(startX, startY, tilesX, tilesY, length);
+	}
+
+	/**
+	 * Joins the paths of the last bidirectional search: from the start to the meeting tile (parent array) and from there to the target (parentBack array).
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @return The path
+	 */
+	private CompactPath buildBidirectionalPath(int startX, int startY){
+		int start = startX*columns + startY;
+		//The bidirectional search never jumps, so every parent is a neighbour
+		int forwardLength = 0;
+		for(int currentTile = meetingTile; currentTile != start; currentTile = parent[currentTile]){
+			forwardLength++;
+		}
+		int length = forwardLength;
+		for(int currentTile = meetingTile; parentBack[currentTile] != currentTile; currentTile = parentBack[currentTile]){
+			length++;
+		}
+		int[] tilesX = new int[length];
+		int[] tilesY = new int[length];
+		int i = forwardLength;
+		for(int currentTile = meetingTile; currentTile != start; currentTile = parent[currentTile]){
+			i--;
+			tilesX[i] = currentTile / columns;
+			tilesY[i] = currentTile % columns;
+		}
+		i = forwardLength;
+		for(int currentTile = meetingTile; parentBack[currentTile] != currentTile; currentTile = parentBack[currentTile]){
+			tilesX[i] = parentBack[currentTile] / columns;
+			tilesY[i] = parentBack[currentTile] % columns;
+			i++;
+		}
+		return new CompactPath(startX, startY, tilesX, tilesY, length);
+	}
+
+	/**
+	 * Checks if a move is allowed: to a walkable tile that does not cross into the last row or column of the matrix,
+	 * and a diagonal move only if both adjacent tiles are walkable (same moves as search).
+	 * @param collisionMatrix CollisionMatrix to move over
+	 * @param x X-pos of tile to move from
+	 * @param y Y-pos of tile to move from
+	 * @param dir Direction of the move (see DIRECTION_X)
+	 */
+	static boolean canMove(int[][] collisionMatrix, int x, int y, int dir){
+		int toX = x + DIRECTION_X[dir];
+		int toY = y + DIRECTION_Y[dir];
+		//Only the coordinates that change are checked against the boundaries
+		if(toX < 0 || toY < 0 || (toX != x && toX >= collisionMatrix.length-1) || (toY != y && toY >= collisionMatrix[0].length-1)
+				|| collisionMatrix[toX][toY] == Integer.MAX_VALUE){
+			return false;
+		}
+		//Not adjacent to walls, so that Pedestrian does not cut through walls
+		if(DIRECTION_X[dir] != 0 && DIRECTION_Y[dir] != 0){
+			return collisionMatrix[toX][y] != Integer.MAX_VALUE && collisionMatrix[x][toY] != Integer.MAX_VALUE;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the cost of a move without the cost of the tile that is entered.
+	 * @param dir Direction of the move (see DIRECTION_X)
+	 */
+	static int moveCost(int dir){
+		return DIRECTION_X[dir] != 0 && DIRECTION_Y[dir] != 0 ? MOVE_DIAG : MOVE_COST;
+	}
+
+	/**
+	 * Returns a lower bound of the cost between two tiles: the octile distance with the cheapest possible moves
+	 * (diagonal moves until on a straight line with the second tile, then straight moves).
+	 * @param x1 X-pos of first tile
+	 * @param y1 Y-pos of first tile
+	 * @param x2 X-pos of second tile
+	 * @param y2 Y-pos of second tile
+	 */
+	static int calculateMinCost(int x1, int y1, int x2, int y2){
+		int dx = Math.abs(x1 - x2);
+		int dy = Math.abs(y1 - y2);
+		return MIN_DIAG*Math.min(dx, dy) + MIN_STRAIGHT*Math.abs(dx - dy);
+	}
+
+	/**
+	 * Finds the moves that are allowed from a tile (see canMove) and stores them as bits in the moves array.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	private void findMoves(int x, int y){
+		int allowed = 0;
+		for(int dir = 0; dir < DIRECTION_X.length; dir++){
+			if(canMove(collisionMatrix, x, y, dir)){
+				allowed |= 1 << dir;
+			}
+		}
+		moves[x*columns + y] = (byte)allowed;
+	}
+
+	/**
+	 * Searches for a path between two tiles from both ends at the same time: A* forwards from the start (gCost, parent and stamp arrays)
+	 * and backwards from the target (gCostBack, parentBack and stampBack arrays). The search with the fewest tiles on its open list is expanded,
+	 * and every time a tile that the other search has reached is updated a path through it is found. The search stops when the lowest F-Cost
+	 * of either open list is at least the cost of the cheapest path found, since every path that is left to find would pass a tile on that list.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 * @return True if a path was found (it passes meetingTile)
+	 */
+	private boolean searchBidirectional(int startX, int startY, int targetX, int targetY){
+		int start = startX*columns + startY;
+		int goal  = targetX*columns + targetY;
+		meetingTile = -1;
+		if(collisionMatrix[targetX][targetY] == Integer.MAX_VALUE){
+			return false;
+		}
+		if(gCostBack == null){
+			gCostBack    = new int[gCost.length];
+			parentBack   = new int[gCost.length];
+			stampBack    = new int[gCost.length];
+			openListBack = new TileHeap(gCost.length);
+			directionOffset = new int[DIRECTION_X.length];
+			for(int dir = 0; dir < DIRECTION_X.length; dir++){
+				directionOffset[dir] = DIRECTION_X[dir]*columns + DIRECTION_Y[dir];
+			}
+			moves = new byte[gCost.length];
+			for(int x = 0; x <= maxTileX; x++){
+				for(int y = 0; y <= maxTileY; y++){
+					findMoves(x, y);
+				}
+			}
+		}
+
+		readEdits();
+		nextGeneration();
+		floodStart = -1;
+
+		stamp[start]  = generation;
+		gCost[start]  = 0;
+		parent[start] = start;
+		openList.add(start, calculateBound(startX, startY, targetX, targetY));
+		stampBack[goal]  = generation;
+		gCostBack[goal]  = 0;
+		parentBack[goal] = goal;
+		openListBack.add(goal, calculateBound(startX, startY, targetX, targetY));
+
+		meetingCost = Integer.MAX_VALUE;
+		while(!openList.isEmpty() && !openListBack.isEmpty() && Math.max(openList.peekKey(), openListBack.peekKey()) < meetingCost){
+			if(openList.size() <= openListBack.size()){
+				expandForward(targetX, targetY);
+			}
+			else{
+				expandBackward(start, startX, startY);
+			}
+		}
+		return meetingTile >= 0;
+	}
+
+	/**
+	 * Expands the tile with the lowest F-Cost of the forward search of a bidirectional search: the neighbours that can be moved to from the tile are checked.
+	 * @param targetX X-pos of target tile
+	 * @param targetY Y-pos of target tile
+	 */
+	private void expandForward(int targetX, int targetY){
+		int currentTile = openList.poll();
+		stamp[currentTile] = generation+1;
+		expansions++;
+		int currentX = currentTile / columns;
+		int currentY = currentTile % columns;
+		for(int dir = 0; dir < DIRECTION_X.length; dir++){
+			int tile = currentTile + directionOffset[dir];
+			if((moves[currentTile] & 1 << dir) == 0 || stamp[tile] == generation+1){
+				continue;
+			}
+			int x = currentX + DIRECTION_X[dir];
+			int y = currentY + DIRECTION_Y[dir];
+			int cost = gCost[currentTile] + moveCost(dir) + collisionMatrix[x][y];
+			if(stamp[tile] != generation){
+				stamp[tile]  = generation;
+				gCost[tile]  = cost;
+				parent[tile] = currentTile;
+				openList.add(tile, cost + calculateBound(x, y, targetX, targetY));
+			}
+			else if(cost < gCost[tile]){
+				openList.decreaseKey(tile, openList.getKey(tile) - gCost[tile] + cost);
+				gCost[tile]  = cost;
+				parent[tile] = currentTile;
+			}
+			else{
+				continue;
+			}
+			//The backward search has reached the tile, a path passes it
+			if((stampBack[tile] == generation || stampBack[tile] == generation+1) && gCost[tile] + gCostBack[tile] < meetingCost){
+				meetingCost = gCost[tile] + gCostBack[tile];
+				meetingTile = tile;
+			}
+		}
+	}
+
+	/**
+	 * Expands the tile with the lowest F-Cost of the backward search of a bidirectional search: the neighbours that can move to the tile are checked.
+	 * @param start Tile index of start tile
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 */
+	private void expandBackward(int start, int startX, int startY){
+		int currentTile = openListBack.poll();
+		stampBack[currentTile] = generation+1;
+		expansions++;
+		int currentX = currentTile / columns;
+		int currentY = currentTile % columns;
+		int tileCost = collisionMatrix[currentX][currentY];
+		for(int dir = 0; dir < DIRECTION_X.length; dir++){
+			int x = currentX - DIRECTION_X[dir];
+			int y = currentY - DIRECTION_Y[dir];
+			int tile = currentTile - directionOffset[dir];
+			//Only the start tile may be unwalkable (it is never walked through)
+			if(x < 0 || y < 0 || x > maxTileX || y > maxTileY || (moves[tile] & 1 << dir) == 0 || stampBack[tile] == generation+1
+					|| (collisionMatrix[x][y] == Integer.MAX_VALUE && tile != start)){
+				continue;
+			}
+			int cost = gCostBack[currentTile] + moveCost(dir) + tileCost;
+			if(stampBack[tile] != generation){
+				stampBack[tile]  = generation;
+				gCostBack[tile]  = cost;
+				parentBack[tile] = currentTile;
+				openListBack.add(tile, cost + calculateBound(startX, startY, x, y));
+			}
+			else if(cost < gCostBack[tile]){
+				openListBack.decreaseKey(tile, openListBack.getKey(tile) - gCostBack[tile] + cost);
+				gCostBack[tile]  = cost;
+				parentBack[tile] = currentTile;
+			}
+			else{
+				continue;
+			}
+			//The forward search has reached the tile, a path passes it
+			if((stamp[tile] == generation || stamp[tile] == generation+1) && gCost[tile] + gCostBack[tile] < meetingCost){
+				meetingCost = gCost[tile] + gCostBack[tile];
+				meetingTile = tile;
+			}
+		}
+	}
+
+	/**
+	 * Searches for the target tile with A*, the path can afterwards be followed backwards with the parent array.
+	 * Without a target (negative target position) all reachable tiles are visited.
+	 * @param startX X-pos of start tile
+	 * @param startY Y-pos of start tile
+	 * @param targetX X-pos of target tile (-1 if there is no target)
+	 * @param targetY Y-pos of target tile (-1 if there is no target)
+	 * @return True if the target was reached (false if there is no target)
+	 */
+	private boolean search(int startX, int startY, int targetX, int targetY){
+        int start = startX*columns + startY;
+        int goal  = targetX >= 0 ? targetX*columns + targetY : -1;
+        int currentTile, currentX, currentY;
+
+        readEdits();
+        nextGeneration();
+        floodStart = -1;
+
+        //Start at start tile
+        stamp[start]  = generation;
+        gCost[start]  = 0;
+        fCost[start]  = calculateH(startX, startY, targetX, targetY);
+        parent[start] = start;
+        openList.add(start, fCost[start]);
+
+        /*************/
+        /**FIND PATH**/
+        /*************/
+        //Stop when list is empty or goal is reached
+        while(!openList.isEmpty() && (goal < 0 || stamp[goal] != generation+1)){
+        	currentTile = openList.poll();	//Get next tile (with lowest totalcost)
+        	expansions++;
+        	stamp[currentTile] = generation+1;
+        	currentX = currentTile / columns;
+        	currentY = currentTile % columns;
+
+        	//Uniform cost around the tile, jump from it (the start tile has no direction to jump in)
+        	if(tileType[currentTile] == TILE_JUMP && currentTile != start && goal >= 0){
+        		expandJumpPoint(currentTile, currentX, currentY, goal, targetX, targetY);
+        		continue;
+        	}
+        	//Uniform cost where diagonal moves never are the cheapest, only check the straight neighbours (tile is not next to the boundaries)
+        	if(tileType[currentTile] == TILE_STRAIGHT){
+        		for(int dir = 0; dir < STRAIGHT_X.length; dir++){
+        			if(collisionMatrix[currentX+STRAIGHT_X[dir]][currentY+STRAIGHT_Y[dir]] != Integer.MAX_VALUE){
+        				checkPathTile(currentX+STRAIGHT_X[dir], currentY+STRAIGHT_Y[dir], currentTile, MOVE_COST, targetX, targetY);
+        			}
+        		}
+        		continue;
+        	}
+
+            //Check WEST
+        	if(currentX - 1 >= 0 && collisionMatrix[currentX-1][currentY] != Integer.MAX_VALUE){
+        		checkPathTile(currentX-1, currentY, currentTile, MOVE_COST, targetX, targetY);
+        	}
+
+            //Check SOUTH-WEST (not adjacent to walls, so that Pedestrian does not cut through walls)
+        	if(currentX - 1 >= 0 && currentY + 1 < maxTileY && collisionMatrix[currentX-1][currentY+1] != Integer.MAX_VALUE &&
+        			collisionMatrix[currentX-1][currentY] != Integer.MAX_VALUE && collisionMatrix[currentX][currentY+1] != Integer.MAX_VALUE){
+        		checkPathTile(currentX-1, currentY+1, currentTile, MOVE_DIAG, targetX, targetY);
+        	}
+
+            //Check SOUTH
+        	if(currentY + 1 < maxTileY && collisionMatrix[currentX][currentY+1] != Integer.MAX_VALUE){
+        		checkPathTile(currentX, currentY+1, currentTile, MOVE_COST, targetX, targetY);
+        	}
+
+            //Check SOUTH-EAST (not adjacent to walls)
+        	if(currentX + 1 < maxTileX && currentY + 1 < maxTileY && collisionMatrix[currentX+1][currentY+1] != Integer.MAX_VALUE &&
+        			collisionMatrix[currentX+1][currentY] != Integer.MAX_VALUE && collisionMatrix[currentX][currentY+1] != Integer.MAX_VALUE){
+        		checkPathTile(currentX+1, currentY+1, currentTile, MOVE_DIAG, targetX, targetY);
+        	}
+
+            //Check EAST
+        	if(currentX + 1 < maxTileX && collisionMatrix[currentX+1][currentY] != Integer.MAX_VALUE){
+        		checkPathTile(currentX+1, currentY, currentTile, MOVE_COST, targetX, targetY);
+        	}
+
+            //Check NORTH-EAST (not adjacent to walls)
+        	if(currentX + 1 < maxTileX && currentY - 1 >= 0 && collisionMatrix[currentX+1][currentY-1] != Integer.MAX_VALUE &&
+        			collisionMatrix[currentX+1][currentY] != Integer.MAX_VALUE && collisionMatrix[currentX][currentY-1] != Integer.MAX_VALUE){
+        		checkPathTile(currentX+1, currentY-1, currentTile, MOVE_DIAG, targetX, targetY);
+        	}
+
+            //Check NORTH
+        	if(currentY - 1 >= 0 && collisionMatrix[currentX][currentY-1] != Integer.MAX_VALUE){
+        		checkPathTile(currentX, currentY-1, currentTile, MOVE_COST, targetX, targetY);
+        	}
+
+            //Check NORTH-WEST (not adjacent to walls)
+        	if(currentX - 1 >= 0 && currentY - 1 >= 0 && collisionMatrix[currentX-1][currentY-1] != Integer.MAX_VALUE &&
+        			collisionMatrix[currentX-1][currentY] != Integer.MAX_VALUE && collisionMatrix[currentX][currentY-1] != Integer.MAX_VALUE){
+        		checkPathTile(currentX-1, currentY-1, currentTile, MOVE_DIAG, targetX, targetY);
+        	}
+        }
+
+        /**********************/
+        /**    STORE PATH    **/
+        /**********************/
+        //ONLY STORE PATH IF ONE COULD BE FOUND
+        return goal >= 0 && stamp[goal] == generation+1;
+	}
+
+	/**
+	 * Adds the jump points that can be reached from a jump point (a tile with uniform cost around it).
+	 * The directions to jump in depend on the direction that the tile was reached from (from its parent):
+	 * after a diagonal move the search continues diagonally and in both straight directions of the diagonal,
+	 * after a straight move it continues straight, and also to the side (straight and diagonally) where a wall behind the tile forces a turn.
+	 * @param tile Tile index of the jump point
+	 * @param x X-pos of the jump point
+	 * @param y Y-pos of the jump point
+	 * @param goal Tile index of the goal tile
+	 * @param goalX X-pos of goal tile
+	 * @param goalY Y-pos of goal tile
+	 */
+	private void expandJumpPoint(int tile, int x, int y, int goal, int goalX, int goalY){
+		int dx = Integer.signum(x - parent[tile] / columns);
+		int dy = Integer.signum(y - parent[tile] % columns);
+		if(dx != 0 && dy != 0){
+			addJumpPoint(tile, x, y, dx, 0, goal, goalX, goalY);
+			addJumpPoint(tile, x, y, 0, dy, goal, goalX, goalY);
+			addJumpPoint(tile, x, y, dx, dy, goal, goalX, goalY);
+			return;
+		}
+		addJumpPoint(tile, x, y, dx, dy, goal, goalX, goalY);
+		for(int side = -1; side <= 1; side += 2){
+			int sideX = dx == 0 ? side : 0;
+			int sideY = dy == 0 ? side : 0;
+			if(collisionMatrix[x+sideX][y+sideY] != Integer.MAX_VALUE && collisionMatrix[x+sideX-dx][y+sideY-dy] == Integer.MAX_VALUE){
+				addJumpPoint(tile, x, y, sideX, sideY, goal, goalX, goalY);
+				addJumpPoint(tile, x, y, dx+sideX, dy+sideY, goal, goalX, goalY);
+			}
+		}
+	}
+
+	/**
+	 * Jumps from a tile in a direction and adds the jump point that is found (if any) to the open list.
+	 * All tiles that are passed have the same cost as the tile that is jumped from.
+	 * @param tile Tile index of the tile to jump from
+	 * @param x X-pos of the tile to jump from
+	 * @param y Y-pos of the tile to jump from
+	 * @param dx Direction to jump in (x)
+	 * @param dy Direction to jump in (y)
+	 * @param goal Tile index of the goal tile
+	 * @param goalX X-pos of goal tile
+	 * @param goalY Y-pos of goal tile
+	 */
+	private void addJumpPoint(int tile, int x, int y, int dx, int dy, int goal, int goalX, int goalY){
+		int jumpPoint = jump(x, y, dx, dy, goal);
+		if(jumpPoint < 0){
+			return;
+		}
+		int steps = Math.max(Math.abs(jumpPoint / columns - x), Math.abs(jumpPoint % columns - y));
+		int stepCost = dx != 0 && dy != 0 ? MOVE_DIAG : MOVE_COST;
+		//The cost of the jump point itself is added by checkPathTile
+		checkPathTile(jumpPoint / columns, jumpPoint % columns, tile, steps*stepCost + (steps-1)*collisionMatrix[x][y], goalX, goalY);
+	}
+
+	/**
+	 * Moves from a tile in a direction until a jump point is found: the goal, a tile where the cost changes around it,
+	 * a tile next to a wall that forces a turn (straight moves), or a tile from which a straight jump finds a jump point (diagonal moves).
+	 * @param x X-pos of the tile to jump from (must be a tile with uniform cost around it)
+	 * @param y Y-pos of the tile to jump from
+	 * @param dx Direction to jump in (x)
+	 * @param dy Direction to jump in (y)
+	 * @param goal Tile index of the goal tile
+	 * @return Tile index of the jump point, -1 if a wall is reached first
+	 */
+	private int jump(int x, int y, int dx, int dy, int goal){
+		if(dx == 0 || dy == 0){
+			return jumpStraight(x, y, dx, dy, goal);
+		}
+		while(true){
+			int nextX = x + dx;
+			int nextY = y + dy;
+			//Neighbours of tiles with uniform cost are never outside of the boundaries
+			if(collisionMatrix[nextX][nextY] == Integer.MAX_VALUE || collisionMatrix[nextX][y] == Integer.MAX_VALUE || collisionMatrix[x][nextY] == Integer.MAX_VALUE){
+				return -1;
+			}
+			int next = nextX*columns + nextY;
+			if(next == goal || tileType[next] != TILE_JUMP || jumpStraight(nextX, nextY, dx, 0, goal) >= 0 || jumpStraight(nextX, nextY, 0, dy, goal) >= 0){
+				return next;
+			}
+			x = nextX;
+			y = nextY;
+		}
+	}
+
+	/**
+	 * Jumps in a straight direction with the pre-calculated jump distances (see findJumpDistances).
+	 * @param x X-pos of the tile to jump from (must be a tile with uniform cost around it)
+	 * @param y Y-pos of the tile to jump from
+	 * @param dx Direction to jump in (x)
+	 * @param dy Direction to jump in (y)
+	 * @param goal Tile index of the goal tile
+	 * @return Tile index of the jump point, -1 if a wall is reached first
+	 */
+	private int jumpStraight(int x, int y, int dx, int dy, int goal){
+		int distance = jumpDistance[straightDirection(dx, dy)][x*columns + y];
+		//The goal is a jump point if it is passed (a wall is never passed)
+		int goalX = goal / columns, goalY = goal % columns;
+		int goalSteps = dx != 0 ? (goalY == y ? (goalX - x)*dx : 0) : (goalX == x ? (goalY - y)*dy : 0);
+		if(goalSteps > 0 && goalSteps <= (distance > 0 ? distance : -distance - 1)){
+			return goal;
+		}
+		return distance > 0 ? (x + distance*dx)*columns + y + distance*dy : -1;
+	}
+
+	/**
+	 * Returns the index of a straight direction (in STRAIGHT_X and STRAIGHT_Y).
+	 * @param dx Direction (x)
+	 * @param dy Direction (y)
+	 */
+	private static int straightDirection(int dx, int dy){
+		return dx < 0 ? 0 : dy > 0 ? 1 : dx > 0 ? 2 : 3;
+	}
+
+	/**
+	 * Calculates for every tile with uniform cost around it how far a straight jump in each direction goes:
+	 * the nr of steps to the first tile that is a jump point (a tile where the cost changes around it, or a tile next to a wall that forces a turn),
+	 * or minus the nr of steps to the first wall. The goal is not known here, it is checked when jumping.
+	 */
+	private void findJumpDistances(){
+		for(int dir = 0; dir < STRAIGHT_X.length; dir++){
+			int nrOfLines = STRAIGHT_X[dir] != 0 ? maxTileY+1 : maxTileX+1;
+			for(int line = 0; line < nrOfLines; line++){
+				findJumpDistances(dir, line);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the jump distances of one direction along one line (see findJumpDistances).
+	 * The line is calculated backwards from its end, so that every tile only uses the distance of the next tile.
+	 * @param dir Direction (index in STRAIGHT_X and STRAIGHT_Y)
+	 * @param line Y-pos of the line for directions along x, x-pos for directions along y
+	 */
+	private void findJumpDistances(int dir, int line){
+		int dx = STRAIGHT_X[dir], dy = STRAIGHT_Y[dir];
+		short[] distances = jumpDistance[dir];
+		int length = dx != 0 ? maxTileX+1 : maxTileY+1;
+		//Go against the direction so that the next tile always is calculated first
+		for(int i = 0; i < length; i++){
+			int pos = dx > 0 || dy > 0 ? length-1 - i : i;
+			int x = dx != 0 ? pos : line;
+			int y = dx != 0 ? line : pos;
+			if(tileType[x*columns + y] != TILE_JUMP){
+				continue;
+			}
+			int nextX = x + dx, nextY = y + dy;
+			int next  = nextX*columns + nextY;
+			if(collisionMatrix[nextX][nextY] == Integer.MAX_VALUE){
+				distances[x*columns + y] = -1;
+			}
+			//Next tile is a jump point: the cost changes around it or a wall behind it on an open side forces a turn
+			else if(tileType[next] != TILE_JUMP ||
+					(collisionMatrix[nextX+dy][nextY+dx] != Integer.MAX_VALUE && collisionMatrix[x+dy][y+dx] == Integer.MAX_VALUE) ||
+					(collisionMatrix[nextX-dy][nextY-dx] != Integer.MAX_VALUE && collisionMatrix[x-dy][y-dx] == Integer.MAX_VALUE)){
+				distances[x*columns + y] = 1;
+			}
+			//Very long lines are split by extra jump points so that the distances fit
+			else if(Math.abs(distances[next]) >= Short.MAX_VALUE){
+				distances[x*columns + y] = 1;
+			}
+			else{
+				distances[x*columns + y] = (short)(distances[next] > 0 ? distances[next] + 1 : distances[next] - 1);
+			}
+		}
+	}
+
+	/**
+	 * Updates the tables of how tiles are searched after the costs of tiles have been edited (see TileEdits).
+	 * An edit can change the type of the tile and its neighbours, the jump distances along the lines through them and the moves of its neighbours.
+	 */
+	private void readEdits(){
+		TileEdits edits = OSM_Reader.tileEdits;
+		if(edits == null || edits.getCollisionMatrix() != collisionMatrix || edits.getVersion() == editVersion || (jumpDistance[0] == null && moves == null)){
+			return;
+		}
+		int version = edits.getVersion();
+		int[] tiles = edits.getEditsSince(editVersion);
+		//Too many edits to keep track of, read the whole matrix again
+		if(tiles == null){
+			if(jumpDistance[0] != null){
+				findUniformTiles();
+				findJumpDistances();
+			}
+			if(moves != null){
+				for(int x = 0; x <= maxTileX; x++){
+					for(int y = 0; y <= maxTileY; y++){
+						findMoves(x, y);
+					}
+				}
+			}
+			editVersion = version;
+			return;
+		}
+		for(int tile : tiles){
+			int x = tile / columns;
+			int y = tile % columns;
+			//The moves from the neighbours into the tile or past its corner
+			if(moves != null){
+				for(int nx = Math.max(x-1, 0); nx <= Math.min(x+1, maxTileX); nx++){
+					for(int ny = Math.max(y-1, 0); ny <= Math.min(y+1, maxTileY); ny++){
+						findMoves(nx, ny);
+					}
+				}
+			}
+			if(jumpDistance[0] == null){
+				continue;
+			}
+			for(int nx = Math.max(x-1, 1); nx <= Math.min(x+1, maxTileX-2); nx++){
+				for(int ny = Math.max(y-1, 1); ny <= Math.min(y+1, maxTileY-2); ny++){
+					findTileType(nx, ny);
+				}
+			}
+			for(int line = Math.max(y-1, 0); line <= Math.min(y+1, maxTileY); line++){
+				findJumpDistances(0, line);
+				findJumpDistances(2, line);
+			}
+			for(int line = Math.max(x-1, 0); line <= Math.min(x+1, maxTileX); line++){
+				findJumpDistances(1, line);
+				findJumpDistances(3, line);
+			}
+		}
+		editVersion += tiles.length;
+	}
+
+	/**
+	 * Starts a new search generation, all tiles from previous searches will be treated as unvisited.
+	 */
+	private void nextGeneration(){
+		openList.clear();
+		if(openListBack != null){
+			openListBack.clear();
+		}
+		generation += 2;
+		//Stamps are about to overflow, reset them
+		if(generation >= Integer.MAX_VALUE - 2){
+			Arrays.fill(stamp, 0);
+			if(stampBack != null){
+				Arrays.fill(stampBack, 0);
+			}
+			generation = 2;
+		}
+	}
+}
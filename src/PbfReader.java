@@ -0,0 +1,736 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * PbfReader decodes OSM PBF files (.osm.pbf), the binary format of OpenStreetMap that is about 15 times smaller than the .osm XML
+ * of the same area. The file is a sequence of blobs (zlib compressed protocol buffer messages): a header blob with the bounding box,
+ * followed by data blocks with up to 8000 nodes or ways each. A block has its own string table, its tags refer to the strings by index,
+ * and the nodes are usually dense nodes (ids and positions are stored as deltas in packed arrays).
+ *
+ * The blocks are independent of each other, so they are inflated and decoded by a pool of threads while the blobs are read from the file,
+ * and they are returned in the order of the file (see next). Only the elements that the OSM_Reader uses are decoded: the positions and tags
+ * of the nodes and the node references and tags of the ways (relations and the metadata of the elements are skipped).
+ *
+ * @version 18-10-2026
+ */
+public class PbfReader {
+	public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int BLOCKS_PER_THREAD = 4;	//Max nr of blocks that are read ahead per thread (bounds the memory of the decoded blocks)
+	private static final int MAX_HEADER_SIZE = 64 * 1024;	//Limits of the format
+	private static final int MAX_BLOB_SIZE   = 32 * 1024 * 1024;
+	private static final String[] SUPPORTED_FEATURES = {"OsmSchema-V0.6", "DenseNodes"};
+
+	//Protocol buffer wire types
+	private static final int VARINT = 0;
+	private static final int FIXED64 = 1;
+	private static final int LENGTH_DELIMITED = 2;
+	private static final int FIXED32 = 5;
+
+	private final DataInputStream in;
+	private final boolean decodeNodes;
+	private final boolean decodeWays;
+	private final ThreadPoolExecutor executor;	//Null if the blocks are decoded by the reading thread
+	private final ArrayDeque<Future<Block>> pending = new ArrayDeque<Future<Block>>();	//Blocks that are read but not returned, in file order
+	private final int maxPending;
+	private boolean endOfFile = false;
+
+	//Bounding box of the header (degrees)
+	private boolean hasBounds = false;
+	private double minlat, minlon, maxlat, maxlon;
+
+	/**
+	 * The nodes and ways of a data block, kept in parallel arrays by the index of the element in the block.
+	 * Tags are pairs of indices in the string table of the block (key, value).
+	 */
+	public static class Block {
+		String[] strings;	//String table
+
+		//Nodes
+		int nrOfNodes = 0;
+		long[] nodeIds   = new long[0];
+		double[] nodeLon = new double[0];	//Degrees
+		double[] nodeLat = new double[0];
+		int[] nodeTagStart = {0};	//The tags of node i are at nodeTags[2*nodeTagStart[i]] to nodeTags[2*nodeTagStart[i+1]]
+		int[] nodeTags = new int[0];
+
+		//Ways
+		int nrOfWays = 0;
+		int[] wayRefStart = {0};	//The node references of way i are at wayRefs[wayRefStart[i]] to wayRefs[wayRefStart[i+1]]
+		long[] wayRefs = new long[0];
+		int[] wayTagStart = {0};	//The tags of way i are at wayTags[2*wayTagStart[i]] to wayTags[2*wayTagStart[i+1]]
+		int[] wayTags = new int[0];
+
+		/**
+		 * Adds the tags of an element.
+		 * @param tags Tags of the elements of the block so far
+		 * @param tagStart Index of the first tag of each element
+		 * @param element Index of the element
+		 * @param keys Keys of the tags (string indices)
+		 * @param values Values of the tags (string indices)
+		 * @param nrOfTags Nr of tags
+		 * @return The tags of the elements with the new tags
+		 */
+		private static int[] addTags(int[] tags, int[] tagStart, int element, int[] keys, int[] values, int nrOfTags){
+			int start = tagStart[element];
+			tags = ensureCapacity(tags, 2*(start + nrOfTags));
+			for(int i = 0; i < nrOfTags; i++){
+				tags[2*(start+i)]   = keys[i];
+				tags[2*(start+i)+1] = values[i];
+			}
+			tagStart[element+1] = start + nrOfTags;
+			return tags;
+		}
+
+		/**
+		 * Makes room for more nodes.
+		 * @param count Nr of nodes that the arrays must hold
+		 */
+		private void ensureNodes(int count){
+			if(count > nodeIds.length){
+				int length = Math.max(count, 2*nodeIds.length);
+				nodeIds = Arrays.copyOf(nodeIds, length);
+				nodeLon = Arrays.copyOf(nodeLon, length);
+				nodeLat = Arrays.copyOf(nodeLat, length);
+				nodeTagStart = Arrays.copyOf(nodeTagStart, length+1);
+			}
+		}
+
+		/**
+		 * Makes room for more ways.
+		 * @param count Nr of ways that the arrays must hold
+		 */
+		private void ensureWays(int count){
+			if(count >= wayRefStart.length){
+				int length = Math.max(count+1, 2*wayRefStart.length);
+				wayRefStart = Arrays.copyOf(wayRefStart, length);
+				wayTagStart = Arrays.copyOf(wayTagStart, length);
+			}
+		}
+	}
+
+	/**
+	 * Opens a file and reads its header.
+	 * @param filename The .osm.pbf file
+	 * @param decodeNodes Decode the nodes?
+	 * @param decodeWays Decode the ways?
+	 * @param threads Nr of threads that decode blocks (1 decodes them on the thread that calls next)
+	 * @throws IOException If the file can't be read, is not an OSM PBF file or needs a feature that is not supported
+	 */
+	public PbfReader(String filename, boolean decodeNodes, boolean decodeWays, int threads) throws IOException {
+		this.decodeNodes = decodeNodes;
+		this.decodeWays  = decodeWays;
+		in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16));
+		try{
+			byte[] header = readBlob("OSMHeader");
+			if(header == null){
+				throw new IOException("Not an OSM PBF file (no header): " + filename);
+			}
+			readHeader(inflate(header));
+		}
+		catch(IOException e){
+			in.close();
+			throw e;
+		}
+		if(threads > 1){
+			final AtomicInteger threadNr = new AtomicInteger();
+			executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory(){
+						@Override
+						public Thread newThread(Runnable runnable){
+							Thread thread = new Thread(runnable, "PbfReader-" + threadNr.incrementAndGet());
+							thread.setDaemon(true);	//Never keeps the program running
+							return thread;
+						}
+					});
+		}
+		else{
+			executor = null;
+		}
+		maxPending = BLOCKS_PER_THREAD * Math.max(threads, 1);
+	}
+
+	/**
+	 * Closes the file and stops the threads.
+	 */
+	public void close() throws IOException {
+		if(executor != null){
+			executor.shutdownNow();
+		}
+		pending.clear();
+		in.close();
+	}
+
+	/**
+	 * Decodes a data block (see Block).
+	 * @param data The PrimitiveBlock message
+	 * @return The block
+	 */
+	private Block decodeBlock(byte[] data) throws IOException {
+		Block block = new Block();
+		long granularity = 100, latOffset = 0, lonOffset = 0;
+		int nrOfStrings = 0;
+		byte[][] strings = new byte[256][];
+		int nrOfGroups = 0;
+		int[] groups = new int[8];	//Start and end of each group message
+
+		//The granularity and the offsets follow the groups, so the groups are decoded when the whole block has been read
+		Input input = new Input(data, 0, data.length);
+		while(input.hasMore()){
+			int tag = input.readTag();
+			switch(tag >>> 3){
+				case 1:	//String table
+					Input table = input.readMessage();
+					while(table.hasMore()){
+						if(table.readTag() >>> 3 == 1){
+							if(nrOfStrings == strings.length){
+								strings = Arrays.copyOf(strings, 2*nrOfStrings);
+							}
+							strings[nrOfStrings++] = table.readBytes();
+						}
+						else{
+							table.skip(LENGTH_DELIMITED);
+						}
+					}
+					break;
+				case 2:	//Primitive group
+					int length = input.readLength();
+					if(2*nrOfGroups+1 >= groups.length){
+						groups = Arrays.copyOf(groups, 2*groups.length);
+					}
+					groups[2*nrOfGroups]   = input.position;
+					groups[2*nrOfGroups+1] = input.position + length;
+					nrOfGroups++;
+					input.position += length;
+					break;
+				case 17: granularity = input.readVarint(); break;
+				case 19: latOffset = input.readVarint(); break;
+				case 20: lonOffset = input.readVarint(); break;
+				default: input.skip(tag & 7); break;
+			}
+		}
+		block.strings = new String[nrOfStrings];
+		for(int i = 0; i < nrOfStrings; i++){
+			block.strings[i] = new String(strings[i], StandardCharsets.UTF_8);
+		}
+
+		for(int g = 0; g < nrOfGroups; g++){
+			Input group = new Input(data, groups[2*g], groups[2*g+1]);
+			while(group.hasMore()){
+				int tag = group.readTag();
+				switch(tag >>> 3){
+					case 1: if(decodeNodes)decodeNode(block, group.readMessage(), granularity, latOffset, lonOffset); else group.skip(tag & 7); break;
+					case 2: if(decodeNodes)decodeDenseNodes(block, group.readMessage(), granularity, latOffset, lonOffset); else group.skip(tag & 7); break;
+					case 3: if(decodeWays)decodeWay(block, group.readMessage()); else group.skip(tag & 7); break;
+					default: group.skip(tag & 7); break;	//Relations and changesets are not used
+				}
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * Decodes the dense nodes of a group (ids, positions and tags are packed arrays, ids and positions as deltas).
+	 * @param block Block to add the nodes to
+	 * @param dense The DenseNodes message
+	 * @param granularity Nanodegrees per unit of position
+	 * @param latOffset Offset of the latitudes (nanodegrees)
+	 * @param lonOffset Offset of the longitudes (nanodegrees)
+	 */
+	private static void decodeDenseNodes(Block block, Input dense, long granularity, long latOffset, long lonOffset) throws IOException {
+		Input ids = null, lats = null, lons = null, keysVals = null;
+		while(dense.hasMore()){
+			int tag = dense.readTag();
+			switch(tag >>> 3){
+				case 1:  ids      = dense.readMessage(); break;
+				case 8:  lats     = dense.readMessage(); break;
+				case 9:  lons     = dense.readMessage(); break;
+				case 10: keysVals = dense.readMessage(); break;
+				default: dense.skip(tag & 7); break;	//Metadata (DenseInfo)
+			}
+		}
+		if(ids == null || lats == null || lons == null){
+			return;
+		}
+		int[] keys = new int[8], values = new int[8];
+		long id = 0, lat = 0, lon = 0;
+		while(ids.hasMore()){
+			id  += ids.readSignedVarint();
+			lat += lats.readSignedVarint();
+			lon += lons.readSignedVarint();
+			int n = block.nrOfNodes;
+			block.ensureNodes(n+1);
+			block.nodeIds[n] = id;
+			block.nodeLat[n] = (latOffset + granularity*lat) / 1e9;
+			block.nodeLon[n] = (lonOffset + granularity*lon) / 1e9;
+
+			//The tags of each node are key and value pairs that end with a 0
+			int nrOfTags = 0;
+			while(keysVals != null && keysVals.hasMore()){
+				int key = (int)keysVals.readVarint();
+				if(key == 0){
+					break;
+				}
+				if(nrOfTags == keys.length){
+					keys   = Arrays.copyOf(keys, 2*nrOfTags);
+					values = Arrays.copyOf(values, 2*nrOfTags);
+				}
+				keys[nrOfTags]     = key;
+				values[nrOfTags++] = (int)keysVals.readVarint();
+			}
+			block.nodeTags = Block.addTags(block.nodeTags, block.nodeTagStart, n, keys, values, nrOfTags);
+			block.nrOfNodes++;
+		}
+	}
+
+	/**
+	 * Decodes a node that is not dense.
+	 * @param block Block to add the node to
+	 * @param node The Node message
+	 * @param granularity Nanodegrees per unit of position
+	 * @param latOffset Offset of the latitudes (nanodegrees)
+	 * @param lonOffset Offset of the longitudes (nanodegrees)
+	 */
+	private static void decodeNode(Block block, Input node, long granularity, long latOffset, long lonOffset) throws IOException {
+		long id = 0, lat = 0, lon = 0;
+		Input keys = null, values = null;
+		while(node.hasMore()){
+			int tag = node.readTag();
+			switch(tag >>> 3){
+				case 1: id     = node.readSignedVarint(); break;
+				case 2: keys   = node.readMessage(); break;
+				case 3: values = node.readMessage(); break;
+				case 8: lat    = node.readSignedVarint(); break;
+				case 9: lon    = node.readSignedVarint(); break;
+				default: node.skip(tag & 7); break;
+			}
+		}
+		int n = block.nrOfNodes;
+		block.ensureNodes(n+1);
+		block.nodeIds[n] = id;
+		block.nodeLat[n] = (latOffset + granularity*lat) / 1e9;
+		block.nodeLon[n] = (lonOffset + granularity*lon) / 1e9;
+		int[][] tags = readTags(keys, values);
+		block.nodeTags = Block.addTags(block.nodeTags, block.nodeTagStart, n, tags[0], tags[1], tags[0].length);
+		block.nrOfNodes++;
+	}
+
+	/**
+	 * Decodes a way (its node references are deltas).
+	 * @param block Block to add the way to
+	 * @param way The Way message
+	 */
+	private static void decodeWay(Block block, Input way) throws IOException {
+		Input keys = null, values = null, refs = null;
+		while(way.hasMore()){
+			int tag = way.readTag();
+			switch(tag >>> 3){
+				case 2: keys   = way.readMessage(); break;
+				case 3: values = way.readMessage(); break;
+				case 8: refs   = way.readMessage(); break;
+				default: way.skip(tag & 7); break;	//Id, metadata and positions of the nodes
+			}
+		}
+		int w = block.nrOfWays;
+		block.ensureWays(w+1);
+		int nrOfRefs = block.wayRefStart[w];
+		long ref = 0;
+		while(refs != null && refs.hasMore()){
+			ref += refs.readSignedVarint();
+			block.wayRefs = ensureCapacity(block.wayRefs, nrOfRefs+1);
+			block.wayRefs[nrOfRefs++] = ref;
+		}
+		block.wayRefStart[w+1] = nrOfRefs;
+		int[][] tags = readTags(keys, values);
+		block.wayTags = Block.addTags(block.wayTags, block.wayTagStart, w, tags[0], tags[1], tags[0].length);
+		block.nrOfWays++;
+	}
+
+	/**
+	 * Returns an array that can hold a nr of values (the same array if it is large enough).
+	 * @param array The array
+	 * @param capacity Nr of values
+	 */
+	private static int[] ensureCapacity(int[] array, int capacity){
+		return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, 2*array.length));
+	}
+
+	/**
+	 * Returns an array that can hold a nr of values (the same array if it is large enough).
+	 * @param array The array
+	 * @param capacity Nr of values
+	 */
+	private static long[] ensureCapacity(long[] array, int capacity){
+		return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, 2*array.length));
+	}
+
+	/**
+	 * Returns the latitude of the northern edge of the bounding box (degrees).
+	 */
+	public double getMaxLat(){
+		return maxlat;
+	}
+
+	/**
+	 * Returns the longitude of the eastern edge of the bounding box (degrees).
+	 */
+	public double getMaxLon(){
+		return maxlon;
+	}
+
+	/**
+	 * Returns the latitude of the southern edge of the bounding box (degrees).
+	 */
+	public double getMinLat(){
+		return minlat;
+	}
+
+	/**
+	 * Returns the longitude of the western edge of the bounding box (degrees).
+	 */
+	public double getMinLon(){
+		return minlon;
+	}
+
+	/**
+	 * Returns true if the header of the file has a bounding box.
+	 */
+	public boolean hasBounds(){
+		return hasBounds;
+	}
+
+	/**
+	 * Returns true if a file is an OSM PBF file (by its extension, e.g. map.osm.pbf).
+	 * @param filename Name of the file
+	 */
+	public static boolean isPbfFile(String filename){
+		return filename.toLowerCase(Locale.ROOT).endsWith(".pbf");
+	}
+
+	/**
+	 * Returns the data of a blob uncompressed.
+	 * @param blob The Blob message
+	 */
+	private static byte[] inflate(byte[] blob) throws IOException {
+		Input input = new Input(blob, 0, blob.length);
+		byte[] raw = null, zlib = null;
+		int rawSize = 0;
+		while(input.hasMore()){
+			int tag = input.readTag();
+			switch(tag >>> 3){
+				case 1: raw = input.readBytes(); break;
+				case 2: rawSize = (int)input.readVarint(); break;
+				case 3: zlib = input.readBytes(); break;
+				case 4: case 5: case 6: case 7:
+					throw new IOException("Unsupported compression of an OSM PBF blob (only zlib is supported)");
+				default: input.skip(tag & 7); break;
+			}
+		}
+		if(raw != null){
+			return raw;
+		}
+		if(zlib == null){
+			throw new IOException("Empty OSM PBF blob");
+		}
+		if(rawSize < 0 || rawSize > MAX_BLOB_SIZE){
+			throw new IOException("OSM PBF blob is too large: " + rawSize + " bytes");
+		}
+		Inflater inflater = new Inflater();
+		try{
+			inflater.setInput(zlib);
+			byte[] data = new byte[rawSize];
+			int length = 0;
+			while(length < rawSize && !inflater.finished()){
+				int n = inflater.inflate(data, length, rawSize - length);
+				if(n == 0 && (inflater.needsInput() || inflater.needsDictionary())){
+					throw new IOException("Truncated OSM PBF blob");
+				}
+				length += n;
+			}
+			if(length != rawSize){
+				throw new IOException("Truncated OSM PBF blob");
+			}
+			return data;
+		}
+		catch(DataFormatException e){
+			throw new IOException("Corrupt OSM PBF blob", e);
+		}
+		finally{
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Returns the next data block in the order of the file. While the block is returned, the following blocks are decoded by the threads.
+	 * @return The block, null at the end of the file
+	 * @throws IOException If the file can't be read or a block is corrupt
+	 */
+	public Block next() throws IOException {
+		while(!endOfFile && pending.size() < maxPending){
+			final byte[] blob = readBlob("OSMData");
+			if(blob == null){
+				break;
+			}
+			Callable<Block> decode = new Callable<Block>(){
+				@Override
+				public Block call() throws IOException {
+					return decodeBlock(inflate(blob));
+				}
+			};
+			if(executor != null){
+				pending.add(executor.submit(decode));
+			}
+			else{
+				FutureTask<Block> task = new FutureTask<Block>(decode);
+				task.run();
+				pending.add(task);
+			}
+		}
+		Future<Block> future = pending.poll();
+		if(future == null){
+			return null;
+		}
+		try{
+			return future.get();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decoding an OSM PBF block");
+		}
+		catch(ExecutionException e){
+			if(e.getCause() instanceof IOException){
+				throw (IOException)e.getCause();
+			}
+			throw new IOException("Corrupt OSM PBF block", e.getCause());
+		}
+	}
+
+	/**
+	 * Reads the next blob of a type from the file (blobs of other types are skipped).
+	 * @param type Type of the blob ("OSMHeader" or "OSMData")
+	 * @return The Blob message, null at the end of the file
+	 */
+	private byte[] readBlob(String type) throws IOException {
+		while(true){
+			int headerSize;
+			try{
+				headerSize = in.readInt();
+			}
+			catch(EOFException e){
+				endOfFile = true;
+				return null;
+			}
+			if(headerSize < 0 || headerSize > MAX_HEADER_SIZE){
+				throw new IOException("Not an OSM PBF file (blob header of " + headerSize + " bytes)");
+			}
+			byte[] header = new byte[headerSize];
+			in.readFully(header);
+			String blobType = null;
+			int blobSize = -1;
+			Input input = new Input(header, 0, headerSize);
+			while(input.hasMore()){
+				int tag = input.readTag();
+				switch(tag >>> 3){
+					case 1: blobType = new String(input.readBytes(), StandardCharsets.UTF_8); break;
+					case 3: blobSize = (int)input.readVarint(); break;
+					default: input.skip(tag & 7); break;
+				}
+			}
+			if(blobSize < 0 || blobSize > MAX_BLOB_SIZE){
+				throw new IOException("Not an OSM PBF file (blob of " + blobSize + " bytes)");
+			}
+			byte[] blob = new byte[blobSize];
+			in.readFully(blob);
+			if(type.equals(blobType)){
+				return blob;
+			}
+		}
+	}
+
+	/**
+	 * Reads the bounding box and checks the required features of the HeaderBlock.
+	 * @param data The HeaderBlock message
+	 */
+	private void readHeader(byte[] data) throws IOException {
+		Input input = new Input(data, 0, data.length);
+		while(input.hasMore()){
+			int tag = input.readTag();
+			switch(tag >>> 3){
+				case 1:	//Bounding box (nanodegrees)
+					Input bbox = input.readMessage();
+					while(bbox.hasMore()){
+						int field = bbox.readTag();
+						switch(field >>> 3){
+							case 1: minlon = bbox.readSignedVarint() / 1e9; break;
+							case 2: maxlon = bbox.readSignedVarint() / 1e9; break;
+							case 3: maxlat = bbox.readSignedVarint() / 1e9; break;
+							case 4: minlat = bbox.readSignedVarint() / 1e9; break;
+							default: bbox.skip(field & 7); break;
+						}
+					}
+					hasBounds = true;
+					break;
+				case 4:	//Required feature
+					String feature = new String(input.readBytes(), StandardCharsets.UTF_8);
+					if(!Arrays.asList(SUPPORTED_FEATURES).contains(feature)){
+						throw new IOException("The OSM PBF file requires an unsupported feature: " + feature);
+					}
+					break;
+				default: input.skip(tag & 7); break;
+			}
+		}
+	}
+
+	/**
+	 * Reads the keys and values of the tags of a node or way (packed string indices).
+	 * @param keys Packed keys (null if there are no tags)
+	 * @param values Packed values
+	 * @return The keys and the values
+	 */
+	private static int[][] readTags(Input keys, Input values) throws IOException {
+		if(keys == null || values == null){
+			return new int[2][0];
+		}
+		int[] keyArray = new int[8], valueArray = new int[8];
+		int nrOfTags = 0;
+		while(keys.hasMore() && values.hasMore()){
+			if(nrOfTags == keyArray.length){
+				keyArray   = Arrays.copyOf(keyArray, 2*nrOfTags);
+				valueArray = Arrays.copyOf(valueArray, 2*nrOfTags);
+			}
+			keyArray[nrOfTags]     = (int)keys.readVarint();
+			valueArray[nrOfTags++] = (int)values.readVarint();
+		}
+		return new int[][]{Arrays.copyOf(keyArray, nrOfTags), Arrays.copyOf(valueArray, nrOfTags)};
+	}
+
+	/**
+	 * A protocol buffer message (or packed array) in a byte array, read from the start to the end.
+	 */
+	private static class Input {
+		private final byte[] data;
+		private int position;
+		private final int end;
+
+		/**
+		 * Creates an input of a part of an array.
+		 * @param data The array
+		 * @param start Index of the first byte
+		 * @param end Index after the last byte
+		 */
+		Input(byte[] data, int start, int end){
+			this.data = data;
+			this.position = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns true if there are more bytes to read.
+		 */
+		boolean hasMore(){
+			return position < end;
+		}
+
+		/**
+		 * Reads the value of a length delimited field as an array.
+		 */
+		byte[] readBytes() throws IOException {
+			int length = readLength();
+			byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+			position += length;
+			return bytes;
+		}
+
+		/**
+		 * Reads the length of a length delimited field.
+		 */
+		int readLength() throws IOException {
+			long length = readVarint();
+			if(length < 0 || length > end - position){
+				throw new IOException("Corrupt OSM PBF data (field of " + length + " bytes)");
+			}
+			return (int)length;
+		}
+
+		/**
+		 * Reads the value of a length delimited field (a message or a packed array) as an input.
+		 */
+		Input readMessage() throws IOException {
+			int length = readLength();
+			Input message = new Input(data, position, position + length);
+			position += length;
+			return message;
+		}
+
+		/**
+		 * Reads a zigzag encoded varint (sint32 and sint64).
+		 */
+		long readSignedVarint() throws IOException {
+			long value = readVarint();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		/**
+		 * Reads the key of a field (field nr << 3 | wire type).
+		 */
+		int readTag() throws IOException {
+			return (int)readVarint();
+		}
+
+		/**
+		 * Reads a varint (7 bits per byte, least significant byte first).
+		 */
+		long readVarint() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < 64; shift += 7){
+				if(position >= end){
+					throw new IOException("Corrupt OSM PBF data (truncated varint)");
+				}
+				byte b = data[position++];
+				value |= (long)(b & 0x7F) << shift;
+				if(b >= 0){
+					return value;
+				}
+			}
+			throw new IOException("Corrupt OSM PBF data (varint is too long)");
+		}
+
+		/**
+		 * Skips the value of a field.
+		 * @param wireType Wire type of the field
+		 */
+		void skip(int wireType) throws IOException {
+			switch(wireType){
+				case VARINT:           readVarint(); break;
+				case FIXED64:          position += 8; break;
+				case LENGTH_DELIMITED:
+					int length = readLength();	//Read before the position is added to
+					position += length;
+					break;
+				case FIXED32:          position += 4; break;
+				default: throw new IOException("Corrupt OSM PBF data (wire type " + wireType + ")");
+			}
+			if(position > end){
+				throw new IOException("Corrupt OSM PBF data (truncated field)");
+			}
+		}
+	}
+}
@@ -1,10 +1,12 @@
 import java.awt.Color;
 import java.util.LinkedList;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A Pedestrian is an object used to represent a simulated pedestrian.
  * It has different variables for controlling things like its color, speed and "needs".
+ * The frequently updated state (position, interpolation, needs and status) is kept in the AgentStore of the engine,
+ * this object decides where to go and gives the UI a view of the state.
  * 
  * @author Christoffer Wiss & Robert Wideberg
  * @version 09-08-2013
@@ -17,12 +19,8 @@ public class Pedestrian {
 	
 	//Basic needs
 	private static enum BasicNeeds {HUNGER,TOILET,WASTE,CAFE,SHOP,BANK}; 
-	private LinkedList<Float> basicNeeds;
-	private Boolean[] needStatus;
+	private boolean[] needStatus;		//Which needs that can be fulfilled at this map
 	private int currentNeedIndex = -1;
-	private long arriveTime;            //At what time did Pedestrian arrive at target? In Simulator-Minutes  
-	private int currentWaitTime;        //How long should we wait at target (to carry out need)
-	private boolean isWalking = false;	//Pedestrian is on his/her way somewhere
 
 	//At tile needs increase
 	private float hungerNeedIncrease = 0.006f;
@@ -40,109 +38,98 @@ public class Pedestrian {
 	private float shopBankIncrease        = 0.5f;
 	
 	//At target needs decrease
-	private final float cafeFoodDecrease = 0.1f;
+	private static final float cafeFoodDecrease = 0.1f;
 	
 	//Time at target (how long should it take to carry out the need?) (In Simulator-Minutes )
-	private final int fastFoodTime   = 5;
-	private final int restaurantTime = 20;
-	private final int toiletTime     = 1;
-	private final int cafeTime       = 15;
-	private final int shopTime       = 5;
-	private final int wasteTime      = 0;
-	private final int bankTime       = 1;
+	private static final int fastFoodTime   = 5;
+	private static final int restaurantTime = 20;
+	private static final int toiletTime     = 1;
+	private static final int cafeTime       = 15;
+	private static final int shopTime       = 5;
+	private static final int wasteTime      = 0;
+	private static final int bankTime       = 1;
 	
 	//Near-path check
-	private LinkedList<Node> currentPath;
-	private boolean avoiding = false;
-	private final double EPSILON = 1E-14;
+	private PathCursor currentPath;
+	private static ThreadLocal<int[][]> lookAheadBuffers = new ThreadLocal<int[][]>();	//Collision positions of the next nodes (see linearizePath)
+	private static final double EPSILON = 1E-14;
 	
 	//Pathfinding
-	private Pathfinder pathfinder;
-	private int collisionPosX;				//Pedestrian's position inside of the collision matrix (i.e current "tile" x-wise)
-	private int collisionPosY;				//Pedestrian's position inside of the collision matrix (i.e current "tile" y-wise)
-	private int targetCollisionPosX;		//Target position inside of the collision matrix (x-wise)
-	private int targetCollisionPosY;		//Target position inside of the collision matrix (y-wise)
+	private static ThreadLocal<Pathfinder> pathfinders = new ThreadLocal<Pathfinder>();	//Shared by all pedestrians of a thread (so that the search buffers are only allocated once per thread)
+	private PathPlanner.Request pathRequest;	//Path that is being searched for in the background (null if none, see PathPlanner)
 	private int[][] collisionMatrix;
 	private float scaleCollision;
 	
+	//Simulation
+	private SimulationEngine engine;	//Engine that runs the simulation that this Pedestrian is part of
+	private AgentStore agents;			//Holds the position, interpolation, needs and status of this Pedestrian (and all others of the engine)
+	private int index;					//Index of this Pedestrian in the AgentStore
+	private SimulationClock clock;
+	
 	//Interpolation
-	private final int AVOID_LENGTH = 2*PedestriansSimulator.PEDESTRIAN_RADIUS; //Length of avoiding action that pedestrians use in order to avoid collisions
-	private double updatePosX;	//Approximately how many pixels in the x-axis that Pedestrian should be moved at each interpolation update
-	private double updatePosY;	//Approximately how many pixels in the y-axis that Pedestrian should be moved at each interpolation update 
-	private double renderPosX;
-	private double renderPosY;
-	private double interpolationProgress = 0;
-	private final int INTERPOLATION_OFFSET = 10;
-	private double interpolationLength;
-	private double degree;
-	private double interpolationStep;
+	private static final int AVOID_LENGTH = 2*PedestriansSimulator.PEDESTRIAN_RADIUS; //Length of avoiding action that pedestrians use in order to avoid collisions
+	private static final int INTERPOLATION_OFFSET = 10;
 	
 	//Schedule
 	private LinkedList<ScheduleEvent> schedule;
-	private int wakeHour;
-	private int wakeMinute;
 	private int sleepHour;
 	private int sleepMinute;
-	private boolean sleeping = true;
-	private boolean scheduleEvent = false;
 	private Node start;
 	
 	//The min and max nr of hours that different events could take
-	private final float STUDY_DURATION_MIN      = 1;
-	private final float STUDY_DURATION_MAX      = 4;
-	private final float RESEARCH_DURATION_MIN   = 2; 
-	private final float RESEARCH_DURATION_MAX   = 4; 
-	private final float DOCTORS_APPOINTMENT_MIN = 0.1f;
-	private final float DOCTORS_APPOINTMENT_MAX = 1;
-	
-	//Misc
-	Random randomGenerator;
+	private static final float STUDY_DURATION_MIN      = 1;
+	private static final float STUDY_DURATION_MAX      = 4;
+	private static final float RESEARCH_DURATION_MIN   = 2; 
+	private static final float RESEARCH_DURATION_MAX   = 4; 
+	private static final float DOCTORS_APPOINTMENT_MIN = 0.1f;
+	private static final float DOCTORS_APPOINTMENT_MAX = 1;
 	
 	/**
 	 * Initializes a new pedestrians with input values.
 	 * @param startX X-value for starting position
 	 * @param startY Y-value for starting position
-	 * @param collisionMatrix A reference to the collisionMatrix (used when moving)
+	 * @param engine The engine that runs the simulation (gives the collisionMatrix, time and map cells)
 	 * @param type The type of Pedestrians that we wish to create (will affect its schedule)
 	 * @param id The id that will be associated with this Pedestrian
 	 */
-	public Pedestrian(int startX, int startY, int[][] collisionMatrix, PedestriansSimulator.PEDESTRIAN_TYPE type, int id){
-		currentPath = new LinkedList<Node>();
+	public Pedestrian(int startX, int startY, SimulationEngine engine, PedestriansSimulator.PEDESTRIAN_TYPE type, int id){
+		currentPath = new PathCursor(OSM_Reader.scaleCollision);
 		schedule = new LinkedList<ScheduleEvent>();
-		randomGenerator = new Random();
-		basicNeeds = new LinkedList<Float>();
-		needStatus = new Boolean[BasicNeeds.values().length];
+		needStatus = new boolean[BasicNeeds.values().length];
 		
-		this.collisionMatrix = collisionMatrix; //Reference to collisionMatrix
-		pathfinder = new Pathfinder(collisionMatrix);
+		this.engine = engine;
+		agents = engine.getAgentStore();
+		index  = agents.add();
+		clock = engine.getClock();
+		collisionMatrix = engine.getCollisionMatrix(); //Reference to collisionMatrix
 		scaleCollision = OSM_Reader.scaleCollision;
 		this.type  = type;
 		myColor = type.color();
-		renderPosX = startX;
-		renderPosY = startY;
-		collisionPosX = Math.round(scaleCollision * startX);
-		collisionPosY = Math.round(scaleCollision * startY);
+		agents.renderPosX[index] = startX;
+		agents.renderPosY[index] = startY;
+		agents.collisionPosX[index] = Math.round(scaleCollision * startX);
+		agents.collisionPosY[index] = Math.round(scaleCollision * startY);
 		myId = id;
 		
 		//Introduce some randomness to the needs parameters
 		//At tile increase
-		hungerNeedIncrease = (float) (hungerNeedIncrease + Math.abs(randomGenerator.nextGaussian()*(hungerNeedIncrease/2)));
-		toiletNeedIncrease = (float) (toiletNeedIncrease + Math.abs(randomGenerator.nextGaussian()*(toiletNeedIncrease/2)));
-		cafeNeedIncrease   = (float) (cafeNeedIncrease + Math.abs(randomGenerator.nextGaussian()*(cafeNeedIncrease/2)));
-		shopNeedIncrease   = (float) (shopNeedIncrease + Math.abs(randomGenerator.nextGaussian()*(shopNeedIncrease/2)));
+		hungerNeedIncrease = (float) (hungerNeedIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(hungerNeedIncrease/2)));
+		toiletNeedIncrease = (float) (toiletNeedIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(toiletNeedIncrease/2)));
+		cafeNeedIncrease   = (float) (cafeNeedIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(cafeNeedIncrease/2)));
+		shopNeedIncrease   = (float) (shopNeedIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(shopNeedIncrease/2)));
 		
 		//At target increase
-		fastFoodWasteIncrease   = (float) (fastFoodWasteIncrease + Math.abs(randomGenerator.nextGaussian()*(fastFoodWasteIncrease/2)));
-		foodToiletIncrease      = (float) (foodToiletIncrease + Math.abs(randomGenerator.nextGaussian()*(foodToiletIncrease/2)));
-		cafeToiletIncrease      = (float) (cafeToiletIncrease + Math.abs(randomGenerator.nextGaussian()*(cafeToiletIncrease/2)));
-		cafeBankIncrease        = (float) (cafeBankIncrease + Math.abs(randomGenerator.nextGaussian()*(cafeBankIncrease/2)));
-		restaurantBankIncrease  = (float) (restaurantBankIncrease + Math.abs(randomGenerator.nextGaussian()*(restaurantBankIncrease/2)));
-		fastFoodBankIncrease    = (float) (fastFoodBankIncrease + Math.abs(randomGenerator.nextGaussian()*(fastFoodBankIncrease/2)));
-		shopBankIncrease        = (float) (shopBankIncrease + Math.abs(randomGenerator.nextGaussian()*(shopBankIncrease/2)));
+		fastFoodWasteIncrease   = (float) (fastFoodWasteIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(fastFoodWasteIncrease/2)));
+		foodToiletIncrease      = (float) (foodToiletIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(foodToiletIncrease/2)));
+		cafeToiletIncrease      = (float) (cafeToiletIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(cafeToiletIncrease/2)));
+		cafeBankIncrease        = (float) (cafeBankIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(cafeBankIncrease/2)));
+		restaurantBankIncrease  = (float) (restaurantBankIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(restaurantBankIncrease/2)));
+		fastFoodBankIncrease    = (float) (fastFoodBankIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(fastFoodBankIncrease/2)));
+		shopBankIncrease        = (float) (shopBankIncrease + Math.abs(ThreadLocalRandom.current().nextGaussian()*(shopBankIncrease/2)));
 		
 		//Init. basic needs
-		for(@SuppressWarnings("unused") BasicNeeds b : BasicNeeds.values()){
-			basicNeeds.add(randomGenerator.nextFloat());
+		for(BasicNeeds b : BasicNeeds.values()){
+			setNeed(b.ordinal(), ThreadLocalRandom.current().nextFloat());
 		}
 		
 		//Check which needs that can not be fulfilled at this map
@@ -153,7 +140,7 @@ public class Pedestrian {
 		needStatus[BasicNeeds.BANK.ordinal()] = !OSM_Reader.targets.get(OSM_Reader.TargetEnums.BANK_I.ordinal()).isEmpty();
 		needStatus[BasicNeeds.WASTE.ordinal()] = !OSM_Reader.targets.get(OSM_Reader.TargetEnums.WASTE_I.ordinal()).isEmpty();
 		
-		start = new Node((int)Math.round(renderPosX),(int)Math.round(renderPosY));
+		start = new Node((int)Math.round(agents.renderPosX[index]),(int)Math.round(agents.renderPosY[index]));
 		
 		generateTarget();
 		
@@ -169,13 +156,13 @@ public class Pedestrian {
 	 */
 	public void avoidCollision(int p2PosX, int p2PosY, int avoidLengthMultitude, int intersectionLength){	
 		//Make sure that pedestrian isn't already doing an avoiding action
-		if(!avoiding){
+		if(!agents.avoiding[index]){
 			//Move pedestrian back from collision (so that it is no longer intersecting)
-			renderPosX -= Math.cos(degree)*intersectionLength;
-			renderPosY -= Math.sin(degree)*intersectionLength;
+			agents.renderPosX[index] -= Math.cos(agents.degree[index])*intersectionLength;
+			agents.renderPosY[index] -= Math.sin(agents.degree[index])*intersectionLength;
 			
-			interpolationProgress = 0;
-			interpolationLength = AVOID_LENGTH*avoidLengthMultitude;
+			agents.interpolationProgress[index] = 0;
+			agents.interpolationLength[index] = AVOID_LENGTH*avoidLengthMultitude;
 			
 			//Calculate avoidance position
 			int newPosX = getPosX() - p2PosX;
@@ -188,24 +175,25 @@ public class Pedestrian {
 			double separationX = (newPosX*invPow)/vecLength;  
 			double separationY = (newPosY*invPow)/vecLength;
 			
-			double originalDegree = degree;
-			degree = Math.atan2(separationY, separationX);
+			double originalDegree = agents.degree[index];
+			agents.degree[index] = Math.atan2(separationY, separationX);
 			
 			//Since avoiding action likely will be the opposite way of target, weigh in original direction in order to produce a better avoiding direction  
-			degree = (originalDegree*0.4 + degree*0.6);
+			agents.degree[index] = (originalDegree*0.4 + agents.degree[index]*0.6);
 			
 			//Make sure that interpolation is at maximum the length of the interpolation line
-			if(PedestriansSimulator.PEDESTRIAN_SPEED > interpolationLength){
-				updatePosX = Math.cos(degree)*interpolationLength;
-				updatePosY = Math.sin(degree)*interpolationLength;				
+			if(engine.getPedestrianSpeed() > agents.interpolationLength[index]){
+				agents.updatePosX[index] = Math.cos(agents.degree[index])*agents.interpolationLength[index];
+				agents.updatePosY[index] = Math.sin(agents.degree[index])*agents.interpolationLength[index];				
 			}
 			else{
-				updatePosX = Math.cos(degree)*PedestriansSimulator.PEDESTRIAN_SPEED;
-				updatePosY = Math.sin(degree)*PedestriansSimulator.PEDESTRIAN_SPEED;
+				agents.updatePosX[index] = Math.cos(agents.degree[index])*engine.getPedestrianSpeed();
+				agents.updatePosY[index] = Math.sin(agents.degree[index])*engine.getPedestrianSpeed();
 			}
-			interpolationStep = Math.sqrt(Math.pow(updatePosX, 2) + Math.pow(updatePosY, 2));
-			avoiding = true;
-			currentPath.addFirst(new Node((int)Math.round(renderPosX),(int)Math.round(renderPosY)));
+			agents.interpolationStep[index] = Math.sqrt(Math.pow(agents.updatePosX[index], 2) + Math.pow(agents.updatePosY[index], 2));
+			agents.avoiding[index] = true;
+			resolvePath();
+			currentPath.addFirst((int)Math.round(agents.renderPosX[index]),(int)Math.round(agents.renderPosY[index]));
 		}
 	}
 	
@@ -236,7 +224,7 @@ public class Pedestrian {
 	 * @return	True if the time has passed else False
 	 */
 	private boolean checkTime(int hour, int minute){
-		if(hour <= Frame.clock.getHour() && minute <= Frame.clock.getMinute()){			
+		if(hour <= clock.getHour() && minute <= clock.getMinute()){			
 			return true;
 		}
 		return false;
@@ -247,8 +235,8 @@ public class Pedestrian {
 	 * @return Boolean value signaling if we are done waiting at the target.
 	 */
 	public boolean doneAtTarget(){
-		long currentTime = Frame.clock.getNrMinutes();
-		if(currentTime-arriveTime >= currentWaitTime){
+		long currentTime = clock.getNrMinutes();
+		if(currentTime-agents.arriveTime[index] >= agents.waitTime[index]){
 			return true;
 		}
 		else{
@@ -263,13 +251,13 @@ public class Pedestrian {
 	 */
 	private Node findNearestTarget(LinkedList<Node> targets){
 		Node closest = targets.getFirst();		
-		int xdist = (int)Math.round(Math.abs(renderPosX - closest.getXPos()));
-		int ydist = (int)Math.round(Math.abs(renderPosY - closest.getYPos()));;
+		int xdist = (int)Math.round(Math.abs(agents.renderPosX[index] - closest.getXPos()));
+		int ydist = (int)Math.round(Math.abs(agents.renderPosY[index] - closest.getYPos()));;
 		int mindist = (int)Math.round(Math.sqrt(Math.pow(xdist,2)+Math.pow(ydist, 2)));
 		int distance;
 		for(int i = 1; i < targets.size(); i++){
-			xdist = (int)Math.round(Math.abs(renderPosX - targets.get(i).getXPos()));
-			ydist = (int)Math.round(Math.abs(renderPosY - targets.get(i).getYPos()));
+			xdist = (int)Math.round(Math.abs(agents.renderPosX[index] - targets.get(i).getXPos()));
+			ydist = (int)Math.round(Math.abs(agents.renderPosY[index] - targets.get(i).getYPos()));
 			distance = (int)Math.round(Math.sqrt(Math.pow(xdist,2)+Math.pow(ydist, 2)));
 			if(distance < mindist){
 				mindist = distance;
@@ -280,28 +268,120 @@ public class Pedestrian {
 	}
 	
 	/**
-	 * Tries to first locate a precalculated path, else calculates the path between current collision pos and target collision pos.
+	 * Marks the path to the current target as outdated. The path is calculated first when it is needed (see resolvePath),
+	 * so a target that is replaced before the pedestrian starts walking (e.g. the home target given at creation) never costs a search.
 	 */
 	private void findPath(){
-		String key = collisionPosX + "," + collisionPosY + "-" + targetCollisionPosX + "," + targetCollisionPosY;
-		//Use precalculated path if it exists
-		if(OSM_Reader.preCalculatedPaths.containsKey(key)){
-			currentPath.clear();
-			currentPath.addAll(OSM_Reader.preCalculatedPaths.get(key));
+		agents.pathPending[index] = true;
+	}
+	
+	/**
+	 * Calculates the path to the current target if it is outdated.
+	 * Follows the flow field of the target if it is a hot target (see FlowFieldCache), else uses the IncrementalPathfinder of the target
+	 * if paths to it have been invalidated by edited tile costs (see TileEdits), else tries to locate a cached path (see PathCache)
+	 * and else calculates the path between current collision pos and target collision pos (hierarchically on large maps, see HierarchicalPathfinder).
+	 * If the engine has a PathPlanner the path is instead requested from the planner, the path stays outdated until the result has been published.
+	 * @return True if the path is up to date, false if it is being searched for in the background
+	 */
+	private boolean resolvePath(){
+		//Take the result of the background search (unless it is for another start or target or used old tile costs, then search again)
+		if(pathRequest != null){
+			if(!pathRequest.isDone()){
+				return false;
+			}
+			PathPlanner.Request request = pathRequest;
+			pathRequest = null;
+			if(!request.isDropped() && !request.isOutdated() && request.matches(agents.collisionPosX[index], agents.collisionPosY[index], agents.targetCollisionPosX[index], agents.targetCollisionPosY[index])){
+				agents.pathPending[index] = false;
+				//Keep walking the old path if no path could be found
+				if(request.getRoute() != null){
+					currentPath.set(request.getRoute());
+				}
+				else if(request.getPath() != null){
+					currentPath.set(request.getPath());
+				}
+				return true;
+			}
+		}
+		if(!agents.pathPending[index]){
+			return true;
+		}
+		agents.pathPending[index] = false;
+		FlowFieldCache flowFields = OSM_Reader.flowFields;
+		if(flowFields != null){
+			FlowField field = flowFields.get(agents.targetCollisionPosX[index], agents.targetCollisionPosY[index]);
+			if(field != null && field.getSteps(agents.collisionPosX[index], agents.collisionPosY[index]) >= 0){
+				currentPath.set(field, agents.collisionPosX[index], agents.collisionPosY[index]);
+				return true;
+			}
+		}
+		TileEdits edits = OSM_Reader.tileEdits;
+		IncrementalPathfinder incrementalPathfinder = edits != null ? edits.getPathfinder(agents.targetCollisionPosX[index], agents.targetCollisionPosY[index]) : null;
+		if(incrementalPathfinder != null){
+			CompactPath path;
+			synchronized(incrementalPathfinder){
+				path = incrementalPathfinder.findPath(agents.collisionPosX[index], agents.collisionPosY[index]);
+			}
+			//Keep walking the old path if no path could be found
+			if(path != null){
+				currentPath.set(path);
+			}
+			return true;
 		}
-		else{		
-			pathfinder.findPath(collisionPosX,collisionPosY,targetCollisionPosX,targetCollisionPosY,currentPath);
+		long key = PathCache.key(agents.collisionPosX[index], agents.collisionPosY[index], agents.targetCollisionPosX[index], agents.targetCollisionPosY[index]);
+		//Use precalculated (or earlier found) path if it exists, else search and remember it
+		CompactPath path = OSM_Reader.pathCache.get(key);
+		//Search in the background and wait for the result
+		PathPlanner planner = engine.getPathPlanner();
+		if(path == null && planner != null){
+			pathRequest = planner.submit(agents.collisionPosX[index],agents.collisionPosY[index],agents.targetCollisionPosX[index],agents.targetCollisionPosY[index]);
+			agents.pathPending[index] = true;
+			return false;
+		}
+		//Large maps are searched hierarchically, the path is refined while walking and is not cached
+		if(path == null && OSM_Reader.hierarchicalPathfinder != null){
+			HierarchicalPath route = OSM_Reader.hierarchicalPathfinder.findPath(agents.collisionPosX[index],agents.collisionPosY[index],agents.targetCollisionPosX[index],agents.targetCollisionPosY[index]);
+			//Keep walking the old path if no path could be found
+			if(route != null){
+				currentPath.set(route);
+			}
+			return true;
+		}
+		if(path == null){
+			path = getPathfinder().findPath(agents.collisionPosX[index],agents.collisionPosY[index],agents.targetCollisionPosX[index],agents.targetCollisionPosY[index]);
+			if(path != null){
+				OSM_Reader.pathCache.put(key, path);
+			}
+		}
+		//Keep walking the old path if no path could be found
+		if(path != null){
+			currentPath.set(path);
+		}
+		return true;
+	}
+	
+	/**
+	 * Marks the path as outdated if it passes a tile whose cost was raised by the latest tile edits (see TileEdits).
+	 * The path is then repaired by the IncrementalPathfinder of the target (see resolvePath), which is shared by all pedestrians that walk to the target.
+	 * Called by the SimulationEngine between two steps, paths that already are outdated (or searched for in the background) are left as they are.
+	 * @param edits The edits
+	 */
+	public void repairPath(TileEdits edits){
+		if(agents.pathPending[index] || !agents.walking[index] || !currentPath.passesRaisedTile(edits)){
+			return;
 		}
+		agents.pathPending[index] = true;
+		edits.addPathfinder(agents.targetCollisionPosX[index], agents.targetCollisionPosY[index]);
 	}
 	
 	/**
 	 * Generates a schedule for the Pedestrian by filling it with Pedestrian type specific events.
 	 */
 	private void generateSchedule(){
-		float startHour   = wakeHour + wakeMinute/60f;
-		float currentHour = startHour + randomGenerator.nextFloat()*0.5f; //Make sure that Pedestrian do not have a scheduled event at start
+		float startHour   = agents.wakeHour[index] + agents.wakeMinute[index]/60f;
+		float currentHour = startHour + ThreadLocalRandom.current().nextFloat()*0.5f; //Make sure that Pedestrian do not have a scheduled event at start
 		float endHour     = sleepHour + sleepMinute/60f;
-		float lunchHour   = -randomGenerator.nextFloat() + randomGenerator.nextFloat() + 12;
+		float lunchHour   = -ThreadLocalRandom.current().nextFloat() + ThreadLocalRandom.current().nextFloat() + 12;
 		float eventDurationHour;
 		int schedulePos = 0;
 		boolean lunchPlaced = false;
@@ -320,21 +400,21 @@ public class Pedestrian {
 						lunchPlaced = true;
 					}
 					else{
-						eventDurationHour = (randomGenerator.nextFloat()*STUDY_DURATION_MAX + STUDY_DURATION_MIN);
+						eventDurationHour = (ThreadLocalRandom.current().nextFloat()*STUDY_DURATION_MAX + STUDY_DURATION_MIN);
 						if(Frame.DEBUG)System.out.println("Event time: " + eventDurationHour);
 						//Try to place this event
 						if(lunchPlaced || (currentHour + eventDurationHour) < lunchHour){
 							if(currentHour + eventDurationHour < endHour){
-								isMotivated = randomGenerator.nextBoolean();
+								isMotivated = ThreadLocalRandom.current().nextBoolean();
 								
 								//Is the student motivated to study?
 								if(isMotivated){
-									schedule.add(schedulePos,new ScheduleEvent((int)Math.floor(currentHour),(int)Math.round(eventDurationHour*60),OSM_Reader.targets.get((OSM_Reader.TargetEnums.STUDY.ordinal())).get(randomGenerator.nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.STUDY.ordinal()).size()))));
+									schedule.add(schedulePos,new ScheduleEvent((int)Math.floor(currentHour),(int)Math.round(eventDurationHour*60),OSM_Reader.targets.get((OSM_Reader.TargetEnums.STUDY.ordinal())).get(ThreadLocalRandom.current().nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.STUDY.ordinal()).size()))));
 									schedulePos++;
 								}
 								//Let's have some tea-time/coffee-time/energy-drink/... instead
 								else{
-									currentHour += randomGenerator.nextFloat();
+									currentHour += ThreadLocalRandom.current().nextFloat();
 								}
 							}
 							//Time to end this day's schedule
@@ -360,20 +440,20 @@ public class Pedestrian {
 						lunchPlaced = true;
 					}
 					else{
-						eventDurationHour = (randomGenerator.nextFloat()*RESEARCH_DURATION_MAX + RESEARCH_DURATION_MIN);
+						eventDurationHour = (ThreadLocalRandom.current().nextFloat()*RESEARCH_DURATION_MAX + RESEARCH_DURATION_MIN);
 						//Try to place this event
 						if(lunchPlaced || (currentHour + eventDurationHour) < lunchHour){
 							if(currentHour + eventDurationHour < endHour){
-								isMotivated = randomGenerator.nextBoolean();
+								isMotivated = ThreadLocalRandom.current().nextBoolean();
 								
 								//Is the professor motivated to research?
 								if(isMotivated){
-									schedule.add(schedulePos,new ScheduleEvent((int)Math.floor(currentHour),(int)Math.round(eventDurationHour*60),OSM_Reader.targets.get((OSM_Reader.TargetEnums.STUDY.ordinal())).get(randomGenerator.nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.STUDY.ordinal()).size()))));
+									schedule.add(schedulePos,new ScheduleEvent((int)Math.floor(currentHour),(int)Math.round(eventDurationHour*60),OSM_Reader.targets.get((OSM_Reader.TargetEnums.STUDY.ordinal())).get(ThreadLocalRandom.current().nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.STUDY.ordinal()).size()))));
 									schedulePos++;
 								}
 								//Let's have some coffee-time instead
 								else{
-									currentHour += randomGenerator.nextFloat();
+									currentHour += ThreadLocalRandom.current().nextFloat();
 								}
 							}
 							//Time to end this day's schedule
@@ -393,13 +473,13 @@ public class Pedestrian {
 			{
 				//We may only add doctors appointments if hospitals are present on the map
 				if(!OSM_Reader.targets.get(OSM_Reader.TargetEnums.WASTE_I.ordinal()).isEmpty()){
-					currentHour += (endHour-currentHour)*randomGenerator.nextFloat(); //Have an offset for the potential doctor's appointment
+					currentHour += (endHour-currentHour)*ThreadLocalRandom.current().nextFloat(); //Have an offset for the potential doctor's appointment
 					//Should this Pedestrian go to the doctor?
-					if(randomGenerator.nextBoolean() && currentHour < endHour){
-						eventDurationHour = (randomGenerator.nextFloat()*DOCTORS_APPOINTMENT_MAX + DOCTORS_APPOINTMENT_MIN);
+					if(ThreadLocalRandom.current().nextBoolean() && currentHour < endHour){
+						eventDurationHour = (ThreadLocalRandom.current().nextFloat()*DOCTORS_APPOINTMENT_MAX + DOCTORS_APPOINTMENT_MIN);
 						//Try to place this event
 						if(currentHour + eventDurationHour < endHour){
-							schedule.add(schedulePos,new ScheduleEvent((int)Math.floor(currentHour),(int)Math.round(eventDurationHour*60),OSM_Reader.targets.get((OSM_Reader.TargetEnums.HEALTH.ordinal())).get(randomGenerator.nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.HEALTH.ordinal()).size()))));
+							schedule.add(schedulePos,new ScheduleEvent((int)Math.floor(currentHour),(int)Math.round(eventDurationHour*60),OSM_Reader.targets.get((OSM_Reader.TargetEnums.HEALTH.ordinal())).get(ThreadLocalRandom.current().nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.HEALTH.ordinal()).size()))));
 							schedulePos++;
 						}
 					}
@@ -431,11 +511,11 @@ public class Pedestrian {
 
 		//Is today's schedule done?
 		if(schedule.isEmpty()){
-			startTime     = randomGenerator.nextGaussian()*PedestriansSimulator.WIDTH_START_HOUR + PedestriansSimulator.CENTRAL_START_HOUR;
+			startTime     = ThreadLocalRandom.current().nextGaussian()*PedestriansSimulator.WIDTH_START_HOUR + PedestriansSimulator.CENTRAL_START_HOUR;
 			startAtHour   = (int)Math.floor(startTime);
 			startAtMinute = (int)Math.floor(startTime%1*60);
 			
-			endTime   = randomGenerator.nextGaussian()*PedestriansSimulator.WIDTH_END_HOUR + PedestriansSimulator.CENTRAL_END_HOUR;
+			endTime   = ThreadLocalRandom.current().nextGaussian()*PedestriansSimulator.WIDTH_END_HOUR + PedestriansSimulator.CENTRAL_END_HOUR;
 			sleepHour = (int)Math.floor(endTime);
 
 			//Did we go to sleep after midnight?
@@ -449,32 +529,32 @@ public class Pedestrian {
 			schedule.add(new ScheduleEvent(sleepHour,duration,newTarget)); //Add a "go home" event to schedule
 			this.sleepHour   = sleepHour;
 			this.sleepMinute = 0;
-			this.wakeHour    = startAtHour;
-			this.wakeMinute  = startAtMinute;
+			agents.wakeHour[index]    = startAtHour;
+			agents.wakeMinute[index]  = startAtMinute;
 			generateSchedule();
 		}
 		else{
 			//On our way toward an event
-			if(scheduleEvent){
+			if(agents.scheduleEvent[index]){
 				//Have we already passed the event?
-				if(calculateWaitTime(Frame.clock.getHour(),Frame.clock.getMinute(),schedule.getFirst().getDuration(),schedule.getFirst().getStartHour()) < 0){
+				if(calculateWaitTime(clock.getHour(),clock.getMinute(),schedule.getFirst().getDuration(),schedule.getFirst().getStartHour()) < 0){
 					schedule.removeFirst();
-					scheduleEvent = false;
+					agents.scheduleEvent[index] = false;
 				}
 				//Escape method so that we don't by mistake try to generate a new target if target list is empty
 				return;
 			}
 			//Check schedule (i.e do we have an important target which we need to go to?)
 			if(checkTime(schedule.getFirst().getStartHour(),0)){
-				scheduleEvent = true;
+				agents.scheduleEvent[index] = true;
 				newTarget = schedule.getFirst().getTarget();
 			}
 			//No schedule event at this time - Time to check ze needs
 			else{
 				//Check which basic need that currently is the largest 
-				for(int i = 0; i < basicNeeds.size(); i++){
-					if(basicNeeds.get(i) > currentMaxNeedValue && needStatus[i]){
-						currentMaxNeedValue = basicNeeds.get(i);
+				for(int i = 0; i < AgentStore.NR_OF_NEEDS; i++){
+					if(getNeed(i) > currentMaxNeedValue && needStatus[i]){
+						currentMaxNeedValue = getNeed(i);
 						indexOfMaxNeed = i;
 					}
 				}
@@ -488,7 +568,7 @@ public class Pedestrian {
 				LinkedList<Node> possibleTargets = null;
 				//HUNGER
 				if(indexOfMaxNeed == BasicNeeds.HUNGER.ordinal()){
-					fastFood = randomGenerator.nextBoolean();
+					fastFood = ThreadLocalRandom.current().nextBoolean();
 					if(OSM_Reader.targets.get(OSM_Reader.TargetEnums.FASTFOOD_I.ordinal()).isEmpty()){
 						fastFood = false;
 					}
@@ -503,12 +583,12 @@ public class Pedestrian {
 					else{
 						possibleTargets = OSM_Reader.targets.get(OSM_Reader.TargetEnums.RESTAURANT_I.ordinal());
 					}
-					newTarget = possibleTargets.get(randomGenerator.nextInt(possibleTargets.size()));
+					newTarget = possibleTargets.get(ThreadLocalRandom.current().nextInt(possibleTargets.size()));
 				}
 				//CAFE
 				else if(indexOfMaxNeed == BasicNeeds.CAFE.ordinal()){
 					possibleTargets = OSM_Reader.targets.get(OSM_Reader.TargetEnums.CAFE_I.ordinal());
-					newTarget = possibleTargets.get(randomGenerator.nextInt(possibleTargets.size()));
+					newTarget = possibleTargets.get(ThreadLocalRandom.current().nextInt(possibleTargets.size()));
 				}
 				//TOILET
 				else if(indexOfMaxNeed == BasicNeeds.TOILET.ordinal()){
@@ -523,7 +603,7 @@ public class Pedestrian {
 				//SHOP
 				else if(indexOfMaxNeed == BasicNeeds.SHOP.ordinal()){
 					possibleTargets = OSM_Reader.targets.get(OSM_Reader.TargetEnums.SHOP_I.ordinal());
-					newTarget = possibleTargets.get(randomGenerator.nextInt(possibleTargets.size()));
+					newTarget = possibleTargets.get(ThreadLocalRandom.current().nextInt(possibleTargets.size()));
 				}
 				//BANK
 				else if(indexOfMaxNeed == BasicNeeds.BANK.ordinal()){
@@ -532,13 +612,13 @@ public class Pedestrian {
 				}
 				//If we only have schedule targets in the .OSM file
 				else{
-					newTarget = new Node((int)Math.round(renderPosX),(int)Math.round(renderPosY));
+					newTarget = new Node((int)Math.round(agents.renderPosX[index]),(int)Math.round(agents.renderPosY[index]));
 				}
 			}
 		}
 		
-		targetCollisionPosX = newTarget.getCollisionXPos(scaleCollision);
-		targetCollisionPosY = newTarget.getCollisionYPos(scaleCollision);
+		agents.targetCollisionPosX[index] = newTarget.getCollisionXPos(scaleCollision);
+		agents.targetCollisionPosY[index] = newTarget.getCollisionYPos(scaleCollision);
 		findPath();
 	}
 	
@@ -546,28 +626,28 @@ public class Pedestrian {
 	 * Returns the current bank need.
 	 */
 	public float getBankNeed(){
-		return basicNeeds.get(BasicNeeds.BANK.ordinal());
+		return getNeed(BasicNeeds.BANK.ordinal());
 	}
 	
 	/**
 	 * Returns the current cafe need.
 	 */
 	public float getCafeNeed(){
-		return basicNeeds.get(BasicNeeds.CAFE.ordinal());
+		return getNeed(BasicNeeds.CAFE.ordinal());
 	}
 	
 	/**
 	 * Returns the current collision x-position of Pedestrian.
 	 */
 	public int getCollisionPosX(){
-		return collisionPosX;
+		return agents.collisionPosX[index];
 	}
 	
 	/**
 	 * Returns the current collision y-position of Pedestrian.
 	 */
 	public int getCollisionPosY(){
-		return collisionPosY;
+		return agents.collisionPosY[index];
 	}
 	
 	/**
@@ -581,14 +661,47 @@ public class Pedestrian {
 	 * Returns the degree of the direction of the pedestrian
 	 */
 	public double getDegree(){
-		return degree;
+		return agents.degree[index];
 	}
 	
 	/**
 	 * Returns the current hunger need.
 	 */
 	public float getHungerNeed(){
-		return basicNeeds.get(BasicNeeds.HUNGER.ordinal());
+		return getNeed(BasicNeeds.HUNGER.ordinal());
+	}
+	
+	/**
+	 * Returns the current value of a need.
+	 * @param need Index of the need (see BasicNeeds)
+	 */
+	private float getNeed(int need){
+		return agents.needs[index*AgentStore.NR_OF_NEEDS + need];
+	}
+	
+	/**
+	 * Returns the look-ahead buffer of the current thread (collision x- and y-positions of the next nodes of a path).
+	 */
+	private static int[][] getLookAheadBuffer(){
+		int[][] buffer = lookAheadBuffers.get();
+		if(buffer == null){
+			buffer = new int[2][INTERPOLATION_OFFSET];
+			lookAheadBuffers.set(buffer);
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Returns the Pathfinder of the current thread (a Pathfinder keeps search state and can't be shared between threads).
+	 * @return Pathfinder for the collisionMatrix of this Pedestrian
+	 */
+	private Pathfinder getPathfinder(){
+		Pathfinder pathfinder = pathfinders.get();
+		if(pathfinder == null || pathfinder.collisionMatrix != collisionMatrix){
+			pathfinder = new Pathfinder(collisionMatrix);
+			pathfinders.set(pathfinder);
+		}
+		return pathfinder;
 	}
 	
 	/**
@@ -602,49 +715,57 @@ public class Pedestrian {
 	 * Returns the current render x-position of Pedestrian.
 	 */
 	public int getPosX(){
-		return (int)Math.round(renderPosX);
+		return (int)Math.round(agents.renderPosX[index]);
 	}
 	
 	/**
 	 * Returns the current render y-position of Pedestrian.
 	 */
 	public int getPosY(){
-		return (int)Math.round(renderPosY);
+		return (int)Math.round(agents.renderPosY[index]);
 	}
 
 	/**
 	 * Returns the current shop need.
 	 */
 	public float getShopNeed(){
-		return basicNeeds.get(BasicNeeds.SHOP.ordinal());
+		return getNeed(BasicNeeds.SHOP.ordinal());
 	}
 	
 	/**
 	 * Returns the target render x-position of Pedestrian.
 	 */
 	public int getTargetPosX(){
-		return Math.round(targetCollisionPosX / scaleCollision);
+		return Math.round(agents.targetCollisionPosX[index] / scaleCollision);
 	}
 	
 	/**
 	 * Returns the target render y-position of Pedestrian.
 	 */
 	public int getTargetPosY(){
-		return Math.round(targetCollisionPosY / scaleCollision);
+		return Math.round(agents.targetCollisionPosY[index] / scaleCollision);
 	}		
 	
 	/**
 	 * Returns the current toilet need.
 	 */
 	public float getToiletNeed(){
-		return basicNeeds.get(BasicNeeds.TOILET.ordinal());
+		return getNeed(BasicNeeds.TOILET.ordinal());
 	}
 	
 	/**
 	 * Returns the current waste need.
 	 */
 	public float getWasteNeed(){
-		return basicNeeds.get(BasicNeeds.WASTE.ordinal());
+		return getNeed(BasicNeeds.WASTE.ordinal());
+	}
+	
+	/**
+	 * Is the Pedestrian on her/his way somewhere?
+	 * @return True if walking, false if sleeping or at a target
+	 */
+	public boolean isWalking(){
+		return agents.walking[index];
 	}
 	
 	/**
@@ -735,14 +856,16 @@ public class Pedestrian {
 	 * This method attempts to linearize the current path.
 	 */
 	private void linearizePath(){
-		//Only check path if it isn't empty
-		if(!currentPath.isEmpty()){
-			int cost = collisionMatrix[collisionPosX][collisionPosY];
+		//Only check path if it is up to date and isn't empty
+		if(resolvePath() && !currentPath.isEmpty()){
+			int cost = collisionMatrix[agents.collisionPosX[index]][agents.collisionPosY[index]];
 			int maxFoundIndex = -1;
+			int[][] lookAhead = getLookAheadBuffer();
+			int nrOfNodes = currentPath.lookAhead(INTERPOLATION_OFFSET, lookAhead[0], lookAhead[1]);
 	
 			//See how many tiles that we can reach from current tile (with a line)
-			for(int i = 0; i < INTERPOLATION_OFFSET && i < currentPath.size()-1; i++){
-				if(isPathOk(collisionPosX,collisionPosY,currentPath.get(i).getCollisionXPos(scaleCollision),currentPath.get(i).getCollisionYPos(scaleCollision),cost)){
+			for(int i = 0; i < nrOfNodes && i < currentPath.size()-1; i++){
+				if(isPathOk(agents.collisionPosX[index],agents.collisionPosY[index],lookAhead[0][i],lookAhead[1][i],cost)){
 					maxFoundIndex = i;
 				}
 				else{
@@ -758,20 +881,20 @@ public class Pedestrian {
 			}
 	
 			//Calculate new interpolation variables
-			int deltaX = currentPath.getFirst().getXPos()-getPosX();
-			int deltaY = currentPath.getFirst().getYPos()-getPosY();
-			interpolationLength = Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY,2));
-			degree = Math.atan2((double)deltaY, (double)deltaX);
+			int deltaX = currentPath.getFirstPosX()-getPosX();
+			int deltaY = currentPath.getFirstPosY()-getPosY();
+			agents.interpolationLength[index] = Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY,2));
+			agents.degree[index] = Math.atan2((double)deltaY, (double)deltaX);
 			//Make sure that interpolation is at maximum the length of the interpolation line
-			if(PedestriansSimulator.PEDESTRIAN_SPEED > interpolationLength){
-				updatePosX = Math.cos(degree)*interpolationLength;
-				updatePosY = Math.sin(degree)*interpolationLength;				
+			if(engine.getPedestrianSpeed() > agents.interpolationLength[index]){
+				agents.updatePosX[index] = Math.cos(agents.degree[index])*agents.interpolationLength[index];
+				agents.updatePosY[index] = Math.sin(agents.degree[index])*agents.interpolationLength[index];				
 			}
 			else{
-				updatePosX = Math.cos(degree)*PedestriansSimulator.PEDESTRIAN_SPEED;
-				updatePosY = Math.sin(degree)*PedestriansSimulator.PEDESTRIAN_SPEED;
+				agents.updatePosX[index] = Math.cos(agents.degree[index])*engine.getPedestrianSpeed();
+				agents.updatePosY[index] = Math.sin(agents.degree[index])*engine.getPedestrianSpeed();
 			}
-			interpolationStep = Math.sqrt(Math.pow(updatePosX, 2) + Math.pow(updatePosY, 2));
+			agents.interpolationStep[index] = Math.sqrt(Math.pow(agents.updatePosX[index], 2) + Math.pow(agents.updatePosY[index], 2));
 		}
 	}
 	
@@ -786,22 +909,31 @@ public class Pedestrian {
 	}
 	
 	/**
-	 * Updates the wait time for a schedule event or calls updateNeeds if we are not at a scheduleEvent target.
+	 * Updates the wait time for a schedule event or calls updateNeeds if we are not at a scheduled target.
 	 */
 	private void updateAtTarget(){
-		if(scheduleEvent){
-			int currentHour = Frame.clock.getHour();
-			int currentMinute = Frame.clock.getMinute();
-			currentWaitTime = calculateWaitTime(currentHour,currentMinute,schedule.getFirst().getDuration(),schedule.getFirst().getStartHour());
+		if(agents.scheduleEvent[index]){
+			int currentHour = clock.getHour();
+			int currentMinute = clock.getMinute();
+			agents.waitTime[index] = calculateWaitTime(currentHour,currentMinute,schedule.getFirst().getDuration(),schedule.getFirst().getStartHour());
 
 			schedule.removeFirst();
-			scheduleEvent = false;
+			agents.scheduleEvent[index] = false;
 		}
 		else{
 			updateNeeds(true);
 		}
 	}
 	
+	/**
+	 * Sets the value of a need.
+	 * @param need Index of the need (see BasicNeeds)
+	 * @param value New value
+	 */
+	private void setNeed(int need, float value){
+		agents.needs[index*AgentStore.NR_OF_NEEDS + need] = value;
+	}
+	
 	/**
 	 * Update the Pedestrian's needs.
 	 */
@@ -810,57 +942,57 @@ public class Pedestrian {
 		if(atTarget){
 			//HUNGER
 			if(currentNeedIndex == BasicNeeds.HUNGER.ordinal()){
-				Boolean fastFood = randomGenerator.nextBoolean();
+				Boolean fastFood = ThreadLocalRandom.current().nextBoolean();
 				//Let's get some fastfood
 				if(fastFood){
-					currentWaitTime = fastFoodTime;
-					basicNeeds.set(BasicNeeds.WASTE.ordinal(),basicNeeds.get(BasicNeeds.WASTE.ordinal()) + fastFoodWasteIncrease);
-					basicNeeds.set(BasicNeeds.BANK.ordinal(),basicNeeds.get(BasicNeeds.BANK.ordinal()) + fastFoodBankIncrease);
+					agents.waitTime[index] = fastFoodTime;
+					setNeed(BasicNeeds.WASTE.ordinal(),getNeed(BasicNeeds.WASTE.ordinal()) + fastFoodWasteIncrease);
+					setNeed(BasicNeeds.BANK.ordinal(),getNeed(BasicNeeds.BANK.ordinal()) + fastFoodBankIncrease);
 				}
 				//Let's get some better food
 				else{
-					currentWaitTime = restaurantTime;
-					basicNeeds.set(BasicNeeds.BANK.ordinal(),basicNeeds.get(BasicNeeds.BANK.ordinal()) + restaurantBankIncrease);
+					agents.waitTime[index] = restaurantTime;
+					setNeed(BasicNeeds.BANK.ordinal(),getNeed(BasicNeeds.BANK.ordinal()) + restaurantBankIncrease);
 				}
-				basicNeeds.set(BasicNeeds.HUNGER.ordinal(),0f);
-				basicNeeds.set(BasicNeeds.TOILET.ordinal(),basicNeeds.get(BasicNeeds.TOILET.ordinal()) + foodToiletIncrease);
+				setNeed(BasicNeeds.HUNGER.ordinal(),0f);
+				setNeed(BasicNeeds.TOILET.ordinal(),getNeed(BasicNeeds.TOILET.ordinal()) + foodToiletIncrease);
 			}
 			//CAFE
 			else if(currentNeedIndex == BasicNeeds.CAFE.ordinal()){
-				currentWaitTime = cafeTime;
-				basicNeeds.set(BasicNeeds.CAFE.ordinal(),0f);
-				basicNeeds.set(BasicNeeds.HUNGER.ordinal(),basicNeeds.get(BasicNeeds.HUNGER.ordinal()) - cafeFoodDecrease);
-				basicNeeds.set(BasicNeeds.TOILET.ordinal(),basicNeeds.get(BasicNeeds.TOILET.ordinal()) + cafeToiletIncrease);
-				basicNeeds.set(BasicNeeds.BANK.ordinal(),basicNeeds.get(BasicNeeds.BANK.ordinal()) + cafeBankIncrease);
+				agents.waitTime[index] = cafeTime;
+				setNeed(BasicNeeds.CAFE.ordinal(),0f);
+				setNeed(BasicNeeds.HUNGER.ordinal(),getNeed(BasicNeeds.HUNGER.ordinal()) - cafeFoodDecrease);
+				setNeed(BasicNeeds.TOILET.ordinal(),getNeed(BasicNeeds.TOILET.ordinal()) + cafeToiletIncrease);
+				setNeed(BasicNeeds.BANK.ordinal(),getNeed(BasicNeeds.BANK.ordinal()) + cafeBankIncrease);
 			}
 			//TOILET
 			else if(currentNeedIndex == BasicNeeds.TOILET.ordinal()){
-				currentWaitTime = toiletTime;
-				basicNeeds.set(BasicNeeds.TOILET.ordinal(), 0f);
+				agents.waitTime[index] = toiletTime;
+				setNeed(BasicNeeds.TOILET.ordinal(), 0f);
 			}
 			//WASTE
 			else if(currentNeedIndex == BasicNeeds.WASTE.ordinal()){
-				currentWaitTime = wasteTime;
-				basicNeeds.set(BasicNeeds.WASTE.ordinal(), 0f);
+				agents.waitTime[index] = wasteTime;
+				setNeed(BasicNeeds.WASTE.ordinal(), 0f);
 			}
 			//SHOP
 			else if(currentNeedIndex == BasicNeeds.SHOP.ordinal()){
-				currentWaitTime = shopTime;
-				basicNeeds.set(BasicNeeds.SHOP.ordinal(), 0f);
-				basicNeeds.set(BasicNeeds.BANK.ordinal(),basicNeeds.get(BasicNeeds.BANK.ordinal()) + shopBankIncrease);
+				agents.waitTime[index] = shopTime;
+				setNeed(BasicNeeds.SHOP.ordinal(), 0f);
+				setNeed(BasicNeeds.BANK.ordinal(),getNeed(BasicNeeds.BANK.ordinal()) + shopBankIncrease);
 			}
 			//BANK
 			else if(currentNeedIndex == BasicNeeds.BANK.ordinal()){
-				currentWaitTime = bankTime;
-				basicNeeds.set(BasicNeeds.BANK.ordinal(), 0f);
+				agents.waitTime[index] = bankTime;
+				setNeed(BasicNeeds.BANK.ordinal(), 0f);
 			}
 		}
 		//Update Basic needs (a bit)
 		else{
-			basicNeeds.set(BasicNeeds.HUNGER.ordinal(),basicNeeds.get(BasicNeeds.HUNGER.ordinal()) + hungerNeedIncrease);
-			basicNeeds.set(BasicNeeds.TOILET.ordinal(),basicNeeds.get(BasicNeeds.TOILET.ordinal()) + toiletNeedIncrease);
-			basicNeeds.set(BasicNeeds.CAFE.ordinal(),basicNeeds.get(BasicNeeds.CAFE.ordinal())     + cafeNeedIncrease);
-			basicNeeds.set(BasicNeeds.SHOP.ordinal(),basicNeeds.get(BasicNeeds.SHOP.ordinal())     + shopNeedIncrease);
+			setNeed(BasicNeeds.HUNGER.ordinal(),getNeed(BasicNeeds.HUNGER.ordinal()) + hungerNeedIncrease);
+			setNeed(BasicNeeds.TOILET.ordinal(),getNeed(BasicNeeds.TOILET.ordinal()) + toiletNeedIncrease);
+			setNeed(BasicNeeds.CAFE.ordinal(),getNeed(BasicNeeds.CAFE.ordinal())     + cafeNeedIncrease);
+			setNeed(BasicNeeds.SHOP.ordinal(),getNeed(BasicNeeds.SHOP.ordinal())     + shopNeedIncrease);
 		}
 	}	
 	
@@ -868,36 +1000,47 @@ public class Pedestrian {
 	 * Updates the position of the pedestrian towards the target position.
 	 */
 	public void updatePosition(){
-		if(sleeping){
-			sleeping = !(checkTime(wakeHour,wakeMinute));
-			isWalking = !sleeping;
+		if(agents.sleeping[index]){
+			agents.sleeping[index] = !(checkTime(agents.wakeHour[index],agents.wakeMinute[index]));
+			agents.walking[index] = !agents.sleeping[index];
 			return;
 		}
 		
+		//Stand still while the path is searched for in the background (see PathPlanner), then start walking it
+		if(pathRequest != null){
+			if(!resolvePath()){
+				return;
+			}
+			linearizePath();
+		}
+		
 		//Check that we aren't already there (at target)
-		if(!(collisionPosX == targetCollisionPosX && collisionPosY == targetCollisionPosY)){
+		if(!(agents.collisionPosX[index] == agents.targetCollisionPosX[index] && agents.collisionPosY[index] == agents.targetCollisionPosY[index])){
 			//Have we moved one collision tile?
-			if((interpolationProgress+interpolationStep) >= interpolationLength){
-				interpolationProgress = 0;
+			if((agents.interpolationProgress[index]+agents.interpolationStep[index]) >= agents.interpolationLength[index]){
+				agents.interpolationProgress[index] = 0;
 				updateNeeds(false);
-				if(avoiding){
-					avoiding = false;
+				if(agents.avoiding[index]){
+					agents.avoiding[index] = false;
 				}
 				else{
-					//Get the next tile from the path
-					Node nextPos = currentPath.poll();
-					if(nextPos == null){
-						System.err.println("target: " + targetCollisionPosX + "," + targetCollisionPosY);
-						System.err.println("current: " + collisionPosX + "," + collisionPosY);
+					//Get the next tile from the path (wait if it is searched for in the background)
+					if(!resolvePath()){
+						return;
+					}
+					if(currentPath.isEmpty()){
+						System.err.println("target: " + agents.targetCollisionPosX[index] + "," + agents.targetCollisionPosY[index]);
+						System.err.println("current: " + agents.collisionPosX[index] + "," + agents.collisionPosY[index]);
 						System.err.println("Path was empty even though Pedestrian was not at target!");
 						System.exit(1);
 					}
-					collisionPosX = nextPos.getCollisionXPos(scaleCollision);
-					collisionPosY = nextPos.getCollisionYPos(scaleCollision);
-					if(collisionMatrix[collisionPosX][collisionPosY] != Integer.MAX_VALUE) generateTarget();
+					agents.collisionPosX[index] = currentPath.getFirstCollisionX();
+					agents.collisionPosY[index] = currentPath.getFirstCollisionY();
+					currentPath.removeFirst();
+					if(collisionMatrix[agents.collisionPosX[index]][agents.collisionPosY[index]] != Integer.MAX_VALUE) generateTarget();
 				}
 
-				if(!currentPath.isEmpty()){
+				if(resolvePath() && !currentPath.isEmpty()){
 					linearizePath();
 					updateRenderPos(false);
 				}
@@ -909,58 +1052,18 @@ public class Pedestrian {
 		}
 		//At target, time to get a new one
 		else{
-			if(isWalking){
+			if(agents.walking[index]){
 				//Update render position one final time so that the Pedestrian is rendered exactly at the target
-				renderPosX = Math.round(targetCollisionPosX / scaleCollision);
-				renderPosY = Math.round(targetCollisionPosY / scaleCollision);
-				arriveTime = Frame.clock.getNrMinutes();
+				agents.renderPosX[index] = Math.round(agents.targetCollisionPosX[index] / scaleCollision);
+				agents.renderPosY[index] = Math.round(agents.targetCollisionPosY[index] / scaleCollision);
+				agents.arriveTime[index] = clock.getNrMinutes();
 				updateAtTarget();
-				isWalking = false;
+				agents.walking[index] = false;
 			}
 			if(doneAtTarget()){
 				generateTarget();
 				linearizePath();
-				isWalking = true;  //Time to get out into the world again
-			}
-		}
-	}
-	
-	/**
-	 * Updates which map cells that the pedestrian currently occupies.
-	 */
-	public void updateOccupiedCells()
-	{
-		if(isWalking){		
-			//Top left corner of pedestrian
-			int cornerCellX = (getPosX()-PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			int cornerCellY = (getPosY()-PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			int cell = cornerCellX + cornerCellY*PedestriansSimulator.NR_CELL_ROW;
-			if(cell > 0 && cell < PedestriansSimulator.mapCells.size()){
-				PedestriansSimulator.mapCells.get(cell).add(myId);
-			}
-			
-			//Top right corner of pedestrian
-			cornerCellX = (getPosX()+PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			cornerCellY = (getPosY()-PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			cell = cornerCellX + cornerCellY*PedestriansSimulator.NR_CELL_ROW;
-			if(cell > 0 && cell < PedestriansSimulator.mapCells.size()){
-				PedestriansSimulator.mapCells.get(cell).add(myId);
-			}
-			
-			//Bottom left corner of pedestrian
-			cornerCellX = (getPosX()-PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			cornerCellY = (getPosY()+PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			cell = cornerCellX + cornerCellY*PedestriansSimulator.NR_CELL_ROW;
-			if(cell > 0 && cell < PedestriansSimulator.mapCells.size()){
-				PedestriansSimulator.mapCells.get(cell).add(myId);
-			}
-			
-			//Bottom right corner of pedestrian
-			cornerCellX = (getPosX()+PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			cornerCellY = (getPosY()+PedestriansSimulator.PEDESTRIAN_RADIUS)/PedestriansSimulator.CELL_SIZE;
-			cell = cornerCellX + cornerCellY*PedestriansSimulator.NR_CELL_ROW;
-			if(cell > 0 && cell < PedestriansSimulator.mapCells.size()){
-				PedestriansSimulator.mapCells.get(cell).add(myId);
+				agents.walking[index] = true;  //Time to get out into the world again
 			}
 		}
 	}
@@ -971,16 +1074,16 @@ public class Pedestrian {
 	private void updateRenderPos(boolean updateCollision){	
 		boolean canInterpolate = true;
 		
-		int newCollisionPosX = (int)Math.round((renderPosX+updatePosX) * scaleCollision);
-		int newCollisionPosY = (int)Math.round((renderPosY+updatePosY) * scaleCollision);
+		int newCollisionPosX = (int)Math.round((agents.renderPosX[index]+agents.updatePosX[index]) * scaleCollision);
+		int newCollisionPosY = (int)Math.round((agents.renderPosY[index]+agents.updatePosY[index]) * scaleCollision);
 		//Check only at each new tile
-		if(!updateCollision || (newCollisionPosX != collisionPosX || newCollisionPosY != collisionPosY)){
+		if(!updateCollision || (newCollisionPosX != agents.collisionPosX[index] || newCollisionPosY != agents.collisionPosY[index])){
 			//Avoid interpolating into buildings
 			if(!outsideBoundary(newCollisionPosX,newCollisionPosY) && 
 			    collisionMatrix[newCollisionPosX][newCollisionPosY] != Integer.MAX_VALUE){
 				if(updateCollision){
-					collisionPosX = newCollisionPosX;
-					collisionPosY = newCollisionPosY;
+					agents.collisionPosX[index] = newCollisionPosX;
+					agents.collisionPosY[index] = newCollisionPosY;
 				}
 			}
 			else{
@@ -989,13 +1092,13 @@ public class Pedestrian {
 		}
 		
 		//Update renderpos if possible
-		if(canInterpolate || !avoiding){	
-			renderPosX += updatePosX;
-			renderPosY += updatePosY;
-			interpolationProgress  += interpolationStep;
+		if(canInterpolate || !agents.avoiding[index]){	
+			agents.renderPosX[index] += agents.updatePosX[index];
+			agents.renderPosY[index] += agents.updatePosY[index];
+			agents.interpolationProgress[index]  += agents.interpolationStep[index];
 		}
 		else{
-			interpolationProgress = interpolationLength;
+			agents.interpolationProgress[index] = agents.interpolationLength[index];
 		}
 	}
 }
\ No newline at end of file
@@ -15,10 +15,8 @@ import java.awt.event.MouseEvent;
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Random;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -26,13 +24,14 @@ import javax.swing.JPanel;
 import javax.swing.Timer;
 
 /**
- * PedestrianSimulator contains the necessary methods to display, update and simulate an urban environment and its pedestrians.
+ * PedestrianSimulator contains the necessary methods to display an urban environment and its pedestrians.
+ * The simulation itself is run by a SimulationEngine which this view observes, the view drives the engine with a timer.
  * 
  * @author Christoffer Wiss & Robert Wideberg
- * @version 09-08-2013
+ * @version 18-10-2026
  */
 @SuppressWarnings("serial")
-public class PedestriansSimulator extends JPanel implements ActionListener {
+public class PedestriansSimulator extends JPanel implements ActionListener, SimulationListener {
 	public static final int PEDESTRIAN_RADIUS = 4; //Radius of the pedestrian in pixels
 	private final int TARGET_SIZE = 8;
 	
@@ -47,13 +46,9 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
 		public Color color(){return color;}
 	}
 	
-	//Distribution of pedestrian types, this are not final since education targets might be missing
-	private float STUDENTS_AMOUNT   = 0.65f;
-	private float PROFESSORS_AMOUNT = 0.20f;
-	private float CIVILIANS_AMOUNT  = 0.15f;
-	
-	private final int NR_OF_PEDESTRIANS = 100;
-	public static int PEDESTRIAN_SPEED  = Math.round(10000f/Clock.minuteLength); //Initialize to a speed that maintain this ratio
+	public static final int DEFAULT_NR_OF_PEDESTRIANS = 100;
+	public static int nrOfPedestrians = DEFAULT_NR_OF_PEDESTRIANS;					//Can be set at launch (see Main)
+	public static float[] typeMix = SimulationEngine.DEFAULT_TYPE_MIX.clone();	//Can be set at launch (see Main)
 	
 	public static final int CENTRAL_START_HOUR = 8;
 	public static final int WIDTH_START_HOUR = 1;
@@ -64,7 +59,6 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
 	public static boolean renderCollision;
 	public static boolean renderTargets;
 	public static boolean renderCells;
-	private boolean collisionDetection = false; // A bit buggy, use at your own risk!
 
 	private final Color SELECTION_COLOR   = Color.GREEN;
 	private final Color TARGET_COLOR      = new Color(144,200,130);
@@ -78,13 +72,12 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
 	public static int currentSelectedID = 0;
 	public static int currentCursorOverID = 0;
 	
-	public static final int CELL_SIZE = 25; 			//Size of each cell that map should be divided into
-	public static int NR_CELL_ROW;                      //Nr of cells per row (used so that this only needs to be calculated once)
-	public static ArrayList<HashSet<Integer>> mapCells;	//Used to keep track of where collisions appear and with which pedestrians
-	public static HashMap<Integer,Pedestrian> pedestrians;
+	public static final int CELL_SIZE = SimulationEngine.CELL_SIZE;	//Size of each cell that map should be divided into
+	private static SimulationEngine engine;		//Runs the simulation that is displayed
+	private HashMap<Integer,Pedestrian> pedestrians;
 	
 	private Timer updateTimer; 			     //Used to schedule updates
-	private final int updateInterval = 50;   //How many ms that should pass between each update (should depend on minute length)
+	private final int updateInterval = SimulationEngine.UPDATE_INTERVAL;   //How many ms that should pass between each update
 	private static boolean timeStopped;
 	private LinkedList<Way> ways;
 	private LinkedList<Building> buildings;
@@ -120,10 +113,19 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
     	setFocusable(true);
     	setDoubleBuffered(true);
 
-    	NR_CELL_ROW = Frame.SIM_WINDOW_LENGTH/CELL_SIZE;
-    	mapCells = new ArrayList<HashSet<Integer>>();
-    	pedestrians = new HashMap<Integer,Pedestrian>();
     	collisionMatrix = Main.osm_reader.getCollisionMatrix();   	
+    	//Stop the path planning threads of the previous simulation
+    	if(engine != null){
+    		engine.setPlannerThreads(0);
+    	}
+    	engine = new SimulationEngine(collisionMatrix, Frame.START_HOUR, Frame.START_MINUTE);
+    	engine.setMinuteLength(Clock.minuteLength);
+    	if(Frame.USE_PATH_PLANNER){
+    		engine.setPlannerThreads(PathPlanner.DEFAULT_THREADS);
+    	}
+    	engine.addListener(Frame.clock);
+    	engine.addListener(this);
+    	pedestrians = engine.getPedestrians();
     	
     	icons = Main.osm_reader.getIcons();
     	nonTargets = Main.osm_reader.getNonTargets();
@@ -143,8 +145,8 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
     	renderCells = false;
     	timeStopped = false;
 		
-    	addMapCells();
-    	initiatePedestrians();
+    	engine.setTypeMix(typeMix);
+    	engine.initiatePedestrians(nrOfPedestrians);
     	addMouseMotionListener(new MAdapter());
     	addMouseListener(new MAdapter());
     	
@@ -157,31 +159,13 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
      */
 	@Override
 	public void actionPerformed(ActionEvent event) {
-		//Avoid updating pedestrian position if time is stopped
+		//Avoid updating the simulation if time is stopped
 		if(!timeStopped){
-			checkNClearMapCells();
-			
-			Iterator<Pedestrian> itr = pedestrians.values().iterator();
-			Pedestrian current = null;
-			while(itr.hasNext()){
-				current = itr.next();
-				current.updatePosition();
-				current.updateOccupiedCells();
-			}
+			engine.step();
 		}
-		repaint();
-		if(currentSelectedID != 0)updateNeedsBars();
-	}
-	
-	/**
-	 * Initializes the cells that the map should be divided into.
-	 * These are then used in order to know where and with what a collision occurred with.
-	 */
-	private void addMapCells(){
-		int nrCells = Frame.SIM_WINDOW_LENGTH/CELL_SIZE * Frame.SIM_WINDOW_LENGTH/CELL_SIZE;
-		
-		for(int i = 0; i < nrCells; i++){
-			mapCells.add(new HashSet<Integer>());
+		//Still redraw so that selections are shown while paused
+		else{
+			stepDone(engine);
 		}
 	}
 	
@@ -258,76 +242,13 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
 		return (mouseOver||!checkCursorOver);
 	}
 	
-	/**
-	 * Checks if a collision has occurred between pedestrians inside of cell, 
-	 * if so then a responsive action is issued.
-	 */
-	private void checkCollisionInCell(int cell){
-		Integer p1,p2;
-		int p1X,p1Y,p2X,p2Y,interLength;
-		Integer cellPedestrians[] = mapCells.get(cell).toArray(new Integer[0]); //I have my suspicion that this line is taking its toll on the performance
-		//Select a pedestrian in cell
-		for(int i = 0; i < cellPedestrians.length; i++){
-			p1  = cellPedestrians[i];
-			p1X = pedestrians.get(p1).getPosX();
-			p1Y = pedestrians.get(p1).getPosY();
-			//and check it against another in cell
-			for(int j = (i+1); j < cellPedestrians.length; j++){
-				p2  = cellPedestrians[j];
-				p2X = pedestrians.get(p2).getPosX();
-				p2Y = pedestrians.get(p2).getPosY();
-				interLength = circleCollisionLength(p1X,p1Y,p2X,p2Y,PEDESTRIAN_RADIUS,PEDESTRIAN_RADIUS);
-				
-				if(interLength > 0){
-					pedestrians.get(p1).avoidCollision(p2X, p2Y, 1, interLength);
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Checks if two circles are colliding with each other.
-	 * @param p1X X-Center of circle 1 (pixels)
-	 * @param p1Y Y-Center of circle 1 (pixels)
-	 * @param p2X X-Center of circle 1 (pixels)
-	 * @param p2Y Y-Center of circle 2 (pixels)
-	 * @param p1R Radius of circle 1 (pixels)
-	 * @param p2R Radius of circle 2 (pixels)
-	 * @return Intersection length if intersection occurred, otherwise 0.
-	 */
-	private int circleCollisionLength(int p1X, int p1Y, int p2X, int p2Y, int p1R, int p2R){
-		int distX = p2X - p1X;
-		int distY = p2Y - p1Y;
-		//Use squared Pythogaras (that way we avoid those pesky square-roots)
-		int length = distX*distX + distY*distY;
-		if(length > (p1R+p2R)*(p1R+p2R))
-		{
-			length = 0;
-		}
-		return (int) Math.round(Math.sqrt(length));
-	}
-	
-	/**
-	 * Checks for collisions in each cell and then clears it from previous objects.
-	 */
-	private void checkNClearMapCells()
-	{
-		for(int i = 0; i < mapCells.size(); i++)
-		{
-			if(collisionDetection && mapCells.get(i).size() > 1){
-				checkCollisionInCell(i);
-			}
-			mapCells.get(i).clear();
-		}
-	}
-	
 	/**
      * Decreases the clock and simulation speed twofold.
      */
     public static void decreaseSpeed(){
     	if(!timeStopped){
     		Frame.clock.decrementSpeed();
-    		PEDESTRIAN_SPEED = Math.round(10000f/Clock.minuteLength);
+    		engine.setMinuteLength(Clock.minuteLength);
     	}
     }
 	
@@ -351,71 +272,10 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
     public static void increaseSpeed(){
     	if(!timeStopped){
 			Frame.clock.incrementSpeed();
-			PEDESTRIAN_SPEED = Math.round(10000f/Clock.minuteLength);
+			engine.setMinuteLength(Clock.minuteLength);
     	}
     }
 	
-    /**
-     * Initiates all Pedestrians and assigns them with a waking time (i.e time when they should start to move) 
-     * that correlates to the Gaussian Distribution. 
-     */
-    private void initiatePedestrians(){
-    	long before = 0,after = 0;
-    	int currentTypeIndex = 0;
-    	boolean startAtPublicTrans = true;
-    	PEDESTRIAN_TYPE currentPedestrianType = null;
-    	Node start = null;
-		Pedestrian pedestrian = null;
-    	Random rand = new Random();
-    	rand.nextGaussian();
-    	int[] nrOfType = new int[PEDESTRIAN_TYPE.values().length];
-    	if(targets.get(OSM_Reader.TargetEnums.STUDY.ordinal()).isEmpty()){
-    		STUDENTS_AMOUNT = 0;
-    		PROFESSORS_AMOUNT = 0;
-    		CIVILIANS_AMOUNT = 1;
-    	}
-    	nrOfType[PEDESTRIAN_TYPE.STUDENT.ordinal()]   = Math.round(NR_OF_PEDESTRIANS*STUDENTS_AMOUNT);
-    	nrOfType[PEDESTRIAN_TYPE.PROFESSOR.ordinal()] = Math.round(NR_OF_PEDESTRIANS*PROFESSORS_AMOUNT);
-    	nrOfType[PEDESTRIAN_TYPE.CIVILIAN.ordinal()]  = Math.round(NR_OF_PEDESTRIANS*CIVILIANS_AMOUNT);
-    	
-    	if(OSM_Reader.targets.get((OSM_Reader.TargetEnums.PUBLIC_TRANSPORT.ordinal())).isEmpty()){
-    		startAtPublicTrans = false;
-    	}
-		//Place the pedestrians at a normally distributed time
-		for(int i = 1; i <= NR_OF_PEDESTRIANS; i++){
-			//Check if we still have pedestrians left for this type
-			if(nrOfType[currentTypeIndex] > 0){
-				currentPedestrianType = PEDESTRIAN_TYPE.values()[currentTypeIndex];
-				nrOfType[currentTypeIndex]--;
-			}
-			//Go to the next type
-			else if (currentTypeIndex < nrOfType.length){
-				currentTypeIndex++;
-				i--;
-				continue;
-			}					
-			
-			if(Frame.DEBUG)before = System.currentTimeMillis();
-			
-			//Primarily try to get starting position from some sort of public transport such as subway etc.
-			if(startAtPublicTrans) {
-				start = OSM_Reader.targets.get((OSM_Reader.TargetEnums.PUBLIC_TRANSPORT.ordinal())).get(rand.nextInt(OSM_Reader.targets.get(OSM_Reader.TargetEnums.PUBLIC_TRANSPORT.ordinal()).size()));
-			}
-			//We didn't have any public transport targets let us start somewhere else
-			else{
-				for(LinkedList<Node> subTargetList : targets){
-					if(!subTargetList.isEmpty()){
-						start = subTargetList.get(rand.nextInt(subTargetList.size()));
-					}
-				}
-			}
-			pedestrian = new Pedestrian(start.getXPos(), start.getYPos(), collisionMatrix, currentPedestrianType, i);
-			if(Frame.DEBUG)after = System.currentTimeMillis();
-    		if(Frame.DEBUG)System.out.println("PEDESTRIAN PATH CALC TOOK:" + (after-before));
-    		pedestrians.put(i,pedestrian);
-    	}
-    }
-    
     /**
      * Checks if the given map has enough targets
      * @return true if this map is useable by the simulator.
@@ -431,6 +291,13 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
     	return true;
     }
     
+    /**
+     * The clock display is updated by the Clock itself.
+     */
+    @Override
+    public void minutePassed(SimulationClock clock){
+    }
+    
     /**
      * Draws all components that the simulator uses.
      */
@@ -485,13 +352,15 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
     	//Render background (grid)
     	graphics.setColor(Color.WHITE);
     	graphics.fillRect(0, 0, Frame.SIM_WINDOW_LENGTH, Frame.SIM_WINDOW_LENGTH);
-    	for(int i = 0; i < mapCells.size(); i++){
-    		float dist = mapCells.get(i).size()/10.f;
+    	SpatialIndex spatialIndex = engine.getSpatialIndex();
+    	int nrCellRow = spatialIndex.getNrCellRow();
+    	for(int i = 0; i < spatialIndex.getNrCells(); i++){
+    		float dist = spatialIndex.getCellCount(i)/10.f;
     		
     		//Render cell
     		if(dist > 1) dist = 1.f;
     		graphics.setColor(Frame.colorLinearInterpolation(lowestCollisionColor, highestCollisionColor, dist));
-    		graphics.fillRect((i%NR_CELL_ROW)*CELL_SIZE,(i/NR_CELL_ROW)*CELL_SIZE, CELL_SIZE-2, CELL_SIZE-2);
+    		graphics.fillRect((i%nrCellRow)*CELL_SIZE,(i/nrCellRow)*CELL_SIZE, CELL_SIZE-2, CELL_SIZE-2);
     	}
     }
 
@@ -642,6 +511,15 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
     	}
     }
     
+    /**
+     * Redraws the simulation after each update of the engine.
+     */
+    @Override
+    public void stepDone(SimulationEngine engine){
+		repaint();
+		if(currentSelectedID != 0)updateNeedsBars();
+    }
+    
     /**
      * Stops the draw update timer
      */
@@ -728,13 +606,13 @@ public class PedestriansSimulator extends JPanel implements ActionListener {
 	    			//Set clock speed to the lowest speed (1x)
 	    			if(e.getKeyCode() == KeyEvent.VK_DOWN){
 	    				Frame.clock.setToMinSpeed();
-	    				PEDESTRIAN_SPEED = Math.round(10000f/Clock.minuteLength);
+	    				engine.setMinuteLength(Clock.minuteLength);
 	    			}
 	    			
 	    			//Set clock speed to the highest speed
 	    			if(e.getKeyCode() == KeyEvent.VK_UP){
 	    				Frame.clock.setToMaxSpeed();
-	    				PEDESTRIAN_SPEED = Math.round(10000f/Clock.minuteLength);
+	    				engine.setMinuteLength(Clock.minuteLength);
 	    			}
     			}
     			
@@ -0,0 +1,78 @@
+/**
+ * SimulationClock keeps track of the simulated time.
+ * It has no timer of its own, time only moves forward when the SimulationEngine advances it.
+ * 
+ * @version 18-10-2026
+ */
+public class SimulationClock {
+	private long nrOfMinutes = 0;      //Nr of simulator minutes since the start of the simulation
+	private int currentMinute;
+	private int currentHour;
+	
+	/**
+	 * Initializes the SimulationClock to a start time.
+	 * @param startHour Hour to which the clock starts at
+	 * @param startMinute Minute to which the clock starts at
+	 */
+	public SimulationClock(int startHour, int startMinute){
+		currentHour   = startHour;
+		currentMinute = startMinute;
+	}
+	
+	/**
+	 * Advances the clock one minute.
+	 */
+	public void advanceMinute(){
+		nrOfMinutes++;
+		currentMinute++;
+		
+		if(currentMinute >= 60){
+			currentMinute = 0;
+			currentHour++;
+		}
+		if(currentHour >= 24){
+			currentHour = 0;
+		}
+	}
+	
+	/**
+	 * Returns the current hour.
+	 * @return int representing the current hour
+	 */
+	public int getHour(){
+		return currentHour;
+	}
+	
+	/**
+	 * Returns the current minute.
+	 * @return int representing the current minute
+	 */
+	public int getMinute(){
+		return currentMinute;
+	}
+	
+	/**
+	 * Returns the number of minutes since the start of the simulation.
+	 * @return long representing the nr of minutes that have passed since the start
+	 */
+	public long getNrMinutes(){
+		return nrOfMinutes;
+	}
+	
+	/**
+	 * Returns the current time as a string (e.g. 08:05).
+	 */
+	public String toString(){
+		String minuteString = ""  + currentMinute;
+		String hourString   = "" + currentHour;
+		
+		//Pad minutes & hours with a leading 0 if single digit
+		if(currentMinute < 10){
+			minuteString = "0" + minuteString;
+		}
+		if(currentHour < 10){
+			hourString = "0" + hourString;
+		}
+		return hourString + ":" + minuteString;
+	}
+}
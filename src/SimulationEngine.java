@@ -0,0 +1,560 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * SimulationEngine contains the simulation loop of the simulator (i.e. the Pedestrians, the map cells used for collisions
+ * and the simulated time). It does not depend on any display and can therefore be run headless, as fast as the CPU allows.
+ * Views (e.g. PedestriansSimulator) observe the engine by registering as SimulationListeners.
+ *
+ * Each step is divided into phases so that the pedestrians can be updated in parallel (see setParallelism):
+ * first collisions are checked (sequential), then all pedestrians update their own position while only reading
+ * shared state (parallel), at last the pedestrians are written into the spatial index of the map cells (sequential, in id order).
+ * Paths can be searched for on background threads instead of during the step (see setPlannerThreads), a pedestrian then stands still
+ * until its path has been found. The costs of tiles can be edited while the simulation runs (see setTileCost), the edits are applied
+ * at the start of a step (sequential) and the paths that they invalidate are repaired.
+ *
+ * @version 18-10-2026
+ */
+public class SimulationEngine {
+	public static final int UPDATE_INTERVAL = 50;	//How many simulated ms that pass at each update (step)
+	public static final int PIXELS_PER_MINUTE = 200;	//How far (in pixels) a Pedestrian walks during a simulated minute
+	public static final int FAST_FORWARD_STEPS_PER_MINUTE = 16;	//Nr of steps per simulated minute when fast-forwarding (see runUntil)
+	private static final int PARALLEL_THRESHOLD = 256;	//Nr of pedestrians below which a task is not split any further
+	public static final int CELL_SIZE = 25; 		//Size of each cell that map should be divided into
+
+	//Default distribution of pedestrian types (students, professors, civilians, i.e. in PEDESTRIAN_TYPE order)
+	public static final float[] DEFAULT_TYPE_MIX = {0.65f, 0.20f, 0.15f};
+	private float[] typeMix = DEFAULT_TYPE_MIX.clone();
+
+	private boolean collisionDetection = false; // A bit buggy, use at your own risk!
+
+	private SimulationClock clock;
+	private int minuteLength;		//The length of a simulated minute (ms)
+	private int elapsedTime = 0;	//Simulated ms since the last minute passed
+	private double pedestrianSpeed;	//Nr of pixels that a Pedestrian moves at each update (not rounded, so that the speed is exact at every minute length)
+
+	private AgentStore agentStore;		//Position, interpolation, needs and status of all pedestrians (same order as pedestrianList)
+	private boolean agentStoreUpdate = true;	//Update the common cases directly in the AgentStore (see updatePositions)
+	private SpatialIndex spatialIndex;	//Used to keep track of where collisions appear and with which pedestrians (items are indices in pedestrianList)
+	private HashMap<Integer,Pedestrian> pedestrians;
+	private ArrayList<Pedestrian> pedestrianList;	//Same pedestrians as above ordered by id (used when updating)
+	private long initiationTime = 0;		//Time it took to initiate the pedestrians (ms)
+	private long memoryPerPedestrian = 0;	//Approximate heap memory used by each initiated pedestrian (bytes, only reliable for large populations)
+	private ForkJoinPool pool;						//Used to update pedestrians in parallel (null if sequential)
+	private PathPlanner planner;					//Searches for paths in the background (null if paths are searched for during the step)
+	private int[][] collisionMatrix;
+	private ArrayList<SimulationListener> listeners;
+
+	/**
+	 * Creates a new engine for a loaded map (see OSM_Reader), without any pedestrians.
+	 * @param collisionMatrix CollisionMatrix of the map
+	 * @param startHour Hour at which the simulation starts
+	 * @param startMinute Minute at which the simulation starts
+	 */
+	public SimulationEngine(int[][] collisionMatrix, int startHour, int startMinute){
+		this.collisionMatrix = collisionMatrix;
+		clock = new SimulationClock(startHour, startMinute);
+		listeners = new ArrayList<SimulationListener>();
+		pedestrians = new HashMap<Integer,Pedestrian>();
+		pedestrianList = new ArrayList<Pedestrian>();
+		agentStore = new AgentStore(0);
+		setMinuteLength(Clock.originalMinuteLength);
+		spatialIndex = new SpatialIndex(Frame.SIM_WINDOW_LENGTH, CELL_SIZE, 0);
+	}
+
+	/**
+	 * Adds a listener that will be notified of the progress of the simulation.
+	 * @param listener Listener to add
+	 */
+	public void addListener(SimulationListener listener){
+		listeners.add(listener);
+	}
+
+	/**
+	 * Applies the tile edits that have been requested since the last step (see TileEdits) and marks the paths that pass raised tiles as outdated.
+	 */
+	private void applyTileEdits(){
+		TileEdits edits = OSM_Reader.tileEdits;
+		if(edits == null || edits.getCollisionMatrix() != collisionMatrix || edits.apply() == 0){
+			return;
+		}
+		//Searches that are queued or planned may use the old costs
+		if(planner != null){
+			planner.invalidate();
+		}
+		if(edits.getNrOfRaised() > 0){
+			for(Pedestrian pedestrian : pedestrianList){
+				pedestrian.repairPath(edits);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a collision has occurred between pedestrians inside of cell,
+	 * if so then a responsive action is issued.
+	 */
+	private void checkCollisionInCell(int cell){
+		int p1,p2,p1X,p1Y,p2X,p2Y,interLength;
+		int end = spatialIndex.getCellEnd(cell);
+		//Select a pedestrian in cell
+		for(int i = spatialIndex.getCellStart(cell); i < end; i++){
+			p1  = spatialIndex.getItem(i);
+			p1X = agentStore.getPosX(p1);
+			p1Y = agentStore.getPosY(p1);
+			//and check it against another in cell
+			for(int j = (i+1); j < end; j++){
+				p2  = spatialIndex.getItem(j);
+				p2X = agentStore.getPosX(p2);
+				p2Y = agentStore.getPosY(p2);
+				interLength = circleCollisionLength(p1X,p1Y,p2X,p2Y,PedestriansSimulator.PEDESTRIAN_RADIUS,PedestriansSimulator.PEDESTRIAN_RADIUS);
+
+				if(interLength > 0){
+					pedestrianList.get(p1).avoidCollision(p2X, p2Y, 1, interLength);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks for collisions in each cell (using the spatial index from the previous step).
+	 */
+	private void checkCollisions()
+	{
+		for(int i = 0; i < spatialIndex.getNrCells(); i++)
+		{
+			if(spatialIndex.getCellCount(i) > 1){
+				checkCollisionInCell(i);
+			}
+		}
+	}
+
+	/**
+	 * Checks if two circles are colliding with each other.
+	 * @param p1X X-Center of circle 1 (pixels)
+	 * @param p1Y Y-Center of circle 1 (pixels)
+	 * @param p2X X-Center of circle 1 (pixels)
+	 * @param p2Y Y-Center of circle 2 (pixels)
+	 * @param p1R Radius of circle 1 (pixels)
+	 * @param p2R Radius of circle 2 (pixels)
+	 * @return Intersection length if intersection occurred, otherwise 0.
+	 */
+	private int circleCollisionLength(int p1X, int p1Y, int p2X, int p2Y, int p1R, int p2R){
+		int distX = p2X - p1X;
+		int distY = p2Y - p1Y;
+		//Use squared Pythogaras (that way we avoid those pesky square-roots)
+		int length = distX*distX + distY*distY;
+		if(length > (p1R+p2R)*(p1R+p2R))
+		{
+			length = 0;
+		}
+		return (int) Math.round(Math.sqrt(length));
+	}
+
+	/**
+	 * Returns the nr of threads that are used to update the pedestrians.
+	 */
+	public int getParallelism(){
+		return pool == null ? 1 : pool.getParallelism();
+	}
+
+	/**
+	 * Returns the store that holds the state of all pedestrians (agent index i is the pedestrian with id i+1).
+	 */
+	public AgentStore getAgentStore(){
+		return agentStore;
+	}
+
+	/**
+	 * Returns the clock of the simulation.
+	 */
+	public SimulationClock getClock(){
+		return clock;
+	}
+
+	/**
+	 * Returns the collision matrix that the simulation uses.
+	 */
+	public int[][] getCollisionMatrix(){
+		return collisionMatrix;
+	}
+
+	/**
+	 * Returns the time it took to initiate the pedestrians (ms, see initiatePedestrians).
+	 */
+	public long getInitiationTime(){
+		return initiationTime;
+	}
+
+	/**
+	 * Returns the approximate heap memory used by each initiated pedestrian (bytes, see initiatePedestrians).
+	 */
+	public long getMemoryPerPedestrian(){
+		return memoryPerPedestrian;
+	}
+
+	/**
+	 * Returns the length of a simulated minute (ms).
+	 */
+	public int getMinuteLength(){
+		return minuteLength;
+	}
+
+	/**
+	 * Returns the nr of pixels that a Pedestrian moves at each update.
+	 */
+	public double getPedestrianSpeed(){
+		return pedestrianSpeed;
+	}
+
+	/**
+	 * Returns the planner that searches for paths in the background, null if paths are searched for during the step (see setPlannerThreads).
+	 */
+	public PathPlanner getPathPlanner(){
+		return planner;
+	}
+
+	/**
+	 * Returns the spatial index of the map cells (items are indices in the pedestrian list, see getPedestrianList).
+	 */
+	public SpatialIndex getSpatialIndex(){
+		return spatialIndex;
+	}
+
+	/**
+	 * Returns all pedestrians ordered by id (the pedestrian with id i is at index i-1).
+	 */
+	public ArrayList<Pedestrian> getPedestrianList(){
+		return pedestrianList;
+	}
+
+	/**
+	 * Returns all pedestrians (by id).
+	 */
+	public HashMap<Integer,Pedestrian> getPedestrians(){
+		return pedestrians;
+	}
+
+	/**
+	 * Returns the distribution of pedestrian types (in PEDESTRIAN_TYPE order).
+	 */
+	public float[] getTypeMix(){
+		return typeMix.clone();
+	}
+
+	/**
+	 * Returns the heap memory currently in use (after a garbage collection, so that the value is comparable between calls).
+	 */
+	private static long getUsedMemory(){
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Initiates all Pedestrians and assigns them with a waking time (i.e time when they should start to move)
+	 * that correlates to the Gaussian Distribution. The pedestrians are divided into types according to the type mix
+	 * (see setTypeMix). No paths are calculated here, a pedestrian calculates its first path when it wakes up.
+	 * The time it took and the approximate memory used per pedestrian can be read afterwards (see getInitiationTime).
+	 * @param nrOfPedestrians Nr of pedestrians to create
+	 */
+	public void initiatePedestrians(int nrOfPedestrians){
+		ArrayList<LinkedList<Node>> targets = OSM_Reader.targets;
+		PedestriansSimulator.PEDESTRIAN_TYPE[] types = PedestriansSimulator.PEDESTRIAN_TYPE.values();
+		long before = System.nanoTime();
+		long usedMemoryBefore = getUsedMemory();
+		Random rand = new Random();
+		rand.nextGaussian();
+
+		//Nr of pedestrians of each type (education targets might be missing, then everyone is a civilian)
+		float[] mix = typeMix;
+		if(targets.get(OSM_Reader.TargetEnums.STUDY.ordinal()).isEmpty()){
+			mix = new float[types.length];
+			mix[PedestriansSimulator.PEDESTRIAN_TYPE.CIVILIAN.ordinal()] = 1;
+		}
+		int[] nrOfType = new int[types.length];
+		int remaining = nrOfPedestrians;
+		for(int i = 0; i < types.length-1; i++){
+			nrOfType[i] = Math.min(Math.round(nrOfPedestrians*mix[i]), remaining);
+			remaining  -= nrOfType[i];
+		}
+		nrOfType[types.length-1] = remaining;	//Last type gets the rest, so that rounding never loses any pedestrian
+
+		//Primarily start at some sort of public transport such as subway etc., else somewhere else
+		ArrayList<Node> startTargets = new ArrayList<Node>(targets.get(OSM_Reader.TargetEnums.PUBLIC_TRANSPORT.ordinal()));
+		if(startTargets.isEmpty()){
+			for(LinkedList<Node> subTargetList : targets){
+				if(!subTargetList.isEmpty()){
+					startTargets = new ArrayList<Node>(subTargetList);
+				}
+			}
+		}
+
+		pedestrianList.ensureCapacity(pedestrianList.size() + nrOfPedestrians);
+		agentStore.ensureCapacity(pedestrianList.size() + nrOfPedestrians);
+		int id = pedestrianList.size();
+		Node start;
+		Pedestrian pedestrian;
+		for(int typeIndex = 0; typeIndex < types.length; typeIndex++){
+			for(int i = 0; i < nrOfType[typeIndex]; i++){
+				id++;
+				start = startTargets.get(rand.nextInt(startTargets.size()));
+				pedestrian = new Pedestrian(start.getXPos(), start.getYPos(), this, types[typeIndex], id);
+				pedestrians.put(id,pedestrian);
+				pedestrianList.add(pedestrian);
+			}
+		}
+
+		initiationTime = (System.nanoTime() - before) / 1000000;
+		memoryPerPedestrian = nrOfPedestrians > 0 ? Math.max(getUsedMemory() - usedMemoryBefore, 0) / nrOfPedestrians : 0;
+		if(Frame.DEBUG)System.out.println("PEDESTRIANS INITIATION TOOK:" + initiationTime + " ms, ~" + memoryPerPedestrian + " bytes/pedestrian");
+	}
+
+	/**
+	 * Runs the simulation (as fast as possible) for a nr of simulated minutes.
+	 * @param minutes Nr of simulated minutes to run
+	 * @return Nr of steps that were taken
+	 */
+	public long runFor(long minutes){
+		long endMinute = clock.getNrMinutes() + minutes;
+		long steps = 0;
+		while(clock.getNrMinutes() < endMinute){
+			step();
+			steps++;
+		}
+		return steps;
+	}
+
+	/**
+	 * Runs the simulation (as fast as possible) until the clock shows a given time.
+	 * If the time already has passed today the simulation runs until that time tomorrow.
+	 * @param hour Hour to stop at
+	 * @param minute Minute to stop at
+	 * @return Nr of steps that were taken
+	 */
+	public long runUntil(int hour, int minute){
+		int minutesLeft = (hour*60 + minute) - (clock.getHour()*60 + clock.getMinute());
+		if(minutesLeft < 0){
+			minutesLeft += 24*60;
+		}
+		return runFor(minutesLeft);
+	}
+
+	/**
+	 * Parses a distribution of pedestrian types.
+	 * @param mix Comma separated shares in PEDESTRIAN_TYPE order (e.g. 0.65,0.20,0.15 or 65,20,15)
+	 * @return The shares (not normalized, see setTypeMix)
+	 */
+	public static float[] parseTypeMix(String mix){
+		String[] parts = mix.split(",");
+		if(parts.length != PedestriansSimulator.PEDESTRIAN_TYPE.values().length){
+			throw new IllegalArgumentException("Type mix must have " + PedestriansSimulator.PEDESTRIAN_TYPE.values().length + " shares: " + mix);
+		}
+		float[] shares = new float[parts.length];
+		for(int i = 0; i < parts.length; i++){
+			shares[i] = Float.parseFloat(parts[i].trim());
+		}
+		return shares;
+	}
+
+	/**
+	 * Removes a listener.
+	 * @param listener Listener to remove
+	 */
+	public void removeListener(SimulationListener listener){
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Sets if the pedestrians in common states (sleeping, waiting at a target or walking inside of a collision tile)
+	 * should be updated directly in the AgentStore, or if every pedestrian should be updated by Pedestrian.updatePosition.
+	 * Both give the same result, the first is faster for large populations.
+	 * @param agentStoreUpdate True to update in the AgentStore
+	 */
+	public void setAgentStoreUpdate(boolean agentStoreUpdate){
+		this.agentStoreUpdate = agentStoreUpdate;
+	}
+
+	/**
+	 * Sets the length of a simulated minute, the speed of the pedestrians is scaled accordingly
+	 * (so that they always walk PIXELS_PER_MINUTE during a simulated minute).
+	 * @param newMinuteLength New minute length (in ms, at least UPDATE_INTERVAL)
+	 */
+	public void setMinuteLength(int newMinuteLength){
+		minuteLength = Math.max(newMinuteLength, UPDATE_INTERVAL);
+		pedestrianSpeed = (double)PIXELS_PER_MINUTE*UPDATE_INTERVAL/minuteLength;
+	}
+
+	/**
+	 * Sets the nr of threads that should be used to update the pedestrians (1 means sequential update).
+	 * @param threads Nr of threads
+	 */
+	public void setParallelism(int threads){
+		if(pool != null){
+			pool.shutdown();
+			pool = null;
+		}
+		if(threads > 1){
+			pool = new ForkJoinPool(threads);
+		}
+	}
+
+	/**
+	 * Sets the nr of background threads that search for paths (0 means that paths are searched for during the step, by the pedestrians themselves).
+	 * Requests that are waiting for the old threads are dropped, the pedestrians request their paths again.
+	 * @param threads Nr of threads
+	 */
+	public void setPlannerThreads(int threads){
+		if(planner != null){
+			planner.shutdown();
+			planner = null;
+		}
+		if(threads > 0){
+			planner = new PathPlanner(collisionMatrix, threads, PathPlanner.DEFAULT_QUEUE_CAPACITY);
+		}
+	}
+
+	/**
+	 * Sets the nr of steps that make up a simulated minute (fewer steps gives a faster but coarser simulation).
+	 * @param stepsPerMinute Nr of steps per simulated minute
+	 * @throws IllegalArgumentException If stepsPerMinute is not positive or the minute would be longer than Integer.MAX_VALUE ms
+	 */
+	public void setStepsPerMinute(int stepsPerMinute){
+		if(stepsPerMinute <= 0 || stepsPerMinute > Integer.MAX_VALUE / UPDATE_INTERVAL){
+			throw new IllegalArgumentException("Invalid nr of steps per minute: " + stepsPerMinute);
+		}
+		setMinuteLength(stepsPerMinute*UPDATE_INTERVAL);
+	}
+
+	/**
+	 * Requests a change of the cost of a tile (see TileEdits), e.g. Integer.MAX_VALUE to close it or a higher cost to make pedestrians avoid a crowded tile.
+	 * The change is applied at the start of the next step, and only the paths that pass the tile (if its cost was raised) are repaired.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 * @param cost New cost
+	 * @throws IllegalStateException If the collisionMatrix is not the matrix of the loaded map (see OSM_Reader)
+	 */
+	public void setTileCost(int x, int y, int cost){
+		TileEdits edits = OSM_Reader.tileEdits;
+		if(edits == null || edits.getCollisionMatrix() != collisionMatrix){
+			throw new IllegalStateException("Tile costs can only be edited for the loaded map");
+		}
+		edits.setCost(x, y, cost);
+	}
+
+	/**
+	 * Sets the distribution of pedestrian types that is used by the next initiatePedestrians.
+	 * @param mix Share of each type in PEDESTRIAN_TYPE order (normalized so that the shares sum up to 1)
+	 */
+	public void setTypeMix(float[] mix){
+		if(mix.length != PedestriansSimulator.PEDESTRIAN_TYPE.values().length){
+			throw new IllegalArgumentException("Type mix must have " + PedestriansSimulator.PEDESTRIAN_TYPE.values().length + " shares");
+		}
+		float sum = 0;
+		for(float share : mix){
+			if(share < 0 || Float.isNaN(share)){
+				throw new IllegalArgumentException("Type mix can not contain negative shares");
+			}
+			sum += share;
+		}
+		if(sum <= 0){
+			throw new IllegalArgumentException("Type mix must contain at least one positive share");
+		}
+		for(int i = 0; i < mix.length; i++){
+			typeMix[i] = mix[i] / sum;
+		}
+	}
+
+	/**
+	 * Updates the simulation one step (UPDATE_INTERVAL simulated ms).
+	 * Applies edited tile costs, advances the clock if a minute has passed, then moves all pedestrians and notifies the listeners.
+	 */
+	public void step(){
+		applyTileEdits();
+
+		elapsedTime += UPDATE_INTERVAL;
+		while(elapsedTime >= minuteLength){
+			elapsedTime -= minuteLength;
+			clock.advanceMinute();
+			for(SimulationListener listener : listeners){
+				listener.minutePassed(clock);
+			}
+		}
+
+		if(collisionDetection){
+			checkCollisions();
+		}
+
+		//Each pedestrian only changes its own state here, the shared state (clock, collisionMatrix, targets, paths) is only read
+		if(pool != null && pedestrianList.size() > PARALLEL_THRESHOLD){
+			pool.invoke(new UpdateTask(0, pedestrianList.size()));
+		}
+		else{
+			updatePositions(0, pedestrianList.size());
+		}
+
+		//Write the new positions into the map cells (sequential so that the cells are filled in the same order each time)
+		int radius = PedestriansSimulator.PEDESTRIAN_RADIUS;
+		spatialIndex.clear();
+		for(int i = 0; i < agentStore.getSize(); i++){
+			if(agentStore.isWalking(i)){
+				int x = agentStore.getPosX(i);
+				int y = agentStore.getPosY(i);
+				spatialIndex.addBox(x-radius, y-radius, x+radius, y+radius, i);
+			}
+		}
+		spatialIndex.build();
+
+		for(SimulationListener listener : listeners){
+			listener.stepDone(this);
+		}
+	}
+
+	/**
+	 * Updates the positions of a range of pedestrians. Pedestrians that are sleeping, waiting at a target or walking
+	 * inside of a collision tile are updated directly in the AgentStore (unless turned off, see setAgentStoreUpdate),
+	 * the rest are updated by Pedestrian.updatePosition.
+	 * @param from Index of the first pedestrian to update
+	 * @param to Index after the last pedestrian to update
+	 */
+	private void updatePositions(int from, int to){
+		float scaleCollision = OSM_Reader.scaleCollision;
+		for(int i = from; i < to; i++){
+			if(!agentStoreUpdate || !agentStore.updateFast(i, clock, scaleCollision)){
+				pedestrianList.get(i).updatePosition();
+			}
+		}
+	}
+
+	/**
+	 * Updates the positions of a range of pedestrians, the range is split in halves until it is small enough.
+	 */
+	@SuppressWarnings("serial")
+	private class UpdateTask extends RecursiveAction {
+		private int from;	//First pedestrian (index in pedestrianList)
+		private int to;		//Last pedestrian (exclusive)
+
+		/**
+		 * @param from Index of the first pedestrian to update
+		 * @param to Index after the last pedestrian to update
+		 */
+		public UpdateTask(int from, int to){
+			this.from = from;
+			this.to   = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from <= PARALLEL_THRESHOLD){
+				updatePositions(from, to);
+			}
+			else{
+				int middle = (from + to) >>> 1;
+				invokeAll(new UpdateTask(from, middle), new UpdateTask(middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,13 @@
+/**
+ * This interface represents an observer of the SimulationEngine (e.g. a view that renders the simulation).
+ * 
+ * @version 18-10-2026
+ */
+public interface SimulationListener {
+
+	/** Called each time a simulated minute has passed */
+	public void minutePassed(SimulationClock clock);
+	
+	/** Called after each update of the simulation */
+	public void stepDone(SimulationEngine engine);
+}
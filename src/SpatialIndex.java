@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+/**
+ * SpatialIndex keeps track of which items (e.g. pedestrians) that occupy which cell of a square grid over the map.
+ * It is rebuilt each update: items are first added (clear + addBox) and then sorted into their cells with a counting sort (build).
+ * All data is kept in flat int arrays that are reused between updates, the items of a cell are stored next to each other
+ * in cellItems (from getCellStart(cell) to getCellEnd(cell)).
+ *
+ * @version 18-10-2026
+ */
+public class SpatialIndex {
+	private final int cellSize;		//Size of each cell (pixels)
+	private final int nrCellRow;	//Nr of cells per row (the grid is square)
+	private final int nrCells;
+
+	//Entries that have been added since the last clear (cell and item of each entry)
+	private int[] entryCell;
+	private int[] entryItem;
+	private int nrEntries = 0;
+
+	//Result of the counting sort
+	private int[] cellStart;	//Index in cellItems of the first item of each cell (cellStart[nrCells] equals nr of entries)
+	private int[] cellFill;		//Next free index of each cell while sorting
+	private int[] cellItems;	//Items sorted by cell
+
+	/**
+	 * Creates an empty index.
+	 * @param mapLength Length of the (square) map in pixels
+	 * @param cellSize Size of each cell in pixels
+	 * @param capacity Expected nr of entries (the index grows if more are added)
+	 */
+	public SpatialIndex(int mapLength, int cellSize, int capacity){
+		this.cellSize = cellSize;
+		nrCellRow = mapLength/cellSize;
+		nrCells   = nrCellRow*nrCellRow;
+		capacity  = Math.max(capacity, 16);
+		entryCell = new int[capacity];
+		entryItem = new int[capacity];
+		cellItems = new int[capacity];
+		cellStart = new int[nrCells+1];
+		cellFill  = new int[nrCells];
+	}
+
+	/**
+	 * Adds an item to a cell (will be part of the index after the next build).
+	 * @param cell Cell index
+	 * @param item Item to add
+	 */
+	public void add(int cell, int item){
+		if(nrEntries == entryCell.length){
+			entryCell = Arrays.copyOf(entryCell, 2*nrEntries);
+			entryItem = Arrays.copyOf(entryItem, 2*nrEntries);
+		}
+		entryCell[nrEntries] = cell;
+		entryItem[nrEntries] = item;
+		nrEntries++;
+	}
+
+	/**
+	 * Adds an item to all cells that a box overlaps (each cell once). Parts of the box outside of the map are ignored.
+	 * @param minX Left side of the box (pixels)
+	 * @param minY Top side of the box (pixels)
+	 * @param maxX Right side of the box (pixels)
+	 * @param maxY Bottom side of the box (pixels)
+	 * @param item Item to add
+	 */
+	public void addBox(int minX, int minY, int maxX, int maxY, int item){
+		int minCellX = Math.max(Math.floorDiv(minX, cellSize), 0);
+		int minCellY = Math.max(Math.floorDiv(minY, cellSize), 0);
+		int maxCellX = Math.min(Math.floorDiv(maxX, cellSize), nrCellRow-1);
+		int maxCellY = Math.min(Math.floorDiv(maxY, cellSize), nrCellRow-1);
+		for(int y = minCellY; y <= maxCellY; y++){
+			for(int x = minCellX; x <= maxCellX; x++){
+				add(x + y*nrCellRow, item);
+			}
+		}
+	}
+
+	/**
+	 * Sorts all added items into their cells (counting sort, items keep the order in which they were added).
+	 */
+	public void build(){
+		if(cellItems.length < nrEntries){
+			cellItems = new int[entryCell.length];
+		}
+
+		//Count items of each cell
+		Arrays.fill(cellStart, 0);
+		for(int i = 0; i < nrEntries; i++){
+			cellStart[entryCell[i]+1]++;
+		}
+		//Prefix sum gives the start of each cell
+		for(int cell = 0; cell < nrCells; cell++){
+			cellStart[cell+1] += cellStart[cell];
+		}
+		//Place the items
+		System.arraycopy(cellStart, 0, cellFill, 0, nrCells);
+		for(int i = 0; i < nrEntries; i++){
+			cellItems[cellFill[entryCell[i]]++] = entryItem[i];
+		}
+	}
+
+	/**
+	 * Removes all items (the index is empty after the next build).
+	 */
+	public void clear(){
+		nrEntries = 0;
+	}
+
+	/**
+	 * Returns the nr of items in a cell.
+	 * @param cell Cell index
+	 */
+	public int getCellCount(int cell){
+		return cellStart[cell+1] - cellStart[cell];
+	}
+
+	/**
+	 * Returns the index (in the item array) after the last item of a cell.
+	 * @param cell Cell index
+	 */
+	public int getCellEnd(int cell){
+		return cellStart[cell+1];
+	}
+
+	/**
+	 * Returns the index (in the item array) of the first item of a cell.
+	 * @param cell Cell index
+	 */
+	public int getCellStart(int cell){
+		return cellStart[cell];
+	}
+
+	/**
+	 * Returns an item of the item array (see getCellStart and getCellEnd).
+	 * @param index Index in the item array
+	 */
+	public int getItem(int index){
+		return cellItems[index];
+	}
+
+	/**
+	 * Returns the total nr of cells.
+	 */
+	public int getNrCells(){
+		return nrCells;
+	}
+
+	/**
+	 * Returns the nr of cells per row.
+	 */
+	public int getNrCellRow(){
+		return nrCellRow;
+	}
+}
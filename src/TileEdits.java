@@ -0,0 +1,328 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TileEdits changes the costs of tiles of a collisionMatrix while the simulation runs, e.g. to close a street (Integer.MAX_VALUE),
+ * put up a temporary barrier or make a crowded area costlier. Edits can be requested from any thread (see setCost), they are queued
+ * and applied by the SimulationEngine at the start of a step, when no pedestrian is updated (see apply). The threads of the PathPlanner
+ * are not paused (that would stall the step until their searches are done), so a planned search may read a collisionMatrix that changes
+ * while it searches. Its path may then be wrong, but the request was submitted with an older version of the edits, so the path is not walked
+ * (see PathPlanner.Request.isOutdated) and not kept in the PathCache (PathCache.put refuses it once the edits are applied, and a path
+ * that was put while they were applied is removed with the other cached paths over the edited tiles).
+ *
+ * Applying the edits repairs everything that depends on the costs:
+ * - The resident flow fields are repaired (see FlowFieldCache.updateTiles).
+ * - Cached paths that pass a tile whose cost was raised are removed, and so are the cached paths that a lowered tile could make more expensive
+ *   than another path (see PathCache.removeLowered).
+ * - The abstract graph of the HierarchicalPathfinder is built again around the edited tiles (the other clusters are shared).
+ * - The landmarks are told about the edited tiles, their costs are calculated again in the background if a tile got cheaper than when
+ *   they were calculated (see Landmarks.updateTile).
+ * - Each Pathfinder reads the edits that it has not seen yet before its next search and updates its jump point tables (see getEditsSince).
+ * - The IncrementalPathfinders of the targets whose paths have been invalidated are updated (see getPathfinder).
+ * The pedestrians whose paths pass a tile whose cost was raised get their paths repaired (see Pedestrian.repairPath). When many of them walk to
+ * the same target they share the IncrementalPathfinder of the target, which only searches again where the edits affect the paths,
+ * the others search for new paths from scratch, which is faster for a few paths (see getPathfinder). The first search of an
+ * IncrementalPathfinder is slower than searching the paths from scratch without landmarks (up to three times on large maps, where
+ * the repairs do not win it back), so only maps with landmarks get IncrementalPathfinders (see OSM_Reader), and only for targets whose paths
+ * are invalidated again and again (see addPathfinder).
+ *
+ * @version 18-10-2026
+ */
+public class TileEdits {
+	public static final int DEFAULT_MAX_PATHFINDERS = 4;	//An IncrementalPathfinder uses about 20 bytes per tile (800 kB for a 200x200 collisionMatrix)
+	private static final int MIN_NEW_PATHFINDER_PATHS = 16;	//Nr of paths to a target that the same edits must invalidate for the target to get an IncrementalPathfinder...
+	private static final int MIN_NEW_PATHFINDER_EDITS = 2;	//...and the nr of times that edits must have done so
+	private static final int MIN_PATHFINDER_PATHS = 4;		//Nr of paths to a target that the same edits must invalidate for its IncrementalPathfinder to repair them
+	private static final int LOG_SIZE = 4096;	//Nr of latest edits that are kept for the Pathfinders (a Pathfinder that is further behind reads the whole matrix again)
+
+	private final int[][] collisionMatrix;
+	private final int columns;	//Nr of columns in the collisionMatrix (tile index is x*columns + y)
+	private final ConcurrentLinkedQueue<int[]> requested = new ConcurrentLinkedQueue<int[]>();	//Edits that have not been applied (x, y, cost)
+
+	//Applied edits, the latest LOG_SIZE edited tiles are kept in a ring buffer
+	private final int[] log = new int[LOG_SIZE];
+	private volatile int version = 0;	//Nr of applied edits (that changed a cost)
+
+	//Tiles that were changed by the latest apply
+	private final int[] oldCost;		//Cost of each changed tile before the edits
+	private final boolean[] changed;
+	private int[] changedTiles = new int[16];
+	private int nrOfChanged = 0;
+	private int[] raisedTiles  = new int[16];	//Changed tiles whose cost is higher than before
+	private int nrOfRaised = 0;
+	private int[] loweredTiles = new int[16];	//Changed tiles whose cost is lower than before
+	private int nrOfLowered = 0;
+	private final HashMap<Integer,Integer> invalidated = new HashMap<Integer,Integer>();	//Nr of paths that the edits invalidated, by goal tile index
+	private final HashMap<Integer,Integer> invalidatedEdits = new HashMap<Integer,Integer>();	//Nr of times that edits have invalidated MIN_NEW_PATHFINDER_PATHS paths, by goal tile index
+
+	//Pathfinders of the targets whose paths have been invalidated, by goal tile index in access order (least recently used first)
+	private final LinkedHashMap<Integer,IncrementalPathfinder> pathfinders;
+	private final int maxPathfinders;
+
+	//Statistics
+	private long removedPaths = 0;
+	private long invalidatedPaths = 0;
+
+	/**
+	 * Creates the edits of a collisionMatrix.
+	 * @param collisionMatrix CollisionMatrix to edit
+	 * @param maxPathfinders Max nr of targets that keep an IncrementalPathfinder (0 means that invalidated paths are searched for again from scratch)
+	 */
+	public TileEdits(int[][] collisionMatrix, int maxPathfinders){
+		this.collisionMatrix = collisionMatrix;
+		this.maxPathfinders = Math.max(maxPathfinders, 0);
+		columns = collisionMatrix[0].length;
+		oldCost = new int[collisionMatrix.length*columns];
+		changed = new boolean[collisionMatrix.length*columns];
+		pathfinders = new LinkedHashMap<Integer,IncrementalPathfinder>(16, 0.75f, true);
+	}
+
+	/**
+	 * Counts a path to a target that has been invalidated by the latest edits, and keeps an IncrementalPathfinder for the target when the edits
+	 * have invalidated MIN_NEW_PATHFINDER_PATHS of its paths for the MIN_NEW_PATHFINDER_EDITS:th time (the least recently used pathfinder
+	 * is reused if there are too many). A target whose paths are only invalidated once would not win back the slower first search.
+	 * Must not be called while pedestrians are updated.
+	 * @param goalX X-pos of target tile
+	 * @param goalY Y-pos of target tile
+	 */
+	public synchronized void addPathfinder(int goalX, int goalY){
+		invalidatedPaths++;
+		int goal = goalX*columns + goalY;
+		Integer paths = invalidated.get(goal);
+		paths = paths == null ? 1 : paths+1;
+		invalidated.put(goal, paths);
+		if(maxPathfinders == 0 || paths != MIN_NEW_PATHFINDER_PATHS || pathfinders.containsKey(goal)){
+			return;
+		}
+		Integer edits = invalidatedEdits.get(goal);
+		edits = edits == null ? 1 : edits+1;
+		invalidatedEdits.put(goal, edits);
+		if(edits < MIN_NEW_PATHFINDER_EDITS){
+			return;
+		}
+		IncrementalPathfinder pathfinder;
+		if(pathfinders.size() < maxPathfinders){
+			pathfinder = new IncrementalPathfinder(collisionMatrix);
+		}
+		else{
+			Iterator<IncrementalPathfinder> eldest = pathfinders.values().iterator();
+			pathfinder = eldest.next();
+			eldest.remove();
+		}
+		pathfinder.setGoal(goalX, goalY);
+		pathfinders.put(goal, pathfinder);
+	}
+
+	/**
+	 * Applies the requested edits to the collisionMatrix and repairs what depends on the costs (see class comment).
+	 * Must not be called while pedestrians are updated. The PathPlanner may read the collisionMatrix at the same time (see class comment).
+	 * @return Nr of tiles whose cost was changed
+	 */
+	public synchronized int apply(){
+		//Forget the tiles of the previous edits
+		for(int i = 0; i < nrOfChanged; i++){
+			changed[changedTiles[i]] = false;
+		}
+		nrOfChanged = 0;
+		nrOfRaised  = 0;
+		nrOfLowered = 0;
+
+		int[] edit;
+		while((edit = requested.poll()) != null){
+			int tile = edit[0]*columns + edit[1];
+			if(collisionMatrix[edit[0]][edit[1]] == edit[2]){
+				continue;
+			}
+			if(!changed[tile]){
+				changed[tile] = true;
+				oldCost[tile] = collisionMatrix[edit[0]][edit[1]];
+				if(nrOfChanged == changedTiles.length){
+					changedTiles = Arrays.copyOf(changedTiles, 2*nrOfChanged);
+				}
+				changedTiles[nrOfChanged++] = tile;
+			}
+			collisionMatrix[edit[0]][edit[1]] = edit[2];
+			log[version % LOG_SIZE] = tile;
+			version++;
+		}
+		//Paths that the PathPlanner searched for with the old costs are no longer cached
+		OSM_Reader.pathCache.setEditVersion(version);
+		if(nrOfChanged == 0){
+			return 0;
+		}
+		invalidated.clear();
+
+		Landmarks landmarks = OSM_Reader.landmarks;
+		if(landmarks != null && landmarks.getCollisionMatrix() != collisionMatrix){
+			landmarks = null;
+		}
+		for(int i = 0; i < nrOfChanged; i++){
+			int tile = changedTiles[i];
+			int x = tile / columns;
+			int y = tile % columns;
+			if(collisionMatrix[x][y] > oldCost[tile]){
+				if(nrOfRaised == raisedTiles.length){
+					raisedTiles = Arrays.copyOf(raisedTiles, 2*nrOfRaised);
+				}
+				raisedTiles[nrOfRaised++] = tile;
+			}
+			else if(collisionMatrix[x][y] < oldCost[tile]){
+				if(nrOfLowered == loweredTiles.length){
+					loweredTiles = Arrays.copyOf(loweredTiles, 2*nrOfLowered);
+				}
+				loweredTiles[nrOfLowered++] = tile;
+			}
+			for(IncrementalPathfinder pathfinder : pathfinders.values()){
+				pathfinder.updateTile(x, y);
+			}
+			if(landmarks != null){
+				landmarks.updateTile(x, y);
+			}
+		}
+		FlowFieldCache flowFields = OSM_Reader.flowFields;
+		if(flowFields != null){
+			flowFields.updateTiles(changedTiles, nrOfChanged);
+		}
+		if(nrOfRaised > 0){
+			removedPaths += OSM_Reader.pathCache.removeRaised(this);
+		}
+		if(nrOfLowered > 0){
+			removedPaths += OSM_Reader.pathCache.removeLowered(this, landmarks);
+		}
+		HierarchicalPathfinder hierarchicalPathfinder = OSM_Reader.hierarchicalPathfinder;
+		if(hierarchicalPathfinder != null){
+			OSM_Reader.hierarchicalPathfinder = new HierarchicalPathfinder(hierarchicalPathfinder, changedTiles, nrOfChanged);
+		}
+		return nrOfChanged;
+	}
+
+	/**
+	 * Returns the collisionMatrix that is edited.
+	 */
+	public int[][] getCollisionMatrix(){
+		return collisionMatrix;
+	}
+
+	/**
+	 * Returns the tiles that have been edited since an earlier version (see getVersion).
+	 * @param fromVersion Earlier version
+	 * @return Tile index of each edited tile (in the order they were edited), null if the edits are too old to be kept
+	 */
+	public synchronized int[] getEditsSince(int fromVersion){
+		if(version - fromVersion > LOG_SIZE){
+			return null;
+		}
+		int[] tiles = new int[version - fromVersion];
+		for(int i = 0; i < tiles.length; i++){
+			tiles[i] = log[(fromVersion + i) % LOG_SIZE];
+		}
+		return tiles;
+	}
+
+	/**
+	 * Returns the nr of paths that have been invalidated by raised tile costs (see Pedestrian.repairPath).
+	 */
+	public synchronized long getInvalidatedPaths(){
+		return invalidatedPaths;
+	}
+
+	/**
+	 * Returns the nr of tiles whose cost was lowered by the latest edits.
+	 */
+	public synchronized int getNrOfLowered(){
+		return nrOfLowered;
+	}
+
+	/**
+	 * Returns the nr of tiles whose cost was raised by the latest edits.
+	 */
+	public synchronized int getNrOfRaised(){
+		return nrOfRaised;
+	}
+
+	/**
+	 * Returns the IncrementalPathfinder of a target whose paths have been invalidated (see addPathfinder). A repair by the pathfinder is slower
+	 * than a new search from scratch for one path, but it is shared by all paths to the target, so the pathfinder is only returned if the
+	 * latest edits have invalidated at least MIN_PATHFINDER_PATHS paths to the target.
+	 * The pathfinder must only be used while synchronized on it, since pedestrians that walk to the same target may be updated in parallel.
+	 * @param goalX X-pos of target tile
+	 * @param goalY Y-pos of target tile
+	 * @return The pathfinder, null if the target has none or the paths to it should be searched for from scratch
+	 */
+	public synchronized IncrementalPathfinder getPathfinder(int goalX, int goalY){
+		if(pathfinders.isEmpty()){
+			return null;
+		}
+		int goal = goalX*columns + goalY;
+		Integer paths = invalidated.get(goal);
+		if(paths == null || paths < MIN_PATHFINDER_PATHS){
+			return null;
+		}
+		return pathfinders.get(goal);
+	}
+
+	/**
+	 * Returns a tile whose cost was lowered by the latest edits.
+	 * @param i Index of the tile (0 to getNrOfLowered()-1)
+	 * @return Tile index (x*columns + y)
+	 */
+	public synchronized int getLoweredTile(int i){
+		return loweredTiles[i];
+	}
+
+	/**
+	 * Returns a tile whose cost was raised by the latest edits.
+	 * @param i Index of the tile (0 to getNrOfRaised()-1)
+	 * @return Tile index (x*columns + y)
+	 */
+	public synchronized int getRaisedTile(int i){
+		return raisedTiles[i];
+	}
+
+	/**
+	 * Returns the nr of applied edits, a Pathfinder compares it with the version that it has seen.
+	 */
+	public int getVersion(){
+		return version;
+	}
+
+	/**
+	 * Checks if the cost of a tile was raised by the latest edits (i.e. if paths through the tile may be blocked or more expensive).
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 */
+	public boolean isRaised(int x, int y){
+		int tile = x*columns + y;
+		return changed[tile] && collisionMatrix[x][y] > oldCost[tile];
+	}
+
+	/**
+	 * Requests a change of the cost of a tile, it is applied at the start of the next step of the simulation.
+	 * @param x X-pos of tile
+	 * @param y Y-pos of tile
+	 * @param cost New cost (Integer.MAX_VALUE makes the tile a wall)
+	 * @throws IllegalArgumentException If the tile is outside of the collisionMatrix or the cost is lower than OSM_Reader.COLLISION_COST_MIN
+	 */
+	public void setCost(int x, int y, int cost){
+		if(x < 0 || y < 0 || x >= collisionMatrix.length || y >= columns){
+			throw new IllegalArgumentException("Tile (" + x + "," + y + ") is outside of the collision matrix");
+		}
+		//Lower costs would make the heuristics of the pathfinders overestimate (and moves could get negative costs)
+		if(cost < OSM_Reader.COLLISION_COST_MIN){
+			throw new IllegalArgumentException("Cost " + cost + " is lower than the lowest tile cost (" + OSM_Reader.COLLISION_COST_MIN + ")");
+		}
+		requested.add(new int[]{x, y, cost});
+	}
+
+	/**
+	 * Returns the statistics of the edits.
+	 */
+	@Override
+	public synchronized String toString(){
+		return version + " edits applied, " + invalidatedPaths + " paths invalidated, " + removedPaths + " cached paths removed, "
+				+ pathfinders.size() + "/" + maxPathfinders + " incremental pathfinders";
+	}
+}
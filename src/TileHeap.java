@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * TileHeap is a binary min-heap of tile indices (see Pathfinder) ordered by an integer key (e.g. F-Cost).
+ * It keeps track of which heap slot every tile is stored in so that the key of a tile can be
+ * decreased in O(log n) instead of removing and re-adding the tile (keys can also be increased and tiles removed, see IncrementalPathfinder).
+ *
+ * @version 18-10-2026
+ */
+public class TileHeap {
+	private int[] tiles;	//Tile index stored in each heap slot
+	private int[] keys;		//Key of each heap slot
+	private int[] slot;		//Heap slot of each tile (-1 if tile isn't in the heap)
+	private int size;
+
+	/**
+	 * Creates an empty heap.
+	 * @param nrOfTiles Nr of tiles that can be stored (tile indices must be lower than this)
+	 */
+	public TileHeap(int nrOfTiles){
+		tiles = new int[nrOfTiles];
+		keys  = new int[nrOfTiles];
+		slot  = new int[nrOfTiles];
+		Arrays.fill(slot, -1);
+	}
+
+	/**
+	 * Adds a tile to the heap.
+	 * @param tile Tile index (must not already be in the heap)
+	 * @param key Key of the tile
+	 */
+	public void add(int tile, int key){
+		int pos = size++;
+		tiles[pos] = tile;
+		keys[pos]  = key;
+		slot[tile] = pos;
+		siftUp(pos);
+	}
+
+	/**
+	 * Changes the key of a tile that is in the heap (the new key may be higher or lower than the current key).
+	 * @param tile Tile index
+	 * @param key New key
+	 */
+	public void changeKey(int tile, int key){
+		int pos = slot[tile];
+		int oldKey = keys[pos];
+		keys[pos] = key;
+		if(key < oldKey){
+			siftUp(pos);
+		}
+		else{
+			siftDown(pos);
+		}
+	}
+
+	/**
+	 * Removes all tiles from the heap. Only the tiles that currently are in the heap are touched.
+	 */
+	public void clear(){
+		for(int i = 0; i < size; i++){
+			slot[tiles[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Checks if a tile is in the heap.
+	 * @param tile Tile index
+	 */
+	public boolean contains(int tile){
+		return slot[tile] >= 0;
+	}
+
+	/**
+	 * Decreases the key of a tile that is in the heap.
+	 * @param tile Tile index
+	 * @param key New key (must not be higher than the current key)
+	 */
+	public void decreaseKey(int tile, int key){
+		int pos = slot[tile];
+		keys[pos] = key;
+		siftUp(pos);
+	}
+
+	/**
+	 * Returns the key of a tile that is in the heap.
+	 * @param tile Tile index
+	 */
+	public int getKey(int tile){
+		return keys[slot[tile]];
+	}
+
+	/**
+	 * Returns true if the heap is empty.
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * Returns the lowest key in the heap (heap must not be empty).
+	 */
+	public int peekKey(){
+		return keys[0];
+	}
+
+	/**
+	 * Removes and returns the tile with the lowest key (heap must not be empty).
+	 * @return Tile index
+	 */
+	public int poll(){
+		int tile = tiles[0];
+		slot[tile] = -1;
+		size--;
+		if(size > 0){
+			tiles[0] = tiles[size];
+			keys[0]  = keys[size];
+			slot[tiles[0]] = 0;
+			siftDown(0);
+		}
+		return tile;
+	}
+
+	/**
+	 * Removes a tile from the heap.
+	 * @param tile Tile index (must be in the heap)
+	 */
+	public void remove(int tile){
+		int pos = slot[tile];
+		slot[tile] = -1;
+		size--;
+		//Fill the hole with the last entry and move it to where it belongs
+		if(pos < size){
+			tiles[pos] = tiles[size];
+			keys[pos]  = keys[size];
+			slot[tiles[pos]] = pos;
+			siftDown(pos);
+			siftUp(pos);
+		}
+	}
+
+	/**
+	 * Returns the nr of tiles in the heap.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Moves the entry at pos down until its children have higher or equal keys.
+	 */
+	private void siftDown(int pos){
+		int tile = tiles[pos];
+		int key  = keys[pos];
+		int child;
+		while((child = 2*pos + 1) < size){
+			if(child + 1 < size && keys[child+1] < keys[child]){
+				child++;
+			}
+			if(keys[child] >= key){
+				break;
+			}
+			tiles[pos] = tiles[child];
+			keys[pos]  = keys[child];
+			slot[tiles[pos]] = pos;
+			pos = child;
+		}
+		tiles[pos] = tile;
+		keys[pos]  = key;
+		slot[tile] = pos;
+	}
+
+	/**
+	 * Moves the entry at pos up until its parent has a lower or equal key.
+	 */
+	private void siftUp(int pos){
+		int tile = tiles[pos];
+		int key  = keys[pos];
+		int parentPos;
+		while(pos > 0 && keys[parentPos = (pos-1)/2] > key){
+			tiles[pos] = tiles[parentPos];
+			keys[pos]  = keys[parentPos];
+			slot[tiles[pos]] = pos;
+			pos = parentPos;
+		}
+		tiles[pos] = tile;
+		keys[pos]  = key;
+		slot[tile] = pos;
+	}
+}